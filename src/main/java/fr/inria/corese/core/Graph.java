@@ -5,7 +5,13 @@ import fr.inria.corese.core.edge.EdgeTripleNode;
 import fr.inria.corese.core.edge.TripleNode;
 import fr.inria.corese.core.elasticsearch.EdgeChangeListener;
 import fr.inria.corese.core.index.EdgeManagerIndexer;
+import fr.inria.corese.core.index.GraphSnapshot;
+import fr.inria.corese.core.index.GraphStatistics;
+import fr.inria.corese.core.index.ReachabilityIndex;
+import fr.inria.corese.core.index.TextIndex;
+import fr.inria.corese.core.index.NodeDictionary;
 import fr.inria.corese.core.index.NodeManager;
+import fr.inria.corese.core.index.PackedNodeTable;
 import fr.inria.corese.core.kgram.api.core.*;
 import fr.inria.corese.core.kgram.api.query.Graphable;
 import fr.inria.corese.core.kgram.core.Distinct;
@@ -15,6 +21,7 @@ import fr.inria.corese.core.kgram.tool.MetaIterator;
 import fr.inria.corese.core.logic.*;
 import fr.inria.corese.core.producer.DataProducer;
 import fr.inria.corese.core.query.QueryCheck;
+import fr.inria.corese.core.query.QueryPlanCache;
 import fr.inria.corese.core.sparql.api.IDatatype;
 import fr.inria.corese.core.sparql.datatype.DatatypeMap;
 import fr.inria.corese.core.sparql.exceptions.EngineException;
@@ -30,7 +37,10 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -97,7 +107,10 @@ public class Graph extends GraphObject implements
     public static boolean RDFS_ENTAILMENT_DEFAULT = true;
     // same triple s p o have same reference node in different named graphs
     public static boolean TRIPLE_UNIQUE_NAME = true;
-    static long blankid = 0;
+    // edge index store edges as packed int columns of node id
+    public static boolean PACKED_EDGE_DEFAULT = false;
+    // shared by all graphs: blank node id are unique in the JVM
+    static final AtomicLong blankid = new AtomicLong();
     static long triplerefid = 0;
     static boolean byIndexDefault = true;
     private static Logger logger = LoggerFactory.getLogger(Graph.class);
@@ -121,18 +134,9 @@ public class Graph extends GraphObject implements
     EdgeManagerIndexer ruleEdgeIndex;
     // predefined individual Node such as kg:default named graph
     HashMap<String, Node> system;
-    // key -> URI Node ; member of graph nodes (subject/object)
-    Hashtable<String, Node> individual;
-    // label -> Blank Node ; member of graph nodes (subject/object)
-    Hashtable<String, Node> blank;
-    // Triple Reference Node
-    Hashtable<String, Node> triple;
-    // named graph id nodes: key -> named graph id Node (possibly not subject/object Node)
-    Hashtable<String, Node> graph;
-    // property nodes: label -> property Node (possibly not subject/object Node)
-    Hashtable<String, Node> property;
-    // key -> Node for value management in external memory
-    Map<String, Node> vliteral;
+    // node tables: URI, blank, triple reference, named graph id, property
+    // literal and key -> Node for value management in external memory
+    NodeDictionary dictionary;
     ValueResolver values;
     // Node iterator for named Graph
     NodeGraphIndex nodeGraphIndex;
@@ -149,8 +153,6 @@ public class Graph extends GraphObject implements
     boolean byIndex = byIndexDefault;
     // number of edges
     int size = 0;
-    // counter for Graph Node index
-    int nodeIndex = 0;
     List<Edge> emptyEdgeList;
     // Manager of sparql edge iterator with possible default graph specification
     DataStore dataStore;
@@ -166,15 +168,21 @@ public class Graph extends GraphObject implements
     // Index of subject with index=0
     private EdgeManagerIndexer subjectIndex;
     private EdgeManagerIndexer namedGraphIndex;
-    // allocate Node (1 and 01 have different Node)
-    private SortedMap<IDatatype, Node> literalNodeManager;
-    // allocate index (1 and 01 have same index)
-    private SortedMap<IDatatype, Node> literalIndexManager;
     private List<GraphListener> listenerList;
     // @deprecated history management
     private Context context;
     // semantic distance in class/property Hierarchy
     private Distance classDistance, propertyDistance;
+    // statistics of query planner Query.QP_STATS_BASED
+    private GraphStatistics statistics;
+    // predicate label -> reachability index of transitive predicate
+    private Map<String, ReachabilityIndex> reachabilityMap = new ConcurrentHashMap<>();
+    // predicate -> text index of objects
+    private Map<String, TextIndex> textIndexMap = new ConcurrentHashMap<>();
+    // incremented by edge insert, delete and clear
+    private final AtomicLong version = new AtomicLong();
+    // compiled queries of QueryProcess.query(String) on this graph
+    private QueryPlanCache queryPlanCache;
     private boolean isSkolem = SKOLEM_DEFAULT;
     private int tagCount = 0;
     // skolem
@@ -206,6 +214,10 @@ public class Graph extends GraphObject implements
     private ArrayList<Node> systemNode;
     // @todo external memory literal value manager
     private IStorage storageMgr;
+    // edge index store edges as packed int columns of node id
+    private boolean packedEdge = PACKED_EDGE_DEFAULT;
+    // node id table shared by packed edge lists
+    private PackedNodeTable packedNodeTable;
 
     public Graph() {
         this(LENGTH);
@@ -233,26 +245,16 @@ public class Graph extends GraphObject implements
         // indexManager allocate same Node index to 1, 01 (and also 1.0 as corese default mode)
         // Literals (all of them) comparator = CompareNode and compareTo()
         // different Node allocated when different value or different datatype or different label
-        setLiteralNodeManager(Collections.synchronizedSortedMap(new TreeNode()));
         // Literal numbers and booleans to manage Node index:
         // comparator = CompareIndex and compare()
         // 1, 01, 1.0 have same index, 1 double has different index
         // same index means that SPARQL perform a join on nodes with same index
         // when DatatypeMap.SPARQLCompliant = false (true), 1 and 1.0 have same (different) index
         // corese default is false, which means that corese.core.sparql perform a join on 1 and 1.0 (which is not standard)
-        setLiteralIndexManager(Collections.synchronizedSortedMap(new TreeNode(DatatypeMap.DATATYPE_ENTAILMENT)));
-        // deprecated:
-        vliteral = Collections.synchronizedMap(new HashMap<>());
-        // URI Node
-        individual = new Hashtable<>();
-        // Blank Node
-        blank = new Hashtable<>();
-        // rdf star triple reference node
-        triple = new Hashtable<>();
-        // Named Graph Node
-        graph = new Hashtable<>();
-        // Property Node
-        property = new Hashtable<>();
+        // URI, Blank, rdf star triple reference, Named Graph, Property and Literal Node
+        // concurrent tables, lookup does not lock
+        dictionary = new NodeDictionary(new TreeNode().comparator(),
+                new TreeNode(DatatypeMap.DATATYPE_ENTAILMENT).comparator());
 
         // Index of nodes of named graphs
         // Use case: SPARQL Property Path
@@ -274,6 +276,33 @@ public class Graph extends GraphObject implements
         return new Graph();
     }
 
+    /**
+     * Graph whose edge index store edges as packed int columns
+     * Edge objects are created on demand when iterated
+     * Use case: large graph where edge objects dominate heap
+     */
+    public static Graph createPacked() {
+        Graph g = new Graph();
+        g.setPackedEdge(true);
+        return g;
+    }
+
+    /**
+     * Reload graph from binary snapshot written by save()
+     * File is memory mapped and edge lists are not sorted again
+     */
+    public static Graph open(String path) throws IOException {
+        return GraphSnapshot.open(path);
+    }
+
+    /**
+     * Write binary snapshot of graph: node dictionary and sorted edge index
+     * Graph with rdf star or tuple edges is not supported
+     */
+    public void save(String path) throws IOException {
+        GraphSnapshot.save(this, path);
+    }
+
     /**
      * @param b true for RDFS entailment
      */
@@ -451,6 +480,10 @@ public class Graph extends GraphObject implements
         edgeChangeListeners.add(el);
     }
 
+    public void removeEdgeChangeListener(EdgeChangeListener el) {
+        edgeChangeListeners.remove(el);
+    }
+
     /**
      * Return copy edges in specific objects
      *
@@ -802,12 +835,12 @@ public class Graph extends GraphObject implements
 
         sb.appendPNL("kg:edge     ", size());
         sb.appendPNL("kg:node     ", nbNodes());
-        sb.appendPNL("kg:graph    ", graph.size());
+        sb.appendPNL("kg:graph    ", nbGraphNodes());
         sb.appendPNL("kg:property ", getSubjectIndex().size());
-        sb.appendPNL("kg:uri      ", individual.size());
-        sb.appendPNL("kg:bnode    ", blank.size());
-        sb.appendPNL("kg:triple    ", triple.size());
-        sb.appendPNL("kg:literal  ", getLiteralNodeManager().size());
+        sb.appendPNL("kg:uri      ", nbIndividuals());
+        sb.appendPNL("kg:bnode    ", nbBlanks());
+        sb.appendPNL("kg:triple    ", nbTriples());
+        sb.appendPNL("kg:literal  ", nbLiterals());
         sb.appendPNL("kg:nodeManager  ", getNodeManager().isEffective());
         if (getNodeManager().isEffective()) {
             sb.appendPNL("kg:nbSubject  ", getNodeManager().size());
@@ -948,6 +981,8 @@ public class Graph extends GraphObject implements
             // sort edge list and reduce (delete duplicate edges)
             index();
         }
+        // merge edge delta before readers iterate edge lists
+        mergeDelta();
 
         if (getEventManager().isUpdate()) {
             // use case: previously load or sparql update
@@ -1108,6 +1143,12 @@ public class Graph extends GraphObject implements
         }
     }
 
+    void mergeDelta() {
+        for (EdgeManagerIndexer ei : getIndexList()) {
+            ei.mergeDelta();
+        }
+    }
+
     void basicIndex() {
         for (EdgeManagerIndexer ei : getIndexList()) {
             ei.index();
@@ -1323,6 +1364,38 @@ public class Graph extends GraphObject implements
         return ent;
     }
 
+    /**
+     * Load: append edges of predicate p at the end of the edge lists
+     * Edges may be duplicate: graph is set as not indexed, edge lists are
+     * sorted and reduced at next init()
+     * Use case: ParallelLoad merge the edges created by its threads
+     */
+    public void append(Node p, List<Edge> list) {
+        if (list.isEmpty()) {
+            return;
+        }
+        setIndexed(false);
+        if (getListenerList() != null) {
+            // listener may reject edges
+            for (Edge edge : list) {
+                addEdge(edge);
+            }
+            return;
+        }
+        addPropertyNode(p);
+        for (EdgeManagerIndexer ei : getIndexList()) {
+            ei.append(p, list);
+        }
+        size += list.size();
+        for (Edge edge : list) {
+            getEventManager().process(Event.Insert, edge);
+            manager.onInsert(edge.getGraph(), edge);
+            for (EdgeChangeListener listener : edgeChangeListeners) {
+                listener.onEdgeInsert(edge);
+            }
+        }
+    }
+
     public void addOpt(Node p, List<Edge> list) {
         if (list.isEmpty()) {
             return;
@@ -1510,7 +1583,7 @@ public class Graph extends GraphObject implements
     }
 
     public int getNodeIndex() {
-        return nodeIndex;
+        return dictionary.getIndex();
     }
 
     public int nbResources() {
@@ -1518,19 +1591,19 @@ public class Graph extends GraphObject implements
     }
 
     public int nbIndividuals() {
-        return individual.size();
+        return dictionary.size(NodeDictionary.URI);
     }
 
     public int nbBlanks() {
-        return blank.size();
+        return dictionary.size(NodeDictionary.BLANK);
     }
 
     public int nbTriples() {
-        return triple.size();
+        return dictionary.size(NodeDictionary.TRIPLE);
     }
 
     public int nbLiterals() {
-        return getLiteralNodeManager().size();
+        return dictionary.literalSize();
     }
 
     public void setSize(int n) {
@@ -1676,6 +1749,9 @@ public class Graph extends GraphObject implements
         if (node != null) {
             return node;
         }
+        if (create && add) {
+            return addResourceNode(key, dt);
+        }
         node = getResource(key, dt.getLabel());
         if (node == null && create) {
             node = createNode(key, dt);
@@ -1723,10 +1799,10 @@ public class Graph extends GraphObject implements
             return node;
         }
         if (create) {
-            node = createNode(key, dt);
             if (add) {
-                addLiteralNode(dt, node);
+                return addLiteralNode(key, dt);
             }
+            node = createNode(key, dt);
         }
         return node;
     }
@@ -1754,9 +1830,9 @@ public class Graph extends GraphObject implements
 
     // resource or blank
     public boolean isIndividual(Node node) {
-        return individual.containsKey(getID(node))
-                || blank.containsKey(node.getLabel())
-                || triple.containsKey(node.getLabel());
+        return dictionary.contains(NodeDictionary.URI, getID(node))
+                || dictionary.contains(NodeDictionary.BLANK, node.getLabel())
+                || dictionary.contains(NodeDictionary.TRIPLE, node.getLabel());
     }
 
     // resource node
@@ -1765,11 +1841,11 @@ public class Graph extends GraphObject implements
     }
 
     Node getNode(String key, String name) {
-        return individual.get(key);
+        return dictionary.get(NodeDictionary.URI, key);
     }
 
     void addNode(IDatatype dt, Node node) {
-        individual.put(getID(node), node);
+        dictionary.put(NodeDictionary.URI, getID(node), node);
     }
 
     public Node getBlankNode1(String name) {
@@ -1786,28 +1862,28 @@ public class Graph extends GraphObject implements
     }
 
     public Node getBlankNodeBasic(String name) {
-        return blank.get(name);
+        return dictionary.get(NodeDictionary.BLANK, name);
     }
 
     // named graph id may be a bnode
     public Node getBlankNodeGraph(String name) {
-        return graph.get(name);
+        return dictionary.get(NodeDictionary.GRAPH, name);
     }
 
     public Node getTripleNode(String name) {
-        return triple.get(name);
+        return dictionary.get(NodeDictionary.TRIPLE, name);
     }
 
     void addBlankNode(IDatatype dt, Node node) {
-        blank.put(node.getLabel(), node);
+        dictionary.put(NodeDictionary.BLANK, node.getLabel(), node);
     }
 
     void addTripleNode(IDatatype dt, Node node) {
-        triple.put(node.getLabel(), node);
+        dictionary.put(NodeDictionary.TRIPLE, node.getLabel(), node);
     }
 
     public void removeTripleNode(Node node) {
-        triple.remove(node.getLabel());
+        dictionary.remove(NodeDictionary.TRIPLE, node.getLabel());
     }
 
     String getID(Node node) {
@@ -1842,29 +1918,34 @@ public class Graph extends GraphObject implements
         return basicAddGraph(label, false);
     }
 
+    /**
+     * Two threads that add the same named graph get the same node
+     */
     Node basicAddGraph(String label, boolean bnode) {
         String key = getID(label);
         Node node = getGraphNode(key, label);
         if (node != null) {
             return node;
         }
-        if (bnode || isBlank(label)) {
-            node = getBlankNodeBasic(label);
-            if (node == null) {
-                IDatatype dt = DatatypeMap.createBlank(label);
-                node = createNode(key, dt);
-                indexNode(dt, node);
-            }
-        } else {
-            node = getResource(key, label);
-            if (node == null) {
-                IDatatype dt = DatatypeMap.createResource(label);
-                node = createNode(key, dt);
-                indexNode(dt, node);
+        return dictionary.computeIfAbsent(NodeDictionary.GRAPH, key, k -> {
+            Node gnode;
+            if (bnode || isBlank(label)) {
+                gnode = getBlankNodeBasic(label);
+                if (gnode == null) {
+                    IDatatype dt = DatatypeMap.createBlank(label);
+                    gnode = createNode(k, dt);
+                    indexNode(dt, gnode);
+                }
+            } else {
+                gnode = getResource(k, label);
+                if (gnode == null) {
+                    IDatatype dt = DatatypeMap.createResource(label);
+                    gnode = createNode(k, dt);
+                    indexNode(dt, gnode);
+                }
             }
-        }
-        graph.put(key, node);
-        return node;
+            return gnode;
+        });
     }
 
     boolean isBlank(String label) {
@@ -1872,21 +1953,33 @@ public class Graph extends GraphObject implements
     }
 
     Node basicAddGraphNode(Node node) {
-        graph.put(node.getLabel(), node);
+        dictionary.put(NodeDictionary.GRAPH, node.getLabel(), node);
         return node;
     }
 
     Node basicAddResource(String label) {
-        Node node = getResource(label);
+        String key = getID(label);
+        Node node = getNode(key, label);
         if (node != null) {
-            add(node.getDatatypeValue(), node);
             return node;
         }
-        IDatatype dt = DatatypeMap.createResource(label);
-        String key = getID(label);
-        node = createNode(key, dt);
-        add(dt, node);
-        return node;
+        return addResourceNode(key, DatatypeMap.createResource(label));
+    }
+
+    /**
+     * Record resource node, node may already exist as named graph, property
+     * or system node, otherwise it is created
+     * Two threads that add the same resource get the same node
+     */
+    Node addResourceNode(String key, IDatatype dt) {
+        return dictionary.computeIfAbsent(NodeDictionary.URI, key, k -> {
+            Node node = getResource(k, dt.getLabel());
+            if (node == null) {
+                node = createNode(k, dt);
+            }
+            indexNode(node.getDatatypeValue(), node);
+            return node;
+        });
     }
 
     Node basicAddProperty(String label) {
@@ -1894,14 +1987,15 @@ public class Graph extends GraphObject implements
         if (node != null) {
             return node;
         }
-        node = getResource(label);
-        if (node == null) {
-            IDatatype dt = DatatypeMap.createResource(label);
-            node = buildNode(dt);
-            indexNode(dt, node);
-        }
-        property.put(label, node);
-        return node;
+        return dictionary.computeIfAbsent(NodeDictionary.PROPERTY, label, k -> {
+            Node pnode = getResource(label);
+            if (pnode == null) {
+                IDatatype dt = DatatypeMap.createResource(label);
+                pnode = buildNode(dt);
+                indexNode(dt, pnode);
+            }
+            return pnode;
+        });
     }
 
     Node basicAddBlank1(String label) {
@@ -1923,48 +2017,49 @@ public class Graph extends GraphObject implements
         Node node = getBlankNodeBasic(label);
         if (node != null) {
             return node;
-        } else {
-            node = getBlankNodeGraph(label);
         }
-        if (node == null) {
-            IDatatype dt = DatatypeMap.createBlank(label);
-            if (dt != null) {
-                node = buildNode(dt);
-                indexNode(dt, node);
-                addBlankNode(dt, node);
+        return dictionary.computeIfAbsent(NodeDictionary.BLANK, label, k -> {
+            Node bnode = getBlankNodeGraph(label);
+            if (bnode == null) {
+                IDatatype dt = DatatypeMap.createBlank(label);
+                if (dt != null) {
+                    bnode = buildNode(dt);
+                    indexNode(dt, bnode);
+                }
             }
-        } else {
-            // node is named graph id but not a graph node (subject/object)
+            // else node is named graph id but not a graph node (subject/object)
             // register node as graph node
-            addBlankNode(node.getDatatypeValue(), node);
-        }
-
-        return node;
+            return bnode;
+        });
     }
 
     Node basicAddTripleReference(String label) {
         Node node = getTripleNode(label);
-        if (node == null) {
-            IDatatype dt = createTripleReference(label);
-            node = buildNode(dt);
-            indexNode(dt, node);
-            addTripleNode(dt, node);
+        if (node != null) {
+            return node;
         }
-        return node;
+        return dictionary.computeIfAbsent(NodeDictionary.TRIPLE, label, k -> {
+            IDatatype dt = createTripleReference(label);
+            Node tnode = buildNode(dt);
+            indexNode(dt, tnode);
+            return tnode;
+        });
     }
 
     Node basicAddTripleReference(Node s, Node p, Node o) {
         String label = reference(s, p, o);
         Node node = getTripleNode(label);
-        if (node == null) {
-            IDatatype dt = createTripleReference(label);
-            node = new TripleNode(s, p, o);
-            node.setDatatypeValue(dt);
-            dt.setEdge(node.getEdge());
-            indexNode(dt, node);
-            addTripleNode(dt, node);
+        if (node != null) {
+            return node;
         }
-        return node;
+        return dictionary.computeIfAbsent(NodeDictionary.TRIPLE, label, k -> {
+            IDatatype dt = createTripleReference(label);
+            Node tnode = new TripleNode(s, p, o);
+            tnode.setDatatypeValue(dt);
+            dt.setEdge(tnode.getEdge());
+            indexNode(dt, tnode);
+            return tnode;
+        });
     }
 
     public void add(Node node) {
@@ -1996,14 +2091,33 @@ public class Graph extends GraphObject implements
 
     public void addLiteralNode(IDatatype dt, Node node) {
         if (valueOut) {
-            vliteral.put(node.getKey(), node);
+            dictionary.put(NodeDictionary.LITERAL, node.getKey(), node);
             indexNode(dt, node);
         } else {
-            getLiteralNodeManager().put(dt, node);
+            dictionary.putLiteral(dt, node);
             indexLiteralNode(dt, node);
         }
     }
 
+    /**
+     * Return node of literal, create and record it if needed
+     * Two threads that add the same literal get the same node
+     */
+    Node addLiteralNode(String key, IDatatype dt) {
+        if (valueOut) {
+            return dictionary.computeIfAbsent(NodeDictionary.LITERAL, key, k -> {
+                Node node = createNode(k, dt);
+                indexNode(dt, node);
+                return node;
+            });
+        }
+        return dictionary.computeLiteralIfAbsent(dt, d -> {
+            Node node = createNode(key, d);
+            indexLiteralNode(d, node);
+            return node;
+        });
+    }
+
     /**
      * 01 and 1 have same index true and '1'^^xsd:boolean have same index date
      * with Z and date with +00:00 have same value but different label hence
@@ -2023,8 +2137,14 @@ public class Graph extends GraphObject implements
         if (isSameIndexAble(dt)) {
             Node n = getLiteralIndexManager().get(dt);
             if (n == null) {
-                getLiteralIndexManager().put(dt, node);
+                boolean index = node.getIndex() == -1;
+                // node is indexed before it is visible to other threads
                 indexNode(dt, node);
+                n = getLiteralIndexManager().putIfAbsent(dt, node);
+                if (n != null && index) {
+                    // another thread recorded same value: share its index
+                    node.setIndex(n.getIndex());
+                }
             } else if (node.getIndex() == -1) {
                 // assign same index as existing same value
                 node.setIndex(n.getIndex());
@@ -2045,9 +2165,9 @@ public class Graph extends GraphObject implements
 
     public Node getLiteralNode(String key, IDatatype dt) {
         if (valueOut) {
-            return vliteral.get(key);
+            return dictionary.get(NodeDictionary.LITERAL, key);
         } else {
-            return getLiteralNodeManager().get(dt);
+            return dictionary.getLiteral(dt);
         }
     }
 
@@ -2072,34 +2192,34 @@ public class Graph extends GraphObject implements
     }
 
     Node getGraphNode(String key, String label) {
-        return graph.get(key);
+        return dictionary.get(NodeDictionary.GRAPH, key);
     }
 
     public void addGraphNode(Node gNode) {
         if (!containsCoreseNode(gNode)) {
             //graph.put(gNode.getLabel(), gNode);
-            graph.put(getID(gNode), gNode);
+            dictionary.put(NodeDictionary.GRAPH, getID(gNode), gNode);
             indexNode(gNode.getValue(), gNode);
         }
     }
 
     public boolean containsCoreseNode(Node node) {
         //return graph.containsKey(node.getLabel());
-        return graph.containsKey(getID(node));
+        return dictionary.contains(NodeDictionary.GRAPH, getID(node));
     }
 
     public Node getPropertyNode(String label) {
-        return property.get(label);
+        return dictionary.get(NodeDictionary.PROPERTY, label);
     }
 
     @Override
     public Node getPropertyNode(Node p) {
-        return property.get(p.getLabel());
+        return dictionary.get(NodeDictionary.PROPERTY, p.getLabel());
     }
 
     public void addPropertyNode(Node pNode) {
-        if (!property.containsKey(pNode.getLabel())) {
-            property.put(pNode.getLabel(), pNode);
+        if (!dictionary.contains(NodeDictionary.PROPERTY, pNode.getLabel())) {
+            dictionary.put(NodeDictionary.PROPERTY, pNode.getLabel(), pNode);
             indexNode(pNode.getValue(), pNode);
         }
     }
@@ -2550,7 +2670,7 @@ public class Graph extends GraphObject implements
     }
 
     public Iterable<Node> getGraphNodes() {
-        return graph.values();
+        return dictionary.values(NodeDictionary.GRAPH);
     }
 
     /**
@@ -2602,23 +2722,24 @@ public class Graph extends GraphObject implements
     }
 
     public int nbGraphNodes() {
-        return graph.size();
+        return dictionary.size(NodeDictionary.GRAPH);
     }
 
     public Iterable<Node> getNodes() {
-        return individual.values();
+        return dictionary.values(NodeDictionary.URI);
     }
 
     public Iterable<Node> getBlankNodes() {
-        return blank.values();
+        return dictionary.values(NodeDictionary.BLANK);
     }
 
     public Iterable<Node> getTripleNodes() {
-        return triple.values();
+        return dictionary.values(NodeDictionary.TRIPLE);
     }
 
-    public Hashtable<String, Node> getTripleNodeMap() {
-        return triple;
+    // label -> triple reference node
+    public Map<String, Node> getTripleNodeMap() {
+        return dictionary.getTable(NodeDictionary.TRIPLE);
     }
 
     /**
@@ -2642,9 +2763,9 @@ public class Graph extends GraphObject implements
 
     public Iterable<Node> getLiteralNodes() {
         if (valueOut) {
-            return vliteral.values();
+            return dictionary.values(NodeDictionary.LITERAL);
         }
-        return getLiteralNodeManager().values();
+        return dictionary.literalValues();
     }
 
     /**
@@ -2757,8 +2878,19 @@ public class Graph extends GraphObject implements
         return TRIPLE_REF + triplerefid++;
     }
 
-    synchronized String blankID() {
-        return BLANK + blankid++;
+    String blankID() {
+        return BLANK + blankid.getAndIncrement();
+    }
+
+    public static long getBlankID() {
+        return blankid.get();
+    }
+
+    /**
+     * Graph snapshot: blank node id of reloaded graph must not be generated again
+     */
+    public static void declareBlankID(long n) {
+        blankid.accumulateAndGet(n, Math::max);
     }
 
     public String skolem(String id) {
@@ -2793,7 +2925,7 @@ public class Graph extends GraphObject implements
     }
 
     public void deleteGraph(String name) {
-        graph.remove(getID(name));
+        dictionary.remove(NodeDictionary.GRAPH, getID(name));
     }
 
     void indexNode(IDatatype dt, Node node) {
@@ -2807,7 +2939,7 @@ public class Graph extends GraphObject implements
 
     void index(IDatatype dt, Node node) {
         if (node.getIndex() == -1) {
-            node.setIndex(nodeIndex++);
+            node.setIndex(dictionary.nextIndex());
         }
     }
 
@@ -2906,7 +3038,7 @@ public class Graph extends GraphObject implements
      */
     public List<Graph> split() {
 
-        if (graph.size() == 1) {
+        if (nbGraphNodes() == 1) {
             ArrayList<Graph> list = new ArrayList<Graph>();
             list.add(this);
             return list;
@@ -3082,6 +3214,9 @@ public class Graph extends GraphObject implements
         for (EdgeManagerIndexer t : getIndexList()) {
             t.clear();
         }
+        if (packedNodeTable != null) {
+            packedNodeTable.clear();
+        }
         manager.onClear();
         clearDistance();
 
@@ -3095,11 +3230,11 @@ public class Graph extends GraphObject implements
     }
 
     void clearNodes() {
-        individual.clear();
-        blank.clear();
-        triple.clear();
-        getLiteralNodeManager().clear();
-        property.clear();
+        dictionary.clear(NodeDictionary.URI);
+        dictionary.clear(NodeDictionary.BLANK);
+        dictionary.clear(NodeDictionary.TRIPLE);
+        dictionary.clearLiteral();
+        dictionary.clear(NodeDictionary.PROPERTY);
     }
 
     public boolean clearDefault() {
@@ -3114,11 +3249,11 @@ public class Graph extends GraphObject implements
 
     public boolean dropGraphNames() {
 
-        if (this.graph.isEmpty()) {
+        if (nbGraphNodes() == 0) {
             return false;
         }
 
-        this.graph.clear();
+        dictionary.clear(NodeDictionary.GRAPH);
         return true;
     }
 
@@ -3217,6 +3352,71 @@ public class Graph extends GraphObject implements
         this.propertyDistance = distance;
     }
 
+    /**
+     * Create statistics of query planner when needed, compute them if
+     * they are not valid. They are then updated by edge insert and delete.
+     */
+    synchronized public GraphStatistics setStatistics() {
+        if (statistics == null) {
+            statistics = new GraphStatistics(this);
+        }
+        return statistics.check();
+    }
+
+    public GraphStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Create reachability index of predicate when needed, compute it if it is
+     * not valid. It is then updated by edge insert and delete.
+     * Return null if predicate is not in graph.
+     */
+    public ReachabilityIndex setReachabilityIndex(Node predicate) {
+        Node pred = getPropertyNode(predicate.getLabel());
+        if (pred == null) {
+            return null;
+        }
+        return reachabilityMap.computeIfAbsent(pred.getLabel(),
+                k -> new ReachabilityIndex(this, pred)).check();
+    }
+
+    public ReachabilityIndex getReachabilityIndex(String predicate) {
+        if (reachabilityMap.isEmpty()) {
+            return null;
+        }
+        return reachabilityMap.get(predicate);
+    }
+
+    public Collection<ReachabilityIndex> getReachabilityIndexList() {
+        return reachabilityMap.values();
+    }
+
+    /**
+     * Create text index of predicate objects when needed, compute it if it is
+     * not valid. It is then updated by edge insert and delete.
+     * Return null if predicate is not in graph.
+     */
+    public TextIndex setTextIndex(Node predicate) {
+        Node pred = getPropertyNode(predicate.getLabel());
+        if (pred == null) {
+            return null;
+        }
+        return textIndexMap.computeIfAbsent(pred.getLabel(),
+                k -> new TextIndex(this, pred)).check();
+    }
+
+    public TextIndex getTextIndex(String predicate) {
+        if (textIndexMap.isEmpty()) {
+            return null;
+        }
+        return textIndexMap.get(predicate);
+    }
+
+    public Collection<TextIndex> getTextIndexList() {
+        return textIndexMap.values();
+    }
+
     /**
      * Add a copy of edge Use case: edge comes from another graph,
      * create a local copy of nodes
@@ -3679,11 +3879,32 @@ public class Graph extends GraphObject implements
     }
 
     public void declareUpdate(boolean b) {
+        if (b) {
+            version.incrementAndGet();
+        }
         for (EdgeManagerIndexer ind : getIndexList()) {
             ind.declareUpdate(b);
         }
     }
 
+    /**
+     * Cache of compiled queries of this graph (property QUERY_PLAN_CACHE)
+     */
+    public synchronized QueryPlanCache getQueryPlanCache() {
+        if (queryPlanCache == null) {
+            queryPlanCache = new QueryPlanCache();
+        }
+        return queryPlanCache;
+    }
+
+    /**
+     * Graph version, incremented by edge insert, delete and clear
+     * Use case: invalidate caches of results computed on the graph
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     public void logStart(Query q) {
         if (getListenerList() != null) {
             for (GraphListener gl : getListenerList()) {
@@ -3772,6 +3993,25 @@ public class Graph extends GraphObject implements
         this.metadata = metadata;
     }
 
+    public boolean isPackedEdge() {
+        return packedEdge;
+    }
+
+    /**
+     * To be set before edges are inserted
+     * edge lists already created keep their representation
+     */
+    public void setPackedEdge(boolean b) {
+        packedEdge = b;
+    }
+
+    public synchronized PackedNodeTable getPackedNodeTable() {
+        if (packedNodeTable == null) {
+            packedNodeTable = new PackedNodeTable();
+        }
+        return packedNodeTable;
+    }
+
     public boolean isMetadataNode() {
         return isEdgeMetadata() || isMetadata();
     }
@@ -3797,20 +4037,47 @@ public class Graph extends GraphObject implements
         return new GraphDistance(this).cardinality(ast);
     }
 
+    /**
+     * @deprecated literal nodes are recorded in the node dictionary,
+     * return a sorted copy of literal nodes
+     */
+    @Deprecated
     public SortedMap<IDatatype, Node> getLiteralNodeManager() {
-        return literalNodeManager;
+        SortedMap<IDatatype, Node> map = new TreeNode();
+        for (Node node : dictionary.literalValues()) {
+            map.put(node.getDatatypeValue(), node);
+        }
+        return map;
     }
 
+    /**
+     * @deprecated literal nodes are recorded in the node dictionary,
+     * replace them by the nodes of the map
+     */
+    @Deprecated
     public void setLiteralNodeManager(SortedMap<IDatatype, Node> literal) {
-        this.literalNodeManager = literal;
+        dictionary.clearLiteral();
+        for (Map.Entry<IDatatype, Node> entry : literal.entrySet()) {
+            dictionary.putLiteral(entry.getKey(), entry.getValue());
+        }
     }
 
     public SortedMap<IDatatype, Node> getLiteralIndexManager() {
-        return literalIndexManager;
+        return dictionary.getLiteralIndexMap();
     }
 
+    /**
+     * @deprecated literal index map is recorded in the node dictionary,
+     * replace its content by the content of the map
+     */
+    @Deprecated
     public void setLiteralIndexManager(SortedMap<IDatatype, Node> sliteral) {
-        this.literalIndexManager = sliteral;
+        getLiteralIndexManager().clear();
+        getLiteralIndexManager().putAll(sliteral);
+    }
+
+    public NodeDictionary getNodeDictionary() {
+        return dictionary;
     }
 
     public boolean isAllGraphNode() {
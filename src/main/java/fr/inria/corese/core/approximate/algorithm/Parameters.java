@@ -22,6 +22,12 @@ public class Parameters {
     public static String WN_VER = "3.0";
     public static String DEF_STRING_METRIC = "Lin";
     public static double THRESHOLD = 0.1;
+    // candidates of graph text index (ProducerImpl.APPROXIMATE_INDEX)
+    // default values, overloaded by query pragma
+    // max number of candidates, 0 for no limit
+    public static int CANDIDATE_MAX = 1000;
+    // min ratio of trigrams of query term shared by a candidate
+    public static double CANDIDATE_RECALL = 0.0;
 
     public static void init(ASTQuery ast) {
         //WordNet and POS tagger
@@ -56,6 +62,38 @@ public class Parameters {
         }
     }
 
+    /**
+     * Max number of candidates of text index for query ast:
+     * pragma kg:candidate_max or CANDIDATE_MAX
+     */
+    public static int getCandidateMax(ASTQuery ast) {
+        List<String> max = ast.getApproximateSearchOptions(Pragma.CANDIDATE_MAX);
+        if (check(max)) {
+            try {
+                return Integer.parseInt(max.get(0));
+            } catch (NumberFormatException e) {
+                // default value
+            }
+        }
+        return CANDIDATE_MAX;
+    }
+
+    /**
+     * Min ratio of shared trigrams of candidates of text index for query ast:
+     * pragma kg:candidate_recall or CANDIDATE_RECALL
+     */
+    public static double getCandidateRecall(ASTQuery ast) {
+        List<String> recall = ast.getApproximateSearchOptions(Pragma.CANDIDATE_RECALL);
+        if (check(recall)) {
+            try {
+                return Double.parseDouble(recall.get(0));
+            } catch (NumberFormatException e) {
+                // default value
+            }
+        }
+        return CANDIDATE_RECALL;
+    }
+
     private static boolean check(List<String> list) {
         return list != null && !list.isEmpty();
     }
@@ -648,6 +648,27 @@ public class QuerySolver implements SPARQLEngine {
         return transformer.parse(q);
     }
 
+    /**
+     * Compiler parameters as a String
+     * use case: key of compiled query cache
+     * Flags that init(Query) and query() set on the query and never reset
+     * (rule, path type, detail, debug, optimize, distribute) are part of the
+     * key: a cached query is shared only by solvers with same flags
+     * return null when parameters are not summarized by a String:
+     * pragma, metadata, mappings
+     */
+    public String getCompileSignature() {
+        if ((getPragma() != null && getPragma().size() > 0)
+                || getActualMetadata() != null || getMappings() != null) {
+            return null;
+        }
+        return String.format("%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s",
+                NAMESPACES, NSManager.getVersion(), getBase(), getPlanProfile(),
+                isSPARQLCompliant(), isUseBind(), isBGP(), isAlgebra(), isGenerateMain(),
+                isRule, isPathType(), isDetail(), isDebug(), isOptimize,
+                getProducer() instanceof MetaProducer);
+    }
+
     Transformer createTransformer(Dataset ds) {
         Transformer transformer = transformer();
         setParameter(transformer);
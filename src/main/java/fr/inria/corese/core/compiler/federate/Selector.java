@@ -13,6 +13,8 @@ import fr.inria.corese.core.sparql.triple.parser.Variable;
 import fr.inria.corese.core.compiler.eval.QuerySolver;
 import fr.inria.corese.core.kgram.core.Mapping;
 import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.kgram.tool.NodeImpl;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
 import fr.inria.corese.core.sparql.exceptions.EngineException;
 import fr.inria.corese.core.sparql.triple.cst.LogKey;
 import fr.inria.corese.core.sparql.triple.parser.ASTSelector;
@@ -63,6 +65,13 @@ public class Selector {
     int bnode = 0;
     private int nbEndpoint = FederateVisitor.NB_ENDPOINT;
     private double nbSuccess = FederateVisitor.NB_SUCCESS;
+    // local source selection index, probe patterns missing in index only
+    private SourceIndex index;
+    private List<Constant> serviceList;
+    // variable of probe -> key of pattern in source index
+    HashMap<String, String> indexVariable;
+    // variable of pattern found in source index -> key of pattern
+    HashMap<String, String> indexedVariable;
     
     Selector(FederateVisitor vis, QuerySolver e, ASTQuery ast) {
         this.ast = ast;
@@ -76,6 +85,8 @@ public class Selector {
         predicateVariable = new HashMap<>();
         tripleVariable    = new HashMap<>();
         bgpVariable       = new HashMap<>();
+        indexVariable     = new HashMap<>();
+        indexedVariable   = new HashMap<>();
         if (ast.hasMetadata(Metadata.SPARQL10)) {
             sparql10 = true;
         }
@@ -178,20 +189,33 @@ public class Selector {
             return false;
         }
         Date d1 = new Date();
+        serviceList = list;
+        if (getMappings() == null && ! getVisitor().isIndex() && ! count) {
+            // reused selection is complete: source index is used to compute selection
+            // @count: selection binds number of results, source index records boolean only
+            index = SourceIndex.getSingleton();
+        }
         ASTQuery aa = createSelector(list, false);
         metadata(aa);
         Mappings map;
         
         if (getMappings() == null) {
-            // compute selection
-            Context ct = Context.create().setSelection(true);
-            // source selection inherit timeout if any as parameter sv:timeout=1000
-            ct.inherit(ast.getContext());      
-            if (getVisitor().isFederateIndex()) {
-                ct.setFederateIndex(true);
-            }            
-            map = getQuerySolver().basicQuery(aa, ct);
-            traceLog(map);
+            if (isIndexed()) {
+                // selection found in source index: no probe
+                map = indexSelection(list);
+            } else {
+                // compute selection
+                Context ct = Context.create().setSelection(true);
+                // source selection inherit timeout if any as parameter sv:timeout=1000
+                ct.inherit(ast.getContext());
+                if (getVisitor().isFederateIndex()) {
+                    ct.setFederateIndex(true);
+                }
+                map = getQuerySolver().basicQuery(aa, ct);
+                traceLog(map);
+                record(map);
+            }
+            complete(map);
             getVisitor().setMappings(map);
         }
         else {
@@ -248,6 +272,88 @@ public class Selector {
         return b;
     }
     
+    /**
+     * Pattern in source index for all endpoints: return its probe variable,
+     * no probe is generated, its value is taken from index
+     */
+    Variable indexed(ASTQuery aa, String key, int i) {
+        if (index == null || !index.contains(serviceList, key)) {
+            return null;
+        }
+        Variable var = aa.variable("?b" + i);
+        indexedVariable.put(var.getLabel(), key);
+        return var;
+    }
+    
+    // probe variable is recorded in source index
+    void index(Variable var, String key) {
+        if (index != null && key != null) {
+            indexVariable.put(var.getLabel(), key);
+        }
+    }
+    
+    // every pattern is found in source index
+    boolean isIndexed() {
+        return index != null 
+                && indexedVariable.keySet().containsAll(predicateVariable.values())
+                && indexedVariable.keySet().containsAll(tripleVariable.values())
+                && indexedVariable.keySet().containsAll(bgpVariable.values());
+    }
+    
+    /**
+     * Selection without probe: one Mapping per endpoint
+     */
+    Mappings indexSelection(List<Constant> list) {
+        Mappings map = new Mappings();
+        for (Constant serv : list) {
+            map.add(Mapping.create(NodeImpl.createVariable(SERVER_VAR), serv.getDatatypeValue()));
+        }
+        return map;
+    }
+    
+    /**
+     * Bind variables of patterns found in source index
+     * Selection is then complete and can be reused as is
+     */
+    void complete(Mappings map) {
+        if (indexedVariable.isEmpty()) {
+            return;
+        }
+        for (Mapping m : map) {
+            IDatatype serv = m.getValue(SERVER_VAR);
+            if (serv != null) {
+                for (String var : indexedVariable.keySet()) {
+                    Boolean b = index.get(serv.getLabel(), indexedVariable.get(var));
+                    if (b != null && m.getValue(var) == null) {
+                        m.addNode(NodeImpl.createVariable(var), DatatypeMap.newInstance(b));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Record probe results in source index
+     * endpoint with no result (e.g. error) is not recorded
+     * Index is saved in background
+     */
+    void record(Mappings map) {
+        if (index == null || indexVariable.isEmpty()) {
+            return;
+        }
+        for (Mapping m : map) {
+            IDatatype serv = m.getValue(SERVER_VAR);
+            if (serv != null) {
+                for (String var : indexVariable.keySet()) {
+                    IDatatype val = m.getValue(var);
+                    if (val != null) {
+                        index.put(serv.getLabel(), indexVariable.get(var), val.booleanValue());
+                    }
+                }
+            }
+        }
+    }
+    
     void traceLog(Mappings map) {
         for (List list : getQuerySolver().getLog().getLabelList("Server")) {
             logger.info(list.toString());
@@ -460,15 +566,20 @@ public class Selector {
             if (p.getLabel().equals(ASTQuery.getRootPropertyURI())) {
                 // predicate with variable: skip it
             } else {
-                Variable s = Variable.create("?s");
-                Variable o = Variable.create("?o");
-                Triple t = aa.triple(s, p, o);
+                String key = SourceIndex.key(p);
+                Variable var = indexed(aa, key, i);
+                if (var == null) {
+                    // not found in source index: probe
+                    Variable s = Variable.create("?s");
+                    Variable o = Variable.create("?o");
+                    Triple t = aa.triple(s, p, o);
 
-                Variable var;
-                if (count) {
-                    var = count(aa, bgp, t, i);
-                } else {
-                    var = exist(aa, bgp, t, i);
+                    if (count) {
+                        var = count(aa, bgp, t, i);
+                    } else {
+                        var = exist(aa, bgp, t, i);
+                    }
+                    index(var, key);
                 }
                 declare(p, var);
 
@@ -530,10 +641,16 @@ public class Selector {
                     // reuse former variable name
                     var = new Variable(name);
                 }                
+                else if ((var = indexed(aa, SourceIndex.key(exp), i)) != null) {
+                    // value found in source index
+                    i++;
+                }
                 else if (count) {
                     var = count(aa, bgp, protect(exp), i++);
+                    index(var, SourceIndex.key(exp));
                 } else {
                     var = exist(aa, bgp, protect(exp), i++);
+                    index(var, SourceIndex.key(exp));
                 }
                 
                 declare(t, var);
@@ -621,10 +738,15 @@ public class Selector {
                 // do not duplicate exists {t1 . t2}
                 // reuse variable
                 var = new Variable(name);
+            } else if ((var = indexed(aa, SourceIndex.key(exp), i)) != null) {
+                // value found in source index
+                i++;
             } else if (count) {
                 var = count(aa, bgp, protect(exp), i++);
+                index(var, SourceIndex.key(exp));
             } else {
                 var = exist(aa, bgp, protect(exp), i++);
+                index(var, SourceIndex.key(exp));
             }
             declare(exp, var);
         }
@@ -635,12 +757,16 @@ public class Selector {
         for (Triple t : ast.getTripleList()) {
             if (selectable(t)) {
                 // triple with constant
-
-                Variable var;
-                if (count) {
-                    var = count(aa, bgp, protect(t), i);
-                } else {
-                    var = exist(aa, bgp, protect(t), i);
+                String key = SourceIndex.key(t);
+                Variable var = indexed(aa, key, i);
+                if (var == null) {
+                    // not found in source index: probe
+                    if (count) {
+                        var = count(aa, bgp, protect(t), i);
+                    } else {
+                        var = exist(aa, bgp, protect(t), i);
+                    }
+                    index(var, key);
                 }
                 declare(t, var);
 
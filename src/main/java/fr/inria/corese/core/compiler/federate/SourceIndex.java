@@ -0,0 +1,514 @@
+package fr.inria.corese.core.compiler.federate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.inria.corese.core.compiler.eval.QuerySolver;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.sparql.api.IDatatype;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+import fr.inria.corese.core.sparql.triple.parser.Atom;
+import fr.inria.corese.core.sparql.triple.parser.BasicGraphPattern;
+import fr.inria.corese.core.sparql.triple.parser.Constant;
+import fr.inria.corese.core.sparql.triple.parser.Exp;
+import fr.inria.corese.core.sparql.triple.parser.Triple;
+
+/**
+ * Local source selection index
+ * Record whether endpoint has answer for pattern of source selection:
+ * predicate (?s p ?o), triple with constant (e.g. ?s rdf:type us:Class)
+ * and join of connected triples.
+ * Key of pattern is the SPARQL text of its triples where variables and
+ * blank nodes are renamed ?v0 ?v1 in order of occurrence.
+ * Selector uses fresh entries of the index and sends probes only for
+ * patterns missing in the index, then records probe results.
+ * Entries older than time to live are missing, they are probed again by
+ * Selector or by background refresh.
+ * Index is saved in a text file: endpoint tab time tab 0|1 tab key
+ * Modified index is saved in background every SAVE seconds and when it is
+ * stopped (new index defined, JVM shutdown).
+ *
+ * SourceIndex.define("/data/source.idx");
+ * Property FEDERATE_SOURCE_INDEX = /data/source.idx
+ * Property FEDERATE_SOURCE_INDEX_REFRESH = 3600
+ */
+public class SourceIndex {
+
+    private static Logger logger = LoggerFactory.getLogger(SourceIndex.class);
+    static final String HEADER = "# source index";
+    static final String VAR = "?v";
+    static final String SERVER_VAR = "?serv";
+    // time to live of entry in seconds
+    // Property FEDERATE_SOURCE_INDEX_TTL
+    public static int TTL = 24 * 3600;
+    // period in seconds of background save of modified index
+    // Property FEDERATE_SOURCE_INDEX_SAVE
+    public static int SAVE = 60;
+    // period in seconds of background refresh of expired entries, 0: no refresh
+    // Property FEDERATE_SOURCE_INDEX_REFRESH
+    public static int REFRESH = 0;
+
+    private static SourceIndex singleton;
+    // query solver of background refresh
+    private static QuerySolver refreshSolver;
+    private static boolean shutdownHook = false;
+
+    // endpoint -> pattern key -> entry
+    private Map<String, Map<String, Entry>> table;
+    private String path;
+    private long ttl = TTL * 1000L;
+    private volatile boolean modified = false;
+    // background save and refresh
+    private ScheduledExecutorService service;
+    private ScheduledFuture<?> refresh;
+
+    static class Entry {
+
+        boolean value;
+        long time;
+
+        Entry(boolean value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+
+    public SourceIndex() {
+        table = new ConcurrentHashMap<>();
+    }
+
+    public SourceIndex(String path) {
+        this();
+        this.path = path;
+    }
+
+    /**
+     * Define index used by source selection, load file if any
+     * path = null: no index
+     */
+    public static SourceIndex define(String path) {
+        if (getSingleton() != null) {
+            getSingleton().stop();
+        }
+        if (path == null || path.isEmpty()) {
+            setSingleton(null);
+        } else {
+            SourceIndex index = new SourceIndex(path);
+            if (Files.exists(Paths.get(path))) {
+                try {
+                    index.load(path);
+                } catch (IOException ex) {
+                    logger.error("Source index: " + ex.getMessage());
+                }
+            }
+            index.start();
+            setSingleton(index);
+            shutdownHook();
+        }
+        return getSingleton();
+    }
+
+    /**
+     * Refresh expired entries of index every period seconds with exec
+     * period = 0: no refresh
+     */
+    public static void defineRefresh(QuerySolver exec, int period) {
+        REFRESH = period;
+        refreshSolver = exec;
+        if (getSingleton() != null) {
+            if (period > 0) {
+                getSingleton().startRefresh(exec, period);
+            } else {
+                getSingleton().stopRefresh();
+            }
+        }
+    }
+
+    /**
+     * Stop background tasks of current index and save it
+     */
+    public static void shutdown() {
+        if (getSingleton() != null) {
+            getSingleton().stop();
+        }
+    }
+
+    static synchronized void shutdownHook() {
+        if (!shutdownHook) {
+            shutdownHook = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(SourceIndex::shutdown, "source-index-shutdown"));
+        }
+    }
+
+    public static SourceIndex getSingleton() {
+        return singleton;
+    }
+
+    public static void setSingleton(SourceIndex index) {
+        singleton = index;
+    }
+
+    // ________________________________________________________________
+    //
+    // Pattern key
+
+    /**
+     * Key of predicate: ?v0 p ?v1
+     */
+    static String key(Constant p) {
+        return String.format("%s0 %s %s1 .", VAR, p.getDatatypeValue().toSparql(), VAR);
+    }
+
+    static String key(Triple t) {
+        if (!indexable(t)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        key(t, new HashMap<>(), sb);
+        return sb.toString();
+    }
+
+    /**
+     * Key of bgp of triples, null if bgp contains filter or path
+     */
+    static String key(BasicGraphPattern bgp) {
+        StringBuilder sb = new StringBuilder();
+        HashMap<String, String> map = new HashMap<>();
+        for (Exp exp : bgp) {
+            if (!exp.isTriple() || !indexable(exp.getTriple())) {
+                return null;
+            }
+            if (sb.length() > 0) {
+                sb.append(" ");
+            }
+            key(exp.getTriple(), map, sb);
+        }
+        return sb.toString();
+    }
+
+    static boolean indexable(Triple t) {
+        return !t.isPath() && !t.getPredicate().isVariable()
+                && indexable(t.getSubject()) && indexable(t.getObject());
+    }
+
+    static boolean indexable(Atom at) {
+        return at.isVariable() || at.isBlankNode() || (at.isConstant() && !at.isTripleWithTriple());
+    }
+
+    static void key(Triple t, HashMap<String, String> map, StringBuilder sb) {
+        sb.append(key(t.getSubject(), map)).append(" ")
+                .append(key(t.getPredicate(), map)).append(" ")
+                .append(key(t.getObject(), map)).append(" .");
+    }
+
+    static String key(Atom at, HashMap<String, String> map) {
+        if (at.isVariable() || at.isBlankNode()) {
+            return map.computeIfAbsent(at.getLabel(), k -> VAR + map.size());
+        }
+        return at.getConstant().getDatatypeValue().toSparql();
+    }
+
+    // ________________________________________________________________
+    //
+    // Access
+
+    /**
+     * Fresh value of pattern for endpoint, null if missing or expired
+     */
+    public Boolean get(String endpoint, String key) {
+        Map<String, Entry> map = table.get(endpoint);
+        if (map == null) {
+            return null;
+        }
+        Entry entry = map.get(key);
+        if (entry == null || isExpired(entry, System.currentTimeMillis())) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(String endpoint, String key, boolean value) {
+        table.computeIfAbsent(endpoint, k -> new ConcurrentHashMap<>())
+                .put(key, new Entry(value, System.currentTimeMillis()));
+        modified = true;
+    }
+
+    /**
+     * Index has fresh value of pattern for every endpoint
+     */
+    public boolean contains(List<Constant> endpointList, String key) {
+        if (key == null) {
+            return false;
+        }
+        for (Constant serv : endpointList) {
+            if (get(serv.getLabel(), key) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Endpoints of the list that have answer for pattern
+     */
+    public List<Atom> getServiceList(List<Constant> endpointList, String key) {
+        List<Atom> list = new ArrayList<>();
+        for (Constant serv : endpointList) {
+            Boolean b = get(serv.getLabel(), key);
+            if (b != null && b) {
+                list.add(Constant.create(serv.getDatatypeValue()));
+            }
+        }
+        return list;
+    }
+
+    boolean isExpired(Entry entry, long now) {
+        return now - entry.time > getTimeToLive();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Entry> map : table.values()) {
+            size += map.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        table.clear();
+        modified = true;
+    }
+
+    // ________________________________________________________________
+    //
+    // Refresh
+
+    /**
+     * endpoint -> keys of expired entries
+     */
+    Map<String, List<String>> expired() {
+        Map<String, List<String>> res = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Map<String, Entry>> entry : table.entrySet()) {
+            for (Map.Entry<String, Entry> ent : entry.getValue().entrySet()) {
+                if (isExpired(ent.getValue(), now)) {
+                    res.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(ent.getKey());
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Probe again expired entries, one query per endpoint
+     * Entries of endpoints that fail remain expired
+     */
+    public void refresh(QuerySolver exec) {
+        for (Map.Entry<String, List<String>> entry : expired().entrySet()) {
+            String endpoint = entry.getKey();
+            List<String> keyList = entry.getValue();
+            try {
+                Mappings map = exec.query(probe(endpoint, keyList));
+                for (Mapping m : map) {
+                    for (int i = 0; i < keyList.size(); i++) {
+                        IDatatype dt = m.getValue("?b" + i);
+                        if (dt != null) {
+                            put(endpoint, keyList.get(i), dt.booleanValue());
+                        }
+                    }
+                }
+            } catch (EngineException ex) {
+                logger.warn(String.format("Source index refresh %s: %s", endpoint, ex.getMessage()));
+            }
+        }
+        saveModified();
+    }
+
+    /**
+     * select * where { values ?serv { <endpoint> } service ?serv {
+     * bind (exists { select * where { key } limit 1 } as ?b0) ... } }
+     */
+    String probe(String endpoint, List<String> keyList) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("select * where {\nvalues %s { <%s> }\nservice %s {\n",
+                SERVER_VAR, endpoint, SERVER_VAR));
+        for (int i = 0; i < keyList.size(); i++) {
+            sb.append(String.format("bind (exists { select * where { %s } limit 1 } as ?b%s)\n",
+                    keyList.get(i), i));
+        }
+        sb.append("}\n}");
+        return sb.toString();
+    }
+
+    /**
+     * Start background save of modified index, and refresh when defined
+     */
+    public synchronized void start() {
+        if (SAVE > 0 && getPath() != null) {
+            getService().scheduleWithFixedDelay(this::saveModified, SAVE, SAVE, TimeUnit.SECONDS);
+        }
+        if (REFRESH > 0 && refreshSolver != null) {
+            startRefresh(refreshSolver, REFRESH);
+        }
+    }
+
+    /**
+     * Stop background tasks and save modified index
+     */
+    public synchronized void stop() {
+        if (service != null) {
+            service.shutdownNow();
+            service = null;
+            refresh = null;
+        }
+        saveModified();
+    }
+
+    ScheduledExecutorService getService() {
+        if (service == null) {
+            service = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "source-index");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return service;
+    }
+
+    /**
+     * Refresh expired entries in background every period seconds
+     */
+    public synchronized void startRefresh(QuerySolver exec, long period) {
+        stopRefresh();
+        refresh = getService().scheduleWithFixedDelay(() -> refresh(exec), period, period, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopRefresh() {
+        if (refresh != null) {
+            refresh.cancel(true);
+            refresh = null;
+        }
+    }
+
+    // ________________________________________________________________
+    //
+    // File
+
+    public void saveModified() {
+        if (modified && getPath() != null) {
+            try {
+                save(getPath());
+            } catch (IOException ex) {
+                logger.error("Source index: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write in temporary file and rename it
+     */
+    public synchronized void save(String path) throws IOException {
+        modified = false;
+        Path file = Paths.get(path);
+        Path tmp = Paths.get(path + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            for (Map.Entry<String, Map<String, Entry>> entry : table.entrySet()) {
+                for (Map.Entry<String, Entry> ent : entry.getValue().entrySet()) {
+                    out.write(String.format("%s\t%s\t%s\t%s", entry.getKey(), ent.getValue().time,
+                            ent.getValue().value ? 1 : 0, escape(ent.getKey())));
+                    out.newLine();
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public synchronized void load(String path) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 4);
+                if (fields.length < 4) {
+                    logger.warn("Source index: incorrect line: " + line);
+                    continue;
+                }
+                long time;
+                try {
+                    time = Long.parseLong(fields[1]);
+                } catch (NumberFormatException ex) {
+                    logger.warn("Source index: incorrect time: " + line);
+                    continue;
+                }
+                table.computeIfAbsent(fields[0], k -> new ConcurrentHashMap<>())
+                        .put(unescape(fields[3]), new Entry(fields[2].equals("1"), time));
+            }
+        }
+    }
+
+    static String escape(String str) {
+        return str.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(String str) {
+        if (str.indexOf('\\') < 0) {
+            return str;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '\\' && i + 1 < str.length()) {
+                char n = str.charAt(++i);
+                sb.append(n == 't' ? '\t' : n == 'n' ? '\n' : n == 'r' ? '\r' : n);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getTimeToLive() {
+        return ttl;
+    }
+
+    /**
+     * Time to live in seconds
+     */
+    public SourceIndex setTimeToLive(int seconds) {
+        this.ttl = seconds * 1000L;
+        return this;
+    }
+
+}
@@ -85,6 +85,7 @@ public class Pragma {
     public static final String TURTLE = KG + "turtle";
     public static final String PLAN = KG + "plan";
     public static final String STD = KG + "std";
+    public static final String STATS = KG + "stats";
 
     public static final String HELP = KG + "help";
 
@@ -97,6 +98,8 @@ public class Pragma {
     public static final String POS_TAGGER = KG + "pos_tagger";
     public static final String STRING_METRIC = KG + "string_metric";
     public static final String THRESHOLD = KG + "threshold";
+    public static final String CANDIDATE_MAX = KG + "candidate_max";
+    public static final String CANDIDATE_RECALL = KG + "candidate_recall";
 
     // match
     static final String MODE = KG + "mode";
@@ -244,6 +247,8 @@ public class Pragma {
                     transform.setPlanProfile(Query.QP_DEFAULT);
                 } else if (object.equals(OPTIM)) {
                     transform.setPlanProfile(Query.QP_HEURISTICS_BASED);
+                } else if (object.equals(STATS)) {
+                    transform.setPlanProfile(Query.QP_STATS_BASED);
                 }
             }
         } else if (subject.endsWith(APPROXIMATE)) {
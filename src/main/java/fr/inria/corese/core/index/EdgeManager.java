@@ -1,6 +1,7 @@
 package fr.inria.corese.core.index;
 
 import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.EdgeFactory;
 import fr.inria.corese.core.Graph;
 import static fr.inria.corese.core.index.EdgeManagerIndexer.IGRAPH;
 import static fr.inria.corese.core.index.EdgeManagerIndexer.ILIST;
@@ -10,6 +11,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
 import fr.inria.corese.core.kgram.api.core.Edge;
 
 /**
@@ -29,16 +31,34 @@ import fr.inria.corese.core.kgram.api.core.Edge;
  * integer/long/decimal and double and float have different node index
  * Nodes with same node index which are not sameTerm are kept in the list:
  * s p 01, 1, 1.0, '1'^^xsd:long, 1e1
+ * 
+ * When graph is packed, edge list is a PackedEdgeList:
+ * edges are stored as int columns of node id and created on demand
+ * binary search and sort work directly on the columns
+ * 
+ * When DELTA is true, edges inserted in a sorted edge list are recorded 
+ * in a sorted delta (log n insert) instead of being inserted in place 
+ * (shift the end of the list). Delta is written under the graph write lock.
+ * It is merged when it reaches DELTA_MAX edges and by Graph init() when 
+ * a query starts, hence readers under the read lock never see a delta. 
+ * getEdgeList() also merges for direct API access outside a query.
  *
  * @author Olivier Corby, Wimmics INRIA I3S, 2017
  *
  */
 public class EdgeManager implements Iterable<Edge> {
+    // insert edge of sorted edge list in delta (property GRAPH_INDEX_DELTA)
+    public static boolean DELTA = false;
+    // merge delta into edge list when delta has DELTA_MAX edges
+    public static int DELTA_MAX = 10_000;
     Graph graph;
     private EdgeManagerIndexer indexer;
     // Predicate of this EdgeManager: edges in this edge list have this predicate
     private Node predicate;
-    private ArrayList<Edge> edgeList;
+    // ArrayList<Edge> or PackedEdgeList
+    private List<Edge> edgeList;
+    // sorted edges inserted but not yet merged into edge list
+    private volatile TreeSet<Edge> delta;
     // comparator to sort edge list: g s p o t < g s p o
     private Comparator<Edge> comparatorIndex;
     // comparator to retrieve place of edge: g s p o t = g s p o
@@ -55,8 +75,13 @@ public class EdgeManager implements Iterable<Edge> {
         graph = indexer.getGraph();
         this.indexer = indexer;        
         predicate = p;
-        edgeList = new ArrayList<>();
         index = i;
+        if (indexer.isPacked()) {
+            edgeList = new PackedEdgeList(this, graph.getPackedNodeTable());
+        }
+        else {
+            edgeList = new ArrayList<>();
+        }
         if (index == 0) {
             other = 1;
         }
@@ -69,16 +94,46 @@ public class EdgeManager implements Iterable<Edge> {
         return graph;
     }
 
-    ArrayList<Edge> getList() {
+    List<Edge> getList() {
         return getEdgeList();
     }
+    
+    boolean isPacked() {
+        return edgeList instanceof PackedEdgeList;
+    }
+    
+    PackedEdgeList getPackedList() {
+        return (PackedEdgeList) getEdgeList();
+    }
+    
+    /**
+     * Edge cannot be packed (e.g. rdf star or tuple): 
+     * switch to standard edge list
+     */
+    void unpack() {
+        if (isPacked()) {
+            setEdgeList(new ArrayList<>(getEdgeList()));
+        }
+    }
+    
+    void checkPacked(Edge edge) {
+        if (isPacked() && !PackedEdgeList.accept(edge)) {
+            unpack();
+        }
+    }
 
     public int size() {
-        return getEdgeList().size();
+        TreeSet<Edge> set = delta;
+        return edgeList.size() + ((set == null) ? 0 : set.size());
+    }
+
+    boolean hasDelta() {
+        return delta != null;
     }
 
     void clear() {
-        getEdgeList().clear();
+        delta = null;
+        edgeList.clear();
     }
 
     Edge get(int i) {
@@ -102,6 +157,9 @@ public class EdgeManager implements Iterable<Edge> {
      * Create NodeManager: node -> (predicate:position) 
      */
     int reduce(NodeManager nodeManager) {
+        if (isPacked()) {
+            return reducePacked(nodeManager);
+        }
         ArrayList<Edge> reduceNodeList = new ArrayList<>();
         Edge pred = null;
         int count = 0, ind = 0;
@@ -182,6 +240,40 @@ public class EdgeManager implements Iterable<Edge> {
         return count;
     }   
     
+    /**
+     * Packed edge list has no metadata: 
+     * remove duplicate g s p o in place
+     */
+    int reducePacked(NodeManager nodeManager) {
+        PackedEdgeList list = getPackedList();
+        int count = 0, ind = 0, begin = 0;
+        
+        for (int i = 0; i < list.size(); i++) {
+            if (ind > 0 && list.compare(ind - 1, i) == 0) {
+                // skip redundant edge
+                count++;
+            }
+            else {
+                if (ind > 0 && getNode(ind - 1, getIndex()) != getNode(i, getIndex())) {
+                    nodeManager.add(getNode(ind - 1, getIndex()), getPredicate(), begin, ind);
+                    begin = ind;
+                }
+                list.move(i, ind++);
+            }
+        }
+        
+        if (ind > 0) {
+            nodeManager.add(getNode(ind - 1, getIndex()), getPredicate(), begin, ind);
+        }
+        
+        list.truncate(ind);
+        list.trimToSize();
+        if (count > 0) {
+            graph.setSize(graph.size() - count);
+        }
+        return count;
+    }
+    
     // when rdf star: equal g s p o without considering reference node t
     // g s p o = g s p o t = g s p o t2
     boolean equalWithoutConsideringMetadata(Edge e1, Edge e2) {
@@ -218,24 +310,24 @@ public class EdgeManager implements Iterable<Edge> {
      * with position of node in this edge list of predicate  
      */
     void indexNodeManager(NodeManager nodeManager) {
-        Edge pred = null;
+        Node pred = null;
         int begin = 0;
         int end = 0;
         
-        for (Edge edge : getEdgeList()) {
-            Node focus = edge.getNode(getIndex());
+        for (int i = 0; i < size(); i++) {
+            Node focus = getNode(i, getIndex());
             if (pred == null) {
                 // first edge
             } 
-            else if (focus != pred.getNode(getIndex())) {
-                nodeManager.add(pred.getNode(getIndex()), getPredicate(), begin, end);
+            else if (focus != pred) {
+                nodeManager.add(pred, getPredicate(), begin, end);
                 begin = end;
             }
             end++;
-            pred = edge;
+            pred = focus;
         }
         if (pred!=null) {
-            nodeManager.add(pred.getNode(getIndex()), getPredicate(), begin, size());
+            nodeManager.add(pred, getPredicate(), begin, size());
         }
     }
     
@@ -244,7 +336,10 @@ public class EdgeManager implements Iterable<Edge> {
      */
     
     void compact() {
-        if (graph.isMetadata() || graph.isRDFStar()) {
+        if (isPacked()) {
+            // already compact
+        }
+        else if (graph.isMetadata() || graph.isRDFStar()) {
             doCompactMetadata();
         }
         else {
@@ -272,14 +367,23 @@ public class EdgeManager implements Iterable<Edge> {
      * Main function that sort Index edge list
      */ 
     void sort() {
-        Collections.sort(getEdgeList(), getComparatorIndex());
+        if (isPacked()) {
+            getPackedList().sort();
+        }
+        else {
+            Collections.sort(getEdgeList(), getComparatorIndex());
+        }
     }
 
     /**
      * Copy Index(0) into this index
      */
     void copy(EdgeManager el) {
-        getEdgeList().ensureCapacity(el.size());
+        if (isPacked() && el.isPacked()) {
+            getPackedList().addAll(el.getPackedList());
+            return;
+        }
+        ensureCapacity(el.size());
         if (getIndex() < 2) {
             // we are sure that there are at least 2 nodes
             getEdgeList().addAll(el.getList());
@@ -293,18 +397,135 @@ public class EdgeManager implements Iterable<Edge> {
         }
     }
 
+    /**
+     * Graph snapshot: append edges from node id columns
+     */
+    void load(Node[] nodes, int[] ids, int n, int[] subject, int[] object, int[] graph, byte[] level, int[] stamp) {
+        if (isPacked()) {
+            getPackedList().load(ids, n, subject, object, graph, level, stamp);
+            return;
+        }
+        ensureCapacity(n);
+        EdgeFactory factory = getGraph().getEdgeFactory();
+        for (int i = 0; i < n; i++) {
+            Edge edge = factory.internal(
+                    factory.create(nodes[graph[i]], nodes[subject[i]], getPredicate(), nodes[object[i]]));
+            edge.setLevel(level[i]);
+            if (stamp != null) {
+                edge.setEdgeIndex(stamp[i]);
+            }
+            getEdgeList().add(edge);
+        }
+    }
+
+    /**
+     * Graph snapshot: append edges of subject index in permutation order
+     */
+    void load(EdgeManager std, int[] perm) {
+        if (isPacked() && std.isPacked()) {
+            getPackedList().load(std.getPackedList(), perm);
+            return;
+        }
+        ensureCapacity(perm.length);
+        for (int i : perm) {
+            getEdgeList().add(std.get(i));
+        }
+    }
+
     void add(Edge ent) {
+        checkPacked(ent);
         getEdgeList().add(ent);
     }
 
     void add(int i, Edge ent) {
+        checkPacked(ent);
         getEdgeList().add(i, ent);
     }
     
     void set(int i, Edge ent) {
+        checkPacked(ent);
         getEdgeList().set(i, ent);
     }
 
+    /**
+     * Edge list is sorted: insert edge in delta
+     * merge delta when it reaches DELTA_MAX
+     */
+    void insert(Edge ent) {
+        checkPacked(ent);
+        if (delta == null) {
+            delta = new TreeSet<>(getComparatorIndex());
+        }
+        delta.add(ent);
+        if (delta.size() >= DELTA_MAX) {
+            merge();
+        }
+    }
+
+    /**
+     * Edge is in edge list or in delta
+     * Edge list is sorted, check main list by dichotomy
+     */
+    boolean contains(Edge edge) {
+        int first = 0, last = edgeList.size();
+        while (first < last) {
+            int mid = (first + last) >>> 1;
+            if (compareMain(mid, edge) >= 0) {
+                last = mid;
+            } else {
+                first = mid + 1;
+            }
+        }
+        if (first < edgeList.size() && compareMain(first, edge) == 0) {
+            return true;
+        }
+        TreeSet<Edge> set = delta;
+        return set != null && set.contains(edge);
+    }
+
+    // compare edge of main list at position i with edge, do not merge delta
+    int compareMain(int i, Edge edge) {
+        if (isPacked()) {
+            return ((PackedEdgeList) edgeList).compare(i, edge);
+        }
+        return getComparatorIndex().compare(edgeList.get(i), edge);
+    }
+
+    /**
+     * Merge sorted delta into sorted edge list, in place, from the end
+     * Called on the write path (insert) and by Graph init() before query
+     * evaluation, never while a query read the edge list
+     */
+    synchronized void merge() {
+        TreeSet<Edge> set = delta;
+        if (set == null) {
+            return;
+        }
+        if (isPacked()) {
+            ((PackedEdgeList) edgeList).merge(set);
+        } else {
+            merge((ArrayList<Edge>) edgeList, set);
+        }
+        delta = null;
+    }
+
+    void merge(ArrayList<Edge> list, TreeSet<Edge> set) {
+        int i = list.size() - 1;
+        int pos = list.size() + set.size() - 1;
+        list.ensureCapacity(pos + 1);
+        for (int k = 0; k < set.size(); k++) {
+            list.add(null);
+        }
+        Iterator<Edge> it = set.descendingIterator();
+        while (it.hasNext()) {
+            Edge ent = it.next();
+            while (i >= 0 && getComparatorIndex().compare(list.get(i), ent) > 0) {
+                list.set(pos--, list.get(i--));
+            }
+            list.set(pos--, ent);
+        }
+    }
+
     Edge remove(int i) {
         Edge ent = getEdgeList().get(i);
         getEdgeList().remove(i);
@@ -316,10 +537,24 @@ public class EdgeManager implements Iterable<Edge> {
      * Rule Engine
      */
     void add(List<Edge> l) {
-        getEdgeList().ensureCapacity(l.size() + getEdgeList().size());
+        if (isPacked()) {
+            for (Edge edge : l) {
+                checkPacked(edge);
+            }
+        }
+        ensureCapacity(l.size() + getEdgeList().size());
         getEdgeList().addAll(l);
     }
     
+    void ensureCapacity(int n) {
+        if (isPacked()) {
+            getPackedList().ensureCapacity(n);
+        }
+        else {
+            ((ArrayList<Edge>) getEdgeList()).ensureCapacity(n);
+        }
+    }
+    
     // pragma: node is bound
     // pragma: when node2 is bound: node=subject node2=object
     // use case: DataProducer iterator provides two nodes only for subject/object
@@ -373,6 +608,15 @@ public class EdgeManager implements Iterable<Edge> {
         }
     }
     
+    /**
+     * Read only iteration: packed edge list fill a buffer edge 
+     * instead of creating an edge at each position
+     * edge MUST be copied if it is recorded
+     */
+    Iterable<Edge> getBufferEdges() {
+        return isPacked() ? new EdgeManagerIterate(this) : this;
+    }
+    
     Iterable<Edge> getEdges(Node node, int beginIndex) {
         return new EdgeManagerIterate(this, beginIndex);
     }
@@ -425,7 +669,7 @@ public class EdgeManager implements Iterable<Edge> {
         if (i >= size()) {
             return -1;
         }
-        int res = getComparatorEqualWithoutMetadata().compare(edge, getEdgeList().get(i));
+        int res = compare(getComparatorEqualWithoutMetadata(), i, edge);
         if (res == 0) {
             return i;
         }
@@ -443,7 +687,7 @@ public class EdgeManager implements Iterable<Edge> {
             return first;
         } else {
             int mid = (first + last) / 2;
-            int res = comp.compare(getEdgeList().get(mid), edge);
+            int res = compare(comp, mid, edge);
             if (res >= 0) {
                 return basicFind(comp, edge, first, mid);
             } else {
@@ -452,6 +696,17 @@ public class EdgeManager implements Iterable<Edge> {
         }
     }
      
+    /**
+     * Compare edge at position i in edge list with edge
+     * Packed edge list compare columns without creating edge
+     */
+    int compare(Comparator<Edge> comp, int i, Edge edge) {
+        if (isPacked()) {
+            return getPackedList().compare(i, edge);
+        }
+        return comp.compare(getEdgeList().get(i), edge);
+    }
+     
     /**
      * Test if an edge (n1 p n2) exist in this Index (in any named graph)
      * use case: rule engine
@@ -459,9 +714,8 @@ public class EdgeManager implements Iterable<Edge> {
     boolean exist(Node n1, Node n2) {
         int n = findEdgeNodeTerm(n1, n2);
         if (n >= 0 && n < getEdgeList().size()) {
-            Edge ent = getEdgeList().get(n);
-            if (n1.getIndex() == getNodeIndex(ent, 0)
-                    && n2.getIndex() == getNodeIndex(ent, 1)) {
+            if (n1.getIndex() == getNodeIndex(n, 0)
+                    && n2.getIndex() == getNodeIndex(n, 1)) {
                 return true;
             }
         }
@@ -471,10 +725,9 @@ public class EdgeManager implements Iterable<Edge> {
     Edge findEdge(Node n1, Node n2) {
         int n = findEdgeNodeTerm(n1, n2);
         if (n >= 0 && n < size()) {
-            Edge edge = getEdgeList().get(n);
-            if (compareNodeTerm(n1, edge.getNode(0)) == 0
-             && compareNodeTerm(n2, edge.getNode(1)) == 0) {
-                return edge;
+            if (compareNodeTerm(n1, getNode(n, 0)) == 0
+             && compareNodeTerm(n2, getNode(n, 1)) == 0) {
+                return getEdgeList().get(n);
             }
         }
         return null;
@@ -493,7 +746,7 @@ public class EdgeManager implements Iterable<Edge> {
             return first;
         } else {
             int mid = (first + last) / 2;
-            if (compareNodeTerm(getEdgeList().get(mid), n1, n2) >= 0) {
+            if (compareNodeTerm(mid, n1, n2) >= 0) {
                 return findEdgeNodeTerm(n1, n2, first, mid);
             } else {
                 return findEdgeNodeTerm(n1, n2, mid + 1, last);
@@ -558,6 +811,26 @@ public class EdgeManager implements Iterable<Edge> {
     }
 
  
+    /**
+     * Number of edges where edge.getNode(index) has the node index of node
+     * use case: graph statistics
+     */
+    int count(Node node) {
+        int size = getEdgeList().size();
+        int first = findNodeIndex(node, 0, size);
+        int last = first, end = size;
+        // first position with greater node index
+        while (last < end) {
+            int mid = (last + end) >>> 1;
+            if (getNodeIndex(mid, getIndex()) <= node.getIndex()) {
+                last = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return last - first;
+    }
+
     int findNodeIndex(Node n, int first, int last) {
         if (first >= last) {
             return first;
@@ -573,10 +846,11 @@ public class EdgeManager implements Iterable<Edge> {
     }
     
     
-    int compareNodeTerm(Edge edge, Node n1, Node n2) {
-        int res = compareNodeTerm(edge.getNode(getIndex()), n1);
+    // compare edge at position i with n1 n2
+    int compareNodeTerm(int i, Node n1, Node n2) {
+        int res = compareNodeTerm(getNode(i, getIndex()), n1);
         if (res == 0) {
-            res = compareNodeTerm(edge.getNode(getOther()), n2);
+            res = compareNodeTerm(getNode(i, getOther()), n2);
         }
         return res;
     }
@@ -650,12 +924,14 @@ public class EdgeManager implements Iterable<Edge> {
 
     // getNode(IGRAPH) must return getGraph()
     int getNodeIndex(int i, int n) {
-        Edge ent = getEdgeList().get(i);
-        return ent.getNode(n).getIndex();
+        return getNode(i, n).getIndex();
     }
     
     // getNode(IGRAPH) must return getGraph()
     Node getNode(int i, int n) {
+        if (isPacked()) {
+            return getPackedList().getNode(i, n);
+        }
         Edge ent = getEdgeList().get(i);
         return ent.getNode(n);
     }
@@ -860,11 +1136,17 @@ public class EdgeManager implements Iterable<Edge> {
 
     }
 
-    public ArrayList<Edge> getEdgeList() {
+    /**
+     * Edge list with delta merged
+     */
+    public List<Edge> getEdgeList() {
+        if (delta != null) {
+            merge();
+        }
         return edgeList;
     }
 
-    public void setEdgeList(ArrayList<Edge> edgeList) {
+    public void setEdgeList(List<Edge> edgeList) {
         this.edgeList = edgeList;
     }
 
@@ -71,6 +71,8 @@ public class EdgeManagerIndexer
     private NodeManager nodeManager;
     //TransitiveEdgeManager transitiveManager;
     private boolean debug = false;
+    // some edge manager may have a delta to merge
+    private boolean delta = false;
 
     public EdgeManagerIndexer(Graph g, boolean bi, int index) {
         init(g, bi, index);
@@ -278,6 +280,7 @@ public class EdgeManagerIndexer
         recordUpdate(true);
         if (index == 0) {
             logClear();
+            invalidateIndex();
         }
         table.clear();
         getNodeManager().clear();
@@ -325,7 +328,10 @@ public class EdgeManagerIndexer
         }
         Edge internal = internal(edge); 
         EdgeManager el = define(edge.getEdgeNode());
-        if (isSort(edge)) {
+        if (isSort(edge) && isDelta()) {
+            return addDelta(el, edge, internal);
+        }
+        else if (isSort(edge)) {
             // edges are sorted, check presence by dichotomy
             int edgePlace = el.getPlace(edge);
             
@@ -357,6 +363,7 @@ public class EdgeManagerIndexer
                 else {
                     el.add(edgePlace, internal);
                     logInsert(edge);
+                    insertIndex(edge);
                 }
             } else {
                 return null;
@@ -367,6 +374,7 @@ public class EdgeManagerIndexer
             if (onInsert(edge)) {
                 el.add(internal);
                 logInsert(edge);
+                invalidateIndex();
             } else {
                 return null;
             }
@@ -375,6 +383,27 @@ public class EdgeManagerIndexer
         return edge;
     }
     
+    /**
+     * Edges are sorted: record edge in delta of edge manager, in log n
+     * instead of shifting the edge list
+     * Delta is merged into edge list before edge list is read
+     */
+    Edge addDelta(EdgeManager el, Edge edge, Edge internal) {
+        if (getIndex() == 0 && el.contains(edge)) {
+            // eliminate duplicate at insertion time for index 0
+            count++;
+            return null;
+        }
+        if (onInsert(edge)) {
+            el.insert(internal);
+            delta = true;
+            logInsert(edge);
+            insertIndex(edge);
+            return edge;
+        }
+        return null;
+    }
+
     /**
      * g s p o t  before  g s p o
      * edge with ref node    compare with index i
@@ -385,6 +414,7 @@ public class EdgeManagerIndexer
      * 
     */ 
     Edge addWithMetadata(EdgeManager el, Edge edge, Edge internal, int i) {
+        invalidateIndex();
         if (el.getEdgeList().isEmpty()) {
             el.add(i, edge);
             logInsert(edge);
@@ -509,9 +539,56 @@ public class EdgeManagerIndexer
         index(p);
         if (index == 0) {
             recordUpdate(true);
+            insertIndex(p, list);
+        }
+    }
+
+    /**
+     * Load: append edges at the end of edge list of p, edge list is sorted
+     * and reduced at next graph init()
+     * Edge lists of other index are appended when they are already built
+     * Use case: ParallelLoad
+     */
+    public void append(Node p, List<Edge> list) {
+        EdgeManager el = define(p);
+        if (index == 0 || el.size() > 0) {
+            el.ensureCapacity(el.size() + list.size());
+            for (Edge edge : list) {
+                if (index == IGRAPH || edge.nbNode() > index) {
+                    el.add(internal(edge));
+                }
+            }
+            recordUpdate(true);
+            invalidateIndex();
         }
     }
 
+    /**
+     * Graph snapshot: record edges of predicate in their snapshot order
+     * nodes: snapshot node dictionary, ids: their packed node table id
+     */
+    EdgeManager load(Node pred, Node[] nodes, int[] ids, int n, int[] subject, int[] object, int[] graph, byte[] level, int[] stamp) {
+        EdgeManager el = define(pred);
+        el.load(nodes, ids, n, subject, object, graph, level, stamp);
+        getNodeManager().desactivate();
+        recordUpdate(true);
+        invalidateIndex();
+        return el;
+    }
+
+    /**
+     * Graph snapshot: record edges of subject index std in the order of
+     * permutation perm, if perm is null the list is built when needed
+     */
+    void load(Node pred, EdgeManager std, int[] perm) {
+        EdgeManager el = define(pred);
+        if (perm != null) {
+            el.load(std, perm);
+        }
+        getNodeManager().desactivate();
+        recordUpdate(true);
+    }
+
     Edge tag(Edge ent) {
         getGraph().tag(ent);
         return ent;
@@ -554,10 +631,33 @@ public class EdgeManagerIndexer
     }
 
 
+    /**
+     * Edge lists of this Index are packed int columns
+     * Rule engine list index and rdf star/tuple graph use edge objects
+     */
+    boolean isPacked() {
+        return getGraph().isPackedEdge() 
+                && index != ILIST
+                && !getGraph().isMetadataNode() 
+                && !getGraph().isTuple();
+    }
+
     boolean isSort(Edge edge) {
         return !getGraph().isIndexable();
     }
 
+    /**
+     * Insert edge of sorted edge list in delta
+     * rdf star and metadata edges are inserted in place because insertion
+     * share reference node with edges around insert place
+     * Rule engine list index is not sorted by node
+     */
+    boolean isDelta() {
+        return EdgeManager.DELTA
+                && index != ILIST
+                && !getGraph().isMetadataNode();
+    }
+
     /**
      * Store that the property exist by creating an empty list It may be fed
      * later if we need a join at getNode(index) If the list already contains
@@ -618,12 +718,26 @@ public class EdgeManagerIndexer
         index(true);
     }
 
+    /**
+     * Merge delta of edge managers into their edge list
+     * Called by Graph init() before query evaluation
+     */
+    public void mergeDelta() {
+        if (delta) {
+            for (Node pred : getProperties()) {
+                get(pred).merge();
+            }
+            delta = false;
+        }
+    }
+
     void index(boolean reduce) {
         for (Node pred : getProperties()) {
             basicIndex(pred);
         }
         if (reduce && index == 0) {
             reduce();
+            invalidateIndex();
         }
     }
     
@@ -683,7 +797,7 @@ public class EdgeManagerIndexer
     @Override
     public void indexNode() {
         for (Node pred : getProperties()) {
-            for (Edge ent : get(pred)) {
+            for (Edge ent : get(pred).getBufferEdges()) {
                 getGraph().define(ent);
             }
         }
@@ -930,6 +1044,7 @@ public class EdgeManagerIndexer
     void remove(EdgeManager list, int i) {
         if (getIndex() == 0) {
             getGraph().setSize(getGraph().size() - 1);
+            deleteIndex(list.getPredicate(), list.get(i));
         }
         list.remove(i);
     }
@@ -986,6 +1101,75 @@ public class EdgeManagerIndexer
         isUpdate = b;
     }
 
+    /**
+     * Statistics of query planner, reachability and text indexes, if any,
+     * are updated by subject index
+     */
+    void insertIndex(Edge edge) {
+        if (getIndex() == 0) {
+            GraphStatistics stat = getGraph().getStatistics();
+            if (stat != null) {
+                stat.insert(edge.getEdgeNode(), edge.getNode(0), edge.getNode(1));
+            }
+            ReachabilityIndex ri = getGraph().getReachabilityIndex(edge.getEdgeNode().getLabel());
+            if (ri != null) {
+                ri.insert(edge.getNode(0), edge.getNode(1));
+            }
+            TextIndex ti = getGraph().getTextIndex(edge.getEdgeNode().getLabel());
+            if (ti != null) {
+                ti.insert(edge.getNode(1));
+            }
+        }
+    }
+
+    void insertIndex(Node pred, List<Edge> list) {
+        GraphStatistics stat = getGraph().getStatistics();
+        if (stat != null) {
+            for (Edge edge : list) {
+                stat.insert(pred, edge.getNode(0), edge.getNode(1));
+            }
+        }
+        ReachabilityIndex ri = getGraph().getReachabilityIndex(pred.getLabel());
+        if (ri != null) {
+            ri.insert(list);
+        }
+        TextIndex ti = getGraph().getTextIndex(pred.getLabel());
+        if (ti != null) {
+            for (Edge edge : list) {
+                ti.insert(edge.getNode(1));
+            }
+        }
+    }
+
+    void deleteIndex(Node pred, Edge edge) {
+        GraphStatistics stat = getGraph().getStatistics();
+        if (stat != null) {
+            stat.delete(pred, edge.getNode(0), edge.getNode(1));
+        }
+        ReachabilityIndex ri = getGraph().getReachabilityIndex(pred.getLabel());
+        if (ri != null) {
+            ri.invalidate();
+        }
+        TextIndex ti = getGraph().getTextIndex(pred.getLabel());
+        if (ti != null) {
+            ti.delete(edge.getNode(1));
+        }
+    }
+
+    void invalidateIndex() {
+        if (getIndex() == 0) {
+            if (getGraph().getStatistics() != null) {
+                getGraph().getStatistics().invalidate();
+            }
+            for (ReachabilityIndex ri : getGraph().getReachabilityIndexList()) {
+                ri.invalidate();
+            }
+            for (TextIndex ti : getGraph().getTextIndexList()) {
+                ti.invalidate();
+            }
+        }
+    }
+
     void logInsert(Edge ent) {
         recordUpdate(true);
         if (getIndex() == 0) {
@@ -50,12 +50,12 @@ class EdgeManagerIterate implements Iterable<Edge>, Iterator<Edge> {
     
     // return node index of focus node at nth position in edge list
     int getFocusNodeIndex(int n) {
-        return list.get(n).getNode(list.getIndex()).getIndex();
+        return list.getNodeIndex(n, list.getIndex());
     }
     
     // return node index of object node at nth position in edge list
     int getObjectNodeIndex(int n) {
-        return list.get(n).getNode(1).getIndex();
+        return list.getNodeIndex(n, 1);
     }
 
     @Override
@@ -70,6 +70,11 @@ class EdgeManagerIterate implements Iterable<Edge>, Iterator<Edge> {
 
     @Override
     public Edge next() {
+        if (list.isPacked()) {
+            // packed edge list: no edge is created
+            list.getPackedList().fill(buffer, ind++);
+            return buffer;
+        }
         Edge ent = list.get(ind++);
         if (ent.isInternal()) { 
             fill(buffer, ent);
@@ -0,0 +1,426 @@
+package fr.inria.corese.core.index;
+
+import static fr.inria.corese.core.index.EdgeManagerIndexer.IGRAPH;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.api.IDatatype;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+
+/**
+ * Binary snapshot of a Graph
+ *
+ * node dictionary: one entry per node of edges (index, kind, role, label,
+ * datatype, lang) sorted by node index
+ * edge columns per predicate: subject, object, graph node id, level, edge index
+ * in the order of the sorted and reduced subject index
+ * object and named graph index are recorded as permutations of subject index
+ * when they have been built
+ *
+ * Reload maps the file in memory and fills edge lists in their recorded order.
+ * The mapped file is only used to read the snapshot: nodes and edges are copied
+ * in the heap, hence reloaded graph takes as much memory as the saved one and
+ * the file may be deleted after open(). What is saved is the parsing and the
+ * sort of edge lists.
+ * Nodes are created in their former node index order, hence node index order
+ * is preserved and edge lists need not be sorted again (it is checked: if
+ * node index order is not preserved, graph is indexed again as after a load).
+ * Snapshot is for binary edges without reference node (no rdf star, no tuple).
+ *
+ */
+public class GraphSnapshot {
+
+    static final int MAGIC = 0x4B475348;
+    static final int VERSION = 1;
+    // node kind
+    static final byte URI = 0;
+    static final byte BLANK = 1;
+    static final byte LITERAL = 2;
+    static final byte SKOLEM = 3;
+    // node role
+    static final byte VERTEX = 1;
+    static final byte PROPERTY = 2;
+    static final byte GRAPH = 4;
+    // index recorded as permutation of subject index
+    static final int[] INDEX = {1, IGRAPH};
+
+    private Graph graph;
+
+    GraphSnapshot(Graph g) {
+        graph = g;
+    }
+
+    public static void save(Graph g, String path) throws IOException {
+        new GraphSnapshot(g).save(path);
+    }
+
+    public static Graph open(String path) throws IOException {
+        return new GraphSnapshot(null).load(path);
+    }
+
+    void save(String path) throws IOException {
+        if (graph.isMetadataNode() || graph.isTuple()) {
+            throw new IOException("Graph snapshot does not support edge with reference node");
+        }
+        synchronized (graph) {
+            if (graph.isIndexable()) {
+                graph.index();
+            }
+            EdgeManagerIndexer ei = graph.getSubjectIndex();
+            List<Node> predicates = ei.getSortedProperties();
+            IdentityHashMap<Node, Integer> ids = new IdentityHashMap<>();
+            List<Node> nodes = new ArrayList<>();
+            List<Byte> roles = new ArrayList<>();
+
+            for (Node pred : predicates) {
+                define(ids, nodes, roles, pred, PROPERTY);
+                for (Edge edge : ei.get(pred).getBufferEdges()) {
+                    if (!PackedEdgeList.accept(edge)) {
+                        throw new IOException("Graph snapshot does not support edge: " + edge);
+                    }
+                    define(ids, nodes, roles, edge.getNode(0), VERTEX);
+                    define(ids, nodes, roles, edge.getNode(1), VERTEX);
+                    define(ids, nodes, roles, edge.getGraph(), GRAPH);
+                }
+            }
+            // node index order: nodes are created in this order at reload
+            int[] order = sort(nodes);
+            int[] rank = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                rank[order[i]] = i;
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeBoolean(graph.isPackedEdge());
+                out.writeLong(Graph.getBlankID());
+                out.writeInt(graph.size());
+
+                out.writeInt(nodes.size());
+                for (int i : order) {
+                    write(out, nodes.get(i), roles.get(i));
+                }
+
+                out.writeInt(predicates.size());
+                for (Node pred : predicates) {
+                    write(out, pred, ids, rank);
+                }
+            }
+        }
+    }
+
+    void define(IdentityHashMap<Node, Integer> ids, List<Node> nodes, List<Byte> roles, Node node, byte role) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            ids.put(node, nodes.size());
+            nodes.add(node);
+            roles.add(role);
+        } else {
+            roles.set(id, (byte) (roles.get(id) | role));
+        }
+    }
+
+    int[] sort(List<Node> nodes) {
+        Integer[] order = new Integer[nodes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> nodes.get(i).getIndex()));
+        int[] res = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            res[i] = order[i];
+        }
+        return res;
+    }
+
+    void write(DataOutputStream out, Node node, byte role) throws IOException {
+        IDatatype dt = node.getDatatypeValue();
+        out.writeInt(node.getIndex());
+        if (dt.isLiteral()) {
+            if (dt.isExtension() || dt.isPointer()) {
+                throw new IOException("Graph snapshot does not support literal: " + dt);
+            }
+            out.writeByte(LITERAL);
+            out.writeByte(role);
+            write(out, dt.getLabel());
+            write(out, dt.getDatatypeURI());
+            write(out, dt.hasLang() ? dt.getLang() : "");
+        } else if (dt.isBlank()) {
+            out.writeByte(BLANK);
+            out.writeByte(role);
+            write(out, dt.getLabel());
+        } else if (dt.isURI()) {
+            out.writeByte(dt.isSkolem() ? SKOLEM : URI);
+            out.writeByte(role);
+            write(out, dt.getLabel());
+        } else {
+            throw new IOException("Graph snapshot does not support node: " + dt);
+        }
+    }
+
+    void write(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Write edge columns of subject index and permutations of other index
+     */
+    void write(DataOutputStream out, Node pred, IdentityHashMap<Node, Integer> ids, int[] rank) throws IOException {
+        EdgeManager std = graph.getSubjectIndex().get(pred);
+        int n = std.size();
+        int[] subject = new int[n], object = new int[n], name = new int[n], stamp = new int[n];
+        byte[] level = new byte[n];
+        boolean isStamp = false;
+        int i = 0;
+        for (Edge edge : std.getBufferEdges()) {
+            subject[i] = rank[ids.get(edge.getNode(0))];
+            object[i] = rank[ids.get(edge.getNode(1))];
+            name[i] = rank[ids.get(edge.getGraph())];
+            level[i] = edge.getLevel();
+            stamp[i] = edge.getEdgeIndex();
+            isStamp |= stamp[i] != -1;
+            i++;
+        }
+        out.writeInt(rank[ids.get(pred)]);
+        out.writeInt(n);
+        write(out, subject);
+        write(out, object);
+        write(out, name);
+        out.write(level);
+        out.writeBoolean(isStamp);
+        if (isStamp) {
+            write(out, stamp);
+        }
+        for (int index : INDEX) {
+            int[] perm = permutation(std, graph.getIndex(index).get(pred));
+            out.writeBoolean(perm != null);
+            if (perm != null) {
+                write(out, perm);
+            }
+        }
+    }
+
+    void write(DataOutputStream out, int[] col) throws IOException {
+        for (int val : col) {
+            out.writeInt(val);
+        }
+    }
+
+    /**
+     * Position in subject index of edges of another index
+     * null if index is not built
+     */
+    int[] permutation(EdgeManager std, EdgeManager el) {
+        if (el == null || el.size() != std.size()) {
+            return null;
+        }
+        int[] perm = new int[el.size()];
+        int i = 0;
+        for (Edge edge : el.getBufferEdges()) {
+            int j = std.find(edge);
+            if (j >= std.size() || std.compare(std.getComparatorIndex(), j, edge) != 0) {
+                return null;
+            }
+            perm[i++] = j;
+        }
+        return perm;
+    }
+
+    Graph load(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+                FileChannel channel = file.getChannel()) {
+            Input in = new Input(channel);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a graph snapshot: " + path);
+            }
+            graph = in.readBoolean() ? Graph.createPacked() : Graph.create();
+            Graph.declareBlankID(in.readLong());
+            int size = in.readInt();
+
+            Node[] nodes = new Node[in.readInt()];
+            // node index order is preserved: edge lists are sorted
+            boolean sorted = true;
+            int former = -1;
+            for (int i = 0; i < nodes.length; i++) {
+                int index = in.readInt();
+                nodes[i] = read(in);
+                if (i > 0 && compare(index, former) != compare(nodes[i].getIndex(), nodes[i - 1].getIndex())) {
+                    sorted = false;
+                }
+                former = index;
+            }
+            int[] ids = null;
+            if (graph.isPackedEdge()) {
+                ids = new int[nodes.length];
+                for (int i = 0; i < nodes.length; i++) {
+                    ids[i] = graph.getPackedNodeTable().getId(nodes[i]);
+                }
+            }
+
+            EdgeManagerIndexer ei = graph.getSubjectIndex();
+            int nbPredicate = in.readInt();
+            for (int p = 0; p < nbPredicate; p++) {
+                Node pred = nodes[in.readInt()];
+                int n = in.readInt();
+                int[] subject = in.readInts(n);
+                int[] object = in.readInts(n);
+                int[] name = in.readInts(n);
+                byte[] level = in.readBytes(n);
+                int[] stamp = in.readBoolean() ? in.readInts(n) : null;
+                EdgeManager std = ei.load(pred, nodes, ids, n, subject, object, name, level, stamp);
+                for (int index : INDEX) {
+                    int[] perm = in.readBoolean() ? in.readInts(n) : null;
+                    graph.getIndex(index).load(pred, std, (sorted) ? perm : null);
+                }
+            }
+            graph.setSize(size);
+            graph.setIndexed(sorted);
+            return graph;
+        }
+    }
+
+    int compare(int n1, int n2) {
+        return Integer.compare(n1, n2);
+    }
+
+    /**
+     * Create node in graph with the role it has in edges
+     */
+    Node read(Input in) throws IOException {
+        byte kind = in.readByte();
+        byte role = in.readByte();
+        String label = in.readString();
+        IDatatype dt;
+        switch (kind) {
+            case LITERAL:
+                String datatype = in.readString();
+                String lang = in.readString();
+                dt = DatatypeMap.createLiteral(label, datatype, lang.isEmpty() ? null : lang);
+                break;
+            case BLANK:
+                dt = DatatypeMap.createBlank(label);
+                break;
+            case SKOLEM:
+                dt = DatatypeMap.createSkolem(label);
+                break;
+            default:
+                dt = DatatypeMap.createResource(label);
+        }
+        Node node = null;
+        if ((role & VERTEX) != 0) {
+            node = graph.addNode(dt);
+        }
+        if ((role & PROPERTY) != 0) {
+            Node pred = graph.addProperty(label);
+            node = (node == null) ? pred : node;
+        }
+        if ((role & GRAPH) != 0) {
+            Node name = graph.addGraph(label, kind == BLANK);
+            node = (node == null) ? name : node;
+        }
+        return node;
+    }
+
+    /**
+     * Read the file through memory mapped windows
+     * A file larger than a window is mapped window by window
+     */
+    static class Input {
+        static final int WINDOW = 1 << 30;
+
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        // position of buffer in file
+        private long position = 0;
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            map(0);
+        }
+
+        void map(long pos) throws IOException {
+            position = pos;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+                    Math.min(WINDOW, channel.size() - pos));
+        }
+
+        // at least n bytes are available in buffer
+        void check(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                long pos = position + buffer.position();
+                if (channel.size() - pos < n) {
+                    throw new IOException("Unexpected end of graph snapshot");
+                }
+                map(pos);
+            }
+        }
+
+        byte readByte() throws IOException {
+            check(1);
+            return buffer.get();
+        }
+
+        boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        int readInt() throws IOException {
+            check(4);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            check(8);
+            return buffer.getLong();
+        }
+
+        String readString() throws IOException {
+            return new String(readBytes(readInt()), StandardCharsets.UTF_8);
+        }
+
+        byte[] readBytes(int n) throws IOException {
+            byte[] res = new byte[n];
+            int i = 0;
+            while (i < n) {
+                check(1);
+                int length = Math.min(n - i, buffer.remaining());
+                buffer.get(res, i, length);
+                i += length;
+            }
+            return res;
+        }
+
+        int[] readInts(int n) throws IOException {
+            int[] res = new int[n];
+            int i = 0;
+            while (i < n) {
+                check(4);
+                int length = Math.min(n - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().get(res, i, length);
+                buffer.position(buffer.position() + 4 * length);
+                i += length;
+            }
+            return res;
+        }
+    }
+
+}
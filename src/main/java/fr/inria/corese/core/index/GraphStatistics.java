@@ -0,0 +1,518 @@
+package fr.inria.corese.core.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Node;
+
+/**
+ * Statistics of the graph for the query planner (Query.QP_STATS_BASED)
+ * Distinct subjects and objects of a predicate are derived from its sorted
+ * edge lists in the subject and object indexes.
+ * Characteristic sets are computed once from the subject index, with the
+ * characteristic set of each subject and the number of triples of each object.
+ * Edge insert and delete (EdgeManagerIndexer) update the number of triples,
+ * the characteristic set of the subject and the number of triples of the
+ * object, and mark the statistics of the predicate as modified: they are
+ * computed again from the index when they are needed.
+ * Bulk operations (load, clear, rdf star) invalidate the statistics, they are
+ * computed again on next query.
+ *
+ * predicate -> number of triples, distinct subjects and distinct objects
+ * characteristic set (set of predicates of a subject) -> number of subjects
+ * and number of triples per predicate
+ * A characteristic set is a sorted array of predicate indexes, hashed as such.
+ */
+public class GraphStatistics {
+
+    /**
+     * predicate statistics
+     */
+    static class Stat {
+
+        int count = 0;
+        int subject = 0;
+        int object = 0;
+        // distinct subjects and objects must be computed
+        boolean modified = true;
+    }
+
+    /**
+     * Sorted predicate indexes of a characteristic set
+     */
+    static class Key {
+
+        int[] predicates;
+        int hash;
+
+        Key(int[] predicates) {
+            this.predicates = predicates;
+            hash = Arrays.hashCode(predicates);
+        }
+
+        int indexOf(int pred) {
+            return Arrays.binarySearch(predicates, pred);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(predicates, ((Key) obj).predicates);
+        }
+    }
+
+    /**
+     * characteristic set: subjects that have exactly these predicates
+     */
+    static class CharacteristicSet {
+
+        Key key;
+        int size = 0;
+        // number of triples of subjects of the set, per predicate of the key
+        int[] occurrence;
+
+        CharacteristicSet(Key key) {
+            this.key = key;
+            occurrence = new int[key.predicates.length];
+        }
+
+        void add(int[] count) {
+            size++;
+            for (int i = 0; i < occurrence.length; i++) {
+                occurrence[i] += count[i];
+            }
+        }
+
+        void remove(int[] count) {
+            size--;
+            for (int i = 0; i < occurrence.length; i++) {
+                occurrence[i] -= count[i];
+            }
+        }
+
+        int getOccurrence(int pred) {
+            int i = key.indexOf(pred);
+            return i < 0 ? 0 : occurrence[i];
+        }
+    }
+
+    /**
+     * characteristic set of a subject and its number of triples per predicate
+     * of the key
+     */
+    static class Member {
+
+        CharacteristicSet cs;
+        int[] count;
+    }
+
+    private Graph graph;
+    private boolean valid = false;
+    // characteristic sets and distinct node numbers must be computed
+    private boolean modified = true;
+    private int size = 0;
+    // predicate label -> statistics
+    private HashMap<String, Stat> predicateMap;
+    // predicate label -> index of predicate in characteristic set keys
+    private HashMap<String, Integer> predicateIndex;
+    private HashMap<Key, CharacteristicSet> characteristicMap;
+    // subject node index -> characteristic set
+    private HashMap<Integer, Member> subjectMap;
+    // object node index -> number of triples
+    private HashMap<Integer, Integer> objectMap;
+
+    public GraphStatistics(Graph g) {
+        graph = g;
+        init();
+    }
+
+    void init() {
+        size = 0;
+        modified = true;
+        predicateMap = new HashMap<>();
+        predicateIndex = new HashMap<>();
+        characteristicMap = new HashMap<>();
+        subjectMap = new HashMap<>();
+        objectMap = new HashMap<>();
+    }
+
+    /**
+     * Compute statistics if they are not valid
+     */
+    public synchronized GraphStatistics check() {
+        if (!valid) {
+            compute();
+        }
+        return this;
+    }
+
+    /**
+     * Number of triples per predicate is the size of its edge list
+     * other statistics are computed when needed
+     */
+    synchronized void compute() {
+        init();
+        EdgeManagerIndexer index = graph.getSubjectIndex();
+        for (Node pred : index.getProperties()) {
+            int n = index.get(pred).size();
+            if (n > 0) {
+                predicateMap.computeIfAbsent(pred.getLabel(), k -> new Stat()).count = n;
+                size += n;
+            }
+        }
+        valid = true;
+    }
+
+    public synchronized void invalidate() {
+        valid = false;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Edge inserted in the subject index
+     */
+    public synchronized void insert(Node pred, Node subject, Node object) {
+        if (valid) {
+            Stat stat = predicateMap.computeIfAbsent(pred.getLabel(), k -> new Stat());
+            stat.count++;
+            stat.modified = true;
+            size++;
+            if (!modified) {
+                insert(predicateIndex.computeIfAbsent(pred.getLabel(), k -> predicateIndex.size()),
+                        subject.getIndex(), object.getIndex());
+            }
+        }
+    }
+
+    /**
+     * Edge deleted from the subject index
+     */
+    public synchronized void delete(Node pred, Node subject, Node object) {
+        if (valid) {
+            Stat stat = predicateMap.get(pred.getLabel());
+            if (stat == null) {
+                return;
+            }
+            stat.modified = true;
+            size--;
+            if (--stat.count == 0) {
+                predicateMap.remove(pred.getLabel());
+            }
+            if (!modified) {
+                Integer ip = predicateIndex.get(pred.getLabel());
+                if (ip == null || !delete(ip, subject.getIndex(), object.getIndex())) {
+                    // not consistent with the index: compute again
+                    modified = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add predicate triple to characteristic set of subject
+     */
+    void insert(int pred, int subject, int object) {
+        objectMap.merge(object, 1, Integer::sum);
+        Member m = subjectMap.get(subject);
+        if (m == null) {
+            m = new Member();
+            subjectMap.put(subject, m);
+            set(m, new int[]{pred}, new int[]{1});
+            return;
+        }
+        int i = m.cs.key.indexOf(pred);
+        if (i >= 0) {
+            // same characteristic set
+            m.count[i]++;
+            m.cs.occurrence[i]++;
+        } else {
+            remove(m);
+            i = -i - 1;
+            set(m, insert(m.cs.key.predicates, i, pred), insert(m.count, i, 1));
+        }
+    }
+
+    /**
+     * Remove predicate triple from characteristic set of subject
+     * return false if subject has no such triple
+     */
+    boolean delete(int pred, int subject, int object) {
+        Member m = subjectMap.get(subject);
+        int i = (m == null) ? -1 : m.cs.key.indexOf(pred);
+        if (i < 0) {
+            return false;
+        }
+        objectMap.computeIfPresent(object, (k, n) -> n == 1 ? null : n - 1);
+        if (m.count[i] > 1) {
+            // same characteristic set
+            m.count[i]--;
+            m.cs.occurrence[i]--;
+            return true;
+        }
+        remove(m);
+        if (m.count.length == 1) {
+            subjectMap.remove(subject);
+        } else {
+            set(m, remove(m.cs.key.predicates, i), remove(m.count, i));
+        }
+        return true;
+    }
+
+    void set(Member m, int[] preds, int[] count) {
+        m.cs = characteristicMap.computeIfAbsent(new Key(preds), CharacteristicSet::new);
+        m.count = count;
+        m.cs.add(count);
+    }
+
+    void remove(Member m) {
+        m.cs.remove(m.count);
+        if (m.cs.size == 0) {
+            characteristicMap.remove(m.cs.key);
+        }
+    }
+
+    int[] insert(int[] array, int i, int value) {
+        int[] res = new int[array.length + 1];
+        System.arraycopy(array, 0, res, 0, i);
+        res[i] = value;
+        System.arraycopy(array, i, res, i + 1, array.length - i);
+        return res;
+    }
+
+    int[] remove(int[] array, int i) {
+        int[] res = new int[array.length - 1];
+        System.arraycopy(array, 0, res, 0, i);
+        System.arraycopy(array, i + 1, res, i, res.length - i);
+        return res;
+    }
+
+    /**
+     * Distinct subjects and objects of predicate from the sorted edge lists
+     */
+    Stat getStat(String label) {
+        Stat stat = predicateMap.get(label);
+        if (stat != null && stat.modified) {
+            Node pred = graph.getPropertyNode(label);
+            stat.subject = distinct(getEdgeManager(0, pred));
+            stat.object = distinct(getEdgeManager(1, pred));
+            stat.modified = false;
+        }
+        return stat;
+    }
+
+    EdgeManager getEdgeManager(int index, Node pred) {
+        if (pred == null) {
+            return null;
+        }
+        return graph.getIndex(index).checkGet(pred);
+    }
+
+    // number of distinct nodes in sorted edge list
+    int distinct(EdgeManager el) {
+        if (el == null) {
+            return 0;
+        }
+        int count = 0, former = -1;
+        for (int i = 0; i < el.getEdgeList().size(); i++) {
+            int n = el.getNodeIndex(i, el.getIndex());
+            if (i == 0 || n != former) {
+                count++;
+                former = n;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compute characteristic sets and distinct node numbers when they are not
+     * maintained by insert and delete
+     * Sort (subject, predicate) pairs of edges of the subject index,
+     * each subject has the characteristic set of its predicates
+     */
+    void complete() {
+        if (!modified) {
+            return;
+        }
+        predicateIndex.clear();
+        characteristicMap.clear();
+        subjectMap.clear();
+        objectMap.clear();
+        EdgeManagerIndexer index = graph.getSubjectIndex();
+        long[] pairs = new long[size];
+        int n = 0;
+
+        for (Node pred : index.getSortedProperties()) {
+            EdgeManager el = index.get(pred);
+            if (el.size() == 0) {
+                continue;
+            }
+            int ip = predicateIndex.size();
+            predicateIndex.put(pred.getLabel(), ip);
+            for (int i = 0; i < el.getEdgeList().size(); i++) {
+                int subject = el.getNodeIndex(i, 0);
+                objectMap.merge(el.getNodeIndex(i, 1), 1, Integer::sum);
+                if (n == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, 2 * n + 1);
+                }
+                pairs[n++] = ((long) subject << 32) | ip;
+            }
+        }
+
+        Arrays.sort(pairs, 0, n);
+        int[] preds = new int[predicateIndex.size()];
+        int[] count = new int[predicateIndex.size()];
+        int i = 0;
+        while (i < n) {
+            int subject = (int) (pairs[i] >>> 32);
+            int k = 0;
+            while (i < n && (int) (pairs[i] >>> 32) == subject) {
+                int pred = (int) pairs[i];
+                if (k > 0 && preds[k - 1] == pred) {
+                    count[k - 1]++;
+                } else {
+                    preds[k] = pred;
+                    count[k++] = 1;
+                }
+                i++;
+            }
+            Member m = new Member();
+            set(m, Arrays.copyOf(preds, k), Arrays.copyOf(count, k));
+            subjectMap.put(subject, m);
+        }
+        modified = false;
+    }
+
+    /**
+     * Number of triples
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of triples with predicate
+     */
+    public synchronized int count(String pred) {
+        Stat stat = predicateMap.get(pred);
+        return stat == null ? 0 : stat.count;
+    }
+
+    /**
+     * Number of distinct subjects of predicate
+     */
+    public synchronized int subjectCount(String pred) {
+        Stat stat = getStat(pred);
+        return stat == null ? 0 : stat.subject;
+    }
+
+    /**
+     * Number of distinct objects of predicate
+     */
+    public synchronized int objectCount(String pred) {
+        Stat stat = getStat(pred);
+        return stat == null ? 0 : stat.object;
+    }
+
+    public synchronized int predicateNumber() {
+        return predicateMap.size();
+    }
+
+    public synchronized int subjectNumber() {
+        complete();
+        return subjectMap.size();
+    }
+
+    public synchronized int objectNumber() {
+        complete();
+        return objectMap.size();
+    }
+
+    public synchronized int characteristicSetNumber() {
+        complete();
+        return characteristicMap.size();
+    }
+
+    /**
+     * Number of triples with subject and predicate
+     * pred = null: number of triples with subject
+     */
+    public synchronized int subjectCount(Node subject, String pred) {
+        return count(0, subject, pred);
+    }
+
+    /**
+     * Number of triples with object and predicate
+     * pred = null: number of triples with object
+     */
+    public synchronized int objectCount(Node object, String pred) {
+        return count(1, object, pred);
+    }
+
+    /**
+     * Count edges of node in sorted edge list of predicate (by dichotomy)
+     */
+    int count(int index, Node node, String pred) {
+        if (pred == null) {
+            int count = 0;
+            for (Node p : graph.getSubjectIndex().getProperties()) {
+                count += count(getEdgeManager(index, p), node);
+            }
+            return count;
+        }
+        return count(getEdgeManager(index, graph.getPropertyNode(pred)), node);
+    }
+
+    int count(EdgeManager el, Node node) {
+        return (el == null) ? 0 : el.count(node);
+    }
+
+    /**
+     * Estimated size of join ?x p1 ?y . ?x p2 ?z on subject
+     * Sum on characteristic sets that contain p1 and p2 of the average number
+     * of p1 triples times the average number of p2 triples per subject
+     */
+    public synchronized double subjectJoin(String p1, String p2) {
+        complete();
+        Integer i1 = predicateIndex.get(p1);
+        Integer i2 = predicateIndex.get(p2);
+        if (i1 == null || i2 == null) {
+            return 0;
+        }
+        double size = 0;
+        for (CharacteristicSet cs : characteristicMap.values()) {
+            int n1 = cs.getOccurrence(i1);
+            int n2 = cs.getOccurrence(i2);
+            if (n1 > 0 && n2 > 0) {
+                size += (double) n1 * n2 / cs.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized String toString() {
+        complete();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("triple: %s predicate: %s subject: %s object: %s characteristic set: %s\n",
+                size, predicateMap.size(), subjectMap.size(), objectMap.size(), characteristicMap.size()));
+        List<String> list = new ArrayList<>(predicateMap.keySet());
+        Collections.sort(list);
+        for (String pred : list) {
+            Stat stat = getStat(pred);
+            sb.append(String.format("%s: %s %s %s\n", pred, stat.count, stat.subject, stat.object));
+        }
+        return sb.toString();
+    }
+
+}
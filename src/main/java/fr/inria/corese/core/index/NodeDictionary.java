@@ -0,0 +1,291 @@
+package fr.inria.corese.core.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.api.IDatatype;
+
+/**
+ * Node dictionary of a Graph
+ * One table per kind of node: URI, blank, triple reference, named graph,
+ * property and literal key (value out), table key is the label of the node
+ *
+ * Literal table: label -> Node or array of Node with same label and
+ * different datatype or lang, the Node of a literal is found with the
+ * sameTerm comparator of the graph (1 and 01 have different Node)
+ * Literal index table: literal -> Node whose index is shared by literals with
+ * same value (1 and 01 have same index), sorted with value comparator
+ *
+ * Tables are concurrent: lookup does not lock and iteration does not fail
+ * when nodes are added.
+ * Nodes are given dense index by the dictionary.
+ */
+public class NodeDictionary {
+
+    public static final int URI = 0;
+    public static final int BLANK = 1;
+    public static final int TRIPLE = 2;
+    public static final int GRAPH = 3;
+    public static final int PROPERTY = 4;
+    public static final int LITERAL = 5;
+    static final int NB_KIND = 6;
+
+    private final ArrayList<ConcurrentHashMap<String, Node>> tables;
+    // label -> Node | Node[]
+    private final ConcurrentHashMap<String, Object> literalTable;
+    private final AtomicInteger literalSize;
+    private final Comparator<? super IDatatype> nodeComparator;
+    private final ConcurrentNavigableMap<IDatatype, Node> literalIndexMap;
+    // dense node index
+    private final AtomicInteger index;
+
+    public NodeDictionary(Comparator<? super IDatatype> nodeComparator, Comparator<? super IDatatype> indexComparator) {
+        tables = new ArrayList<>(NB_KIND);
+        for (int i = 0; i < NB_KIND; i++) {
+            tables.add(new ConcurrentHashMap<>());
+        }
+        this.nodeComparator = nodeComparator;
+        literalTable = new ConcurrentHashMap<>();
+        literalSize = new AtomicInteger();
+        literalIndexMap = new ConcurrentSkipListMap<>(indexComparator);
+        index = new AtomicInteger();
+    }
+
+    ConcurrentHashMap<String, Node> table(int kind) {
+        return tables.get(kind);
+    }
+
+    /**
+     * Table of kind of node: label -> node
+     */
+    public Map<String, Node> getTable(int kind) {
+        return table(kind);
+    }
+
+    public Node get(int kind, String label) {
+        return table(kind).get(label);
+    }
+
+    public boolean contains(int kind, String label) {
+        return table(kind).containsKey(label);
+    }
+
+    public void put(int kind, String label, Node node) {
+        table(kind).put(label, node);
+    }
+
+    /**
+     * Return node already recorded with label, otherwise record node and
+     * return it
+     */
+    public Node putIfAbsent(int kind, String label, Node node) {
+        Node n = table(kind).putIfAbsent(label, node);
+        return (n == null) ? node : n;
+    }
+
+    /**
+     * Return node recorded with label, otherwise create node, record it and
+     * return it. Creation is atomic: two threads get the same node.
+     */
+    public Node computeIfAbsent(int kind, String label, Function<String, Node> create) {
+        return table(kind).computeIfAbsent(label, create);
+    }
+
+    public Node remove(int kind, String label) {
+        return table(kind).remove(label);
+    }
+
+    public int size(int kind) {
+        return table(kind).size();
+    }
+
+    public Collection<Node> values(int kind) {
+        return table(kind).values();
+    }
+
+    public void clear(int kind) {
+        table(kind).clear();
+    }
+
+    // ________________________________________________________________
+    //
+    // Literal
+    //
+    /**
+     * Node of literal, 1 and 01 have different Node
+     */
+    public Node getLiteral(IDatatype dt) {
+        Object value = literalTable.get(dt.getLabel());
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Node) {
+            Node node = (Node) value;
+            return same(node, dt) ? node : null;
+        }
+        for (Node node : (Node[]) value) {
+            if (same(node, dt)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    boolean same(Node node, IDatatype dt) {
+        return nodeComparator.compare(node.getDatatypeValue(), dt) == 0;
+    }
+
+    /**
+     * Record node of literal, replace node of same literal if any
+     */
+    public void putLiteral(IDatatype dt, Node node) {
+        literalTable.compute(dt.getLabel(), (label, value) -> {
+            if (value == null) {
+                literalSize.incrementAndGet();
+                return node;
+            }
+            Node[] array = (value instanceof Node) ? new Node[]{(Node) value} : (Node[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (same(array[i], dt)) {
+                    if (array.length == 1) {
+                        return node;
+                    }
+                    array = array.clone();
+                    array[i] = node;
+                    return array;
+                }
+            }
+            literalSize.incrementAndGet();
+            array = Arrays.copyOf(array, array.length + 1);
+            array[array.length - 1] = node;
+            return array;
+        });
+    }
+
+    /**
+     * Return node of literal if any, otherwise create node, record it and
+     * return it. Creation is atomic: two threads get the same node.
+     */
+    public Node computeLiteralIfAbsent(IDatatype dt, Function<IDatatype, Node> create) {
+        Node[] res = new Node[1];
+        literalTable.compute(dt.getLabel(), (label, value) -> {
+            if (value == null) {
+                literalSize.incrementAndGet();
+                return res[0] = create.apply(dt);
+            }
+            Node[] array = (value instanceof Node) ? new Node[]{(Node) value} : (Node[]) value;
+            for (Node node : array) {
+                if (same(node, dt)) {
+                    res[0] = node;
+                    return value;
+                }
+            }
+            literalSize.incrementAndGet();
+            array = Arrays.copyOf(array, array.length + 1);
+            array[array.length - 1] = res[0] = create.apply(dt);
+            return array;
+        });
+        return res[0];
+    }
+
+    public int literalSize() {
+        return literalSize.get();
+    }
+
+    public Iterable<Node> literalValues() {
+        return () -> new LiteralIterator(literalTable.values().iterator());
+    }
+
+    public void clearLiteral() {
+        literalTable.clear();
+        literalSize.set(0);
+    }
+
+    /**
+     * literal -> Node whose index is shared by same value, 1 and 01 have same
+     * index
+     */
+    public ConcurrentNavigableMap<IDatatype, Node> getLiteralIndexMap() {
+        return literalIndexMap;
+    }
+
+    /**
+     * Iterate Node and Node[] of literal table
+     */
+    static class LiteralIterator implements Iterator<Node> {
+
+        private final Iterator<Object> it;
+        private Node[] array;
+        private int i = 0;
+        private Node next;
+
+        LiteralIterator(Iterator<Object> it) {
+            this.it = it;
+            advance();
+        }
+
+        final void advance() {
+            if (array != null && i < array.length) {
+                next = array[i++];
+                return;
+            }
+            array = null;
+            next = null;
+            if (it.hasNext()) {
+                Object value = it.next();
+                if (value instanceof Node) {
+                    next = (Node) value;
+                } else {
+                    array = (Node[]) value;
+                    i = 0;
+                    next = array[i++];
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Node next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node node = next;
+            advance();
+            return node;
+        }
+    }
+
+    // ________________________________________________________________
+    //
+    // Index
+    //
+    /**
+     * Allocate next node index
+     */
+    public int nextIndex() {
+        return index.getAndIncrement();
+    }
+
+    /**
+     * Number of allocated node index
+     */
+    public int getIndex() {
+        return index.get();
+    }
+
+}
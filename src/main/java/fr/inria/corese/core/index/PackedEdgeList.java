@@ -0,0 +1,442 @@
+package fr.inria.corese.core.index;
+
+import fr.inria.corese.core.edge.EdgeGeneric;
+import fr.inria.corese.core.edge.internal.EdgeInternal;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import static fr.inria.corese.core.index.EdgeManagerIndexer.IGRAPH;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.RandomAccess;
+
+/**
+ * Edge list of a predicate stored as packed primitive columns
+ * Each edge is recorded as (subject, object, graph) node ids of a PackedNodeTable
+ * plus access level and (optional) edge index used by the rule engine
+ * Edge objects are created lazily when get(i) is called,
+ * EdgeManagerIterate fill its buffer edge directly from the columns
+ * Columns are sorted as the EdgeManager edge list:
+ * node(index), node(other), node(next)
+ * with compareNodeTerm semantics, hence binary search is done on the columns
+ *
+ * Only binary edges without reference node and without provenance 
+ * can be packed (no tuple, no rdf star, no rule provenance): see accept()
+ * otherwise EdgeManager switch to a standard edge list
+ */
+class PackedEdgeList extends AbstractList<Edge> implements RandomAccess {
+    private static final int INIT = 16;
+    // sort subarray with insertion sort under this size
+    private static final int INSERTION_SORT = 16;
+
+    private EdgeManager manager;
+    private PackedNodeTable table;
+    // node id columns
+    private int[] subject, object, graph;
+    private byte[] level;
+    // edge index (rule engine timestamp), allocated on demand
+    private int[] stamp;
+    private int size = 0;
+
+    PackedEdgeList(EdgeManager manager, PackedNodeTable table) {
+        this(manager, table, INIT);
+    }
+
+    PackedEdgeList(EdgeManager manager, PackedNodeTable table, int capacity) {
+        this.manager = manager;
+        this.table = table;
+        subject = new int[capacity];
+        object = new int[capacity];
+        graph = new int[capacity];
+        level = new byte[capacity];
+    }
+
+    /**
+     * Edge can be recorded in columns
+     * provenance is not recorded, edge with provenance is not packed
+     */
+    static boolean accept(Edge edge) {
+        return edge.nbNode() == 2 && !edge.isTripleNode() 
+                && edge.getProvenance() == null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Create edge from columns
+     * Iteration does not call get(i): EdgeManagerIterate fill a buffer edge
+     * see fill() and EdgeManager getBufferEdges()
+     */
+    @Override
+    public Edge get(int i) {
+        check(i);
+        PackedEdge edge = new PackedEdge();
+        edge.setGraph(getNode(i, IGRAPH));
+        edge.setNode(0, getNode(i, 0));
+        edge.setNode(1, getNode(i, 1));
+        edge.setLevel(level[i]);
+        edge.setEdgeIndex(getStamp(i));
+        return edge;
+    }
+
+    /**
+     * Fill buffer edge from columns without creating edge
+     * packed edges have no provenance (see accept())
+     */
+    void fill(EdgeGeneric buffer, int i) {
+        buffer.setGraph(getNode(i, IGRAPH));
+        buffer.setNode(0, getNode(i, 0));
+        buffer.setNode(1, getNode(i, 1));
+        buffer.setLevel(level[i]);
+        buffer.setEdgeIndex(getStamp(i));
+        buffer.setProvenance(null);
+    }
+
+    Node getNode(int i, int n) {
+        switch (n) {
+            case IGRAPH:
+                return table.getNode(graph[i]);
+            case 0:
+                return table.getNode(subject[i]);
+            case 1:
+                return table.getNode(object[i]);
+        }
+        return null;
+    }
+
+    int getStamp(int i) {
+        return (stamp == null) ? -1 : stamp[i];
+    }
+
+    @Override
+    public boolean add(Edge edge) {
+        add(size, edge);
+        return true;
+    }
+
+    @Override
+    public void add(int i, Edge edge) {
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        if (i < size) {
+            shift(i, i + 1, size - i);
+        }
+        store(i, edge);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Edge set(int i, Edge edge) {
+        Edge old = get(i);
+        store(i, edge);
+        return old;
+    }
+
+    @Override
+    public Edge remove(int i) {
+        Edge old = get(i);
+        if (i < size - 1) {
+            shift(i + 1, i, size - i - 1);
+        }
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        stamp = null;
+        modCount++;
+    }
+
+    void store(int i, Edge edge) {
+        subject[i] = table.getId(edge.getNode(0));
+        object[i] = table.getId(edge.getNode(1));
+        graph[i] = table.getId(edge.getGraph());
+        level[i] = edge.getLevel();
+        int index = edge.getEdgeIndex();
+        if (index != -1 && stamp == null) {
+            stamp = new int[subject.length];
+            Arrays.fill(stamp, -1);
+        }
+        if (stamp != null) {
+            stamp[i] = index;
+        }
+    }
+
+    /**
+     * Copy columns of another packed list (same node table)
+     */
+    void addAll(PackedEdgeList list) {
+        ensureCapacity(size + list.size());
+        System.arraycopy(list.subject, 0, subject, size, list.size());
+        System.arraycopy(list.object, 0, object, size, list.size());
+        System.arraycopy(list.graph, 0, graph, size, list.size());
+        System.arraycopy(list.level, 0, level, size, list.size());
+        if (list.stamp != null || stamp != null) {
+            allocateStamp();
+            for (int i = 0; i < list.size(); i++) {
+                stamp[size + i] = list.getStamp(i);
+            }
+        }
+        size += list.size();
+        modCount++;
+    }
+
+    /**
+     * Graph snapshot: append edges from snapshot node id columns
+     * ids: snapshot node id -> node table id
+     */
+    void load(int[] ids, int n, int[] subject, int[] object, int[] graph, byte[] level, int[] stamp) {
+        ensureCapacity(size + n);
+        for (int i = 0; i < n; i++) {
+            this.subject[size + i] = ids[subject[i]];
+            this.object[size + i] = ids[object[i]];
+            this.graph[size + i] = ids[graph[i]];
+        }
+        System.arraycopy(level, 0, this.level, size, n);
+        if (stamp != null) {
+            allocateStamp();
+            System.arraycopy(stamp, 0, this.stamp, size, n);
+        }
+        size += n;
+        modCount++;
+    }
+
+    /**
+     * Graph snapshot: append edges of list in permutation order
+     */
+    void load(PackedEdgeList list, int[] perm) {
+        ensureCapacity(size + perm.length);
+        if (list.stamp != null) {
+            allocateStamp();
+        }
+        for (int i : perm) {
+            subject[size] = list.subject[i];
+            object[size] = list.object[i];
+            graph[size] = list.graph[i];
+            level[size] = list.level[i];
+            if (stamp != null) {
+                stamp[size] = list.getStamp(i);
+            }
+            size++;
+        }
+        modCount++;
+    }
+
+    /**
+     * Merge sorted edges into sorted columns, in place, from the end
+     */
+    void merge(NavigableSet<Edge> set) {
+        ensureCapacity(size + set.size());
+        int i = size - 1;
+        int pos = size + set.size() - 1;
+        Iterator<Edge> it = set.descendingIterator();
+        while (it.hasNext()) {
+            Edge edge = it.next();
+            while (i >= 0 && compare(i, edge) > 0) {
+                move(i--, pos--);
+            }
+            store(pos--, edge);
+        }
+        size += set.size();
+        modCount++;
+    }
+
+    void allocateStamp() {
+        if (stamp == null) {
+            stamp = new int[subject.length];
+            Arrays.fill(stamp, -1);
+        }
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > subject.length) {
+            int length = Math.max(capacity, subject.length + (subject.length >> 1) + 1);
+            resize(length);
+        }
+    }
+
+    void trimToSize() {
+        if (size < subject.length) {
+            resize(size);
+        }
+    }
+
+    void resize(int length) {
+        subject = Arrays.copyOf(subject, length);
+        object = Arrays.copyOf(object, length);
+        graph = Arrays.copyOf(graph, length);
+        level = Arrays.copyOf(level, length);
+        if (stamp != null) {
+            int former = stamp.length;
+            stamp = Arrays.copyOf(stamp, length);
+            if (length > former) {
+                Arrays.fill(stamp, former, length, -1);
+            }
+        }
+    }
+
+    void shift(int from, int to, int length) {
+        System.arraycopy(subject, from, subject, to, length);
+        System.arraycopy(object, from, object, to, length);
+        System.arraycopy(graph, from, graph, to, length);
+        System.arraycopy(level, from, level, to, length);
+        if (stamp != null) {
+            System.arraycopy(stamp, from, stamp, to, length);
+        }
+    }
+
+    /**
+     * copy edge at position from into position to
+     */
+    void move(int from, int to) {
+        if (from != to) {
+            subject[to] = subject[from];
+            object[to] = object[from];
+            graph[to] = graph[from];
+            level[to] = level[from];
+            if (stamp != null) {
+                stamp[to] = stamp[from];
+            }
+        }
+    }
+
+    /**
+     * keep n first edges
+     */
+    void truncate(int n) {
+        if (n < size) {
+            size = n;
+            modCount++;
+        }
+    }
+
+    void swap(int i, int j) {
+        int tmp = subject[i];
+        subject[i] = subject[j];
+        subject[j] = tmp;
+        tmp = object[i];
+        object[i] = object[j];
+        object[j] = tmp;
+        tmp = graph[i];
+        graph[i] = graph[j];
+        graph[j] = tmp;
+        byte b = level[i];
+        level[i] = level[j];
+        level[j] = b;
+        if (stamp != null) {
+            tmp = stamp[i];
+            stamp[i] = stamp[j];
+            stamp[j] = tmp;
+        }
+    }
+
+    /**
+     * Compare edges at position i and j
+     * node(index) node(other) node(next) with sameTerm semantics
+     */
+    int compare(int i, int j) {
+        int res = manager.compareNodeTerm(getNode(i, manager.getIndex()), getNode(j, manager.getIndex()));
+        if (res != 0) {
+            return res;
+        }
+        res = manager.compareNodeTerm(getNode(i, manager.getOther()), getNode(j, manager.getOther()));
+        if (res != 0) {
+            return res;
+        }
+        return manager.compareNodeTerm(getNode(i, manager.getNext()), getNode(j, manager.getNext()));
+    }
+
+    /**
+     * Compare edge at position i with edge
+     * named graph of edge may be null (see compareNodeTermNull)
+     */
+    int compare(int i, Edge edge) {
+        int res = manager.compareNodeTerm(getNode(i, manager.getIndex()), edge.getNode(manager.getIndex()));
+        if (res != 0) {
+            return res;
+        }
+        res = manager.compareNodeTerm(getNode(i, manager.getOther()), edge.getNode(manager.getOther()));
+        if (res != 0) {
+            return res;
+        }
+        return manager.compareNodeTermNull(getNode(i, manager.getNext()), edge.getNode(manager.getNext()));
+    }
+
+    /**
+     * Sort columns in place (quicksort with three way partition)
+     * No Edge is created
+     */
+    void sort() {
+        sort(0, size - 1);
+        modCount++;
+    }
+
+    void sort(int first, int last) {
+        while (last - first >= INSERTION_SORT) {
+            swap(first, (first + last) >>> 1);
+            // first is pivot
+            int lt = first, gt = last, i = first + 1;
+            while (i <= gt) {
+                int res = compare(i, lt);
+                if (res < 0) {
+                    swap(lt++, i++);
+                } else if (res > 0) {
+                    swap(i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            // recurse on smaller part, loop on larger part
+            if (lt - first < last - gt) {
+                sort(first, lt - 1);
+                first = gt + 1;
+            } else {
+                sort(gt + 1, last);
+                last = lt - 1;
+            }
+        }
+        insertionSort(first, last);
+    }
+
+    void insertionSort(int first, int last) {
+        for (int i = first + 1; i <= last; i++) {
+            for (int j = i; j > first && compare(j - 1, j) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    void check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Edge created from columns, record edge index
+     */
+    static class PackedEdge extends EdgeInternal {
+        private int edgeIndex = -1;
+
+        @Override
+        public int getEdgeIndex() {
+            return edgeIndex;
+        }
+
+        @Override
+        public void setEdgeIndex(int n) {
+            edgeIndex = n;
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package fr.inria.corese.core.index;
+
+import fr.inria.corese.core.kgram.api.core.Node;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Dense Node id table shared by packed edge lists of a Graph
+ * Node index cannot be used as a key because 1 and 01 share same index
+ * hence each Node instance is allocated its own dense id
+ * id -> Node is an array, Node -> id is an identity map
+ * Edge lists store int ids instead of Node pointers
+ * getId() is synchronized, getNode() is lock free: the array is volatile 
+ * and a reallocated array is published after the node is stored in it
+ */
+public class PackedNodeTable {
+    private static final int INIT = 1024;
+
+    private volatile Node[] nodes;
+    private IdentityHashMap<Node, Integer> ids;
+    private volatile int size = 0;
+
+    public PackedNodeTable() {
+        nodes = new Node[INIT];
+        ids = new IdentityHashMap<>();
+    }
+
+    /**
+     * Return id of node, allocate a new id if node is not yet recorded
+     */
+    synchronized int getId(Node node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            Node[] arr = nodes;
+            if (size == arr.length) {
+                arr = Arrays.copyOf(arr, arr.length * 2);
+            }
+            id = size;
+            arr[id] = node;
+            // publish array and node
+            nodes = arr;
+            size = id + 1;
+            ids.put(node, id);
+        }
+        return id;
+    }
+
+    Node getNode(int id) {
+        return nodes[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(nodes, 0, size, null);
+        ids.clear();
+        size = 0;
+    }
+
+}
@@ -0,0 +1,508 @@
+package fr.inria.corese.core.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+
+/**
+ * Reachability index of a transitive predicate, e.g. rdfs:subClassOf
+ * Used by Closure (rule saturation) and by PathFinder for p+ and p* with
+ * bound endpoints.
+ *
+ * Strongly connected components of the predicate graph are condensed into a
+ * DAG. Each component has an interval [low, high] of the ranks of the
+ * components it reaches: if c1 reaches c2, interval(c2) is included in
+ * interval(c1). reach() walks the DAG from the source component and prunes
+ * components whose interval does not contain the target interval.
+ * Memory is linear in the number of nodes and edges of the predicate.
+ *
+ * Insert of an edge that does not change reachability leaves the index as is,
+ * other inserts add an edge to the DAG and enlarge the intervals of the
+ * ancestors. Insert that creates a cycle and delete invalidate the index, it
+ * is computed again when needed.
+ * 
+ * Computation is synchronized, lookups are not: once valid is published, 
+ * the index is only modified by insert under the graph write lock, which 
+ * excludes queries.
+ */
+public class ReachabilityIndex {
+
+    private Graph graph;
+    private Node predicate;
+    private volatile boolean valid = false;
+    // number of inserts that changed reachability
+    private int version = 0;
+    // node -> node id
+    private HashMap<Node, Integer> nodeMap;
+    // node id -> node
+    private ArrayList<Node> nodeList;
+    // node id -> component
+    private int[] component;
+    // component -> node ids
+    private int[][] member;
+    // component has a cycle: its nodes reach themselves
+    private boolean[] cyclic;
+    // component DAG
+    private int[][] successor, predecessor;
+    private int[] successorSize, predecessorSize;
+    // min and max rank of components reached by component
+    // component rank: successors have smaller rank in the computed DAG,
+    // new components have greater rank
+    private int[] low, high;
+    private int componentSize = 0;
+    private int maxRank = 0;
+
+    public ReachabilityIndex(Graph g, Node p) {
+        graph = g;
+        predicate = p;
+    }
+
+    /**
+     * Compute the index if it is not valid
+     */
+    public synchronized ReachabilityIndex check() {
+        if (!valid) {
+            compute();
+        }
+        return this;
+    }
+
+    public synchronized void invalidate() {
+        valid = false;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public Node getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Number of inserts that changed reachability since the index is created
+     * and number of computations of the index
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    public synchronized int nbNode() {
+        return nodeList.size();
+    }
+
+    public synchronized int nbComponent() {
+        return componentSize;
+    }
+
+    // ________________________________________________________________
+    //
+    // Computation
+    //
+    synchronized void compute() {
+        nodeMap = new HashMap<>();
+        nodeList = new ArrayList<>();
+        int[] source = new int[16], target = new int[16];
+        int size = 0;
+        for (Edge edge : graph.getEdges(predicate)) {
+            if (size == source.length) {
+                source = Arrays.copyOf(source, 2 * size);
+                target = Arrays.copyOf(target, 2 * size);
+            }
+            source[size] = id(edge.getNode(0));
+            target[size] = id(edge.getNode(1));
+            size++;
+        }
+        int n = nodeList.size();
+        // adjacency of nodes
+        int[] start = new int[n + 1];
+        for (int i = 0; i < size; i++) {
+            start[source[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] next = new int[size];
+        int[] place = Arrays.copyOf(start, n);
+        for (int i = 0; i < size; i++) {
+            next[place[source[i]]++] = target[i];
+        }
+
+        component = new int[n];
+        componentSize = tarjan(n, start, next);
+        int nc = componentSize;
+        member = new int[nc][];
+        cyclic = new boolean[nc];
+        successor = new int[nc][];
+        predecessor = new int[nc][];
+        successorSize = new int[nc];
+        predecessorSize = new int[nc];
+        low = new int[nc];
+        high = new int[nc];
+
+        int[] count = new int[nc];
+        for (int i = 0; i < n; i++) {
+            count[component[i]]++;
+        }
+        for (int c = 0; c < nc; c++) {
+            member[c] = new int[count[c]];
+            cyclic[c] = count[c] > 1;
+            count[c] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int c = component[i];
+            member[c][count[c]++] = i;
+        }
+
+        // component DAG without duplicate edges
+        int[] mark = new int[nc];
+        Arrays.fill(mark, -1);
+        for (int c = 0; c < nc; c++) {
+            for (int m : member[c]) {
+                for (int j = start[m]; j < start[m + 1]; j++) {
+                    int d = component[next[j]];
+                    if (d == c) {
+                        if (next[j] == m) {
+                            // self loop
+                            cyclic[c] = true;
+                        }
+                    } else if (mark[d] != c) {
+                        mark[d] = c;
+                        add(c, d);
+                    }
+                }
+            }
+        }
+
+        // tarjan numbers a component after the components it reaches
+        for (int c = 0; c < nc; c++) {
+            low[c] = c + 1;
+            high[c] = c + 1;
+            for (int i = 0; i < successorSize[c]; i++) {
+                int d = successor[c][i];
+                low[c] = Math.min(low[c], low[d]);
+                high[c] = Math.max(high[c], high[d]);
+            }
+        }
+        maxRank = nc;
+        version++;
+        valid = true;
+    }
+
+    /**
+     * Iterative Tarjan strongly connected components
+     * Component numbers are such that successor components have smaller number
+     */
+    int tarjan(int n, int[] start, int[] next) {
+        int[] index = new int[n];
+        int[] lowlink = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] edge = new int[n];
+        Arrays.fill(index, -1);
+        int counter = 0, sp = 0, nc = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int csp = 0;
+            callStack[csp++] = root;
+            index[root] = lowlink[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            edge[root] = start[root];
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edge[v] < start[v + 1]) {
+                    int w = next[edge[v]++];
+                    if (index[w] == -1) {
+                        index[w] = lowlink[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        edge[w] = start[w];
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        lowlink[v] = Math.min(lowlink[v], index[w]);
+                    }
+                } else {
+                    csp--;
+                    if (csp > 0) {
+                        int u = callStack[csp - 1];
+                        lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+                    }
+                    if (lowlink[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            component[w] = nc;
+                        } while (w != v);
+                        nc++;
+                    }
+                }
+            }
+        }
+        return nc;
+    }
+
+    int id(Node node) {
+        Integer id = nodeMap.get(node);
+        if (id == null) {
+            id = nodeList.size();
+            nodeMap.put(node, id);
+            nodeList.add(node);
+        }
+        return id;
+    }
+
+    // add DAG edge c -> d
+    void add(int c, int d) {
+        successor[c] = push(successor[c], successorSize[c]++, d);
+        predecessor[d] = push(predecessor[d], predecessorSize[d]++, c);
+    }
+
+    int[] push(int[] array, int i, int value) {
+        if (array == null) {
+            array = new int[2];
+        } else if (i == array.length) {
+            array = Arrays.copyOf(array, 2 * i);
+        }
+        array[i] = value;
+        return array;
+    }
+
+    // ________________________________________________________________
+    //
+    // Query
+    //
+    /**
+     * n1 p+ n2 (zero = false) or n1 p* n2 (zero = true)
+     */
+    public boolean reach(Node n1, Node n2, boolean zero) {
+        if (!valid) {
+            check();
+        }
+        Integer i1 = nodeMap.get(n1);
+        if (n1.equals(n2)) {
+            return zero || (i1 != null && cyclic[component[i1]]);
+        }
+        Integer i2 = nodeMap.get(n2);
+        if (i1 == null || i2 == null) {
+            return false;
+        }
+        return reach(component[i1], component[i2]);
+    }
+
+    boolean reach(int c1, int c2) {
+        if (c1 == c2) {
+            return true;
+        }
+        if (!contains(c1, c2)) {
+            return false;
+        }
+        BitSet visited = new BitSet(componentSize);
+        int[] stack = new int[16];
+        int sp = 0;
+        stack[sp++] = c1;
+        visited.set(c1);
+        while (sp > 0) {
+            int c = stack[--sp];
+            for (int i = 0; i < successorSize[c]; i++) {
+                int d = successor[c][i];
+                if (d == c2) {
+                    return true;
+                }
+                if (!visited.get(d) && contains(d, c2)) {
+                    visited.set(d);
+                    stack = push(stack, sp++, d);
+                }
+            }
+        }
+        return false;
+    }
+
+    // interval of c1 contains interval of c2
+    boolean contains(int c1, int c2) {
+        return low[c1] <= low[c2] && high[c2] <= high[c1];
+    }
+
+    /**
+     * Nodes reached by n with one or more edges
+     */
+    public List<Node> reachable(Node n) {
+        if (!valid) {
+            check();
+        }
+        List<Node> list = new ArrayList<>();
+        Integer id = nodeMap.get(n);
+        if (id == null) {
+            return list;
+        }
+        int c1 = component[id];
+        if (cyclic[c1]) {
+            members(c1, list);
+        }
+        BitSet visited = reached(c1);
+        visited.clear(c1);
+        for (int c = visited.nextSetBit(0); c >= 0; c = visited.nextSetBit(c + 1)) {
+            members(c, list);
+        }
+        return list;
+    }
+
+    void members(int c, List<Node> list) {
+        for (int m : member[c]) {
+            list.add(nodeList.get(m));
+        }
+    }
+
+    // components reached from c, including c
+    BitSet reached(int c1) {
+        BitSet visited = new BitSet(componentSize);
+        int[] stack = new int[16];
+        int sp = 0;
+        stack[sp++] = c1;
+        visited.set(c1);
+        while (sp > 0) {
+            int c = stack[--sp];
+            for (int i = 0; i < successorSize[c]; i++) {
+                int d = successor[c][i];
+                if (!visited.get(d)) {
+                    visited.set(d);
+                    stack = push(stack, sp++, d);
+                }
+            }
+        }
+        return visited;
+    }
+
+    // ________________________________________________________________
+    //
+    // Update
+    //
+    /**
+     * Edge n1 p n2 inserted in graph
+     */
+    public synchronized void insert(Node n1, Node n2) {
+        if (valid) {
+            insert(n1, n2, null);
+        }
+    }
+
+    /**
+     * Edges of predicate inserted in graph, e.g. by rule engine
+     * Reached components are computed once per subject
+     */
+    public synchronized void insert(List<Edge> list) {
+        if (!valid) {
+            return;
+        }
+        Node subject = null;
+        BitSet reached = null;
+        for (Edge edge : list) {
+            if (!valid) {
+                return;
+            }
+            Node n1 = edge.getNode(0);
+            if (subject == null || !subject.equals(n1)) {
+                subject = n1;
+                reached = null;
+            }
+            Integer id = nodeMap.get(n1);
+            if (reached == null && id != null) {
+                reached = reached(component[id]);
+            }
+            if (insert(n1, edge.getNode(1), reached)) {
+                reached = null;
+            }
+        }
+    }
+
+    /**
+     * reached: components reached by n1 if known
+     * return true if reachability has changed
+     */
+    boolean insert(Node n1, Node n2, BitSet reached) {
+        int c1 = component(n1);
+        int c2 = component(n2);
+        if (c1 == c2) {
+            if (n1.equals(n2)) {
+                cyclic[c1] = true;
+            }
+            return false;
+        }
+        if (reached == null ? reach(c1, c2) : reached.get(c2)) {
+            return false;
+        }
+        version++;
+        if (reach(c2, c1)) {
+            // new cycle: merge components later
+            valid = false;
+            return true;
+        }
+        add(c1, c2);
+        enlarge(c1, c2);
+        return true;
+    }
+
+    /**
+     * c1 -> c2 is a new DAG edge: intervals of c1 and its ancestors contain
+     * the interval of c2
+     */
+    void enlarge(int c1, int c2) {
+        int[] stack = new int[16];
+        int sp = 0;
+        stack[sp++] = c1;
+        int min = low[c2], max = high[c2];
+        while (sp > 0) {
+            int c = stack[--sp];
+            if (low[c] <= min && max <= high[c]) {
+                continue;
+            }
+            low[c] = Math.min(low[c], min);
+            high[c] = Math.max(high[c], max);
+            for (int i = 0; i < predecessorSize[c]; i++) {
+                stack = push(stack, sp++, predecessor[c][i]);
+            }
+        }
+    }
+
+    // component of node, create a new component for a new node
+    int component(Node node) {
+        Integer id = nodeMap.get(node);
+        if (id != null) {
+            return component[id];
+        }
+        id = id(node);
+        int c = componentSize++;
+        if (c == member.length) {
+            int length = 2 * c + 1;
+            member = Arrays.copyOf(member, length);
+            cyclic = Arrays.copyOf(cyclic, length);
+            successor = Arrays.copyOf(successor, length);
+            predecessor = Arrays.copyOf(predecessor, length);
+            successorSize = Arrays.copyOf(successorSize, length);
+            predecessorSize = Arrays.copyOf(predecessorSize, length);
+            low = Arrays.copyOf(low, length);
+            high = Arrays.copyOf(high, length);
+        }
+        if (id == component.length) {
+            component = Arrays.copyOf(component, 2 * id + 1);
+        }
+        component[id] = c;
+        member[c] = new int[]{id};
+        low[c] = ++maxRank;
+        high[c] = maxRank;
+        return c;
+    }
+
+}
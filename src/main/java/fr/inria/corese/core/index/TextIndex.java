@@ -0,0 +1,496 @@
+package fr.inria.corese.core.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.api.IDatatype;
+
+/**
+ * Text index of the objects of a predicate
+ * Used by ProducerImpl to evaluate triple pattern s p ?o with filter
+ * contains(?o, str), strstarts(?o, str), regex(?o, pat, flag) and
+ * langMatches(lang(?o), range): the index returns candidate object nodes
+ * and the triple pattern is evaluated with ?o bound to each candidate.
+ * Candidates are a superset of the solutions, filters are still evaluated.
+ * Approximate search filter approximate(?o, str, alg, threshold) is pruned to
+ * objects that share trigrams with str, this may lose solutions. Frequent
+ * trigrams (such as http in URI) do not select candidates.
+ *
+ * Object label is lower cased and split into trigrams: trigram -> objects
+ * whose label contains the trigram. Corese string functions accept URI, hence
+ * every object label is indexed, not only literals.
+ * Literal lang -> objects with this lang.
+ *
+ * Insert and delete of edges update the index, bulk load invalidate the index,
+ * it is computed again when needed.
+ */
+public class TextIndex {
+
+    public static final int GRAM = 3;
+    // approximate search: trigram of more than FREQUENT_GRAM * number of nodes
+    // objects (and more than FREQUENT_GRAM_MIN) is frequent
+    public static double FREQUENT_GRAM = 0.1;
+    public static int FREQUENT_GRAM_MIN = 1000;
+
+    private Graph graph;
+    private Node predicate;
+    private boolean valid = false;
+    // object -> number of edges with this object
+    private IdentityHashMap<Node, Integer> count;
+    // lower case trigram -> objects
+    private HashMap<String, Set<Node>> gramMap;
+    // lang -> literal objects
+    private HashMap<String, Set<Node>> langMap;
+
+    public TextIndex(Graph g, Node p) {
+        graph = g;
+        predicate = p;
+    }
+
+    /**
+     * Compute the index if it is not valid
+     */
+    public synchronized TextIndex check() {
+        if (!valid) {
+            compute();
+        }
+        return this;
+    }
+
+    public synchronized void invalidate() {
+        valid = false;
+        count = null;
+        gramMap = null;
+        langMap = null;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public Node getPredicate() {
+        return predicate;
+    }
+
+    public synchronized int nbNode() {
+        return (count == null) ? 0 : count.size();
+    }
+
+    public synchronized int nbGram() {
+        return (gramMap == null) ? 0 : gramMap.size();
+    }
+
+    synchronized void compute() {
+        count = new IdentityHashMap<>();
+        gramMap = new HashMap<>();
+        langMap = new HashMap<>();
+        for (Edge edge : graph.getEdges(predicate)) {
+            add(edge.getNode(1));
+        }
+        valid = true;
+    }
+
+    /**
+     * Object of inserted edge
+     */
+    public synchronized void insert(Node node) {
+        if (valid) {
+            add(node);
+        }
+    }
+
+    /**
+     * Object of deleted edge
+     */
+    public synchronized void delete(Node node) {
+        if (valid) {
+            remove(node);
+        }
+    }
+
+    void add(Node node) {
+        Integer n = count.get(node);
+        if (n != null) {
+            count.put(node, n + 1);
+            return;
+        }
+        count.put(node, 1);
+        for (String gram : grams(lower(node.getLabel()))) {
+            gramMap.computeIfAbsent(gram, k -> newSet()).add(node);
+        }
+        String lang = getLang(node);
+        if (lang != null) {
+            langMap.computeIfAbsent(lang, k -> newSet()).add(node);
+        }
+    }
+
+    void remove(Node node) {
+        Integer n = count.get(node);
+        if (n == null) {
+            return;
+        }
+        if (n > 1) {
+            count.put(node, n - 1);
+            return;
+        }
+        count.remove(node);
+        for (String gram : grams(lower(node.getLabel()))) {
+            remove(gramMap, gram, node);
+        }
+        String lang = getLang(node);
+        if (lang != null) {
+            remove(langMap, lang, node);
+        }
+    }
+
+    void remove(Map<String, Set<Node>> map, String key, Node node) {
+        Set<Node> set = map.get(key);
+        if (set != null) {
+            set.remove(node);
+            if (set.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    String getLang(Node node) {
+        IDatatype dt = node.getDatatypeValue();
+        if (dt.isLiteral() && dt.hasLang()) {
+            return dt.getLang();
+        }
+        return null;
+    }
+
+    static Set<Node> newSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Lower case character by character, hence substring of label remains
+     * substring of lower case label
+     */
+    static String lower(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+        str.codePoints().forEach(c -> sb.appendCodePoint(Character.toLowerCase(c)));
+        return sb.toString();
+    }
+
+    static Set<String> grams(String str) {
+        Set<String> set = new HashSet<>();
+        for (int i = 0; i + GRAM <= str.length(); i++) {
+            set.add(str.substring(i, i + GRAM));
+        }
+        return set;
+    }
+
+    // ________________________________________________________________
+    //
+    // Search
+    //
+    /**
+     * Candidate objects whose label contains str, ignoring case
+     * Return null when str is too short to use the index
+     */
+    public synchronized Set<Node> contains(String str) {
+        return contains(List.of(lower(str)));
+    }
+
+    /**
+     * Candidate objects of regex(?o, pattern, flag)
+     * Return null when the pattern has no literal part long enough to use the
+     * index
+     */
+    public synchronized Set<Node> regex(String pattern, String flag) {
+        if (flag != null && !flag.matches("[smi]*")) {
+            return null;
+        }
+        List<String> list = literals(pattern);
+        if (list == null) {
+            return null;
+        }
+        List<String> lower = new ArrayList<>();
+        for (String str : list) {
+            lower.add(lower(str));
+        }
+        return contains(lower);
+    }
+
+    /**
+     * Candidate objects whose lower case label contains every string of list
+     */
+    Set<Node> contains(List<String> list) {
+        Set<String> gramSet = new HashSet<>();
+        List<String> strList = new ArrayList<>();
+        for (String str : list) {
+            if (str.length() >= GRAM) {
+                gramSet.addAll(grams(str));
+                strList.add(str);
+            }
+        }
+        if (gramSet.isEmpty()) {
+            return null;
+        }
+        check();
+        List<Set<Node>> postings = new ArrayList<>();
+        for (String gram : gramSet) {
+            Set<Node> set = gramMap.get(gram);
+            if (set == null) {
+                return newSet();
+            }
+            postings.add(set);
+        }
+        postings.sort((s1, s2) -> Integer.compare(s1.size(), s2.size()));
+        Set<Node> res = newSet();
+        for (Node node : postings.get(0)) {
+            if (match(node, postings, strList)) {
+                res.add(node);
+            }
+        }
+        return res;
+    }
+
+    boolean match(Node node, List<Set<Node>> postings, List<String> strList) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(node)) {
+                return false;
+            }
+        }
+        String label = lower(node.getLabel());
+        for (String str : strList) {
+            if (!label.contains(str)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Candidate objects of approximate search of str: objects that share at
+     * least recall * (number of trigrams of str) trigrams with str, at least
+     * one, sorted by number of shared trigrams and node index, at most max
+     * (max <= 0: no limit). Objects that share no trigram with str, or only
+     * frequent trigrams, are not candidates even if their similarity with
+     * str is above threshold. Frequent trigrams are counted for candidates
+     * only, hence the search is not linear in the number of objects.
+     * Return null when str is too short to use the index or when its
+     * trigrams are all frequent
+     */
+    public synchronized Set<Node> similar(String str, int max, double recall) {
+        Set<String> gramSet = grams(lower(str));
+        if (gramSet.isEmpty()) {
+            return null;
+        }
+        check();
+        int cutoff = Math.max(FREQUENT_GRAM_MIN, (int) (FREQUENT_GRAM * count.size()));
+        IdentityHashMap<Node, Integer> shared = new IdentityHashMap<>();
+        List<Set<Node>> frequent = new ArrayList<>();
+        for (String gram : gramSet) {
+            Set<Node> set = gramMap.get(gram);
+            if (set != null && set.size() > cutoff) {
+                frequent.add(set);
+            } else if (set != null) {
+                for (Node node : set) {
+                    shared.merge(node, 1, Integer::sum);
+                }
+            }
+        }
+        if (shared.isEmpty() && !frequent.isEmpty()) {
+            return null;
+        }
+        for (Map.Entry<Node, Integer> entry : shared.entrySet()) {
+            for (Set<Node> set : frequent) {
+                if (set.contains(entry.getKey())) {
+                    entry.setValue(entry.getValue() + 1);
+                }
+            }
+        }
+        int min = Math.max(1, (int) Math.ceil(recall * gramSet.size()));
+        List<Map.Entry<Node, Integer>> list = new ArrayList<>();
+        for (Map.Entry<Node, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= min) {
+                list.add(entry);
+            }
+        }
+        if (max > 0 && list.size() > max) {
+            list.sort(this::compare);
+            list = list.subList(0, max);
+        }
+        Set<Node> res = newSet();
+        for (Map.Entry<Node, Integer> entry : list) {
+            res.add(entry.getKey());
+        }
+        return res;
+    }
+
+    /**
+     * More shared trigrams first, then node index and label order, hence
+     * candidates with the same number of shared trigrams are deterministic
+     */
+    int compare(Map.Entry<Node, Integer> e1, Map.Entry<Node, Integer> e2) {
+        int res = Integer.compare(e2.getValue(), e1.getValue());
+        if (res == 0) {
+            res = Integer.compare(e1.getKey().getIndex(), e2.getKey().getIndex());
+        }
+        if (res == 0) {
+            res = e1.getKey().getLabel().compareTo(e2.getKey().getLabel());
+        }
+        return res;
+    }
+
+    /**
+     * Candidate objects of langMatches(lang(?o), range), same test as SPARQL
+     * langMatches
+     * Return null for range *
+     */
+    public synchronized Set<Node> langMatches(String range) {
+        if (range.equals("*")) {
+            return null;
+        }
+        check();
+        Set<Node> res = newSet();
+        for (Map.Entry<String, Set<Node>> entry : langMap.entrySet()) {
+            if (langMatches(entry.getKey(), range)) {
+                res.addAll(entry.getValue());
+            }
+        }
+        return res;
+    }
+
+    static boolean langMatches(String lang, String range) {
+        if (range.indexOf("-") != -1) {
+            return lang.toLowerCase().equals(range.toLowerCase());
+        }
+        return lang.regionMatches(true, 0, range, 0, 2);
+    }
+
+    /**
+     * Literal strings that any string matching the regex contains
+     * Consider characters outside groups and character classes, a character
+     * followed by ? * or {} is optional
+     * Return null for alternative and for escape sequences other than escaped
+     * punctuation
+     */
+    static List<String> literals(String pattern) {
+        List<String> list = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (depth > 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '[') {
+                    i = endClass(pattern, i);
+                    if (i == -1) {
+                        return null;
+                    }
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                i++;
+                continue;
+            }
+            switch (c) {
+                case '|':
+                    return null;
+                case '(':
+                    depth++;
+                    cut(list, sb);
+                    i++;
+                    break;
+                case '[':
+                    cut(list, sb);
+                    i = endClass(pattern, i);
+                    if (i == -1) {
+                        return null;
+                    }
+                    i++;
+                    break;
+                case '?':
+                case '*':
+                case '{':
+                    // previous character is optional
+                    if (sb.length() > 0) {
+                        sb.setLength(sb.length() - 1);
+                    }
+                    cut(list, sb);
+                    i = (c == '{') ? pattern.indexOf('}', i) : i;
+                    if (i == -1) {
+                        return null;
+                    }
+                    i++;
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                case ')':
+                    cut(list, sb);
+                    i++;
+                    break;
+                case '\\':
+                    if (i + 1 >= pattern.length()
+                            || Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                        return null;
+                    }
+                    sb.append(pattern.charAt(i + 1));
+                    i += 2;
+                    break;
+                default:
+                    sb.append(c);
+                    i++;
+            }
+        }
+        cut(list, sb);
+        return list;
+    }
+
+    static void cut(List<String> list, StringBuilder sb) {
+        if (sb.length() > 0) {
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
+    }
+
+    /**
+     * Index of ] that ends character class starting at i, -1 if none
+     */
+    static int endClass(String pattern, int i) {
+        int j = i + 1;
+        if (j < pattern.length() && pattern.charAt(j) == '^') {
+            j++;
+        }
+        if (j < pattern.length() && pattern.charAt(j) == ']') {
+            j++;
+        }
+        while (j < pattern.length()) {
+            char c = pattern.charAt(j);
+            if (c == '\\') {
+                j++;
+            } else if (c == '[') {
+                // nested class
+                j = endClass(pattern, j);
+                if (j == -1) {
+                    return -1;
+                }
+            } else if (c == ']') {
+                return j;
+            }
+            j++;
+        }
+        return -1;
+    }
+
+}
@@ -107,6 +107,14 @@ public interface Producer {
     
     default boolean hasDataManager() { return false; }
 
+    /**
+     * Path n1 p+ n2 (zero = false) or n1 p* n2 (zero = true) with constant p
+     * return null when producer cannot answer, path is then enumerated
+     */
+    default Boolean reach(Node p, Node n1, Node n2, boolean zero) {
+        return null;
+    }
+
     //return IDatatype list of IDatatype edge
     // ldscript iterator
     default IDatatype getEdges(Iterable<Edge> it) {
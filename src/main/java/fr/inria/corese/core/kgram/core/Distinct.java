@@ -1,6 +1,8 @@
 package fr.inria.corese.core.kgram.core;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -10,6 +12,9 @@ import fr.inria.corese.core.kgram.api.query.Environment;
 /**
  * Alternative implementation of select distinct *
  * Used by RuleEngine ResultWatcher 
+ * With compare index, key whose nodes all have an index is recorded
+ * in a hash set of node index (see Group.HASH), 
+ * other keys are recorded in the TreeMap
  * @author Olivier Corby, Wimmics, Inria, I3S,  2014
  *
  */
@@ -31,8 +36,33 @@ public class Distinct {
     }
         
 	TreeMapping table;
+        HashSet<IndexKey> hashTable;
         List<Node> list;
         
+        /**
+         * Node index of key nodes
+         */
+        class IndexKey {
+            int[] index;
+            int hash;
+            
+            IndexKey(int[] index) {
+                this.index = index;
+                hash = Arrays.hashCode(index);
+            }
+            
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+            
+            @Override
+            public boolean equals(Object obj) {
+                return obj instanceof IndexKey 
+                        && Arrays.equals(index, ((IndexKey) obj).index);
+            }
+        }
+        
 	class TreeMapping extends TreeMap<Node[], Node[]> {	
 		
 		TreeMapping(){
@@ -79,6 +109,9 @@ public class Distinct {
 
         Distinct(){
             table = new TreeMapping();
+            if (byIndex && Group.HASH) {
+                hashTable = new HashSet<>();
+            }
         }
 	
 	Distinct(List<Node> l){
@@ -95,6 +128,10 @@ public class Distinct {
         }
             
 	public boolean isDistinct(Node[] key){
+                IndexKey ikey = indexKey(key);
+                if (ikey != null) {
+                    return hashTable.add(ikey);
+                }
 										
 		if (table.containsKey(key)){
 			return false;
@@ -103,6 +140,21 @@ public class Distinct {
 		return true;
 	}
         
+        // key of node index or null when a node has no index
+        IndexKey indexKey(Node[] key) {
+            if (hashTable == null) {
+                return null;
+            }
+            int[] index = new int[key.length];
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] == null || key[i].getIndex() == -1) {
+                    return null;
+                }
+                index[i] = key[i].getIndex();
+            }
+            return new IndexKey(index);
+        }
+        
         public boolean isDistinct(Environment env){
             Node [] key = new Node[list.size()];
             int i = 0;
@@ -27,6 +27,7 @@ import fr.inria.corese.core.kgram.event.EventImpl;
 import fr.inria.corese.core.kgram.event.EventListener;
 import fr.inria.corese.core.kgram.event.EventManager;
 import fr.inria.corese.core.kgram.event.ResultListener;
+import fr.inria.corese.core.kgram.path.Buffer;
 import fr.inria.corese.core.kgram.path.PathFinder;
 import fr.inria.corese.core.kgram.tool.Message;
 import fr.inria.corese.core.kgram.tool.ResultsImpl;
@@ -864,6 +865,10 @@ public class Eval implements ExpType, Plugin {
     private void start(Query q) {
         limit = q.getLimitOffset();
         starter(q);
+        if (!isSubEval) {
+            // order by limit
+            results.initTopK(q);
+        }
     }
 
     public void setLimit(int n) {
@@ -1752,7 +1757,8 @@ public class Eval implements ExpType, Plugin {
             }
         }
 
-        for (Mapping map : path.candidate(graphNode, list, env)) {
+        Iterable<Mapping> candidate = path.candidate(graphNode, list, env);
+        for (Mapping map : candidate) {
             if (stop) {
                 path.stop();
                 return STOP;
@@ -1778,6 +1784,12 @@ public class Eval implements ExpType, Plugin {
             }
         }
 
+        if (candidate instanceof Buffer && ((Buffer) candidate).isInterrupted()) {
+            // path enumeration in thread is truncated
+            path.stop();
+            throw new SparqlException(new InterruptedException("Path enumeration interrupted: " + exp));
+        }
+
         if (!isSuccess && optim) {
             // backjump to max index where nodes are bound for first time:
             int bj = env.getIndex(backtrackNode, exp.getEdge());
@@ -2157,7 +2169,7 @@ public class Eval implements ExpType, Plugin {
                 }
             }
             if (b) {
-                getResults().add(ans);
+                getResults().add(this, ans);
             }
         }
     }
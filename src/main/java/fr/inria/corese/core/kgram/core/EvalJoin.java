@@ -1,9 +1,15 @@
 package fr.inria.corese.core.kgram.core;
 
 import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.api.core.TripleStore;
 import fr.inria.corese.core.kgram.api.query.Producer;
+import fr.inria.corese.core.sparql.api.IDatatype;
 import static fr.inria.corese.core.kgram.core.Eval.STOP;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import static fr.inria.corese.core.kgram.core.Eval.DISPLAY_RESULT_MAX;
 
 /**
@@ -13,6 +19,8 @@ import static fr.inria.corese.core.kgram.core.Eval.DISPLAY_RESULT_MAX;
 public class EvalJoin {
     public static boolean SORT_OVERLOAD = true;
     public static boolean DEBUG_JOIN = false;
+    // join Mappings with hash table on common variable node index
+    public static boolean HASH_JOIN = true;
 
     Eval eval;
     boolean stop = false;
@@ -94,8 +102,127 @@ public class EvalJoin {
         Node commonVariable = map1.getCommonNode(map2);
         if (commonVariable == null) {
             return joinWithoutCommonVariable(p, graphNode, stack, env, map1, map2, n);
-        } else {
-            return joinWithCommonVariable(commonVariable, p, graphNode, stack, env, map1, map2, n);
+        } 
+        if (HASH_JOIN) {
+            List<String> varList = getHashVariables(map1, map2);
+            if (!varList.isEmpty()) {
+                return joinWithHashTable(varList, p, graphNode, stack, env, map1, map2, n);
+            }
+        }
+        return joinWithCommonVariable(commonVariable, p, graphNode, stack, env, map1, map2, n);
+    }
+    
+    /**
+     * Common variables used as hash join key, empty list when hash join does not apply.
+     * Every common variable must be bound in every Mapping of both Mappings 
+     * to a node with an index of the same graph. 
+     * Within a graph, URI, blank node and string literal have same index iff 
+     * they are sameTerm, hence compatible Mapping fall in the same hash bucket. 
+     * Number, boolean and date share index with different labels (1, 01, 1.0):
+     * such joins are left to the sort join.
+     */
+    List<String> getHashVariables(Mappings map1, Mappings map2) {
+        List<String> varList = map1.getCommonVariables(map2);
+        TripleStore store = null;
+        for (String var : varList) {
+            Node node = map1.get(0).getNode(var);
+            if (node == null) {
+                return new ArrayList<>(0);
+            }
+            TripleStore ts = node.getTripleStore();
+            if (ts == null || (store != null && store != ts)
+                    || !isHashable(map1, var, ts) || !isHashable(map2, var, ts)) {
+                return new ArrayList<>(0);
+            }
+            store = ts;
+        }
+        return varList;
+    }
+    
+    boolean isHashable(Mappings map, String var, TripleStore store) {
+        for (Mapping m : map) {
+            Node node = m.getNode(var);
+            if (node == null || node.getIndex() < 0 || node.getTripleStore() != store
+                    || isValueIndex(node.getDatatypeValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    boolean isValueIndex(IDatatype dt) {
+        return dt == null || dt.isNumber() || dt.isBoolean() || dt.isDate();
+    }
+    
+    /**
+     * Hash join: 
+     * build hash table of smallest Mappings wrt node index of varList
+     * enumerate largest Mappings and probe the hash table
+     * push() check compatibility of Mapping
+     */
+    int joinWithHashTable(List<String> varList, Producer p, Node graphNode, Stack stack, Memory env, Mappings map1, Mappings map2, int n) throws SparqlException {
+        int backtrack = n - 1;
+        if (map1.size() > map2.size()) {
+            Mappings tmp = map1;
+            map1 = map2;
+            map2 = tmp;
+        }
+        HashMap<JoinKey, List<Mapping>> table = new HashMap<>(2 * map1.size());
+        for (Mapping m1 : map1) {
+            table.computeIfAbsent(new JoinKey(m1, varList), k -> new ArrayList<>(1)).add(m1);
+        }
+        if (debug) {
+            System.out.println("hash join: " + varList + " " + table.size() + " keys");
+        }
+        
+        for (Mapping m2 : map2) {
+            if (stop) {
+                return STOP;
+            }
+            List<Mapping> list = table.get(new JoinKey(m2, varList));
+            if (list != null && env.push(m2, n)) {
+                for (Mapping m1 : list) {
+                    if (stop) {
+                        return STOP;
+                    }
+                    if (env.push(m1, n)) {
+                        backtrack = eval.eval(p, graphNode, stack, n + 1);
+                        env.pop(m1);
+                        if (backtrack < n) {
+                            return backtrack;
+                        }
+                    }
+                }
+                env.pop(m2);
+            }
+        }
+        return backtrack;
+    }
+    
+    /**
+     * Node index of join variables of a Mapping
+     */
+    static class JoinKey {
+        private final int[] index;
+        private final int hash;
+        
+        JoinKey(Mapping m, List<String> varList) {
+            index = new int[varList.size()];
+            int i = 0;
+            for (String var : varList) {
+                index[i++] = m.getNode(var).getIndex();
+            }
+            hash = Arrays.hashCode(index);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof JoinKey && Arrays.equals(index, ((JoinKey) obj).index);
         }
     }
     
@@ -2,10 +2,12 @@ package fr.inria.corese.core.kgram.core;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.TreeMap;
 
 import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.api.IDatatype;
 import java.util.Map;
 
 /**
@@ -14,13 +16,21 @@ import java.util.Map;
  * group by ?x ?y min(?l, groupBy(?x, ?y))
  *
  * Compare Mapping using a TreeMap
+ * or using a hash table when isHash() (see HASH):
+ * key = group nodes with hash code of node label, 
+ * key equality = same compare() as TreeMap
+ * hash table iterate groups in creation order, not in key order
  *
  * @author Olivier Corby, Edelweiss, INRIA 2011
  *
  */
 public class Group implements Comparator<Mappings> {
+    // group by and distinct with hash table (default true)
+    public static boolean HASH = true;
 
     TreeMapping table;
+    HashMapping hashTable;
+    Compare compare;
 
     private List<Node> nodes;
 
@@ -59,8 +69,72 @@ public class Group implements Comparator<Mappings> {
         }
     }
     
+    /**
+     * Group nodes of a Mapping
+     * equals() and hashCode() are consistent with Compare
+     */
+    class Key {
+
+        Node[] nodes;
+        int hash = 1;
+
+        Key(Node[] nodes) {
+            this.nodes = nodes;
+            for (Node node : nodes) {
+                hash = 31 * hash + hash(node);
+            }
+        }
+
+        int hash(Node node) {
+            if (node == null) {
+                return 0;
+            }
+            return Group.hashCode(node.getDatatypeValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            if (hash != key.hash) {
+                return false;
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                if (compare.compare(nodes[i], key.nodes[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    class HashMapping extends LinkedHashMap<Key, Mappings> {
+    }
+
+    /**
+     * Hash code consistent with compareTo() == 0 (sameTerm): label hash code
+     * except for triple reference and extension datatypes (list, map, pointer)
+     * which are compared by content
+     */
+    public static int hashCode(IDatatype dt) {
+        if (dt.isTriple() || dt.isExtension() || dt.isPointer()) {
+            return 0;
+        }
+        return dt.getLabel().hashCode();
+    }
+
     public void dispose() {
         table.clear();
+        if (hashTable != null) {
+            hashTable.clear();
+        }
     }
 
     class Compare implements Comparator<Mapping> {
@@ -154,6 +228,38 @@ public class Group implements Comparator<Mappings> {
     Group(List<Node> list) {
         setNodeList(list);
         table = new TreeMapping(list);
+        compare = new Compare(list);
+    }
+
+    /**
+     * Use hash table instead of TreeMap
+     * Groups are not sorted: use case distinct, or group by when order by
+     * sort the result
+     * With compare index, nodes with same index that are not sameTerm (1 01)
+     * are equal, hash code of label is not consistent with it
+     */
+    public void setHash(boolean b) {
+        if (b && !isCompareIndex()) {
+            hashTable = new HashMapping();
+        } else {
+            hashTable = null;
+        }
+    }
+
+    public boolean isHash() {
+        return hashTable != null;
+    }
+
+    Key key(Mapping map) {
+        Node[] key = new Node[getNodeList().size()];
+        if (isExtend) {
+            System.arraycopy(map.getGroupNodes(), 0, key, 0, key.length);
+        } else {
+            for (int i = 0; i < key.length; i++) {
+                key[i] = getGroupBy(map, getNodeList().get(i), i);
+            }
+        }
+        return new Key(key);
     }
 
     public List<Node> getNodeList() {
@@ -202,6 +308,11 @@ public class Group implements Comparator<Mappings> {
             map.setGroup(getNodeList());
         }
 
+        if (isHash()) {
+            addHash(map);
+            return true;
+        }
+
         Mappings lm = table.get(map);
         if (lm == null) {
             lm = new Mappings();
@@ -213,11 +324,29 @@ public class Group implements Comparator<Mappings> {
         return true;
     }
 
+    void addHash(Mapping map) {
+        Mappings lm = hashTable.computeIfAbsent(key(map), k -> {
+            Mappings res = new Mappings();
+            res.setFake(isFake());
+            return res;
+        });
+        lm.add(map);
+    }
+
     // select distinct *
     // select (avg(distinct ?x) as ?a
     public boolean isDistinct(Mapping map) {
         map.computeDistinct(getNodeList());
 
+        if (isHash()) {
+            Key key = key(map);
+            if (hashTable.containsKey(key)) {
+                return false;
+            }
+            hashTable.put(key, null);
+            return true;
+        }
+
         if (table.containsKey(map)) {
             return false;
         }
@@ -226,9 +355,13 @@ public class Group implements Comparator<Mappings> {
     }
 
     Iterable<Mappings> getValues() {
+        if (isHash()) {
+            return hashTable.values();
+        }
         return table.values();
     }
     
+    // TreeMap table, empty when isHash()
     public Map<Mapping,Mappings> getTable() {
         return table;
     }
@@ -51,6 +51,10 @@ public class Mappings extends PointerObject
     // SPARQL: -1 (unbound first)
     // Corese order: 1 (unbound last)
     public static int unbound = -1;
+    // order by with limit: keep best Mapping only during query processing
+    public static boolean TOP_K = true;
+    // max limit + offset for top k
+    public static int TOP_K_MAX = 10_000;
     List<Node> select;
     boolean isDistinct = false,
             // statisfy having(test)
@@ -101,6 +105,8 @@ public class Mappings extends PointerObject
     private int queryLength = 0;
     // limit number of results to be displayed
     private int display = Integer.MAX_VALUE;
+    // order by limit: number of Mapping to keep, 0 means all
+    private int topK = 0;
 
     public Mappings() {
         list = new ArrayList<>();
@@ -192,6 +198,25 @@ public class Mappings extends PointerObject
         return res;
     }
 
+    /**
+     * Copy of result of service: Mapping are copied, nodes are shared
+     * use case: cached service result that is completed by join
+     */
+    public Mappings copy() {
+        Mappings res = new Mappings();
+        for (Mapping m : this) {
+            res.add(Mapping.create(m.getQueryNodes().clone(), m.getNodes().clone()));
+        }
+        if (getSelect() != null) {
+            res.setSelect(new ArrayList<>(getSelect()));
+        }
+        res.setLinkList(getLinkList());
+        res.setReport(getReport());
+        res.setLength(getLength());
+        res.setQueryLength(getQueryLength());
+        return res;
+    }
+
     public Mappings distinct(List<Node> list) {
         Mappings map = distinct(getQuery().getSelect(), list);
         return map;
@@ -202,6 +227,7 @@ public class Mappings extends PointerObject
         map.setSelect(selectList);
         Group group = Group.create(distinctList);
         group.setDistinct(true);
+        group.setHash(Group.HASH);
         for (Mapping m : this) {
             if (group.isDistinct(m)) {
                 map.add(m);
@@ -798,6 +824,43 @@ public class Mappings extends PointerObject
         prepare(node);
         sort();
     }
+
+    /**
+     * select order by limit offset: results are sorted and truncated 
+     * to limit + offset during query processing (see add(Eval, Mapping))
+     * order by nodes must be computed when Mapping is created, hence
+     * no aggregate and no group by
+     * construct stops query processing at limit (see Query getLimitOffset())
+     */
+    void initTopK(Query q) {
+        topK = 0;
+        if (TOP_K
+                && q.isOrderBy()
+                && q.getLimit() < Integer.MAX_VALUE - q.getOffset()
+                && q.getLimit() + q.getOffset() <= TOP_K_MAX
+                && !q.isConstruct()
+                && !q.isAggregate()
+                && !q.hasGroupBy()
+                && q.getHaving() == null
+                && !q.getGlobalQuery().isAlgebra()) {
+            topK = q.getLimit() + q.getOffset();
+        }
+    }
+
+    /**
+     * Add result Mapping
+     * order by limit: when there are 2k Mapping, sort and keep the k first ones
+     * Sort is stable, hence equal Mapping keep their order as with one sort
+     * at the end, and results are the same. Memory is bounded by 2k Mapping,
+     * time is O(n log k).
+     */
+    void add(Eval eval, Mapping map) {
+        add(map);
+        if (topK > 0 && size() >= 2 * topK) {
+            sort(eval);
+            getMappingList().subList(topK, size()).clear();
+        }
+    }
     
     void prepare(Node node) {
         sortWithDesc = false;
@@ -1412,6 +1475,8 @@ public class Mappings extends PointerObject
         gp.setDuplicate(getQuery().isDistribute());
         gp.setExtend(extend);
         gp.setFake(isFake());
+        // groups are sorted by order by if any
+        gp.setHash(Group.HASH && getQuery().isOrderBy());
 
         for (Mapping map : this) { 
             gp.add(map);
@@ -1424,6 +1489,7 @@ public class Mappings extends PointerObject
      */
     Group group(List<Exp> list) {
         Group group = Group.createFromExp(list);
+        group.setHash(Group.HASH);
         return group;
     }
 
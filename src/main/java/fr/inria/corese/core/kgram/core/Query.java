@@ -38,6 +38,7 @@ public class Query extends Exp implements Graphable {
     public static final int QP_DEFAULT = 1; //Default Corese QP
     public static final int QP_HEURISTICS_BASED = 2;//Heuristics based QP
     public static final int QP_BGP = 3;//BGP based QP
+    public static final int QP_STATS_BASED = 4;//Statistics based QP
 
     //used to set the default query plan method 
     public static int STD_PLAN = QP_DEFAULT;
@@ -37,6 +37,7 @@ public class QuerySorter implements ExpType {
     void setSort(Query q) {
         switch (q.getPlanProfile()) {
             case Query.QP_HEURISTICS_BASED:
+            case Query.QP_STATS_BASED:
                 sort = new SorterNew();
                 break;
             default:
@@ -193,6 +194,7 @@ public class QuerySorter implements ExpType {
                     break;
 
                 case Query.QP_HEURISTICS_BASED:
+                case Query.QP_STATS_BASED:
                     sort = new SorterNew();
                     ((SorterNew) sort).sort(exp, lBind, getProducer(), getQuery().getPlanProfile());
                     setBind(getQuery(), exp);
@@ -8,6 +8,7 @@ import fr.inria.corese.core.kgram.sorter.core.QPGraph;
 import fr.inria.corese.core.kgram.sorter.core.IEstimate;
 import fr.inria.corese.core.kgram.sorter.core.ISort;
 import fr.inria.corese.core.kgram.sorter.core.QPGNode;
+import fr.inria.corese.core.kgram.sorter.impl.qpv1.CardinalityBasedEstimation;
 import fr.inria.corese.core.kgram.sorter.impl.qpv1.DepthFirstBestSearch;
 import fr.inria.corese.core.kgram.sorter.impl.qpv1.HeuristicsBasedEstimation;
 import java.util.ArrayList;
@@ -54,6 +55,9 @@ public class SorterNew extends Sorter {
                 case Query.QP_HEURISTICS_BASED:
                     ies = new HeuristicsBasedEstimation();
                     break;
+                case Query.QP_STATS_BASED:
+                    ies = new CardinalityBasedEstimation();
+                    break;
                 default:
                     ies = new HeuristicsBasedEstimation();
             }
@@ -65,6 +69,7 @@ public class SorterNew extends Sorter {
             ISort is;
             switch (planType) {
                 case Query.QP_HEURISTICS_BASED:
+                case Query.QP_STATS_BASED:
                 default:
                     is = new DepthFirstBestSearch();
             }
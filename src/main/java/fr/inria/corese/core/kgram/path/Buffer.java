@@ -1,75 +1,158 @@
 package fr.inria.corese.core.kgram.path;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import fr.inria.corese.core.kgram.core.Mapping;
 
 /**
- * Synchronized buffer to put/get path edges
+ * Bounded buffer to put/get path edges
  * Edges are consumed by an iterator
- * 
+ * Path producer put Mapping into batches handed over to the consumer
+ * by a bounded queue of batches: one handoff per batch instead of
+ * one rendezvous per Mapping.
+ * First batch is small in order to deliver first results soon (limit),
+ * batch size then doubles up to BATCH_SIZE.
+ * When consumer stops reading (limit, backjump), it closes the buffer:
+ * producer put() does not block anymore and path thread terminates.
+ * When consumer is interrupted while waiting, the enumeration is not
+ * complete: isInterrupted() is true and Eval reports an error.
+ *
  * @author Olivier Corby, Edelweiss, INRIA 2010
  *
  */
-public class Buffer implements  
-	Iterable<Mapping>, Iterator<Mapping>
-
-	{
-	
-	private Mapping map;
-	private boolean hasNext = true;
-	private boolean available = false; 
-	
-	
-	public synchronized Mapping next(){
-		while (available == false) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-			}
-		}
-		available = false;
-		notify();
-		return map;
-	}
-	
-	
-	public synchronized boolean hasNext(){
-		while (available == false) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-			}
-		}
-		notify();
-		return hasNext;
-	}
-
-	
-	
-	public synchronized void put(Mapping val, boolean next){
-		while (available == true) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-			}
-		}
-		map = val;
-		hasNext = next;
-		available = true;
-		notify();
-	}
-
-	public Iterator<Mapping> iterator() {
-		// TODO Auto-generated method stub
-		return this;
-	}
-	
-	
-	@Override
-	public void remove() {
-		// TODO Auto-generated method stub
-		
-	}
-	
+public class Buffer implements Iterable<Mapping>, Iterator<Mapping> {
+
+    // max number of Mapping in a batch
+    public static int BATCH_SIZE = 256;
+    // max number of batches waiting in the queue
+    public static int CAPACITY = 8;
+    private static final long WAIT = 100;
+    private static final List<Mapping> END = new ArrayList<>(0);
+
+    private final ArrayBlockingQueue<List<Mapping>> queue;
+    // producer side
+    private ArrayList<Mapping> batch;
+    private int batchSize = 1;
+    private boolean ended = false;
+    // consumer side
+    private List<Mapping> current;
+    private int index = 0;
+    private boolean finished = false;
+    private boolean interrupted = false;
+    private volatile boolean closed = false;
+
+    public Buffer() {
+        queue = new ArrayBlockingQueue<>(CAPACITY);
+        batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public Mapping next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.get(index++);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (current == null || index >= current.size()) {
+            if (finished) {
+                return false;
+            }
+            try {
+                List<Mapping> list = queue.take();
+                if (list == END) {
+                    finished = true;
+                    current = null;
+                    return false;
+                }
+                current = list;
+                index = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // results are truncated: not a normal end of enumeration
+                interrupted = true;
+                finished = true;
+                current = null;
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Producer put Mapping, next = false means end of enumeration
+     */
+    public void put(Mapping val, boolean next) {
+        if (closed || ended) {
+            return;
+        }
+        if (next) {
+            batch.add(val);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        } else {
+            ended = true;
+            flush();
+            offer(END);
+        }
+    }
+
+    void flush() {
+        if (!batch.isEmpty()) {
+            offer(batch);
+            batchSize = Math.min(2 * batchSize, BATCH_SIZE);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    void offer(List<Mapping> list) {
+        try {
+            while (!closed) {
+                if (queue.offer(list, WAIT, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    /**
+     * Consumer does not read anymore
+     */
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Consumer has been interrupted before the end of enumeration
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    @Override
+    public Iterator<Mapping> iterator() {
+        return this;
+    }
+
+    @Override
+    public void remove() {
+    }
+
 }
@@ -3,44 +3,76 @@ package fr.inria.corese.core.kgram.path;
 
 import fr.inria.corese.core.kgram.api.core.Node;
 import fr.inria.corese.core.kgram.api.query.Environment;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Draft to compute path in the graph
- * 
+ * Path enumeration task run by a thread of a shared pool
+ * Pool is not bounded because a path enumeration may evaluate a filter
+ * with a nested path: a bounded pool could deadlock
+ * Idle threads are reused and released after a delay
+ *
  * @author Olivier Corby, Edelweiss, INRIA 2010
  */
-public class GraphPath extends Thread {
-	
+public class GraphPath implements Runnable {
+
+	private static final ExecutorService pool = Executors.newCachedThreadPool(new PathThreadFactory());
 
-	//private Buffer buf;
 	private Buffer mbuf;
 	private Environment mem;
 	private PathFinder finder;
 
 
-	
+
 	/**
 	 * ?x %path ?y
 	 * case:
 	 * ?x or ?y is bound/unbound
 	 * filter on ?x ?y
 	 * Relation type on %path : ?x c:related::%path ?y
-	 * 
+	 *
 	 */
-	
+
 	public GraphPath(PathFinder pc, Environment mem, Buffer buf){
 		this.finder  = pc;
 		this.mem = mem;
 		this.mbuf  = buf;
 	}
-	
+
 	void process(){
             Node cstart = finder.get(mem, finder.getIndex());
             finder.process(cstart, mem);
 	}
-	
-	
+
+	/**
+	 * Submit path enumeration to the shared pool
+	 */
+	public Future<?> start() {
+		return pool.submit(this);
+	}
+
+	@Override
 	public void run(){
-		process();
+		try {
+			process();
+		} finally {
+			// consumer must not wait for ever if enumeration fails
+			mbuf.put(null, false);
+		}
+	}
+
+	static class PathThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "corese-path-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
 	}
 }
@@ -23,7 +23,11 @@ import fr.inria.corese.core.kgram.core.SparqlException;
 import fr.inria.corese.core.kgram.event.EventManager;
 import fr.inria.corese.core.kgram.event.ResultListener;
 import fr.inria.corese.core.kgram.tool.EdgeInv;
+import fr.inria.corese.core.sparql.triple.parser.ASTQuery;
 import java.util.HashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,9 +80,10 @@ public class PathFinder {
 
     private static Logger logger = LoggerFactory.getLogger(PathFinder.class);
     public static long cedge = 0, cresult = 0, ctest = 0;
-    // thread that enumerates the path
+    // task that enumerates the path in a thread of a shared pool
     private GraphPath path;
-    // synchronized buffer between this and projection
+    private Future<?> task;
+    // bounded buffer between this and projection
     private Buffer mbuffer;
     private Environment memory;
     private EventManager manager;
@@ -100,8 +105,8 @@ public class PathFinder {
     private int index = 0;
     // the inverse of the index (i.e. the other arg)
     private int other;
-    private boolean isStop = false,
-            hasEvent = false,
+    private volatile boolean isStop = false;
+    private boolean hasEvent = false,
             hasListener = false,
             // true if breadth first (else depth first)
             isBreadth,
@@ -113,6 +118,7 @@ public class PathFinder {
             isShort,
             isOne,
             // if true: return list of path instead of thread buffer: 50% faster but enumerate all path
+            // enumeration runs inline, no thread
             isList = false,
             checkLoop = false,
             isCountPath = false,
@@ -367,10 +373,15 @@ public class PathFinder {
      * if backjump or have a limit in sparql query
      */
     public Iterable<Mapping> candidate(Node gNode, List<Node> from, Environment env) {
+        complete();
         isStop = false;
         if (mem != null) {
             mem.setGraphNode(gNode);
         }
+        Mappings map = reach(gNode, from, env);
+        if (map != null) {
+            return map;
+        }
         if (isList) {
             return candidate2(gNode, from, env);
         }
@@ -382,6 +393,60 @@ public class PathFinder {
         return mbuffer;
     }
 
+    /**
+     * s p+ o and s p* o with constant p and bound s and o in default graph
+     * The producer may answer with a reachability index instead of path
+     * enumeration. When there is no path, return empty Mappings.
+     * When there is a path and the path is neither stored nor used by the query
+     * (system path variable), return one Mapping. Otherwise return null: 
+     * enumerate path.
+     */
+    Mappings reach(Node gNode, List<Node> from, Environment env) {
+        if (gNode != null || (from != null && !from.isEmpty()) || filter != null
+                || isCountPath || userMin != -1 || userMax != -1
+                || (mode != null && !mode.isEmpty()) || edge == null
+                || !(regexp1.isPlus() || regexp1.isStar())) {
+            return null;
+        }
+        Regex exp = regexp1.getArg(0);
+        if (!exp.isConstant() || exp.isReverse() || exp.isInverse()) {
+            return null;
+        }
+        Node n1 = value(edge.getNode(0), env);
+        Node n2 = value(edge.getNode(1), env);
+        if (n1 == null || n2 == null) {
+            return null;
+        }
+        Boolean res = producer.reach(exp.getDatatypeValue(), n1, n2,
+                regexp1.isStar() && !regexp1.isPlus());
+        if (res == null) {
+            return null;
+        }
+        Mappings map = new Mappings();
+        if (res) {
+            if (isStorePath && !isSystemPathVariable()) {
+                return null;
+            }
+            map.add(Mapping.create(new Node[]{edge.getNode(0), edge.getNode(1)}, new Node[]{n1, n2}));
+        }
+        return map;
+    }
+
+    // path variable generated by the parser: it cannot be projected nor used
+    boolean isSystemPathVariable() {
+        Node var = edge.getEdgeVariable();
+        return var == null || var.getLabel().startsWith(ASTQuery.SYSVAR);
+    }
+
+    // target node of constant or bound variable
+    Node value(Node qNode, Environment env) {
+        if (qNode.isConstant()) {
+            return producer.getNode(qNode.getDatatypeValue());
+        }
+        Node node = env.getNode(qNode);
+        return node == null ? null : producer.getNode(node.getDatatypeValue());
+    }
+
     int getIndex() {
         return index;
     }
@@ -390,10 +455,28 @@ public class PathFinder {
         //isStop = false;
         // buffer store path enumeration
         mbuffer = new Buffer();
-        // path enumeration in a thread 
+        // path enumeration in a thread of the pool
         path = new GraphPath(this, mem, mbuffer);
-        // launch path computing (one by one) eg launch process() below
-        path.start();
+        // launch path computing (batch by batch) eg launch process() below
+        task = path.start();
+    }
+
+    /**
+     * Wait for termination of previous path enumeration when it has been stopped
+     * in order not to share this PathFinder with a new enumeration
+     * A stopped enumeration does not block on its closed buffer and returns soon
+     */
+    void complete() {
+        if (task != null && mbuffer != null && mbuffer.isClosed()) {
+            try {
+                task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException ex) {
+                logger.error(ex.toString());
+            }
+            task = null;
+        }
     }
 
     public void run() {
@@ -403,11 +486,16 @@ public class PathFinder {
 
     public void stop() {
         isStop = true;
+        if (mbuffer != null) {
+            // path thread does not wait for the consumer anymore
+            mbuffer.close();
+        }
     }
 
     public void interrupt() {
-        if (path != null) {
-            path.interrupt();
+        if (task != null) {
+            stop();
+            task.cancel(true);
         }
     }
 
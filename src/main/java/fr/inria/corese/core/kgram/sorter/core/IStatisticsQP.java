@@ -0,0 +1,38 @@
+package fr.inria.corese.core.kgram.sorter.core;
+
+/**
+ * Interface for calling Producer from kgraph with statistics of the graph
+ * Used by the cost model of Query.QP_STATS_BASED
+ */
+public interface IStatisticsQP {
+
+    /**
+     * Return the number of triples in the graph
+     */
+    int getTripleNumber();
+
+    /**
+     * Return the number of triples with the predicate of triple pattern n
+     * (all triples when predicate is a variable)
+     *
+     * @param type PREDICATE: triples with predicate
+     *             SUBJECT (OBJECT): triples with predicate and the constant
+     *             subject (object) of n
+     */
+    int getTripleCount(QPGNode n, int type);
+
+    /**
+     * Return the number of distinct subjects (objects) of the predicate of
+     * triple pattern n, type = SUBJECT | OBJECT
+     * type = PREDICATE: number of predicates
+     */
+    int getDistinctCount(QPGNode n, int type);
+
+    /**
+     * Return the estimated number of results of the join on subject of two
+     * triple patterns with constant predicates, computed with characteristic
+     * sets, or NA
+     */
+    double getSubjectJoinCount(QPGNode n1, QPGNode n2);
+
+}
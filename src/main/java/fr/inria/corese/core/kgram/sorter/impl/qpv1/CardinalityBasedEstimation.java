@@ -0,0 +1,156 @@
+package fr.inria.corese.core.kgram.sorter.impl.qpv1;
+
+import static fr.inria.corese.core.kgram.api.core.ExpType.EDGE;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.api.query.Producer;
+import static fr.inria.corese.core.kgram.sorter.core.Const.NA;
+import static fr.inria.corese.core.kgram.sorter.core.Const.OBJECT;
+import static fr.inria.corese.core.kgram.sorter.core.Const.PREDICATE;
+import static fr.inria.corese.core.kgram.sorter.core.Const.SUBJECT;
+import static fr.inria.corese.core.kgram.sorter.core.IEstimate.MAX_COST;
+import static fr.inria.corese.core.kgram.sorter.core.IEstimate.MIN_COST_0;
+import fr.inria.corese.core.kgram.core.Exp;
+import fr.inria.corese.core.kgram.sorter.core.IEstimate;
+import fr.inria.corese.core.kgram.sorter.core.IStatisticsQP;
+import fr.inria.corese.core.kgram.sorter.core.QPGEdge;
+import fr.inria.corese.core.kgram.sorter.core.QPGNode;
+import fr.inria.corese.core.kgram.sorter.core.QPGraph;
+import java.util.List;
+
+/**
+ * Estimate the cost of triple patterns and joins with graph statistics:
+ * number of triples, distinct subjects and objects per predicate and
+ * characteristic sets.
+ *
+ * node cost: selectivity of the triple pattern, estimated number of results
+ * divided by the number of triples
+ * edge cost: selectivity of the join of two triple patterns, estimated
+ * number of results divided by the product of their number of results
+ *
+ * DepthFirstBestSearch then starts with the most selective pattern and
+ * continues with the linked pattern with the smallest join result.
+ * Patterns other than triples keep the cost of HeuristicsBasedEstimation.
+ * When producer has no statistics, HeuristicsBasedEstimation is used.
+ */
+public class CardinalityBasedEstimation implements IEstimate {
+
+    private QPGraph graph;
+    private IStatisticsQP stat;
+    private List<Exp> bindings;
+
+    @Override
+    public void estimate(QPGraph graph, Producer producer, Object parameters) {
+        new HeuristicsBasedEstimation().estimate(graph, producer, parameters);
+        if (!(producer instanceof IStatisticsQP)) {
+            return;
+        }
+        this.graph = graph;
+        this.stat = (IStatisticsQP) producer;
+        this.bindings = graph.getBindings();
+
+        estimateNodes();
+        estimateEdges();
+    }
+
+    void estimateNodes() {
+        double size = Math.max(1, stat.getTripleNumber());
+        for (QPGNode n : graph.getAllNodes(EDGE)) {
+            n.setCost(selectivity(cardinality(n) / size));
+        }
+    }
+
+    void estimateEdges() {
+        for (QPGEdge edge : graph.getEdges(QPGEdge.BI_DIRECT)) {
+            QPGNode n1 = edge.get(0), n2 = edge.get(1);
+            if (n1.getType() == EDGE && n2.getType() == EDGE) {
+                double sel = join(n1, n2);
+                if (sel != NA) {
+                    edge.setCost(selectivity(sel));
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimated number of results of triple pattern
+     */
+    double cardinality(QPGNode n) {
+        double card = stat.getTripleCount(n, PREDICATE);
+        if (card == 0) {
+            return 0;
+        }
+        double count = card;
+        if (isBound(n, SUBJECT)) {
+            card = bound(n, SUBJECT, count);
+        }
+        if (isBound(n, OBJECT)) {
+            card = card * bound(n, OBJECT, count) / count;
+        }
+        return card;
+    }
+
+    /**
+     * Number of results of triple pattern with bound node at position type
+     * constant: exact number of triples, variable bound by values: average
+     */
+    double bound(QPGNode n, int type, double count) {
+        if (!n.getExpNode(type).isVariable()) {
+            return stat.getTripleCount(n, type);
+        }
+        return count / Math.max(1, stat.getDistinctCount(n, type));
+    }
+
+    /**
+     * Selectivity of the join of two triple patterns, the smallest one for
+     * their shared variables
+     * Join on subject of constant predicates: characteristic sets
+     * Otherwise: 1 / max(distinct values of shared variable)
+     */
+    double join(QPGNode n1, QPGNode n2) {
+        double sel = NA;
+        for (int i : new int[]{SUBJECT, PREDICATE, OBJECT}) {
+            Node node1 = n1.getExpNode(i);
+            if (!node1.isVariable()) {
+                continue;
+            }
+            for (int j : new int[]{SUBJECT, PREDICATE, OBJECT}) {
+                Node node2 = n2.getExpNode(j);
+                if (node2.isVariable() && node1.getLabel().equals(node2.getLabel())) {
+                    double s = join(n1, i, n2, j);
+                    if (s != NA && (sel == NA || s < sel)) {
+                        sel = s;
+                    }
+                }
+            }
+        }
+        return sel;
+    }
+
+    double join(QPGNode n1, int i, QPGNode n2, int j) {
+        if (i == SUBJECT && j == SUBJECT) {
+            double card = stat.getSubjectJoinCount(n1, n2);
+            if (card != NA) {
+                double c1 = stat.getTripleCount(n1, PREDICATE);
+                double c2 = stat.getTripleCount(n2, PREDICATE);
+                return (c1 == 0 || c2 == 0) ? 0 : card / (c1 * c2);
+            }
+        }
+        int d1 = stat.getDistinctCount(n1, i);
+        int d2 = stat.getDistinctCount(n2, j);
+        if (d1 == NA || d2 == NA) {
+            return NA;
+        }
+        return 1.0 / Math.max(1, Math.max(d1, d2));
+    }
+
+    boolean isBound(QPGNode n, int type) {
+        Node node = n.getExpNode(type);
+        return !node.isVariable()
+                || (bindings != null && n.getCostModel().isBound(bindings, node));
+    }
+
+    double selectivity(double sel) {
+        return Math.max(MIN_COST_0, Math.min(MAX_COST, sel));
+    }
+
+}
@@ -76,6 +76,11 @@ public class Load
     private static boolean DEFAULT_GRAPH = false;
     // max number of triples to load
     private static int LIMIT_DEFAULT = Integer.MAX_VALUE;
+    // true: N-Triples and N-Quads are parsed by LoadNTriples
+    // false: by the SPARQL parser
+    public static boolean NTRIPLES_PARSER = true;
+    // number of threads for the load of large local N-Triples and N-Quads files
+    private static int PARALLEL_DEFAULT = 1;
     int maxFile = Integer.MAX_VALUE;
     Log log;
     RuleEngine engine;
@@ -109,6 +114,8 @@ public class Load
     private boolean sparqlUpdate = false;
     // max number of triples to load
     private int limit = LIMIT_DEFAULT;
+    // number of threads for parallel load
+    private int parallel = PARALLEL_DEFAULT;
     // authorize access right for load (e.g. LinkedFunction)
     private Access.Level level = Access.Level.USER_DEFAULT;
     // authorize specific namespaces for load
@@ -157,6 +164,13 @@ public class Load
         LIMIT_DEFAULT = max;
     }
 
+    /**
+     * n > 1: large local N-Triples and N-Quads files are loaded by n threads
+     */
+    public static void setParallelDefault(int n) {
+        PARALLEL_DEFAULT = n;
+    }
+
     @Override
     public void init(Object o) {
         set((Graph) o);
@@ -457,6 +471,9 @@ public class Load
         } else if (format == Loader.format.QUERY_FORMAT) {
             loadQuery(path, base);
             return;
+        } else if (isParallel(path, format)) {
+            parallelLoad(path, (base == null) ? uri(path) : uri(base), name, format);
+            return;
         }
 
         Reader read = null;
@@ -657,12 +674,23 @@ public class Load
         switch (format) {
             case TURTLE_FORMAT:
             case TRIG_FORMAT:
-            case NT_FORMAT:
                 loadTurtle(stream, path, base, name);
                 break;
 
+            case NT_FORMAT:
+                if (NTRIPLES_PARSER) {
+                    loadNTriples(stream, path, base, name, false);
+                } else {
+                    loadTurtle(stream, path, base, name);
+                }
+                break;
+
             case NQUADS_FORMAT:
-                loadTurtle(stream, path, base, name, true);
+                if (NTRIPLES_PARSER) {
+                    loadNTriples(stream, path, base, name, true);
+                } else {
+                    loadTurtle(stream, path, base, name, true);
+                }
                 break;
 
             case RULE_FORMAT:
@@ -801,14 +829,7 @@ public class Load
     }
 
     void loadTurtle(Reader stream, String path, String base, String name, boolean nquad) throws LoadException {
-        TurtleSparqlTripleCreator cr = TurtleSparqlTripleCreator.create(getGraph(), this);
-        cr.graph(Constant.create(name));
-        cr.setRenameBlankNode(renameBlankNode);
-        cr.setLimit(getLimit());
-        cr.exclude(getExclude());
-        cr.setDataManager(getDataManager());
-        cr.start();
-
+        TurtleSparqlTripleCreator cr = createTripleCreator(name);
         IDatatype dt = DatatypeMap.newResource(path);
         boolean b = true;
         if (isEvent()) {
@@ -828,6 +849,73 @@ public class Load
         }
     }
 
+    // load N-Triples or N-Quads without SPARQL parser
+    void loadNTriples(Reader stream, String path, String base, String name, boolean nquad) throws LoadException {
+        TurtleSparqlTripleCreator cr = createTripleCreator(name);
+        IDatatype dt = DatatypeMap.newResource(path);
+        boolean b = true;
+        if (isEvent()) {
+            b = getCreateQueryProcess().isSynchronized();
+        }
+        before(dt, b);
+        cr.setPath(path);
+        LoadNTriples ld = LoadNTriples.create(stream, cr, base);
+        ld.setNquad(nquad);
+        try {
+            ld.load();
+        } catch (IOException | QueryLexicalException | QuerySyntaxException e) {
+            throw LoadException.create(e, path);
+        } catch (LoadException e) {
+            throw e.setPath(path);
+        } finally {
+            after(dt, b);
+            cr.finish();
+        }
+    }
+
+    TurtleSparqlTripleCreator createTripleCreator(String name) {
+        TurtleSparqlTripleCreator cr = init(TurtleSparqlTripleCreator.create(getGraph(), this), name);
+        cr.start();
+        return cr;
+    }
+
+    <T extends TurtleSparqlTripleCreator> T init(T cr, String name) {
+        cr.graph(Constant.create(name));
+        cr.setRenameBlankNode(renameBlankNode);
+        cr.setLimit(getLimit());
+        cr.exclude(getExclude());
+        cr.setDataManager(getDataManager());
+        return cr;
+    }
+
+    /**
+     * Parallel load of large local N-Triples and N-Quads file
+     * Not with triple limit nor external graph
+     */
+    boolean isParallel(String path, Loader.format format) {
+        return (format == Loader.format.NT_FORMAT || format == Loader.format.NQUADS_FORMAT)
+                && NTRIPLES_PARSER
+                && getDataManager() == null
+                && getLimit() == Integer.MAX_VALUE
+                && !NSManager.isResource(path)
+                && !isURL(path)
+                && ParallelLoad.isParallel(path, getParallel());
+    }
+
+    void parallelLoad(String path, String base, String name, Loader.format format) throws LoadException {
+        if (isReadLocked()) {
+            throw new LoadException(new EngineException("Read lock while parsing: " + path));
+        }
+        try {
+            startLoad();
+            ParallelLoad.create(this, path, base, getParallel())
+                    .setNquad(format == Loader.format.NQUADS_FORMAT)
+                    .load((name == null) ? base : name);
+        } finally {
+            endLoad();
+        }
+    }
+
     // load RDFa
     void loadRDFa(Reader stream, String path, String base, String name) throws LoadException {
         CoreseRDFaTripleSink sink = new CoreseRDFaTripleSink(getGraph(), getDataManager(), null, this);
@@ -1236,6 +1324,17 @@ public class Load
         limit = max;
     }
 
+    public int getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Number of threads for the load of large local N-Triples and N-Quads files
+     */
+    public void setParallel(int n) {
+        parallel = n;
+    }
+
     public String getNamedGraphURI() {
         return namedGraphURI;
     }
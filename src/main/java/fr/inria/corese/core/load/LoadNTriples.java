@@ -0,0 +1,602 @@
+package fr.inria.corese.core.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+import fr.inria.corese.core.sparql.exceptions.QueryLexicalException;
+import fr.inria.corese.core.sparql.exceptions.QuerySyntaxException;
+import fr.inria.corese.core.sparql.triple.parser.LoadTurtle;
+
+/**
+ * Line oriented N-Triples and N-Quads parser
+ * It does not use the SPARQL JavaCC grammar: input is read in a char buffer,
+ * each line is scanned in place and terms are recognized by their first char.
+ * IRI, blank node, property and graph nodes are retrieved from caches indexed
+ * by the chars of the term: a term that occurs again does not allocate a String.
+ * A line that is not plain N-Triples (RDF-star triple term, relative IRI,
+ * Turtle syntax, syntax error) is parsed by LoadTurtle with the same
+ * triple creator.
+ */
+public class LoadNTriples {
+
+    static final int BUFFER_SIZE = 1 << 16;
+    static final int CACHE_SIZE = 1 << 12;
+    static final int SMALL_CACHE_SIZE = 1 << 6;
+    static final int IRI = 0;
+    static final int BNODE = 1;
+    static final int LITERAL = 2;
+    static final int NONE = -1;
+
+    private final Reader reader;
+    private final TurtleSparqlTripleCreator create;
+    private final String base;
+    private boolean nquad = false;
+    private boolean stop = false;
+    // input buffer
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPos = 0;
+    private int bufferEnd = 0;
+    // current line
+    private char[] line = new char[1024];
+    private int length = 0;
+    private int pos = 0;
+    private int lineNumber = 0;
+    // subject predicate object graph of current line
+    private final int[] kind = new int[4];
+    private final int[] start = new int[4];
+    private final int[] end = new int[4];
+    private final boolean[] escape = new boolean[4];
+    // literal lang and datatype
+    private int langStart, langEnd, datatypeStart, datatypeEnd;
+    private boolean datatypeEscape;
+    private final StringBuilder sb = new StringBuilder();
+    private final TermCache resourceCache;
+    private final TermCache propertyCache;
+    private final TermCache graphCache;
+    private final TermCache datatypeCache;
+    private final String stringDatatype;
+    private final String langDatatype;
+    private Node defaultGraph;
+    // parser of lines that are not plain N-Triples, created when needed
+    private LoadTurtle turtle;
+
+    LoadNTriples(Reader r, TurtleSparqlTripleCreator cr, String base) {
+        reader = r;
+        create = cr;
+        this.base = base;
+        resourceCache = new TermCache(CACHE_SIZE);
+        propertyCache = new TermCache(CACHE_SIZE);
+        graphCache = new TermCache(SMALL_CACHE_SIZE);
+        datatypeCache = new TermCache(SMALL_CACHE_SIZE);
+        // same datatypes as SPARQL parser
+        stringDatatype = cr.nsm.toNamespace(DatatypeMap.datatype(null));
+        langDatatype = cr.nsm.toNamespace(DatatypeMap.datatype("en"));
+    }
+
+    public static LoadNTriples create(Reader r, TurtleSparqlTripleCreator cr, String base) {
+        return new LoadNTriples(r, cr, base);
+    }
+
+    public void load() throws IOException, QueryLexicalException, QuerySyntaxException, LoadException {
+        while (!stop && readLine()) {
+            lineNumber++;
+            pos = 0;
+            skipSpace();
+            if (pos == length || line[pos] == '#') {
+                // empty line or comment
+                continue;
+            }
+            if (parse()) {
+                insert();
+            } else {
+                parseTurtle();
+            }
+        }
+    }
+
+    /**
+     * Read next line in line buffer without end of line
+     * return false at end of input
+     */
+    boolean readLine() throws IOException {
+        length = 0;
+        while (true) {
+            if (bufferPos == bufferEnd) {
+                bufferEnd = reader.read(buffer, 0, BUFFER_SIZE);
+                bufferPos = 0;
+                if (bufferEnd <= 0) {
+                    bufferEnd = 0;
+                    return length > 0;
+                }
+            }
+            int i = bufferPos;
+            while (i < bufferEnd && buffer[i] != '\n') {
+                i++;
+            }
+            append(bufferPos, i);
+            if (i < bufferEnd) {
+                // end of line
+                bufferPos = i + 1;
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                return true;
+            }
+            bufferPos = bufferEnd;
+        }
+    }
+
+    void append(int from, int to) {
+        int size = to - from;
+        if (length + size > line.length) {
+            char[] tmp = new char[Math.max(2 * line.length, length + size)];
+            System.arraycopy(line, 0, tmp, 0, length);
+            line = tmp;
+        }
+        System.arraycopy(buffer, from, line, length, size);
+        length += size;
+    }
+
+    /**
+     * Recognize subject predicate object [graph] .
+     * return false when line is not plain N-Triples (resp. N-Quads)
+     */
+    boolean parse() {
+        if (!term(0) || kind[0] == LITERAL) {
+            return false;
+        }
+        skipSpace();
+        if (!term(1) || kind[1] != IRI) {
+            return false;
+        }
+        skipSpace();
+        if (!term(2)) {
+            return false;
+        }
+        skipSpace();
+        kind[3] = NONE;
+        if (isNquad() && pos < length && line[pos] != '.') {
+            if (!term(3) || kind[3] == LITERAL) {
+                return false;
+            }
+            skipSpace();
+        }
+        if (pos == length || line[pos] != '.') {
+            return false;
+        }
+        pos++;
+        skipSpace();
+        return pos == length || line[pos] == '#';
+    }
+
+    /**
+     * Recognize term i at current position
+     */
+    boolean term(int i) {
+        if (pos == length) {
+            return false;
+        }
+        char c = line[pos];
+        if (c == '<') {
+            if (pos + 1 < length && line[pos + 1] == '<') {
+                // RDF-star triple term
+                return false;
+            }
+            int begin = ++pos;
+            boolean esc = false;
+            while (pos < length && line[pos] != '>') {
+                switch (line[pos]) {
+                    case '\\':
+                        esc = true;
+                        break;
+                    case ' ':
+                    case '<':
+                    case '"':
+                        return false;
+                }
+                pos++;
+            }
+            if (pos == length || !isAbsolute(begin, pos)) {
+                // relative IRI is resolved by Turtle parser
+                return false;
+            }
+            set(i, IRI, begin, pos++, esc);
+        } else if (c == '_' && pos + 1 < length && line[pos + 1] == ':') {
+            int begin = pos;
+            pos += 2;
+            while (pos < length && !isDelimiter(line[pos])) {
+                pos++;
+            }
+            // label does not end with '.'
+            while (pos > begin + 2 && line[pos - 1] == '.') {
+                pos--;
+            }
+            if (pos == begin + 2) {
+                return false;
+            }
+            set(i, BNODE, begin, pos, false);
+        } else if (c == '"') {
+            return literal(i);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    boolean literal(int i) {
+        int begin = ++pos;
+        boolean esc = false;
+        while (pos < length && line[pos] != '"') {
+            if (line[pos] == '\\') {
+                esc = true;
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= length) {
+            return false;
+        }
+        set(i, LITERAL, begin, pos++, esc);
+        langStart = langEnd = datatypeStart = datatypeEnd = NONE;
+        datatypeEscape = false;
+        if (pos < length && line[pos] == '@') {
+            langStart = ++pos;
+            while (pos < length && (Character.isLetterOrDigit(line[pos]) || line[pos] == '-')) {
+                pos++;
+            }
+            langEnd = pos;
+            return langEnd > langStart;
+        }
+        if (pos + 1 < length && line[pos] == '^' && line[pos + 1] == '^') {
+            pos += 2;
+            if (pos == length || line[pos] != '<') {
+                return false;
+            }
+            datatypeStart = ++pos;
+            while (pos < length && line[pos] != '>') {
+                if (line[pos] == '\\') {
+                    datatypeEscape = true;
+                }
+                pos++;
+            }
+            if (pos == length) {
+                return false;
+            }
+            datatypeEnd = pos++;
+        }
+        return true;
+    }
+
+    void set(int i, int k, int s, int e, boolean esc) {
+        kind[i] = k;
+        start[i] = s;
+        end[i] = e;
+        escape[i] = esc;
+    }
+
+    boolean isDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '<' || c == '"';
+    }
+
+    /**
+     * IRI starts with a scheme
+     */
+    boolean isAbsolute(int s, int e) {
+        for (int i = s; i < e; i++) {
+            char c = line[i];
+            if (c == ':') {
+                return i > s;
+            }
+            if (!(Character.isLetterOrDigit(c) || c == '+' || c == '-' || c == '.')) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    void skipSpace() {
+        while (pos < length && (line[pos] == ' ' || line[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    /**
+     * Create nodes and insert edge of current line
+     * Predicate is checked before its property node is created
+     */
+    void insert() throws LoadException {
+        Node p = cachedProperty();
+        String predicate = (p == null) ? string(1) : p.getLabel();
+        if (!create.accept(predicate)) {
+            stop = create.raiseLimit();
+            return;
+        }
+        if (p == null) {
+            p = property(predicate);
+        }
+        Node s = resource(0);
+        Node o = (kind[2] == LITERAL) ? literal(predicate) : resource(2);
+        create.triple(graph(), s, p, o);
+        if (kind[2] == IRI) {
+            create.handleOntologyImport(predicate, o.getLabel());
+        }
+    }
+
+    /**
+     * Property node of current line if it is in cache
+     */
+    Node cachedProperty() {
+        if (escape[1]) {
+            return null;
+        }
+        int slot = propertyCache.slot(line, start[1], end[1]);
+        return propertyCache.getNode(slot, line, start[1], end[1]);
+    }
+
+    Node property(String predicate) {
+        Node n = create.addProperty(predicate);
+        if (!escape[1]) {
+            int slot = propertyCache.slot(line, start[1], end[1]);
+            propertyCache.put(slot, line, start[1], end[1], n, null);
+        }
+        return n;
+    }
+
+    /**
+     * IRI or blank node
+     * IRI key in cache include '<' and '>' to distinguish from blank node
+     */
+    Node resource(int i) throws LoadException {
+        if (escape[i]) {
+            return create.addResource(string(i));
+        }
+        int s = (kind[i] == IRI) ? start[i] - 1 : start[i];
+        int e = (kind[i] == IRI) ? end[i] + 1 : end[i];
+        int slot = resourceCache.slot(line, s, e);
+        Node n = resourceCache.getNode(slot, line, s, e);
+        if (n == null) {
+            if (kind[i] == IRI) {
+                n = create.addResource(string(i));
+            } else {
+                n = create.getBlank(string(i));
+            }
+            resourceCache.put(slot, line, s, e, n, null);
+        }
+        return n;
+    }
+
+    Node literal(String predicate) throws LoadException {
+        String lang = null;
+        String datatype;
+        if (langStart != NONE) {
+            lang = new String(line, langStart, langEnd - langStart);
+            datatype = langDatatype;
+        } else if (datatypeStart != NONE) {
+            datatype = datatype();
+        } else {
+            datatype = stringDatatype;
+        }
+        return create.addLiteral(predicate, string(2), datatype, lang);
+    }
+
+    String datatype() throws LoadException {
+        if (datatypeEscape) {
+            return decode(datatypeStart, datatypeEnd, false);
+        }
+        int slot = datatypeCache.slot(line, datatypeStart, datatypeEnd);
+        String label = datatypeCache.getLabel(slot, line, datatypeStart, datatypeEnd);
+        if (label == null) {
+            label = new String(line, datatypeStart, datatypeEnd - datatypeStart);
+            datatypeCache.put(slot, line, datatypeStart, datatypeEnd, null, label);
+        }
+        return label;
+    }
+
+    /**
+     * N-Quads without graph: default graph
+     * N-Triples: named graph of the load
+     */
+    Node graph() throws LoadException {
+        if (!isNquad()) {
+            return create.getSource();
+        }
+        if (kind[3] == NONE) {
+            if (defaultGraph == null) {
+                defaultGraph = create.addDefaultGraphNode();
+            }
+            return defaultGraph;
+        }
+        if (escape[3]) {
+            return create.addGraph(string(3));
+        }
+        int slot = graphCache.slot(line, start[3], end[3]);
+        Node n = graphCache.getNode(slot, line, start[3], end[3]);
+        if (n == null) {
+            if (kind[3] == IRI) {
+                n = create.addGraph(string(3));
+            } else {
+                n = create.addGraph(create.getID(string(3)), true);
+            }
+            graphCache.put(slot, line, start[3], end[3], n, null);
+        }
+        return n;
+    }
+
+    String string(int i) throws LoadException {
+        if (escape[i]) {
+            return decode(start[i], end[i], kind[i] == LITERAL);
+        }
+        return new String(line, start[i], end[i] - start[i]);
+    }
+
+    /**
+     * Unicode escape \\uXXXX \\UXXXXXXXX
+     * and for literal: \\t \\b \\n \\r \\f \\" \\' \\\\
+     */
+    String decode(int s, int e, boolean literal) throws LoadException {
+        sb.setLength(0);
+        for (int i = s; i < e; i++) {
+            char c = line[i];
+            if (c != '\\' || i + 1 == e) {
+                sb.append(c);
+                continue;
+            }
+            char n = line[++i];
+            if (n == 'u' || n == 'U') {
+                int size = (n == 'u') ? 4 : 8;
+                sb.appendCodePoint(codePoint(i + 1, e, size));
+                i += size;
+            } else if (literal) {
+                switch (n) {
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'f': sb.append('\f'); break;
+                    case '"':
+                    case '\'':
+                    case '\\':
+                        sb.append(n); break;
+                    default:
+                        sb.append(c).append(n);
+                }
+            } else {
+                sb.append(c).append(n);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Code point of the size hexadecimal digits starting at s
+     */
+    int codePoint(int s, int e, int size) throws LoadException {
+        if (s + size > e) {
+            throw error("truncated unicode escape", s - 2, e);
+        }
+        int cp = 0;
+        for (int i = s; i < s + size; i++) {
+            int d = hex(line[i]);
+            if (d == -1) {
+                throw error("malformed unicode escape", s - 2, s + size);
+            }
+            cp = 16 * cp + d;
+        }
+        if (!Character.isValidCodePoint(cp)) {
+            throw error("invalid unicode code point", s - 2, s + size);
+        }
+        return cp;
+    }
+
+    static int hex(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    LoadException error(String mes, int s, int e) {
+        return LoadException.create(new QueryLexicalException(
+                String.format("line %s: %s %s", lineNumber, mes, new String(line, s, e - s))));
+    }
+
+    /**
+     * Line is not plain N-Triples: parse it with SPARQL parser
+     * The parser is created for the first such line and reused for next ones
+     * Parser keeps blank node labels hence blank nodes are renamed
+     * by the creator as in this parser
+     */
+    void parseTurtle() throws QueryLexicalException, QuerySyntaxException {
+        Reader r = new StringReader(new String(line, 0, length));
+        if (turtle == null) {
+            boolean rename = create.isRenameBlankNode();
+            create.setRenameBlankNode(false);
+            turtle = LoadTurtle.create(r, create, base);
+            create.setRenameBlankNode(rename);
+            turtle.setNquad(isNquad());
+        } else {
+            turtle.reset(r);
+        }
+        try {
+            turtle.load();
+        } catch (QuerySyntaxException e) {
+            throw new QuerySyntaxException(String.format("line %s: %s", lineNumber, e.getMessage()));
+        } catch (QueryLexicalException e) {
+            throw new QueryLexicalException(String.format("line %s: %s", lineNumber, e.getMessage()));
+        }
+        stop = create.raiseLimit();
+    }
+
+    public boolean isNquad() {
+        return nquad;
+    }
+
+    public LoadNTriples setNquad(boolean nquad) {
+        this.nquad = nquad;
+        return this;
+    }
+
+    /**
+     * Direct mapped cache: chars of term -> node or label
+     * A new term replaces the term with same slot
+     */
+    static class TermCache {
+
+        private final char[][] keys;
+        private final Node[] nodes;
+        private final String[] labels;
+        private final int mask;
+
+        TermCache(int size) {
+            keys = new char[size][];
+            nodes = new Node[size];
+            labels = new String[size];
+            mask = size - 1;
+        }
+
+        int slot(char[] buf, int s, int e) {
+            int h = 0;
+            for (int i = s; i < e; i++) {
+                h = 31 * h + buf[i];
+            }
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        boolean match(int slot, char[] buf, int s, int e) {
+            char[] key = keys[slot];
+            if (key == null || key.length != e - s) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf[s + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Node getNode(int slot, char[] buf, int s, int e) {
+            return match(slot, buf, s, e) ? nodes[slot] : null;
+        }
+
+        String getLabel(int slot, char[] buf, int s, int e) {
+            return match(slot, buf, s, e) ? labels[slot] : null;
+        }
+
+        void put(int slot, char[] buf, int s, int e, Node n, String label) {
+            char[] key = new char[e - s];
+            System.arraycopy(buf, s, key, 0, key.length);
+            keys[slot] = key;
+            nodes[slot] = n;
+            labels[slot] = label;
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+package fr.inria.corese.core.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.sparql.api.IDatatype;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+
+/**
+ * Parallel load of a local N-Triples or N-Quads file
+ * The file is split into byte ranges that start at the beginning of a line,
+ * each range is parsed by LoadNTriples in its own thread.
+ * Threads create nodes in the concurrent node dictionary of the graph: two
+ * threads that create the same node get the same node.
+ * Each thread records its edges in its own edge lists, one per predicate.
+ * When threads are done, their edge lists are merged once in the graph edge
+ * lists, by the loading thread that holds the graph write lock.
+ * The graph is set as not indexed: edge lists are sorted and reduced once at
+ * next graph init(), as in the sequential load of an empty graph.
+ */
+class ParallelLoad {
+
+    // range size under which threads are not worth it
+    static final long MIN_SIZE = 1 << 20;
+
+    private final Load load;
+    private final Graph graph;
+    private final String path;
+    private final String base;
+    private final int nbThread;
+    private boolean nquad = false;
+    // shared blank node renaming: document label -> graph blank ID
+    final ConcurrentHashMap<String, String> blank;
+    // owl:imports processed after parallel load
+    final List<String> imports;
+
+    ParallelLoad(Load load, String path, String base, int nbThread) {
+        this.load = load;
+        this.graph = load.getGraph();
+        this.path = path;
+        this.base = base;
+        this.nbThread = nbThread;
+        blank = new ConcurrentHashMap<>();
+        imports = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    static ParallelLoad create(Load load, String path, String base, int nbThread) {
+        return new ParallelLoad(load, path, base, nbThread);
+    }
+
+    /**
+     * Local file large enough to be split in several ranges
+     */
+    static boolean isParallel(String path, int nbThread) {
+        if (nbThread <= 1) {
+            return false;
+        }
+        File file = new File(path);
+        return file.isFile() && file.length() >= MIN_SIZE;
+    }
+
+    void load(String name) throws LoadException {
+        TurtleSparqlTripleCreator cr = load.createTripleCreator(name);
+        IDatatype dt = DatatypeMap.newResource(path);
+        boolean b = true;
+        if (load.isEvent()) {
+            b = load.getCreateQueryProcess().isSynchronized();
+        }
+        load.before(dt, b);
+        cr.setPath(path);
+        // edges are appended, graph is indexed at next init()
+        graph.setIndexed(false);
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            process(channel, name);
+        } catch (IOException e) {
+            throw LoadException.create(e, path);
+        } finally {
+            load.after(dt, b);
+            cr.finish();
+        }
+        for (String uri : imports) {
+            load.imports(uri);
+        }
+    }
+
+    void process(FileChannel channel, String name) throws IOException, LoadException {
+        long[] range = split(channel);
+        ExecutorService executor = Executors.newFixedThreadPool(range.length - 1);
+        List<Future<Integer>> list = new ArrayList<>();
+        List<ParallelTripleCreator> creators = new ArrayList<>();
+        try {
+            for (int i = 0; i < range.length - 1; i++) {
+                ParallelTripleCreator cr = load.init(ParallelTripleCreator.create(this), name);
+                cr.setPath(path);
+                creators.add(cr);
+                RangeInputStream stream = new RangeInputStream(channel, range[i], range[i + 1]);
+                list.add(executor.submit(() -> parse(stream, cr)));
+            }
+            for (Future<Integer> future : list) {
+                get(future);
+            }
+            for (ParallelTripleCreator cr : creators) {
+                cr.merge();
+            }
+        } finally {
+            for (Future<Integer> future : list) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    Integer parse(InputStream stream, ParallelTripleCreator cr) throws Exception {
+        LoadNTriples ld = LoadNTriples.create(new InputStreamReader(stream, StandardCharsets.UTF_8), cr, base);
+        ld.setNquad(isNquad());
+        ld.load();
+        return cr.getCount();
+    }
+
+    void get(Future<Integer> future) throws LoadException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw LoadException.create(e, path);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof LoadException) {
+                throw ((LoadException) cause).setPath(path);
+            }
+            throw LoadException.create((Exception) cause, path);
+        }
+    }
+
+    /**
+     * Split file in at most nbThread ranges of at least MIN_SIZE bytes
+     * Each range starts after an end of line
+     * return range boundaries
+     */
+    long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int nb = (int) Math.max(1, Math.min(nbThread, size / MIN_SIZE));
+        long[] range = new long[nb + 1];
+        int j = 1;
+        for (int i = 1; i < nb; i++) {
+            long pos = endOfLine(channel, Math.max(i * (size / nb), range[j - 1]));
+            if (pos < size && pos > range[j - 1]) {
+                range[j++] = pos;
+            }
+        }
+        range[j] = size;
+        if (j < nb) {
+            long[] tmp = new long[j + 1];
+            System.arraycopy(range, 0, tmp, 0, j + 1);
+            return tmp;
+        }
+        return range;
+    }
+
+    /**
+     * Position after first end of line starting from pos
+     */
+    long endOfLine(FileChannel channel, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 12);
+        while (true) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+    }
+
+    boolean isNquad() {
+        return nquad;
+    }
+
+    ParallelLoad setNquad(boolean nquad) {
+        this.nquad = nquad;
+        return this;
+    }
+
+    Graph getGraph() {
+        return graph;
+    }
+
+    Load getLoad() {
+        return load;
+    }
+
+    /**
+     * Byte range of a file channel read by positional read
+     * hence several ranges of same channel can be read concurrently
+     */
+    static class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long pos;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) <= 0) ? -1 : (b[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (pos >= end) {
+                return -1;
+            }
+            int size = (int) Math.min(len, end - pos);
+            int n = channel.read(ByteBuffer.wrap(b, off, size), pos);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+    }
+
+}
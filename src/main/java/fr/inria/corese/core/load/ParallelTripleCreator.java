@@ -0,0 +1,172 @@
+package fr.inria.corese.core.load;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.triple.parser.AccessRight;
+import fr.inria.corese.core.sparql.triple.parser.Atom;
+import fr.inria.corese.core.sparql.triple.parser.Constant;
+import fr.inria.corese.core.util.Property;
+import fr.inria.corese.core.util.Property.Value;
+
+/**
+ * Triple creator of one thread of ParallelLoad
+ * Resource, blank, property, literal and named graph nodes are created in the
+ * concurrent node dictionary of the graph, without lock.
+ * Edges are created by the thread and recorded in its own edge lists, one per
+ * predicate. They are merged in the graph edge lists by ParallelLoad when
+ * threads are done.
+ * RDF star lines parsed by LoadTurtle are inserted in the graph under the
+ * graph lock.
+ */
+class ParallelTripleCreator extends TurtleSparqlTripleCreator {
+
+    private final ParallelLoad parallel;
+    // predicate -> edges created by this thread
+    private final HashMap<Node, List<Edge>> edges = new HashMap<>();
+    private int nbEdge = 0;
+
+    ParallelTripleCreator(ParallelLoad parallel) {
+        super(parallel.getGraph(), parallel.getLoad());
+        this.parallel = parallel;
+    }
+
+    static ParallelTripleCreator create(ParallelLoad parallel) {
+        return new ParallelTripleCreator(parallel);
+    }
+
+    /**
+     * Record edge in the edge list of its predicate
+     */
+    @Override
+    Edge triple(Node source, Node s, Node p, Node o) {
+        if (o == null) {
+            return null;
+        }
+        if (s.isTriple() || o.isTriple()) {
+            synchronized (graph) {
+                return super.triple(source, s, p, o);
+            }
+        }
+        Edge e = graph.create(source, s, p, o);
+        if (AccessRight.isActive() && !getAccessRight().setInsert(e)) {
+            return null;
+        }
+        edges.computeIfAbsent(p, k -> new ArrayList<>()).add(e);
+        nbEdge++;
+        return e;
+    }
+
+    /**
+     * Append edges of this thread to graph edge lists
+     * Called by the loading thread which holds the graph write lock
+     */
+    void merge() {
+        for (Map.Entry<Node, List<Edge>> entry : edges.entrySet()) {
+            graph.append(entry.getKey(), entry.getValue());
+            for (Edge edge : entry.getValue()) {
+                declare(edge);
+            }
+        }
+        edges.clear();
+    }
+
+    int getCount() {
+        return nbEdge;
+    }
+
+    /**
+     * No LoadStep event from threads
+     */
+    @Override
+    public boolean accept(String pred) {
+        if (isSkip()) {
+            return false;
+        }
+        for (String ns : exclude) {
+            if (pred.startsWith(ns)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean raiseLimit() {
+        return false;
+    }
+
+    @Override
+    void handleOntologyImport(String property, String object) {
+        if (Load.IMPORTS.equals(property)
+                && Property.getBooleanValue(Value.OWL_AUTO_IMPORT)) {
+            parallel.imports.add(object);
+        }
+    }
+
+    /*
+     * Nodes
+     */
+
+    @Override
+    String basicID(String b) {
+        return parallel.blank.computeIfAbsent(b, label -> newBlankID());
+    }
+
+    /**
+     * Literal is created with graph addLiteral() which is atomic
+     */
+    @Override
+    Node addNode(Constant lit) {
+        if (lit.isLiteral()) {
+            return super.addNode(lit);
+        }
+        synchronized (graph) {
+            return super.addNode(lit);
+        }
+    }
+
+    /*
+     * RDF-star lines parsed by LoadTurtle
+     */
+
+    @Override
+    Node addTripleReference(String label) {
+        synchronized (graph) {
+            return super.addTripleReference(label);
+        }
+    }
+
+    @Override
+    Node addTripleReferenceNew(Atom at, Node s, Node p, Node o) {
+        synchronized (graph) {
+            return super.addTripleReferenceNew(at, s, p, o);
+        }
+    }
+
+    @Override
+    String tripleID(String b) {
+        synchronized (graph) {
+            return super.tripleID(b);
+        }
+    }
+
+    @Override
+    Edge create(Node g, Node p, List<Node> list, boolean nested) {
+        synchronized (graph) {
+            return super.create(g, p, list, nested);
+        }
+    }
+
+    @Override
+    void add(Edge e) {
+        synchronized (graph) {
+            super.add(e);
+        }
+    }
+
+}
@@ -58,6 +58,8 @@ public class Service implements URLParam {
     static final String ENCODING = "UTF-8";
      // load take URL parameter into account, e.g. format=rdfxml
     public static boolean LOAD_WITH_PARAMETER = false;
+    // parse SPARQL XML/JSON result from response stream
+    public static boolean RESULT_STREAM = true;
     public static final String MIME_TYPE = "application/sparql-results+xml,application/rdf+xml";
     public static final String XML = SPARQL_RESULTS_XML;
     public static final String RDF = RDF_XML;
@@ -163,7 +165,11 @@ public class Service implements URLParam {
             String accept = accept(ast);
 
             if (ast.isSelect() || ast.isAsk() || ast.isUpdate()) {
-                map = getCreateParser().parseMapping(query, astq, process(astq, accept), encoding(ast));
+                if (isStream(query)) {
+                    map = getCreateParser().parseMapping(query, astq, processStream(astq, accept), encoding(ast));
+                } else {
+                    map = getCreateParser().parseMapping(query, astq, process(astq, accept), encoding(ast));
+                }
                 getCreateReport(query).setMappings(map);
             } else {
                 Graph g = getCreateParser().parseGraph(query, process(astq, accept), encoding(ast));
@@ -212,6 +218,25 @@ public class Service implements URLParam {
         return process(query, getAccept());
     }
     
+    /**
+     * Response of post is parsed as a stream: result Mappings are created
+     * while the response is received instead of after reading the whole
+     * response in a String.
+     * Not with get, wrapper, report, result display and result log.
+     */
+    boolean isStream(Query query) {
+        return RESULT_STREAM
+                && isPost()
+                && !isShowResult()
+                && !getURL().hasParameter(WRAPPER)
+                && !getURL().hasAnyParameter(RESULT_TEXT, DETAIL)
+                && !isReport(query);
+    }
+
+    public InputStream processStream(String query, String mime) {
+        return post(getURL().getServer(), query, mime, InputStream.class);
+    }
+
     public String process(String query, String mime) {
         if (isPost()) {
             return post(query, mime);
@@ -222,16 +247,28 @@ public class Service implements URLParam {
     }
     
     public String post(String url, String query, String mime) {
+        return post(url, query, mime, String.class);
+    }
+
+    <T> T post(String url, String query, String mime, Class<T> type) {
         if (redirect.containsKey(url)) {
-            return post(redirect.get(url), query, mime);
+            return post(redirect.get(url), query, mime, type);
         }
         else {
-            return basicPost(url, query, mime);
+            return basicPost(url, query, mime, type);
         }
     }
-    
-    // https://docs.oracle.com/javaee/7/api/index.html
+
     public String basicPost(String url, String query, String mime) {
+        return basicPost(url, query, mime, String.class);
+    }
+
+    /**
+     * Post query and return response entity as String or InputStream
+     * InputStream: result is parsed while it is received
+     * https://docs.oracle.com/javaee/7/api/index.html
+     */
+    <T> T basicPost(String url, String query, String mime, Class<T> type) {
         //logger.info("Timeout: " + timeout);
         clientBuilder.connectTimeout(timeout, TimeUnit.MILLISECONDS);
         clientBuilder.readTimeout(timeout, TimeUnit.MILLISECONDS);
@@ -261,26 +298,31 @@ public class Service implements URLParam {
                 logger.info("Time post: " + ((d2.getTime()-d1.getTime())/1000.0));
             }
 
-            String res = resp.readEntity(String.class);
-            
-            Date d2 = new Date();
-            double time = (d2.getTime() - d1.getTime()) / 1000.0;
-            getCreateReport().setTime(time);
-            if (isDebug()) {
-                logger.info("Time read: " + time);
-            }            
-            
             if (resp.getStatus() == Response.Status.SEE_OTHER.getStatusCode() ||
                 resp.getStatus() == Response.Status.MOVED_PERMANENTLY.getStatusCode()    ) {
                 String myUrl = resp.getLocation().toString();
+                resp.close();
                 logger.warn(String.format("Service redirection: %s to: %s", url, myUrl));
                 if (myUrl.equals(url)) {
                     throw new RedirectionException(resp);
                 }
                 redirect(url, myUrl);
                 getCreateReport().setLocation(myUrl);
-                return post(myUrl, query, mime);
+                return post(myUrl, query, mime, type);
+            }
+
+            String res = null;
+            if (type == String.class 
+                    || resp.getStatus() >= Response.Status.BAD_REQUEST.getStatusCode()) {
+                res = resp.readEntity(String.class);
             }
+            
+            Date d2 = new Date();
+            double time = (d2.getTime() - d1.getTime()) / 1000.0;
+            getCreateReport().setTime(time);
+            if (isDebug()) {
+                logger.info("Time read: " + time);
+            }            
                
             trace(resp);
             logger.info("Response status: " + resp.getStatus());
@@ -304,15 +346,19 @@ public class Service implements URLParam {
                 throw ex;
             }
             
+            if (res == null) {
+                // result stream is read by result parser
+                return resp.readEntity(type);
+            }
             trace(res);
-            return res;
+            return type.cast(res);
         } catch (RedirectionException ex) {
             String uri = ex.getLocation().toString();
             logger.warn(String.format("Service redirection: %s to: %s", url, uri));
             if (uri.equals(url)) {
                 throw ex;
             }
-            return post(uri, query, mime);
+            return post(uri, query, mime, type);
         }
         catch (Exception e) {
             logger.error(getURL().toString());
@@ -16,8 +16,11 @@ import fr.inria.corese.core.sparql.triple.parser.NSManager;
 import fr.inria.corese.core.sparql.triple.parser.URLParam;
 import fr.inria.corese.core.sparql.triple.parser.URLServer;
 import fr.inria.corese.core.sparql.triple.parser.context.ContextLog;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import javax.xml.parsers.ParserConfigurationException;
+import org.json.JSONException;
 import org.xml.sax.SAXException;
 
 /**
@@ -106,6 +109,47 @@ public class ServiceParser implements URLParam {
     } 
         
     
+    /**
+     * Parse SPARQL XML and JSON result while it is read from the stream
+     * Other formats are read in a String
+     */
+    public Mappings parseMapping(Query q, String query, InputStream stream, String encoding) 
+            throws LoadException {
+        Mappings map;
+        CountInputStream input = new CountInputStream(stream);
+        try {
+            if (getFormat() == null || getFormat().equals(ResultFormat.SPARQL_RESULTS_XML)) {
+                map = parseXMLMapping(input, encoding);
+            } else if (getFormat().equals(ResultFormat.SPARQL_RESULTS_JSON)) {
+                map = parseJSONMapping(input, encoding);
+            } else {
+                return parseMapping(q, query, read(input, encoding), encoding);
+            }
+        } finally {
+            close(input);
+        }
+        map.setLength((int) input.getCount());
+        map.setQueryLength(query.length());
+        getReport(q).parserReport(map, null, true);
+        return map;
+    }
+
+    String read(InputStream stream, String encoding) throws LoadException {
+        try {
+            return new String(stream.readAllBytes(), encoding);
+        } catch (IOException ex) {
+            throw LoadException.create(ex);
+        }
+    }
+
+    void close(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ex) {
+            Service.logger.warn(ex.getMessage());
+        }
+    }
+        
     public Mappings parseGraphMapping(Query q, String str, String encoding) throws LoadException {
         Graph g = parseGraph(q, str, encoding);
         Mappings map = Mappings.create(q);
@@ -205,6 +249,25 @@ public class ServiceParser implements URLParam {
         return map;
     }
     
+    public Mappings parseJSONMapping(InputStream stream, String encoding) throws LoadException {
+        SPARQLJSONResult res = new SPARQLJSONResult();
+        try {
+            return res.parse(stream, encoding);
+        } catch (IOException | JSONException ex) {
+            throw LoadException.create(ex);
+        }
+    }
+
+    public Mappings parseXMLMapping(InputStream stream, String encoding) throws LoadException {
+        SPARQLResult xml = SPARQLResult.create(Graph.create());
+        xml.setTrapError(isTrap());
+        try {
+            return xml.parse(stream, encoding);
+        } catch (ParserConfigurationException | SAXException | IOException ex) {
+            throw LoadException.create(ex);
+        }
+    }
+
     public Mappings parseXMLMapping(String str, String encoding) throws LoadException {
         SPARQLResult xml = SPARQLResult.create(Graph.create());
         xml.setTrapError(isTrap());
@@ -299,6 +362,40 @@ public class ServiceParser implements URLParam {
         this.report = report;
     }
 
+    /**
+     * Count bytes read, record result length in Mappings
+     */
+    static class CountInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        CountInputStream(InputStream stream) {
+            super(stream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
     
     
 }
@@ -92,10 +92,17 @@ public class TurtleSparqlTripleCreator extends TripleCreatorBase implements Crea
 
     @Override
     public void triple(Atom subject, Atom property, Atom object) {
+        triple(getSource(), subject, property, object);
+    }
+
+    /**
+     * Named graph of the load
+     */
+    Node getSource() {
         if (source == null) {
             source = addDefaultGraphNode();
         }
-        triple(source, subject, property, object);
+        return source;
     }
 
     @Override
@@ -146,9 +153,17 @@ public class TurtleSparqlTripleCreator extends TripleCreatorBase implements Crea
         Node p = getProperty(predicateNode);
         Node o = objectNode.isLiteral() ? getLiteral(predicateNode, objectNode.getConstant()) : getNode(objectNode);
 
+        Edge e = triple(source, s, p, o);
+        handleOntologyImport(predicateNode, objectNode);
+        return e;
+    }
+
+    /**
+     * Insert edge whose nodes have already been created (see LoadNTriples)
+     */
+    Edge triple(Node source, Node s, Node p, Node o) {
         Edge e = create(source, s, p, o);
         add(e);
-        handleOntologyImport(predicateNode, objectNode);
         return e;
     }
 
@@ -163,9 +178,13 @@ public class TurtleSparqlTripleCreator extends TripleCreatorBase implements Crea
      * @param object   The object of the triple, expected to contain an import URI.
      */
     void handleOntologyImport(Atom property, Atom object) {
-        if (Load.IMPORTS.equals(property.getLongName())
+        handleOntologyImport(property.getLongName(), object.getLongName());
+    }
+
+    void handleOntologyImport(String property, String object) {
+        if (Load.IMPORTS.equals(property)
                 && Property.getBooleanValue(Value.OWL_AUTO_IMPORT)) {
-            load.imports(object.getLongName());
+            load.imports(object);
         }
     }
 
@@ -237,8 +256,11 @@ public class TurtleSparqlTripleCreator extends TripleCreatorBase implements Crea
     }
 
     Node getBlank(Atom c) {
-        Node n = addBlank(getID(c.getLabel()));
-        return n;
+        return getBlank(c.getLabel());
+    }
+
+    Node getBlank(String label) {
+        return addBlank(getID(label));
     }
 
     Node getTripleReference(Atom at, Node predicate, List<Node> nodeList) {
@@ -10,10 +10,14 @@ import fr.inria.corese.core.kgram.core.Mappings;
 import fr.inria.corese.core.sparql.api.IDatatype;
 import fr.inria.corese.core.sparql.datatype.DatatypeMap;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 /**
  *
@@ -59,10 +63,124 @@ public class SPARQLJSONResult extends SPARQLResult {
         complete(map);
         return map;
     }
+
+    @Override
+    public Mappings parse(InputStream stream, String encoding) throws IOException {
+        return parse(new InputStreamReader(stream, encoding));
+    }
+
+    /**
+     * Streaming parser: results are read one by one from the reader and
+     * only the JSON object of current result is in memory.
+     * Results that occur before head are processed after head.
+     */
+    public Mappings parse(Reader reader) {
+        JSONTokener tok = new JSONTokener(reader);
+        Mappings map = new Mappings();
+        List<JSONObject> pending = new ArrayList<>();
+        boolean hasHead = false;
+        expect(tok, '{');
+        while (hasNext(tok, '}')) {
+            String key = key(tok);
+            switch (key) {
+                case "head":
+                    JSONObject head = object(tok);
+                    header(head);
+                    link(head);
+                    hasHead = true;
+                    for (JSONObject result : pending) {
+                        add(map, result);
+                    }
+                    pending.clear();
+                    break;
+                case "results":
+                    results(tok, map, hasHead ? null : pending);
+                    break;
+                default:
+                    tok.nextValue();
+            }
+        }
+        map.setLinkList(getLink());
+        complete(map);
+        return map;
+    }
+
+    /**
+     * results: { bindings: [ result ] }
+     * pending != null: head is not yet read, results are processed later
+     */
+    void results(JSONTokener tok, Mappings map, List<JSONObject> pending) {
+        expect(tok, '{');
+        while (hasNext(tok, '}')) {
+            if (key(tok).equals("bindings")) {
+                expect(tok, '[');
+                while (hasNext(tok, ']')) {
+                    JSONObject result = object(tok);
+                    if (pending == null) {
+                        add(map, result);
+                    } else {
+                        pending.add(result);
+                    }
+                }
+            } else {
+                tok.nextValue();
+            }
+        }
+    }
+
+    void add(Mappings map, JSONObject result) {
+        Mapping m = processResult(result);
+        if (m.getNodes().length > 0) {
+            map.add(m);
+        }
+    }
+
+    /**
+     * Skip member separator
+     * return false at end of object or array
+     */
+    boolean hasNext(JSONTokener tok, char end) {
+        char c = tok.nextClean();
+        if (c == ',') {
+            c = tok.nextClean();
+        }
+        if (c == end) {
+            return false;
+        }
+        if (c == 0) {
+            throw tok.syntaxError("Unexpected end of SPARQL JSON result");
+        }
+        tok.back();
+        return true;
+    }
+
+    String key(JSONTokener tok) {
+        String key = tok.nextValue().toString();
+        expect(tok, ':');
+        return key;
+    }
+
+    JSONObject object(JSONTokener tok) {
+        Object obj = tok.nextValue();
+        if (obj instanceof JSONObject) {
+            return (JSONObject) obj;
+        }
+        throw tok.syntaxError("JSON object expected in SPARQL JSON result");
+    }
+
+    void expect(JSONTokener tok, char c) {
+        if (tok.nextClean() != c) {
+            throw tok.syntaxError(String.format("'%s' expected in SPARQL JSON result", c));
+        }
+    }
     
     void header() {
-        if (json.getJSONObject("head").has("vars")) {
-            JSONArray vars = json.getJSONObject("head").getJSONArray("vars");
+        header(json.getJSONObject("head"));
+    }
+
+    void header(JSONObject head) {
+        if (head.has("vars")) {
+            JSONArray vars = head.getJSONArray("vars");
             for (int i = 0; i < vars.length(); i++) {
                 String var = vars.getString(i);
                 defineVariable(getVariable(var));
@@ -72,8 +190,12 @@ public class SPARQLJSONResult extends SPARQLResult {
     }
     
     void link() {
-        if (json.getJSONObject("head").has("link")) {
-            JSONArray link = json.getJSONObject("head").getJSONArray("link");
+        link(json.getJSONObject("head"));
+    }
+
+    void link(JSONObject head) {
+        if (head.has("link")) {
+            JSONArray link = head.getJSONArray("link");
             for (int i = 0; i < link.length(); i++) {
                 String url = link.getString(i);
                 addLink(url);
@@ -116,6 +116,13 @@ public class XMLResult {
      * parse SPARQL XML Result as Mappings
      */
     public Mappings parse(InputStream stream) throws ParserConfigurationException, SAXException, IOException {
+        return parse(stream, "UTF-8");
+    }
+
+    /**
+     * SAX parser create Mappings while reading the stream
+     */
+    public Mappings parse(InputStream stream, String encoding) throws ParserConfigurationException, SAXException, IOException {
 
         if (isShowResult()) {
             String str = read(stream);
@@ -134,7 +141,7 @@ public class XMLResult {
         factory.setNamespaceAware(true);
         try {
             SAXParser parser = factory.newSAXParser();
-            InputStreamReader r = new InputStreamReader(stream, "UTF-8");
+            InputStreamReader r = new InputStreamReader(stream, encoding);
             parser.parse(new InputSource(r), handler);
             complete(map);
             map.setLinkList(getLink());
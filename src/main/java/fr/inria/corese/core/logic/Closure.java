@@ -4,9 +4,11 @@ import fr.inria.corese.core.kgram.api.core.Node;
 import fr.inria.corese.core.kgram.core.Distinct;
 import fr.inria.corese.core.kgram.core.Query;
 import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.index.ReachabilityIndex;
 import fr.inria.corese.core.util.Property;
 import static fr.inria.corese.core.util.Property.Value.RULE_DATAMANAGER_FILTER_INDEX;
 import java.util.ArrayList;
+import java.util.HashSet;
 import fr.inria.corese.core.kgram.api.core.Edge;
 import java.util.List;
 
@@ -19,6 +21,8 @@ import java.util.List;
 public class Closure {
 
     static int count = 0;
+    // closure computed in one pass with graph reachability index
+    public static boolean REACHABILITY = false;
 
     Graph graph;
     Distinct distinct;
@@ -31,6 +35,8 @@ public class Closure {
     private boolean isTrace = false;
     // send index to data manager edge iterator 
     private boolean filterEdgeIndex = true;
+    // reachability index version of last closure
+    private int reachVersion = -1;
 
     public Closure(Graph g, Distinct d) {
         graph = g;
@@ -132,6 +138,10 @@ public class Closure {
         }
         //boolean same = pred1 == pred2;
         boolean same = predicate1.equals(predicate2);
+        if (same && isReachability()) {
+            reachClosure(loop, loopIndex);
+            return;
+        }
         boolean go = true, isFirst = loop == 0;
         int n = 0;
        
@@ -206,6 +216,47 @@ public class Closure {
         }
     }
 
+    boolean isReachability() {
+        return REACHABILITY && !Graph.isTopRelation(predicate1) && !graph.isEdgeMetadata();
+    }
+
+    /**
+     * Transitive closure computed with the reachability index of predicate:
+     * for each subject, create edges to reachable nodes that are not
+     * successors yet. Index is updated by graph insert, when its version has
+     * not changed since last closure, there is no new edge to create.
+     */
+    void reachClosure(int loop, int loopIndex) {
+        ReachabilityIndex index = graph.setReachabilityIndex(predicate1);
+        if (index == null || (loop > 0 && index.getVersion() == reachVersion)) {
+            return;
+        }
+        ArrayList<Edge> edgeList = new ArrayList<>();
+        HashSet<Node> subject = new HashSet<>(), successor = new HashSet<>();
+        for (Edge e1 : getEdges(predicate1)) {
+            Node n1 = e1.getNode(0);
+            if (!subject.add(n1)) {
+                continue;
+            }
+            successor.clear();
+            for (Edge e2 : getEdges(predicate1, n1, 0)) {
+                successor.add(e2.getNode(1));
+            }
+            for (Node n2 : index.reachable(n1)) {
+                if (!successor.contains(n2) && isDistinct(n1, n2)) {
+                    Edge ent = create(predicate1, n1, n2);
+                    ent.setEdgeIndex(loopIndex);
+                    edgeList.add(ent);
+                }
+            }
+        }
+        if (isTrace) {
+            System.out.println("Closure: reachability new " + edgeList.size());
+        }
+        insert(predicate1, edgeList);
+        reachVersion = index.getVersion();
+    }
+
     boolean isDistinct(Node n1, Node n2) {
         if (isDistinct) {
             return distinct.isDistinct(n1, n2);
@@ -26,6 +26,11 @@ public class ClosureDataManager extends Closure {
         setDataManager(man);
     }
      
+    @Override
+    boolean isReachability() {
+        return false;
+    }
+
     @Override
     Node ruleGraphNode() {
         return DatatypeMap.newResource(Entailment.RULE);
@@ -8,8 +8,13 @@ import fr.inria.corese.core.kgram.core.Query;
 import fr.inria.corese.core.sparql.api.IDatatype;
 import fr.inria.corese.core.sparql.triple.parser.ASTQuery;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.List;
@@ -284,6 +289,22 @@ public abstract class AbstractNestedResultFormat extends QueryResultFormat {
         return sb.toString();
     }
 
+    /**
+     * Write the results into out while iterating the Mappings.
+     * out is flushed but not closed.
+     */
+    public void write(Writer out) throws IOException {
+        pw = new PrintWriter(out);
+        print();
+        if (pw.checkError()) {
+            throw new IOException("Error while writing query results");
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        write(new BufferedWriter(new OutputStreamWriter(out)));
+    }
+
     public StringBuffer toStringBuffer() {
         StringWriter sw = new StringWriter();
         pw = new PrintWriter(sw);
@@ -1,5 +1,10 @@
 package fr.inria.corese.core.print;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -60,6 +65,30 @@ public class CSVFormat extends QueryResultFormat {
         }
     }
 
+    /**
+     * Write the results into out while iterating the Mappings.
+     * out is flushed but not closed.
+     */
+    public void write(Writer out) throws IOException {
+        if (isAsk) {
+            out.write(toStringAsk());
+        } else {
+            out.write(variables());
+            out.write(eol());
+            StringBuilder str = new StringBuilder();
+            for (Mapping map : lm) {
+                str.setLength(0);
+                value(str, map);
+                out.append(str);
+            }
+        }
+        out.flush();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        write(new BufferedWriter(new OutputStreamWriter(out)));
+    }
+
     private String toStringSelect() {
         StringBuilder str = new StringBuilder(variables() + eol());
         str.append(values());
@@ -99,28 +128,33 @@ public class CSVFormat extends QueryResultFormat {
         StringBuilder str = new StringBuilder("");
 
         for (Mapping map : lm) {
-            boolean first = true;
-
-            for (String var : select) {
-                if (first) {
-                    first = false;
-                } else {
-                    str.append(sep());
-                }
-
-                Node node = map.getNode(var);
-                if (node != null) {
-                    str.append(getLabel(node));
-                }
-            }
-
-            str.append(eol());
+            value(str, map);
         }
 
         return str;
 
     }
 
+    // one line of result
+    void value(StringBuilder str, Mapping map) {
+        boolean first = true;
+
+        for (String var : select) {
+            if (first) {
+                first = false;
+            } else {
+                str.append(sep());
+            }
+
+            Node node = map.getNode(var);
+            if (node != null) {
+                str.append(getLabel(node));
+            }
+        }
+
+        str.append(eol());
+    }
+
     String getLabel(Node node) {
         String label = node.getLabel();
         if (isSpecial(label)) {
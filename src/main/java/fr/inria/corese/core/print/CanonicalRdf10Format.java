@@ -1,5 +1,7 @@
 package fr.inria.corese.core.print;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 import fr.inria.corese.core.Graph;
@@ -70,6 +72,15 @@ public class CanonicalRdf10Format extends NQuadsFormat {
         return sb.toString();
     }
 
+    /**
+     * Lines are sorted: the whole serialization is built before writing.
+     */
+    @Override
+    public void write(Writer out) throws IOException {
+        out.write(toString());
+        out.flush();
+    }
+
     @Override
     protected String printBlank(Node node) {
         String identifier = this.canonicalizedDataset.getIdentifierForBlankNode(node);
@@ -1,5 +1,7 @@
 package fr.inria.corese.core.print;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -80,6 +82,13 @@ public class JSOND3Format extends RDFFormat {
         isGraph = b;
     }
 
+    // printer removes trailing separators from the buffer: no streaming
+    @Override
+    public void write(Writer out) throws IOException {
+        out.append(getStringBuilder());
+        out.flush();
+    }
+
     public StringBuilder getStringBuilder() {
         sb = new StringBuilder();
         if (graph == null && map == null) {
@@ -3,6 +3,7 @@ package fr.inria.corese.core.print;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -417,6 +418,12 @@ public class JSONLDFormat extends RDFFormat {
         out.write(this.toString().getBytes());
     }
 
+    @Override
+    public void write(Writer out) throws IOException {
+        out.write(this.toString());
+        out.flush();
+    }
+
     // error message
     private StringBuilder errorString() {
         StringBuilder error = new StringBuilder();
@@ -20,35 +20,28 @@ public class NQuadsFormat extends NTriplesFormat {
     }
 
     /**
-     * Converts the graph to a string in N-Quads format.
+     * Converts an edge to a line in N-Quads format.
      * 
-     * @return a string representation of the graph in N-Quads format
+     * @param edge the edge to be formatted
+     * @return a string representation of the edge, ending with a new line
      */
     @Override
-    public String toString() {
+    protected String printEdge(Edge edge) {
         StringBuilder sb = new StringBuilder();
 
-        for (Edge e : graph.getEdges()) {
+        sb.append(printNode(edge.getNode(0)))
+                .append(" ")
+                .append(printNode(edge.getEdgeNode()))
+                .append(" ")
+                .append(printNode(edge.getNode(1)))
+                .append(" ");
 
-            // Create a new clean iterable (because corse iterable does not have a perfectly
-            // defined behavior for optimization reasons)
-            Edge edge = this.graph.getEdgeFactory().copy(e);
-
-            sb.append(printNode(edge.getNode(0)))
-                    .append(" ")
-                    .append(printNode(edge.getEdgeNode()))
-                    .append(" ")
-                    .append(printNode(edge.getNode(1)))
-                    .append(" ");
-
-            if (edge.getGraph().getValue().stringValue() != ExpType.DEFAULT_GRAPH) {
-                sb.append(printNode(edge.getGraph()));
-                sb.append(" ");
-            }
-
-            sb.append(".\n");
+        if (edge.getGraph().getValue().stringValue() != ExpType.DEFAULT_GRAPH) {
+            sb.append(printNode(edge.getGraph()));
+            sb.append(" ");
         }
 
+        sb.append(".\n");
         return sb.toString();
     }
 
@@ -1,7 +1,10 @@
 package fr.inria.corese.core.print;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import fr.inria.corese.core.Graph;
 import fr.inria.corese.core.kgram.api.core.Edge;
@@ -66,26 +69,53 @@ public class NTriplesFormat extends RDFFormat {
             // defined behavior for optimization reasons)
             Edge edge = this.graph.getEdgeFactory().copy(e);
 
-            sb.append(printNode(edge.getNode(0)))
-                    .append(" ")
-                    .append(printNode(edge.getEdgeNode()))
-                    .append(" ")
-                    .append(printNode(edge.getNode(1)))
-                    .append(" .\n");
+            sb.append(printEdge(edge));
         }
 
         return sb.toString();
     }
 
+    /**
+     * Writes the graph to a writer in N-Triples format, one edge at a time.
+     * The writer is flushed but not closed.
+     *
+     * @param out the writer to write to
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(Writer out) throws IOException {
+        for (Edge e : graph.getEdges()) {
+            Edge edge = this.graph.getEdgeFactory().copy(e);
+            out.write(printEdge(edge));
+        }
+        out.flush();
+    }
+
     /**
      * Writes the graph to an output stream in N-Triples format.
+     * The output stream is flushed but not closed.
      * 
      * @param out the output stream to write to
      * @throws IOException if an I/O error occurs
      */
     @Override
     public void write(OutputStream out) throws IOException {
-        out.write(this.toString().getBytes());
+        write(new BufferedWriter(new OutputStreamWriter(out)));
+    }
+
+    /**
+     * Converts an edge to a line in N-Triples format.
+     *
+     * @param edge the edge to be formatted
+     * @return a string representation of the edge, ending with a new line
+     */
+    protected String printEdge(Edge edge) {
+        return printNode(edge.getNode(0)) +
+                " " +
+                printNode(edge.getEdgeNode()) +
+                " " +
+                printNode(edge.getNode(1)) +
+                " .\n";
     }
 
     /**
@@ -1,9 +1,11 @@
 package fr.inria.corese.core.print;
 
+import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -56,10 +58,15 @@ public class RDFFormat {
     private static final String XLT = "&lt;";
     private static final String AMP = "&(?!amp;)";
     private static final String XAMP = "&amp;";
+    static final int FLUSH = 1 << 16;
     Graph graph;
     Mapper map;
     NSManager nsm;
     StringBuilder sb;
+    // streaming: sb is written into writer by chunks of FLUSH characters
+    private Writer writer;
+    // streaming: first pass that prints the body in order to define prefixes
+    private boolean dry = false;
     Query query;
     ASTQuery ast;
     List<String> with, without;
@@ -205,33 +212,118 @@ public class RDFFormat {
     }
 
     public void write(String name) throws IOException {
-        StringBuilder sb = getStringBuilder();
         FileOutputStream fos = new FileOutputStream(name);
-        Writer out = new OutputStreamWriter(fos); // , "UTF8");
-        out.write(sb.toString());
-        out.close();
+        Writer out = new BufferedWriter(new OutputStreamWriter(fos)); // , "UTF8");
+        try {
+            write(out);
+        } finally {
+            out.close();
+        }
     }
 
     public void write(OutputStream out) throws IOException {
-        StringBuilder sb = getStringBuilder();
-        out.write(sb.toString().getBytes());
-        out.close();
+        Writer w = new BufferedWriter(new OutputStreamWriter(out));
+        try {
+            write(w);
+        } finally {
+            w.close();
+        }
+    }
+
+    /**
+     * Stream the graph into out: the buffer is written each time it exceeds
+     * FLUSH characters, hence memory does not depend on the size of the graph.
+     * Namespace header depends on prefixes defined while printing the body:
+     * a first pass prints the body without keeping it in order to define
+     * them. out is flushed but not closed.
+     */
+    public void write(Writer out) throws IOException {
+        write(out, null);
+    }
+
+    void write(Writer out, Node node) throws IOException {
+        if (graph == null && map == null) {
+            return;
+        }
+        sb = new StringBuilder();
+        dry = true;
+        try {
+            body(node);
+        } finally {
+            dry = false;
+        }
+        restart();
+
+        StringBuilder bb = new StringBuilder();
+        open(bb);
+        out.append(bb);
+
+        sb = new StringBuilder();
+        writer = out;
+        try {
+            body(node);
+            out.append(sb);
+            out.append(close());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            writer = null;
+            sb = new StringBuilder();
+        }
+        out.flush();
+    }
+
+    /**
+     * Called after each subject: when streaming, write the buffer if it is
+     * large enough
+     */
+    void flush() {
+        if (dry) {
+            sb.setLength(0);
+        } else if (writer != null && sb.length() >= FLUSH) {
+            try {
+                writer.append(sb);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sb.setLength(0);
+        }
+    }
+
+    // reset printer state between the two passes of write()
+    void restart() {
     }
 
     public StringBuilder getStringBuilder() {
+        return getStringBuilder(null);
+    }
+
+    public StringBuilder getStringBuilder(Node node) {
         sb = new StringBuilder();
         if (graph == null && map == null) {
             return sb;
         }
 
+        body(node);
+
+        StringBuilder bb = new StringBuilder();
+        open(bb);
+        bb.append(sb);
+        bb.append(close());
+
+        return bb;
+    }
+
+    // print the edges into sb
+    void body(Node node) {
         error();
 
-        for (Node node : getNodes()) {
-            print(node);
+        for (Node n : getNodes()) {
+            print(n);
         }
+    }
 
-        StringBuilder bb = new StringBuilder();
-
+    void open(StringBuilder bb) {
         bb.append(XMLDEC);
         bb.append(NL);
         bb.append(RDF_OPEN);
@@ -240,10 +332,10 @@ public class RDFFormat {
         bb.append(">");
         bb.append(NL);
         bb.append(NL);
-        bb.append(sb);
-        bb.append(RDF_CLOSE);
+    }
 
-        return bb;
+    String close() {
+        return RDF_CLOSE;
     }
 
     void header(StringBuilder bb) {
@@ -324,6 +416,7 @@ public class RDFFormat {
             display(close);
             display();
         }
+        flush();
     }
 
     String type(Node node) {
@@ -2,8 +2,10 @@ package fr.inria.corese.core.print;
 
 import static fr.inria.corese.core.sparql.triple.parser.URLParam.LINK;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 
 import fr.inria.corese.core.compiler.parser.Pragma;
@@ -576,11 +578,123 @@ public class ResultFormat implements ResultFormatDef {
     }
 
     public void write(String name) throws IOException {
-        FileWriter fw = new FileWriter(name);
-        String str = toString();
-        fw.write(str);
-        fw.flush();
-        fw.close();
+        Writer fw = new BufferedWriter(new FileWriter(name));
+        try {
+            write(fw);
+        } finally {
+            fw.close();
+        }
+    }
+
+    /**
+     * Write the result into out.
+     * RDF and query result formats are written while iterating the graph or
+     * the Mappings, other formats are written as a string.
+     * out is flushed but not closed.
+     */
+    public void write(Writer out) throws IOException {
+        if (!isTransformer() && type() != ResultFormatDef.format.HTML_FORMAT) {
+            if (getMappings() == null) {
+                if (graphWrite(out)) {
+                    return;
+                }
+            } else if (mapWrite(out)) {
+                return;
+            }
+        }
+        out.write(toString());
+        out.flush();
+    }
+
+    // streaming version of graphToString(): return false when format is not streamed
+    boolean graphWrite(Writer out) throws IOException {
+        if (type() == ResultFormatDef.format.UNDEF_FORMAT) {
+            setType(getConstructFormat());
+        }
+        switch (type) {
+            case RDF_XML_FORMAT:
+                RDFFormat.create(getGraph()).write(out);
+                return true;
+            case TRIG_FORMAT:
+                TripleFormat.create(getGraph(), getNsmanager(), true)
+                        .setNbTriple(getNbTriple()).write(out);
+                return true;
+            case NTRIPLES_FORMAT:
+                NTriplesFormat.create(getGraph()).write(out);
+                return true;
+            case NQUADS_FORMAT:
+                NQuadsFormat.create(getGraph()).write(out);
+                return true;
+            case TURTLE_FORMAT:
+                TripleFormat.create(getGraph(), getNsmanager())
+                        .setNbTriple(getNbTriple()).write(out);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // streaming version of mapToString(): return false when format is not streamed
+    boolean mapWrite(Writer out) throws IOException {
+        Query q = getMappings().getQuery();
+        if (q == null || q.isTemplate() || q.hasPragma(Pragma.TEMPLATE)
+                || (getTransformType() == ResultFormatDef.format.HTML_FORMAT
+                        && (getContext() == null || !getContext().hasValue(LINK)))) {
+            return false;
+        }
+        if (type() == ResultFormatDef.format.UNDEF_FORMAT) {
+            if (q.isConstruct()) {
+                setType(getConstructFormat());
+            } else {
+                setType(getSelectFormat());
+            }
+        }
+        Mappings map = getMappings();
+        if (isGraphFormat(type()) && map.getGraph() == null) {
+            map.setGraph(MappingsGraph.create(map).getGraph());
+        }
+
+        switch (type()) {
+            case RDF_XML_FORMAT:
+                RDFFormat.create(map).write(out);
+                return true;
+            case TURTLE_FORMAT:
+                TripleFormat.create(map).setNbTriple(getNbTriple()).write(out);
+                return true;
+            case TRIG_FORMAT:
+                TripleFormat.create(map, true).setNbTriple(getNbTriple()).write(out);
+                return true;
+            case NTRIPLES_FORMAT:
+                NTriplesFormat.create(map).write(out);
+                return true;
+            case NQUADS_FORMAT:
+                NQuadsFormat.create(map).write(out);
+                return true;
+            case JSON_FORMAT:
+                JSONFormat json = JSONFormat.create(map);
+                json.init(getContext());
+                json.write(out);
+                return true;
+            case CSV_FORMAT:
+                CSVFormat csv = CSVFormat.create(map);
+                csv.init(getContext());
+                csv.write(out);
+                return true;
+            case TSV_FORMAT:
+                TSVFormat tsv = TSVFormat.create(map);
+                tsv.init(getContext());
+                tsv.write(out);
+                return true;
+            case XML_FORMAT:
+                XMLFormat ft = XMLFormat.create(map);
+                ft.init(getContext());
+                ft.setSelectAll(isSelectAll());
+                ft.setNbResult(nbResult);
+                ft.write(out);
+                return true;
+            default:
+                return false;
+        }
     }
 
     /**
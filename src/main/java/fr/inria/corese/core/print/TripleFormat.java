@@ -122,16 +122,7 @@ public class TripleFormat extends RDFFormat {
     }
 
     @Override
-    public StringBuilder getStringBuilder() {
-        return getStringBuilder(null);
-    }
-
-    public StringBuilder getStringBuilder(Node node) {
-        sb = new StringBuilder();
-        if (graph == null && map == null) {
-            return sb;
-        }
-
+    void body(Node node) {
         if (node != null) {
             print(null, node);
         } else if (isGraph) {
@@ -139,13 +130,23 @@ public class TripleFormat extends RDFFormat {
         } else {
             nodes();
         }
+    }
 
-        StringBuilder bb = new StringBuilder();
+    @Override
+    void open(StringBuilder bb) {
         header(bb);
         bb.append(NL);
         // bb.append(NL);
-        bb.append(sb);
-        return bb;
+    }
+
+    @Override
+    String close() {
+        return "";
+    }
+
+    @Override
+    void restart() {
+        tripleCounter = 0;
     }
 
     // iterate on subject nodes and pprint their edges
@@ -287,6 +288,7 @@ public class TripleFormat extends RDFFormat {
             sdisplay(NL);
             sdisplay(NL);
         }
+        flush();
     }
 
     // iterate edges where node is subject
@@ -9,8 +9,10 @@ import static fr.inria.corese.core.kgram.sorter.core.Const.TRIPLE;
 import static fr.inria.corese.core.sparql.triple.parser.Metadata.RDF_STAR_SELECT;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,13 +21,19 @@ import fr.inria.corese.core.Event;
 import fr.inria.corese.core.Graph;
 import fr.inria.corese.core.Index;
 import fr.inria.corese.core.api.DataBroker;
+import fr.inria.corese.core.approximate.algorithm.Parameters;
 import fr.inria.corese.core.index.EdgeManagerIndexer;
+import fr.inria.corese.core.index.GraphStatistics;
+import fr.inria.corese.core.index.ReachabilityIndex;
+import fr.inria.corese.core.index.TextIndex;
 import fr.inria.corese.core.producer.DataBrokerExtern;
 import fr.inria.corese.core.producer.DataBrokerLocal;
 import fr.inria.corese.core.producer.DataProducer;
 import fr.inria.corese.core.storage.api.dataManager.DataManager;
 import fr.inria.corese.core.kgram.api.core.DatatypeValueFactory;
 import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Expr;
+import fr.inria.corese.core.kgram.api.core.ExprType;
 import fr.inria.corese.core.kgram.api.core.Filter;
 import fr.inria.corese.core.kgram.api.core.Node;
 import fr.inria.corese.core.kgram.api.core.Regex;
@@ -39,6 +47,7 @@ import fr.inria.corese.core.kgram.core.Memory;
 import fr.inria.corese.core.kgram.core.Query;
 import fr.inria.corese.core.kgram.core.SparqlException;
 import fr.inria.corese.core.kgram.sorter.core.IProducerQP;
+import fr.inria.corese.core.kgram.sorter.core.IStatisticsQP;
 import fr.inria.corese.core.kgram.sorter.core.QPGNode;
 import fr.inria.corese.core.kgram.tool.MetaIterator;
 import fr.inria.corese.core.sparql.api.IDatatype;
@@ -54,13 +63,21 @@ import fr.inria.corese.core.sparql.triple.parser.AccessRight;
  *
  */
 public class ProducerImpl
-        implements Producer, IProducerQP {
+        implements Producer, IProducerQP, IStatisticsQP {
     private static Logger logger = LoggerFactory.getLogger(ProducerImpl.class);
 
     public static final int OWL_RL = 1;
     static final int IGRAPH = Graph.IGRAPH;
     static final int ILIST = Graph.ILIST;
     public static final String TOPREL = Graph.TOPREL;
+    // p+ and p* with bound endpoints answered by graph reachability index
+    public static boolean PATH_REACHABILITY = false;
+    // s p ?o with filter contains/strstarts/regex/langMatches on ?o
+    // answered by graph text index of p
+    public static boolean TEXT_INDEX = false;
+    // s p ?o with filter approximate(?o, str) of relax query
+    // pruned to candidates of graph text index of p
+    public static boolean APPROXIMATE_INDEX = false;
 
     List<Edge> empty = new ArrayList<>(0);
     List<Node> emptyFrom = new ArrayList<>(0);
@@ -292,6 +309,13 @@ public class ProducerImpl
             }
         }
 
+        if (focusNode == null && (TEXT_INDEX || APPROXIMATE_INDEX)) {
+            Iterable<Edge> it = getTextEdges(namedGraphURI, from, edge, env, predicate);
+            if (it != null) {
+                return it;
+            }
+        }
+
         Iterable<Edge> it;
 
         if (mode == EXTENSION && getQuery() == q) {
@@ -312,6 +336,140 @@ public class ProducerImpl
         return it;
     }
 
+    /**
+     * s p ?o with unbound ?o and filter on ?o: contains, strstarts, regex,
+     * langMatches, approximate
+     * Candidate values of ?o are computed by the text index of p and the
+     * triple is evaluated with ?o = candidate. Filters are still evaluated.
+     * Return null when there is no such filter.
+     */
+    Iterable<Edge> getTextEdges(Node namedGraphURI, List<Node> from, Edge edge, Environment env, Node predicate) {
+        Query q = env.getQuery();
+        Exp exp = env.getExp();
+        Node qNode = edge.getNode(1);
+        if (isDB() || hasDataManager() || (mode == EXTENSION && getQuery() == q)
+                || exp == null || exp.getEdge() != edge || exp.getFilters().isEmpty()
+                || !qNode.isVariable() || predicate.getLabel().equals(TOPREL)
+                || isSkipTypeObjectNode(q, edge)) {
+            return null;
+        }
+        TextIndex index = null;
+        Set<Node> candidate = null;
+        for (Filter f : exp.getFilters()) {
+            if (isText(f.getExp(), qNode)) {
+                if (index == null) {
+                    index = getGraph().setTextIndex(predicate);
+                    if (index == null) {
+                        return null;
+                    }
+                }
+                Set<Node> set = textCandidate(index, f.getExp(), qNode, q);
+                if (set != null) {
+                    if (candidate == null) {
+                        candidate = set;
+                    } else {
+                        candidate.retainAll(set);
+                    }
+                }
+            }
+        }
+        if (candidate == null) {
+            return null;
+        }
+        if (candidate.isEmpty()) {
+            return empty;
+        }
+        boolean skip = getGraph().isEdgeMetadata() && edge.nbNode() == 2;
+        Node targetGraphNode = getNode(namedGraphURI, env);
+        AccessRight access = getAccessRight(env);
+        boolean nested = isNested(q, edge);
+        // nodes with same index (1 and 01) share object index entry
+        Set<Integer> done = new HashSet<>();
+        MetaIterator<Edge> meta = new MetaIterator<>();
+        for (Node node : candidate) {
+            if (done.add(node.getIndex())) {
+                meta.next(getEdges(namedGraphURI, targetGraphNode, from, predicate, node, null, 1,
+                        skip, access, nested));
+            }
+        }
+        if (meta.isEmpty()) {
+            return empty;
+        }
+        return localMatch(meta, namedGraphURI, edge, env);
+    }
+
+    /**
+     * Filter is (conjunction of) text function on query node
+     */
+    boolean isText(Expr e, Node qNode) {
+        if (e.type() == ExprType.BOOLEAN && e.oper() == ExprType.AND) {
+            for (Expr ee : e.getExpList()) {
+                if (isText(ee, qNode)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (e.oper() == ExprType.APPROXIMATE) {
+            return APPROXIMATE_INDEX && e.arity() == 4 && isVariable(e.getExp(0), qNode)
+                    && e.getExp(1).isConstant();
+        }
+        if (!TEXT_INDEX) {
+            return false;
+        }
+        if (e.oper() == ExprType.CONTAINS || e.oper() == ExprType.STARTS
+                || e.oper() == ExprType.REGEX) {
+            return e.arity() >= 2 && isVariable(e.getExp(0), qNode) && e.getExp(1).isConstant()
+                    && (e.arity() == 2 || (e.arity() == 3 && e.getExp(2).isConstant()));
+        }
+        if (e.oper() == ExprType.LANGMATCH) {
+            return e.arity() == 2 && e.getExp(0).oper() == ExprType.LANG
+                    && e.getExp(0).arity() == 1 && isVariable(e.getExp(0).getExp(0), qNode)
+                    && e.getExp(1).isConstant();
+        }
+        return false;
+    }
+
+    boolean isVariable(Expr e, Node qNode) {
+        return e.isVariable() && e.getLabel().equals(qNode.getLabel());
+    }
+
+    /**
+     * Candidate nodes of text filter, null if index is useless
+     */
+    Set<Node> textCandidate(TextIndex index, Expr e, Node qNode, Query q) {
+        if (e.type() == ExprType.BOOLEAN) {
+            Set<Node> candidate = null;
+            for (Expr ee : e.getExpList()) {
+                if (isText(ee, qNode)) {
+                    Set<Node> set = textCandidate(index, ee, qNode, q);
+                    if (set != null) {
+                        if (candidate == null) {
+                            candidate = set;
+                        } else {
+                            candidate.retainAll(set);
+                        }
+                    }
+                }
+            }
+            return candidate;
+        }
+        IDatatype dt = e.getExp(1).getDatatypeValue();
+        if (dt == null) {
+            return null;
+        }
+        if (e.oper() == ExprType.REGEX) {
+            IDatatype flag = (e.arity() == 3) ? e.getExp(2).getDatatypeValue() : null;
+            return index.regex(dt.stringValue(), (flag == null) ? null : flag.stringValue());
+        } else if (e.oper() == ExprType.LANGMATCH) {
+            return index.langMatches(dt.getLabel());
+        } else if (e.oper() == ExprType.APPROXIMATE) {
+            ASTQuery ast = q.getGlobalQuery().getAST();
+            return index.similar(dt.getLabel(), Parameters.getCandidateMax(ast), Parameters.getCandidateRecall(ast));
+        }
+        return index.contains(dt.getLabel());
+    }
+
     boolean isNested(Query q, Edge edge) {
         return edge.isNested() || q.getGlobalAST().hasMetadata(RDF_STAR_SELECT);
     }
@@ -992,6 +1150,95 @@ public class ProducerImpl
         }
     }
 
+    /**
+     * IStatisticsQP for Query.QP_STATS_BASED
+     * Graph statistics are computed when first needed
+     */
+    GraphStatistics getStatistics() {
+        return getGraph().setStatistics();
+    }
+
+    @Override
+    public int getTripleNumber() {
+        return getStatistics().size();
+    }
+
+    @Override
+    public int getTripleCount(QPGNode qpgn, int type) {
+        GraphStatistics stat = getStatistics();
+        String pred = getPredicate(qpgn);
+        switch (type) {
+            case PREDICATE:
+                return (pred == null) ? stat.size() : stat.count(pred);
+            case SUBJECT:
+            case OBJECT:
+                Node node = qpgn.getExpNode(type);
+                if (node.isVariable()) {
+                    return NA;
+                }
+                Node target = getGraph().getNode(node);
+                if (target == null) {
+                    return 0;
+                }
+                return (type == SUBJECT) ? stat.subjectCount(target, pred) : stat.objectCount(target, pred);
+            default:
+                return NA;
+        }
+    }
+
+    @Override
+    public int getDistinctCount(QPGNode qpgn, int type) {
+        GraphStatistics stat = getStatistics();
+        String pred = getPredicate(qpgn);
+        switch (type) {
+            case PREDICATE:
+                return stat.predicateNumber();
+            case SUBJECT:
+                return (pred == null) ? stat.subjectNumber() : stat.subjectCount(pred);
+            case OBJECT:
+                return (pred == null) ? stat.objectNumber() : stat.objectCount(pred);
+            default:
+                return NA;
+        }
+    }
+
+    @Override
+    public double getSubjectJoinCount(QPGNode n1, QPGNode n2) {
+        String p1 = getPredicate(n1), p2 = getPredicate(n2);
+        if (p1 == null || p2 == null) {
+            return NA;
+        }
+        return getStatistics().subjectJoin(p1, p2);
+    }
+
+    // predicate label of triple pattern, null if predicate is a variable
+    String getPredicate(QPGNode qpgn) {
+        Node pred = qpgn.getExpNode(PREDICATE);
+        if (pred.isVariable()) {
+            return null;
+        }
+        return pred.getLabel();
+    }
+
+    /**
+     * Path n1 p+ n2 or n1 p* n2 answered by the reachability index of p,
+     * computed when first needed and then updated by edge insert
+     */
+    @Override
+    public Boolean reach(Node p, Node n1, Node n2, boolean zero) {
+        if (!PATH_REACHABILITY || isDB() || getDataManager() != null
+                || getGraph().isEdgeMetadata() || AccessRight.isActive()
+                || p.getLabel().equals(TOPREL)) {
+            return null;
+        }
+        ReachabilityIndex index = getGraph().setReachabilityIndex(p);
+        if (index == null) {
+            // no p edge: only zero length path
+            return zero && n1.equals(n2);
+        }
+        return index.reach(n1, n2, zero);
+    }
+
     /**
      * @return the query
      */
@@ -7,9 +7,13 @@ import static fr.inria.corese.core.util.Property.Value.SERVICE_SLICE;
 import static fr.inria.corese.core.util.Property.Value.SERVICE_TIMEOUT;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -225,7 +229,7 @@ public class ProviderService implements URLParam {
         }
 
         ArrayList<Mappings> mapList = new ArrayList<>();
-        ArrayList<ProviderThread> pList = new ArrayList<>();
+        ArrayList<CompletableFuture<Void>> pList = new ArrayList<>();
         int timeout = getTimeout(serviceNode, map);
         // by default in parallel (unless mode=sequence)
         boolean parallel = q.getOuterQuery().isParallel() && !hasValue(SEQUENCE);
@@ -296,20 +300,15 @@ public class ProviderService implements URLParam {
             // @todo: storage and dataset service url cannot run in //
             // because it is same ast and it is not reentrant
             if (parallel) {
-                ProviderThread p = parallelProcess(url, input, sol, slice, length, timeout);
-                pList.add(p);
+                pList.add(parallelProcess(url, input, sol, slice, length, timeout));
             } else {
                 process(url, input, sol, slice, length, timeout);
             }
         }
 
-        // Wait for parallel threads to stop
-        for (ProviderThread p : pList) {
-            try {
-                p.join();
-            } catch (InterruptedException ex) {
-                logger.warn(ex.toString());
-            }
+        // Wait for parallel tasks to stop
+        if (!pList.isEmpty()) {
+            CompletableFuture.allOf(pList.toArray(new CompletableFuture[pList.size()])).join();
         }
 
         Mappings res = getResult(mapList);
@@ -336,13 +335,17 @@ public class ProviderService implements URLParam {
     }
 
     /**
-     * Execute service in a parallel thread
+     * Execute service in a thread of the shared service scheduler
      */
-    ProviderThread parallelProcess(URLServer service, Mappings map, Mappings sol, boolean slice, int length,
+    CompletableFuture<Void> parallelProcess(URLServer service, Mappings map, Mappings sol, boolean slice, int length,
             int timeout) {
-        ProviderThread thread = new ProviderThread(this, service, map, sol, slice, length, timeout);
-        thread.start();
-        return thread;
+        return ServiceScheduler.getSingleton().process(() -> {
+            try {
+                process(service, map, sol, slice, length, timeout);
+            } catch (EngineException | RuntimeException ex) {
+                logger.error(String.format("%s %s", service.getURL(), ex.getMessage()));
+            }
+        });
     }
 
     /**
@@ -373,38 +376,32 @@ public class ProviderService implements URLParam {
                     traceAST(service, getAST());
                 }
 
-                while (size < map.size() && !stop(service, size)) {
-                    if (eval.isStop()) {
-                        break;
-                    }
-                    // consider subset of Mappings of size slice
-                    // it may produce bindings for target service
-
-                    Mappings res = null;
-
-                    try {
-                        res = send(service, map, size, size + length, timeout, count);
-                    } catch (ProcessingException e) {
-                        if (isTimeout(e) && !sol.isEmpty()) {
-                            logger.info(RETURN_PARTIAL_SOLUTION_AFTER_TIMEOUT);
-                        } else {
-                            throw e;
+                if (isPipeline(service, map, length)) {
+                    count = pipeline(service, map, sol, length, timeout, d1);
+                } else {
+                    while (size < map.size() && !stop(service, size)) {
+                        if (eval.isStop()) {
+                            break;
+                        }
+                        // consider subset of Mappings of size slice
+                        // it may produce bindings for target service
+
+                        Mappings res = null;
+
+                        try {
+                            res = send(service, map, size, size + length, timeout, count);
+                        } catch (ProcessingException e) {
+                            if (isTimeout(e) && !sol.isEmpty()) {
+                                logger.info(RETURN_PARTIAL_SOLUTION_AFTER_TIMEOUT);
+                            } else {
+                                throw e;
+                            }
+                        }
+                        size += length;
+                        count++;
+                        if (result(service, map, sol, res, size, d1)) {
+                            break;
                         }
-                    }
-
-                    // join (serviceNode = serviceURI)
-                    complete(getServiceExp().getServiceNode(), service.getNode(), res);
-                    addResult(service, sol, res);
-                    size += length;
-                    count++;
-                    if (getGlobalAST().hasMetadata(Metadata.TRACE)) {
-                        logger.info(String.format(
-                                "Service %s with %s parameters out of %s, results: %s, total results: %s",
-                                service.getURL(), Math.min(size, map.size()),
-                                map.size(), res == null ? 0 : res.size(), sol.size()));
-                    }
-                    if (stop(service, sol, d1)) {
-                        break;
                     }
                 }
                 if (getGlobalAST().hasMetadata(Metadata.TRACE)) {
@@ -429,6 +426,113 @@ public class ProviderService implements URLParam {
         }
     }
 
+    /**
+     * Add result of one slice to sol
+     * return true if processing of slices must stop
+     */
+    boolean result(URLServer service, Mappings map, Mappings sol, Mappings res, int size, Date d) {
+        // join (serviceNode = serviceURI)
+        complete(getServiceExp().getServiceNode(), service.getNode(), res);
+        addResult(service, sol, res);
+        if (getGlobalAST().hasMetadata(Metadata.TRACE)) {
+            logger.info(String.format(
+                    "Service %s with %s parameters out of %s, results: %s, total results: %s",
+                    service.getURL(), Math.min(size, map.size()),
+                    map.size(), res == null ? 0 : res.size(), sol.size()));
+        }
+        return stop(service, sol, d);
+    }
+
+    /**
+     * Slices are sent to remote endpoint ahead of time
+     * At most ServiceScheduler.SLICE_MAX slices are pending. Results are
+     * added to sol in slice order hence stop conditions and partial
+     * solution after timeout are the same as in sequential processing.
+     * return number of slices sent
+     */
+    int pipeline(URLServer service, Mappings map, Mappings sol, int length, int timeout, Date d)
+            throws EngineException {
+        ServiceScheduler scheduler = ServiceScheduler.getSingleton();
+        ArrayDeque<Future<Mappings>> pending = new ArrayDeque<>();
+        int size = 0, next = 0, count = 0;
+        try {
+            while (true) {
+                while (pending.size() < ServiceScheduler.SLICE_MAX
+                        && next < map.size() && !stop(service, next) && !eval.isStop()) {
+                    int start = next, num = count++;
+                    pending.add(scheduler.slice(() -> send(service, map, start, start + length, timeout, num)));
+                    next += length;
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+                Mappings res = null;
+                try {
+                    res = get(pending.poll());
+                } catch (ProcessingException e) {
+                    if (isTimeout(e) && !sol.isEmpty()) {
+                        logger.info(RETURN_PARTIAL_SOLUTION_AFTER_TIMEOUT);
+                    } else {
+                        throw e;
+                    }
+                }
+                size += length;
+                if (result(service, map, sol, res, size, d) || eval.isStop()) {
+                    break;
+                }
+            }
+        } finally {
+            for (Future<Mappings> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return count;
+    }
+
+    Mappings get(Future<Mappings> future) throws EngineException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EngineException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EngineException) {
+                throw (EngineException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new EngineException((Exception) cause);
+        }
+    }
+
+    /**
+     * Slices of remote endpoint may be sent ahead of time
+     * Loop mode and graph result reuse state of previous slice
+     * Local services share the ast, they are not reentrant.
+     */
+    boolean isPipeline(URLServer serv, Mappings map, int length) {
+        return ServiceScheduler.SLICE_MAX > 1
+                && map.size() > length
+                && !isLoop(serv)
+                && !Property.getBooleanValue(SERVICE_GRAPH)
+                && !isDB(serv.getNode())
+                && !serv.isStorage()
+                && !serv.isUndefined()
+                && !serv.getServer().startsWith(LOCAL_SERVICE)
+                && !serv.getServer().startsWith(DATASET_SERVICE);
+    }
+
+    boolean isLoop(URLServer serv) {
+        return getGlobalAST().hasMetadata(Metadata.LOOP)
+                || serv.hasParameter(LOOP)
+                || serv.hasParameter(MODE, LOOP);
+    }
+
     /**
      * Send query to sparql endpoint using HTTP request Generate variable
      * binding from map or env if any Consider subset of Mappings map within
@@ -521,9 +625,7 @@ public class ProviderService implements URLParam {
             int start, int limit, int timeout, int count)
             throws EngineException, IOException {
 
-        if (getGlobalAST().hasMetadata(Metadata.LOOP)
-                || serv.hasParameter(LOOP)
-                || serv.hasParameter(MODE, LOOP)) {
+        if (isLoop(serv)) {
             int begin = getValue(serv, Metadata.START, URLParam.START, 0);
             int end = getValue(serv, Metadata.UNTIL, URLParam.UNTIL, Integer.MAX_VALUE);
             int myLimit = getValue(serv, Metadata.LIMIT_STR, URLParam.LIMIT, ast.getLimit());
@@ -1029,7 +1131,63 @@ public class ProviderService implements URLParam {
         return post(q, ast, serv, timeout, count);
     }
 
+    /**
+     * Number of concurrent requests to same endpoint is bounded by scheduler
+     */
     Mappings post(Query q, ASTQuery ast, URLServer serv, int timeout, int count) throws IOException {
+        if (isCache()) {
+            return cachePost(q, ast, serv, timeout, count);
+        }
+        return ServiceScheduler.getSingleton().request(serv.getServer(),
+                () -> basicPost(q, ast, serv, timeout, count));
+    }
+
+    /**
+     * Result of service query with same bindings is reused from cache
+     */
+    Mappings cachePost(Query q, ASTQuery ast, URLServer serv, int timeout, int count) throws IOException {
+        ServiceCache cache = ServiceCache.getSingleton();
+        String key = ServiceCache.key(serv, ast);
+        Mappings map = cache.get(key);
+        if (map != null) {
+            map.setQuery(q);
+            map.init(q);
+            if (getGlobalAST().hasMetadata(Metadata.TRACE)) {
+                logger.info(String.format("Service %s result from cache: %s", serv.getURL(), map.size()));
+            }
+            return map;
+        }
+        map = ServiceScheduler.getSingleton().request(serv.getServer(),
+                () -> basicPost(q, ast, serv, timeout, count));
+        if (map != null && !map.isError() && map.getGraph() == null) {
+            cache.put(key, map, getTimeToLive(serv));
+        }
+        return map;
+    }
+
+    /**
+     * @cache true|false|ttl metadata overloads property SERVICE_CACHE
+     */
+    boolean isCache() {
+        if (getGlobalAST().hasMetadata(Metadata.CACHE)) {
+            IDatatype dt = getGlobalAST().getMetaValue(Metadata.CACHE);
+            return dt == null || !dt.isBoolean() || dt.booleanValue();
+        }
+        return ServiceCache.CACHE;
+    }
+
+    /**
+     * @cache ttl: time to live in seconds
+     */
+    int getTimeToLive(URLServer serv) {
+        IDatatype dt = getGlobalAST().getMetaValue(Metadata.CACHE);
+        if (dt != null && dt.isNumber()) {
+            return dt.intValue();
+        }
+        return ServiceCache.getSingleton().getTimeToLive(serv.getServer());
+    }
+
+    Mappings basicPost(Query q, ASTQuery ast, URLServer serv, int timeout, int count) throws IOException {
         try {
             Binding b = getBinding();
             Service service = new Service(serv);
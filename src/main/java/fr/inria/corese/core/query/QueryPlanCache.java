@@ -0,0 +1,107 @@
+package fr.inria.corese.core.query;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.inria.corese.core.kgram.core.Query;
+import fr.inria.corese.core.sparql.triple.parser.NSManager;
+
+/**
+ * Cache of compiled queries of a graph (see Graph.getQueryPlanCache())
+ * key = query text + compiler parameters (cf QueryProcess)
+ * A compiled query is evaluated by one thread at a time: a query is removed
+ * from the cache when evaluation starts and given back when evaluation
+ * ends. Concurrent evaluations of the same query text compile their own
+ * query, hence they never share evaluation state. At most POOL_MAX compiled
+ * queries are kept for the same key.
+ * Least recently used keys are evicted when there are more than SIZE_MAX keys.
+ * Cache is cleared when system namespaces change.
+ */
+public class QueryPlanCache {
+
+    // cache compiled queries (property QUERY_PLAN_CACHE)
+    public static boolean CACHE = false;
+    // max number of query text
+    public static int SIZE_MAX = 1000;
+    // max number of compiled query for the same query text
+    public static int POOL_MAX = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final LinkedHashMap<String, ArrayDeque<Query>> cache;
+    private long version;
+    private long hit = 0;
+    private long miss = 0;
+
+    public QueryPlanCache() {
+        // access order for LRU eviction
+        cache = new LinkedHashMap<String, ArrayDeque<Query>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArrayDeque<Query>> eldest) {
+                return size() > SIZE_MAX;
+            }
+        };
+        version = NSManager.getVersion();
+    }
+
+    /**
+     * Remove and return a compiled query or null
+     */
+    public synchronized Query acquire(String key) {
+        check();
+        ArrayDeque<Query> pool = cache.get(key);
+        if (pool == null || pool.isEmpty()) {
+            miss++;
+            return null;
+        }
+        hit++;
+        return pool.poll();
+    }
+
+    /**
+     * Give back compiled query after evaluation
+     */
+    public synchronized void release(String key, Query q) {
+        check();
+        ArrayDeque<Query> pool = cache.computeIfAbsent(key, k -> new ArrayDeque<>());
+        if (pool.size() < POOL_MAX) {
+            pool.add(q);
+        }
+    }
+
+    // namespace change: clear cache
+    void check() {
+        if (version != NSManager.getVersion()) {
+            cache.clear();
+            version = NSManager.getVersion();
+        }
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        hit = 0;
+        miss = 0;
+    }
+
+    public synchronized long getHit() {
+        return hit;
+    }
+
+    public synchronized long getMiss() {
+        return miss;
+    }
+
+    public synchronized double getHitRate() {
+        return (hit + miss == 0) ? 0 : (double) hit / (hit + miss);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("query plan cache: %s queries, hit: %s, miss: %s, hit rate: %.2f",
+                cache.size(), hit, miss, getHitRate());
+    }
+
+}
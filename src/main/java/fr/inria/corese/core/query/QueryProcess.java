@@ -543,10 +543,72 @@ public class QueryProcess extends QuerySolver {
     }
 
     Mappings doQuery(String squery, Mapping map, Dataset ds) throws EngineException {
+        String key = getQueryPlanKey(squery, ds);
+        if (key != null) {
+            return cacheQuery(key, squery, map, ds);
+        }
         Query q = compile(squery, ds);
         return query(null, q, map, ds);
     }
 
+    /**
+     * Compiled query is reused from QueryPlanCache
+     * it is given back to the cache when evaluation succeeds
+     */
+    Mappings cacheQuery(String key, String squery, Mapping map, Dataset ds) throws EngineException {
+        QueryPlanCache cache = getGraph().getQueryPlanCache();
+        Query q = cache.acquire(key);
+        if (q == null) {
+            q = compile(squery, ds);
+            if (!isCachable(q)) {
+                return query(null, q, map, ds);
+            }
+        }
+        Mappings res = query(null, q, map, ds);
+        cache.release(key, q);
+        return res;
+    }
+
+    /**
+     * Key of compiled query in the cache of the graph: query text and
+     * compiler parameters
+     * return null when query is not cached
+     */
+    String getQueryPlanKey(String squery, Dataset ds) {
+        if (!QueryPlanCache.CACHE || getGraph() == null || (ds != null && !isCachable(ds))) {
+            return null;
+        }
+        if (hasVisitor()) {
+            for (QueryVisitor vis : getVisitorList()) {
+                if (!(vis instanceof ASTRewriter)) {
+                    return null;
+                }
+            }
+        }
+        String sign = getCompileSignature();
+        if (sign == null) {
+            return null;
+        }
+        return String.format("%s\n%s", squery, sign);
+    }
+
+    // dataset with binding only
+    boolean isCachable(Dataset ds) {
+        return ds.isEmpty() && ds.getContext() == null && ds.getVisitor() == null
+                && ds.getTemplateVisitor() == null && ds.getMetadata() == null
+                && ds.getBase() == null && ds.getStoragePath() == null && !ds.isLoad();
+    }
+
+    // update, rule and federated query are compiled each time
+    // from and named are compiled each time because focusFrom() may modify them
+    boolean isCachable(Query q) {
+        ASTQuery ast = getAST(q);
+        return q.isCorrect() && !ast.isFail() && !q.isUpdate() && !q.isRule()
+                && !ast.isFederate() && q.getService() == null
+                && (q.getFrom() == null || q.getFrom().isEmpty())
+                && (q.getNamed() == null || q.getNamed().isEmpty());
+    }
+
     Mappings query(Node gNode, Query q, Mapping m, Dataset ds) throws EngineException {
         return basicQuery(gNode, q, m, ds);
     }
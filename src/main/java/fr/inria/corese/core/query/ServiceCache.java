@@ -0,0 +1,194 @@
+package fr.inria.corese.core.query;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.sparql.storage.cache.ICache;
+import fr.inria.corese.core.sparql.triple.parser.ASTQuery;
+import fr.inria.corese.core.sparql.triple.parser.URLServer;
+
+/**
+ * Cache of results of remote service
+ * key = endpoint URL + service query, the query contains the values (or
+ * filter) of the slice of bindings sent to the endpoint.
+ * Least recently used entries are evicted when the number of entries or
+ * the size of results exceeds the bounds. Entries expire after a time to
+ * live which may be specific to an endpoint.
+ * Results are copied in and out of the cache because service results are
+ * completed by join.
+ * Methods are synchronized: services may be evaluated in parallel threads.
+ */
+public class ServiceCache implements ICache<String, Mappings> {
+
+    // cache service results (property SERVICE_CACHE, metadata @cache)
+    public static boolean CACHE = false;
+    // max number of entries
+    public static int SIZE_MAX = 1000;
+    // max size of results in cache (sum of result length)
+    public static long BYTE_MAX = 100_000_000;
+    // time to live in seconds
+    public static int TTL_DEFAULT = 600;
+    // estimated size of a Mapping when result length is unknown
+    static final int MAPPING_SIZE = 100;
+
+    private static ServiceCache singleton;
+
+    private final LinkedHashMap<String, Entry> cache;
+    // endpoint -> time to live in seconds
+    private final Map<String, Integer> ttlMap;
+    private long byteSize = 0;
+    private int hit = 0;
+    private int miss = 0;
+
+    class Entry {
+
+        Mappings map;
+        long expire;
+        long size;
+
+        Entry(Mappings map, long expire) {
+            this.map = map;
+            this.expire = expire;
+            this.size = size(map);
+        }
+
+        boolean isExpired(long time) {
+            return time > expire;
+        }
+    }
+
+    ServiceCache() {
+        // access order for LRU eviction
+        cache = new LinkedHashMap<>(16, 0.75f, true);
+        ttlMap = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized ServiceCache getSingleton() {
+        if (singleton == null) {
+            singleton = new ServiceCache();
+        }
+        return singleton;
+    }
+
+    public static String key(URLServer serv, ASTQuery ast) {
+        return serv.getURL() + "\n" + ast.toString();
+    }
+
+    long size(Mappings map) {
+        if (map.getLength() > 0) {
+            return map.getLength();
+        }
+        return (long) map.size() * MAPPING_SIZE;
+    }
+
+    /**
+     * Time to live in seconds of results of endpoint
+     */
+    public void setTimeToLive(String endpoint, int ttl) {
+        ttlMap.put(endpoint, ttl);
+    }
+
+    public int getTimeToLive(String endpoint) {
+        return ttlMap.getOrDefault(endpoint, TTL_DEFAULT);
+    }
+
+    /**
+     * Copy of cached result or null
+     */
+    @Override
+    public synchronized Mappings get(Object key) {
+        Entry e = cache.get(key);
+        if (e == null) {
+            miss++;
+            return null;
+        }
+        if (e.isExpired(System.currentTimeMillis())) {
+            remove(key);
+            miss++;
+            return null;
+        }
+        hit++;
+        return e.map.copy();
+    }
+
+    @Override
+    public synchronized Mappings put(String key, Mappings map) {
+        return put(key, map, TTL_DEFAULT);
+    }
+
+    /**
+     * Record copy of result with time to live in seconds
+     */
+    public synchronized Mappings put(String key, Mappings map, int ttl) {
+        Entry e = new Entry(map.copy(), System.currentTimeMillis() + 1000L * ttl);
+        if (e.size > BYTE_MAX) {
+            return null;
+        }
+        Entry old = cache.put(key, e);
+        byteSize += e.size;
+        if (old != null) {
+            byteSize -= old.size;
+        }
+        evict();
+        return old == null ? null : old.map;
+    }
+
+    void remove(Object key) {
+        Entry e = cache.remove(key);
+        if (e != null) {
+            byteSize -= e.size;
+        }
+    }
+
+    /**
+     * Remove least recently used entries
+     */
+    void evict() {
+        Iterator<Entry> it = cache.values().iterator();
+        while ((cache.size() > SIZE_MAX || byteSize > BYTE_MAX) && it.hasNext()) {
+            byteSize -= it.next().size;
+            it.remove();
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized long getByteSize() {
+        return byteSize;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        Entry e = cache.get(key);
+        return e != null && !e.isExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public synchronized void clear() {
+        cache.clear();
+        byteSize = 0;
+        hit = 0;
+        miss = 0;
+    }
+
+    public synchronized int getHit() {
+        return hit;
+    }
+
+    public synchronized int getMiss() {
+        return miss;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("service cache: %s entries, %s bytes, hit: %s, miss: %s",
+                cache.size(), byteSize, hit, miss);
+    }
+
+}
@@ -0,0 +1,150 @@
+package fr.inria.corese.core.query;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pools for federated service evaluation
+ * Endpoint pool: process one service URL (with its slices of bindings)
+ * Slice pool: send slices of bindings of one service URL ahead of time
+ * Pools are bounded, threads are created on demand and released when idle.
+ * The number of concurrent HTTP requests to the same endpoint is bounded.
+ * A service evaluated within a pool thread (e.g. nested local service)
+ * is evaluated in the current thread in order to prevent a pool to wait
+ * for itself.
+ * When THREAD_MAX or ENDPOINT_MAX change, the next getSingleton() creates
+ * new pools, previous pools complete their running tasks and terminate.
+ */
+public class ServiceScheduler {
+
+    // max number of threads of each pool
+    public static int THREAD_MAX = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+    // max number of concurrent HTTP requests to the same endpoint
+    public static int ENDPOINT_MAX = 8;
+    // max number of slices sent ahead of time to the same endpoint
+    public static int SLICE_MAX = 1;
+
+    private static ServiceScheduler singleton;
+    private static final ThreadLocal<Boolean> worker = ThreadLocal.withInitial(() -> false);
+
+    private final ExecutorService endpointExecutor;
+    private final ExecutorService sliceExecutor;
+    private final ConcurrentHashMap<String, Semaphore> endpointMap;
+    private final int threadMax;
+    private final int endpointMax;
+
+    ServiceScheduler(int threadMax, int endpointMax) {
+        endpointExecutor = executor(threadMax, "corese-service-");
+        sliceExecutor = executor(threadMax, "corese-service-slice-");
+        endpointMap = new ConcurrentHashMap<>();
+        this.threadMax = threadMax;
+        this.endpointMax = endpointMax;
+    }
+
+    public static synchronized ServiceScheduler getSingleton() {
+        if (singleton == null) {
+            singleton = new ServiceScheduler(THREAD_MAX, ENDPOINT_MAX);
+        } else if (singleton.getThreadMax() != THREAD_MAX
+                || singleton.getEndpointMax() != ENDPOINT_MAX) {
+            singleton.shutdown();
+            singleton = new ServiceScheduler(THREAD_MAX, ENDPOINT_MAX);
+        }
+        return singleton;
+    }
+
+    /**
+     * Running and queued tasks are completed, no new task is accepted
+     */
+    void shutdown() {
+        endpointExecutor.shutdown();
+        sliceExecutor.shutdown();
+    }
+
+    public int getThreadMax() {
+        return threadMax;
+    }
+
+    public int getEndpointMax() {
+        return endpointMax;
+    }
+
+    ExecutorService executor(int size, String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    ThreadFactory factory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return (Runnable r) -> {
+            Thread t = new Thread(() -> {
+                worker.set(true);
+                r.run();
+            }, name + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Current thread is a thread of the scheduler
+     */
+    public static boolean isWorker() {
+        return worker.get();
+    }
+
+    /**
+     * Process one service URL in the endpoint pool
+     */
+    CompletableFuture<Void> process(Runnable task) {
+        if (isWorker()) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(task, endpointExecutor);
+    }
+
+    /**
+     * Send one slice in the slice pool
+     */
+    <T> Future<T> slice(Callable<T> task) {
+        return sliceExecutor.submit(task);
+    }
+
+    /**
+     * Execute HTTP request to endpoint with bounded number of concurrent
+     * requests to this endpoint
+     * Return null without executing the request when the thread is
+     * interrupted while waiting for the endpoint
+     */
+    <T, E extends Exception> T request(String server, Request<T, E> task) throws E {
+        Semaphore sem = endpointMap.computeIfAbsent(server, key -> new Semaphore(endpointMax, true));
+        try {
+            sem.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try {
+            return task.call();
+        } finally {
+            sem.release();
+        }
+    }
+
+    @FunctionalInterface
+    interface Request<T, E extends Exception> {
+        T call() throws E;
+    }
+
+}
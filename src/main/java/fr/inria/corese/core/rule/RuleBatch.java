@@ -0,0 +1,115 @@
+package fr.inria.corese.core.rule;
+
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Exp;
+import fr.inria.corese.core.sparql.triple.parser.ASTQuery;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Split rule base into batches of consecutive independent rules
+ * for parallel rule engine
+ * A rule is independent of preceding rules of its batch when its where clause
+ * (including filter exists) does not match predicates created by their
+ * construct clause.
+ * Hence, in sequential mode, such a rule would not see triples created by
+ * preceding rules of its batch: rules of a batch can be evaluated in parallel
+ * on same graph and their results inserted afterward in rule order,
+ * with same result and same number of loops as sequential mode.
+ * Variable predicate (and ! p path) in where or construct clause
+ * depends on any predicate.
+ * A sequential rule (e.g. transitive rule computed at saturation in optimized
+ * mode) is alone in its batch.
+ */
+class RuleBatch {
+
+    private static final String ANY = ASTQuery.getRootPropertyURI();
+
+    List<List<Rule>> batchList;
+    // predicates created by current batch
+    HashSet<String> construct;
+
+    RuleBatch() {
+        batchList = new ArrayList<>();
+    }
+
+    static List<List<Rule>> create(List<Rule> ruleList, Predicate<Rule> sequential) {
+        return new RuleBatch().process(ruleList, sequential);
+    }
+
+    /**
+     * One batch per rule: sequential rule engine
+     */
+    static List<List<Rule>> sequential(List<Rule> ruleList) {
+        return new RuleBatch().process(ruleList, rule -> true);
+    }
+
+    List<List<Rule>> process(List<Rule> ruleList, Predicate<Rule> sequential) {
+        List<Rule> batch = null;
+        boolean alone = false;
+        for (Rule rule : ruleList) {
+            List<String> where = where(rule);
+            boolean seq = sequential.test(rule);
+            if (batch == null || seq || alone || depend(where)) {
+                batch = new ArrayList<>();
+                batchList.add(batch);
+                construct = new HashSet<>();
+            }
+            alone = seq;
+            batch.add(rule);
+            construct(rule.getQuery().getConstruct(), construct);
+        }
+        return batchList;
+    }
+
+    boolean depend(List<String> where) {
+        if (construct.contains(ANY)) {
+            return true;
+        }
+        for (String pred : where) {
+            if (pred.equals(ANY) || construct.contains(pred)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Predicates of where clause, computed by compiler (see VisitQuery)
+     */
+    List<String> where(Rule rule) {
+        ArrayList<String> list = new ArrayList<>();
+        List<Node> nodeList = rule.getQuery().getNodeList();
+        if (nodeList == null) {
+            list.add(ANY);
+        } else {
+            for (Node node : nodeList) {
+                list.add(label(node));
+            }
+        }
+        return list;
+    }
+
+    void construct(Exp exp, HashSet<String> set) {
+        if (exp == null) {
+            set.add(ANY);
+            return;
+        }
+        if (exp.isEdge()) {
+            set.add(label(exp.getEdge().getEdgeNode()));
+        }
+        for (Exp ee : exp.getExpList()) {
+            construct(ee, set);
+        }
+    }
+
+    String label(Node node) {
+        if (node == null || node.isVariable()) {
+            return ANY;
+        }
+        return node.getLabel();
+    }
+
+}
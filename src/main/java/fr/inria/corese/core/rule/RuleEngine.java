@@ -14,6 +14,15 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import fr.inria.corese.core.api.Loader;
 import org.slf4j.Logger;
@@ -92,6 +101,9 @@ public class RuleEngine implements Engine, Graphable {
     public static final int RDFS_RL = 5;
     public static boolean OWL_CLEAN = true;
     public static boolean RULE_DATAMANAGER_OPTIMIZE = false; 
+    // evaluate independent rules in parallel
+    public static boolean RULE_PARALLEL = false;
+    public static int RULE_PARALLEL_THREAD = Runtime.getRuntime().availableProcessors();
 
     private static final String UNKNOWN = "unknown";
     public static Logger logger = LoggerFactory.getLogger(RuleEngine.class);
@@ -137,6 +149,15 @@ public class RuleEngine implements Engine, Graphable {
     // private boolean isDuplicate = false;
     private boolean isSkipPath = false;
     private boolean synchronize = false;
+    // evaluate where clause of independent rules in parallel
+    // LIMITATION: not with DataManager
+    private boolean parallel = RULE_PARALLEL;
+    // created on first parallel batch, kept for the lifetime of the engine
+    private ExecutorService executor;
+    // batches of independent rules
+    private List<List<Rule>> batchList;
+    // number of loops of last rule base processing
+    private int loopNumber = 0;
     private boolean event = true;
     private boolean record = false;
     private Context context;
@@ -522,6 +543,9 @@ public class RuleEngine implements Engine, Graphable {
         if (Property.get(Property.Value.RULE_TRANSITIVE_OPTIMIZE) != null) {
             setOptTransitive(Property.getBooleanValue(Property.Value.RULE_TRANSITIVE_OPTIMIZE));
         }
+        if (Property.get(Property.Value.RULE_PARALLEL) != null) {
+            setParallel(Property.getBooleanValue(Property.Value.RULE_PARALLEL));
+        }
         if (Property.hasValue(Property.Value.RULE_TRACE, true)) {
             setSimpleTrace(true);
         }
@@ -727,6 +751,7 @@ public class RuleEngine implements Engine, Graphable {
         } catch (OutOfMemoryError e) {
             throw new EngineException(e);
         } finally {
+            endParallel();
             end();
             clean();
         }
@@ -808,6 +833,8 @@ public class RuleEngine implements Engine, Graphable {
             start();
             initOptimize();
         }
+        // rule order is known: compute batches of independent rules
+        startParallel();
 
         // loop while there is something new
         while (go) {
@@ -827,7 +854,18 @@ public class RuleEngine implements Engine, Graphable {
                 getResultWatcher().setTrace(trace);
             }
             logger.info("rules: "+getRules().size());
-            for (Rule rule : getRules()) {
+            for (List<Rule> batch : getBatchList()) {
+                if (batch.size() > 1) {
+                    // independent rules evaluated in parallel
+                    int n = parallel(batch, bind, loop, timestamp, nbrule);
+                    skip += batch.size() - n;
+                    nbrule += n;
+                    if (isOptimize()) {
+                        timestamp += n;
+                    }
+                    continue;
+                }
+                Rule rule = batch.get(0);
                 if (isDebug()) {
                     rule.getQuery().setDebug(true);
                 }
@@ -907,6 +945,7 @@ public class RuleEngine implements Engine, Graphable {
 
             getEventManager().finish(Event.InferenceCycle);
         }
+        setLoopNumber(loop + 1);
 
         if (isDebug()) {
             System.out.println("Total Skip: " + tskip);
@@ -998,15 +1037,7 @@ public class RuleEngine implements Engine, Graphable {
         boolean isConstruct = isOptimize() && isConstructResult;
 
         Query qq = rule.getQuery();
-        GraphManager mgr = getGraphManager().getGraphManager(rule.isConstraint());
-        Construct cons = Construct.createRule(qq, mgr);
-        // named graph to store inference rule entailment OR constraint rule error
-        cons.setDefaultGraph(mgr.getRuleGraphName(rule.isConstraint()));
-        cons.setAccessRight(bind.getAccessRight());
-        cons.setRule(rule, rule.getIndex(), rule.getProvenance());
-        cons.setLoopIndex(timestamp);
-        if (isEvent())
-            cons.setVisitor(getVisitor());
+        Construct cons = createConstruct(rule, bind, timestamp);
 
         if (isConstruct) {
             // Result Watcher create edges in list
@@ -1046,6 +1077,293 @@ public class RuleEngine implements Engine, Graphable {
         getEventManager().finish(Event.Rule);
         return graphSize() - start;
     }
+
+    Construct createConstruct(Rule rule, Binding bind, int timestamp) {
+        GraphManager mgr = getGraphManager().getGraphManager(rule.isConstraint());
+        Construct cons = Construct.createRule(rule.getQuery(), mgr);
+        // named graph to store inference rule entailment OR constraint rule error
+        cons.setDefaultGraph(mgr.getRuleGraphName(rule.isConstraint()));
+        cons.setAccessRight(bind.getAccessRight());
+        cons.setRule(rule, rule.getIndex(), rule.getProvenance());
+        cons.setLoopIndex(timestamp);
+        if (isEvent())
+            cons.setVisitor(getVisitor());
+        return cons;
+    }
+
+    /**
+     * **************************************************
+     *
+     * Parallel rule engine
+     * Rule base is split into batches of consecutive independent rules
+     * (see RuleBatch). The where clauses of the rules of a batch are evaluated
+     * in parallel on the graph under read lock: the graph is a read only
+     * snapshot until all queries complete. Then the conclusions are inserted
+     * in the graph in rule order by current thread under write lock.
+     * Rules of a batch do not read edges created by each other, hence result
+     * and number of loops are the same as sequential mode.
+     * In optimized mode, rules of a batch have the record and the timestamp
+     * they would have in sequential mode, each query has its own ResultWatcher.
+     *
+     * *************************************************
+     */
+
+    void startParallel() {
+        if (isParallel() && !hasDataManager()) {
+            setBatchList(RuleBatch.create(getRules(), this::isSequential));
+        } else {
+            setBatchList(RuleBatch.sequential(getRules()));
+        }
+    }
+
+    void endParallel() {
+        setBatchList(null);
+    }
+
+    /**
+     * Rule processed alone in optimized mode: transitive rule is run at
+     * saturation and inserts edges while it is evaluated,
+     * pseudo transitive rule record depends on it
+     */
+    boolean isSequential(Rule rule) {
+        return isOptimize()
+                && (!rule.isOptimize()
+                || (isOptTransitive() && (rule.isAnyTransitive() || rule.isPseudoTransitive())));
+    }
+
+    /**
+     * Executor is created once for the lifetime of the rule engine
+     * idle threads terminate
+     */
+    ExecutorService getExecutor() {
+        if (executor == null) {
+            int size = Math.max(1, RULE_PARALLEL_THREAD);
+            ThreadPoolExecutor exec = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), factory());
+            exec.allowCoreThreadTimeOut(true);
+            executor = exec;
+        }
+        return executor;
+    }
+
+    ThreadFactory factory() {
+        AtomicInteger count = new AtomicInteger();
+        return (Runnable r) -> {
+            Thread t = new Thread(r, "rule-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Rule of a batch with its record and timestamp
+     * and the solutions of its where clause
+     */
+    static class Task {
+
+        Rule rule;
+        Record record;
+        int timestamp;
+        Mappings map;
+
+        Task(Rule rule, Record record, int timestamp) {
+            this.rule = rule;
+            this.record = record;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Process batch of independent rules
+     * return number of rules applied
+     */
+    int parallel(List<Rule> batch, Binding bind, int loop, int timestamp, int nbrule) throws EngineException {
+        ArrayList<Task> taskList = new ArrayList<>();
+        for (Rule rule : batch) {
+            if (isDebug()) {
+                rule.getQuery().setDebug(true);
+            }
+            if (isOptimize()) {
+                // predicates read by rule are not concluded by preceding rules
+                // of the batch: record is the same as in sequential mode
+                Record newRecord = record(rule, timestamp, loop);
+                if (loop > 0 && !newRecord.accept(rule.getRecord())) {
+                    continue;
+                }
+                if (trace && loop > 0) {
+                    rule.getRecord().trace(newRecord);
+                }
+                taskList.add(new Task(rule, newRecord, timestamp++));
+            } else {
+                taskList.add(new Task(rule, null, -1));
+            }
+        }
+        if (taskList.isEmpty()) {
+            return 0;
+        }
+        evaluate(taskList, bind, loop);
+        boolean lock = isLock();
+        if (lock) {
+            getGraphStore().writeLock().lock();
+        }
+        try {
+            // insert conclusions in rule order
+            for (Task task : taskList) {
+                int nbres = process(task, bind, loop, nbrule++);
+                if (task.record != null) {
+                    setRecord(task.rule, task.record);
+                }
+                if (trace) {
+                    stable.record(task.rule, nbres);
+                }
+            }
+        } finally {
+            if (lock) {
+                getGraphStore().writeLock().unlock();
+            }
+        }
+        return taskList.size();
+    }
+
+    /**
+     * Rule engine locks the graph unless it is synchronized or current thread
+     * already holds a lock (rule engine called by query or update)
+     */
+    boolean isLock() {
+        ReentrantReadWriteLock lock = getGraphStore().getLock();
+        return !isSynchronized() && !lock.isWriteLockedByCurrentThread() && lock.getReadHoldCount() == 0;
+    }
+
+    /**
+     * Evaluate where clause of rules in parallel
+     * Each task has its own QueryProcess and its own Binding
+     * which share global variables and context of bind
+     * Graph is indexed under write lock, then it is read locked
+     * until all queries complete
+     */
+    void evaluate(List<Task> taskList, Binding bind, int loop) throws EngineException {
+        Graph g = getGraphStore();
+        boolean lock = isLock();
+        if (lock) {
+            g.writeLock().lock();
+            try {
+                g.init();
+                // downgrade write lock to read lock
+                g.readLock().lock();
+            } finally {
+                g.writeLock().unlock();
+            }
+        } else {
+            g.init();
+        }
+        try {
+            ArrayList<Future<Mappings>> list = new ArrayList<>();
+            for (Task task : taskList) {
+                Rule rule = task.rule;
+                if (isEvent()) {
+                    getVisitor().beforeRule(rule.getQuery());
+                }
+                QueryProcess exec = createQueryProcess(createResultWatcher(task, loop));
+                Binding b = Binding.create();
+                b.share(bind);
+                Mapping m = Mapping.create(b);
+                list.add(getExecutor().submit(() -> query(exec, rule, m)));
+            }
+            try {
+                for (int i = 0; i < list.size(); i++) {
+                    taskList.get(i).map = get(list.get(i));
+                }
+            } finally {
+                for (Future<Mappings> res : list) {
+                    res.cancel(true);
+                }
+            }
+        } finally {
+            if (lock) {
+                g.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Graph is locked by rule engine
+     */
+    QueryProcess createQueryProcess(ResultWatcher watcher) {
+        QueryProcess ex = QueryProcess.create(getGraphStore());
+        ex.setListPath(true);
+        ex.setSynchronized(true);
+        if (watcher != null) {
+            ex.addResultListener(watcher);
+        }
+        return ex;
+    }
+
+    /**
+     * Optimized mode: ResultWatcher of one rule query
+     * it returns solutions with a new edge, distinct on construct variables
+     * edges are created from Mappings when the batch is inserted
+     */
+    ResultWatcher createResultWatcher(Task task, int loop) {
+        if (!isOptimize()) {
+            return null;
+        }
+        ResultWatcher rw = new ResultWatcher(getGraphStore());
+        rw.setOptimizeRuleDataManager(isOptimizeRuleDataManager());
+        rw.setTrace(trace);
+        rw.start(loop);
+        rw.start(task.rule);
+        if (loop > 0) {
+            rw.start(task.rule.getRecord(), task.record);
+        }
+        return rw;
+    }
+
+    Mappings get(Future<Mappings> res) throws EngineException {
+        try {
+            return res.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EngineException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof EngineException) {
+                throw (EngineException) cause;
+            }
+            if (cause instanceof Error) {
+                throw new EngineException((Error) cause);
+            }
+            throw new EngineException((Exception) cause);
+        }
+    }
+
+    /**
+     * Insert conclusion of rule which where clause has been evaluated
+     */
+    int process(Task task, Binding bind, int loop, int nbr) throws EngineException {
+        Rule rule = task.rule;
+        if (trace) {
+            trace("loop %s: %s: %s", loop, nbr, rule.getIndex());
+            System.out.println(rule.getAST());
+        }
+        getEventManager().start(Event.Rule);
+        Date d1 = new Date();
+        int start = graphSize();
+        Construct cons = createConstruct(rule, bind, task.timestamp);
+        if (isOptimize() && isConstructResult) {
+            // create edges as ResultWatcher does in sequential mode:
+            // skip edges that exist in any named graph
+            cons.setBuffer(true);
+            cons.setInsertList(new ArrayList<>());
+            Mappings map = Mappings.create(rule.getQuery());
+            for (Mapping m : task.map) {
+                cons.entailment(map, m);
+            }
+        }
+        entailment(rule, cons, task.map);
+        trace(d1, new Date(), rule, start);
+        getEventManager().finish(Event.Rule);
+        return graphSize() - start;
+    }
     
     /**
      * Transitive Rule is executed at saturation in a loop
@@ -1098,13 +1416,21 @@ public class RuleEngine implements Engine, Graphable {
 
     // process rule
     void process(Rule r, Mapping m, Binding bind, Construct cons) throws EngineException {
-        Query qq = r.getQuery();
         if (isEvent())
-            getVisitor().beforeRule(qq);
+            getVisitor().beforeRule(r.getQuery());
+        entailment(r, cons, query(getQueryProcess(), r, m));
+    }
+
+    Mappings query(QueryProcess exec, Rule r, Mapping m) throws EngineException {
         Date d1 = new Date();
-        Mappings map = getQueryProcess().query(qq, m);
+        Mappings map = exec.query(r.getQuery(), m);
         if (isSimpleTrace()) logger.info("time exec rule query: "+Tool.time(d1));
-        
+        return map;
+    }
+
+    // create edges from rule query solutions
+    void entailment(Rule r, Construct cons, Mappings map) throws EngineException {
+        Query qq = r.getQuery();
         getGraphManager().startRule();
         if (cons.isBuffer()) {
             // cons insert list contains only new edges that do not exist
@@ -1243,6 +1569,30 @@ public class RuleEngine implements Engine, Graphable {
         this.isSkipPath = isSkipPath;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    List<List<Rule>> getBatchList() {
+        return batchList;
+    }
+
+    void setBatchList(List<List<Rule>> batchList) {
+        this.batchList = batchList;
+    }
+
+    public int getLoopNumber() {
+        return loopNumber;
+    }
+
+    void setLoopNumber(int loopNumber) {
+        this.loopNumber = loopNumber;
+    }
+
     public boolean isOptTransitive() {
         return isOptTransitive;
     }
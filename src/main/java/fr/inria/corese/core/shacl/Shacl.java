@@ -60,6 +60,14 @@ public class Shacl {
     private Binding bind;
     private Binding input;
 
+    // SHACL Core shape graph is evaluated by native ShaclValidator
+    // other shape graphs fall back to the interpreter
+    // Property SHACL_NATIVE
+    public static boolean NATIVE = false;
+    // native validator evaluates focus nodes of a shape in parallel
+    // Property SHACL_PARALLEL
+    public static boolean PARALLEL = false;
+
     // Default SHACL Interpreter in Corese
     private static String SHACL_Interpreter = "http://ns.inria.fr/sparql-template/function/datashape/main.rq";
 
@@ -300,6 +308,14 @@ public class Shacl {
     // _________________________________________________
 
     Graph eval(String name, Object... obj) throws EngineException {
+        if ((NATIVE || PARALLEL) && getDataManager() == null && getInput() == null) {
+            Graph g = validate(name, obj);
+            if (g != null) {
+                setResult(g);
+                getResult().index();
+                return getResult();
+            }
+        }
         IDatatype dt = funcall(name, obj);
         if (dt.getPointerObject() == null) {
             throw new EngineException("No validation graph");
@@ -310,6 +326,27 @@ public class Shacl {
         return getResult();
     }
 
+    /**
+     * Native validation of SHACL Core shape graph
+     * return null when shape graph is not supported
+     */
+    Graph validate(String name, Object... obj) throws EngineException {
+        ShaclValidator val = new ShaclValidator(getGraph(), getShacl()).setParallel(PARALLEL);
+        if (!val.compile()) {
+            return null;
+        }
+        switch (name) {
+            case SHACL:
+                return val.validate();
+            case SHAPE_GRAPH:
+                return (obj.length == 2) ? val.validate(datatype(obj[1]))
+                        : val.validate(datatype(obj[1]), datatype(obj[2]));
+            case NODE_GRAPH:
+                return val.validateNode(datatype(obj[1]));
+        }
+        return null;
+    }
+
     IDatatype funcall(String name, Object... obj) throws EngineException {
         try {
             QueryProcess exec = QueryProcess.create(getGraph(), getDataManager());
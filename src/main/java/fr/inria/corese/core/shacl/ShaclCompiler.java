@@ -0,0 +1,500 @@
+package fr.inria.corese.core.shacl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.logic.RDF;
+import fr.inria.corese.core.logic.RDFS;
+import fr.inria.corese.core.shacl.ShaclShape.Constraint;
+import fr.inria.corese.core.shacl.ShaclShape.Qualified;
+import fr.inria.corese.core.shacl.ShaclShape.Sibling;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+import fr.inria.corese.core.sparql.triple.parser.NSManager;
+
+/**
+ * Compile SHACL shape graph into ShaclShape: targets, compiled paths and
+ * constraints, executed by ShaclValidator.
+ * Shape graph that use features out of SHACL Core (SHACL SPARQL, SHACL
+ * extensions, ShEx) is not supported, ShaclValidator user must then use the
+ * LDScript interpreter.
+ */
+class ShaclCompiler {
+
+    static final String SH = NSManager.SHACL;
+    // sx: sm: sr: extension namespaces
+    static final String SH_EXT = "http://www.w3.org/ns/shacl/";
+    static final String SHEX = NSManager.SHEX_SHACL;
+
+    static final String PATH = SH + "path";
+    static final String PROPERTY = SH + "property";
+    static final String NODE = SH + "node";
+    static final String NOT = SH + "not";
+    static final String AND = SH + "and";
+    static final String OR = SH + "or";
+    static final String XONE = SH + "xone";
+    static final String CLASS = SH + "class";
+    static final String TYPE = SH + "type";
+    static final String IN = SH + "in";
+    static final String LANGUAGE_IN = SH + "languageIn";
+    static final String PATTERN = SH + "pattern";
+    static final String PATTERN_IN = SH + "patternIn";
+    static final String FLAGS = SH + "flags";
+    static final String EQUALS = SH + "equals";
+    static final String DISJOINT = SH + "disjoint";
+    static final String LESS_THAN = SH + "lessThan";
+    static final String LESS_THAN_OR_EQUALS = SH + "lessThanOrEquals";
+    static final String UNIQUE_LANG = SH + "uniqueLang";
+    static final String MIN_COUNT = SH + "minCount";
+    static final String MAX_COUNT = SH + "maxCount";
+    static final String HAS_VALUE = SH + "hasValue";
+    static final String QUALIFIED_VALUE_SHAPE = SH + "qualifiedValueShape";
+    static final String QUALIFIED_MIN_COUNT = SH + "qualifiedMinCount";
+    static final String QUALIFIED_MAX_COUNT = SH + "qualifiedMaxCount";
+    static final String QUALIFIED_DISJOINT = SH + "qualifiedValueShapesDisjoint";
+    static final String CLOSED = SH + "closed";
+    static final String IGNORED_PROPERTIES = SH + "ignoredProperties";
+    static final String DEACTIVATED = SH + "deactivated";
+    static final String SEVERITY = SH + "severity";
+    static final String MESSAGE = SH + "message";
+    static final String TARGET_CLASS = SH + "targetClass";
+    static final String TARGET_NODE = SH + "targetNode";
+    static final String TARGET_SUBJECTS_OF = SH + "targetSubjectsOf";
+    static final String TARGET_OBJECTS_OF = SH + "targetObjectsOf";
+    static final String NODE_SHAPE = SH + "NodeShape";
+    static final String INVERSE_PATH = SH + "inversePath";
+    static final String ALTERNATIVE_PATH = SH + "alternativePath";
+    static final String ZERO_OR_MORE_PATH = SH + "zeroOrMorePath";
+    static final String ONE_OR_MORE_PATH = SH + "oneOrMorePath";
+    static final String ZERO_OR_ONE_PATH = SH + "zeroOrOnePath";
+
+    // constraints of the interpreter (cf main.rq sh:defShape)
+    // path constraint evaluated on each value node
+    static final List<String> PATH_VALUE = Arrays.asList(
+            SH + "minLength", SH + "maxLength", SH + "datatype", SH + "minInclusive", SH + "minExclusive",
+            SH + "maxInclusive", SH + "maxExclusive", SH + "nodeKind", IN, LANGUAGE_IN, NODE,
+            CLASS, PROPERTY, PATTERN, PATTERN_IN, TYPE);
+    // path constraint evaluated on value node list
+    static final List<String> PATH_LIST = Arrays.asList(
+            EQUALS, DISJOINT, AND, OR, XONE, NOT, MAX_COUNT, MIN_COUNT,
+            HAS_VALUE, UNIQUE_LANG, LESS_THAN, LESS_THAN_OR_EQUALS);
+    // node constraint
+    static final List<String> NODE_VALUE = Arrays.asList(
+            SH + "minLength", SH + "maxLength", SH + "datatype", SH + "minInclusive", SH + "minExclusive",
+            SH + "maxInclusive", SH + "maxExclusive", SH + "nodeKind", IN, LANGUAGE_IN, NODE,
+            HAS_VALUE, PATTERN, PATTERN_IN, CLASS, EQUALS, DISJOINT, TYPE);
+    static final List<String> BOOLEAN = Arrays.asList(AND, OR, XONE, NOT);
+
+    // sh: properties of shape with no validation semantics
+    static final List<String> NON_VALIDATING = Arrays.asList(
+            SH + "name", SH + "description", SH + "order", SH + "group", SH + "defaultValue",
+            TARGET_CLASS, TARGET_NODE, TARGET_SUBJECTS_OF, TARGET_OBJECTS_OF, PATH, FLAGS,
+            QUALIFIED_MIN_COUNT, QUALIFIED_MAX_COUNT, QUALIFIED_DISJOINT, IGNORED_PROPERTIES,
+            DEACTIVATED, SEVERITY, MESSAGE);
+    static final Set<String> CORE = new HashSet<>();
+
+    static {
+        CORE.addAll(PATH_VALUE);
+        CORE.addAll(PATH_LIST);
+        CORE.addAll(NODE_VALUE);
+        CORE.addAll(NON_VALIDATING);
+        CORE.add(QUALIFIED_VALUE_SHAPE);
+        CORE.add(CLOSED);
+    }
+
+    // sh: target and setup out of SHACL Core
+    static final List<String> EXTENSION = Arrays.asList(
+            SH + "targetFunction", SH + "targetTriplesOf", SH + "targetPredicatesOf",
+            SH + "nodeDetail", SH + "booleanDetail", SH + "resultFunction", SH + "sparql");
+
+    private Graph shacl;
+    private Map<Node, ShaclShape> table;
+    private Set<Node> done;
+    private List<ShaclShape> targetList;
+    private String unsupported;
+
+    ShaclCompiler(Graph shacl) {
+        this.shacl = shacl;
+        table = new HashMap<>();
+        done = new HashSet<>();
+        targetList = new ArrayList<>();
+    }
+
+    /**
+     * Compile shapes with target
+     * return false when shape graph is not supported
+     */
+    boolean compile() {
+        for (String name : EXTENSION) {
+            if (shacl.getPropertyNode(name) != null) {
+                return unsupported(name);
+            }
+        }
+        LinkedHashMap<Node, ShaclShape> map = new LinkedHashMap<>();
+        for (Edge edge : shacl.getEdges(TARGET_CLASS)) {
+            target(map, edge.getNode(0)).getTargetClassList().add(edge.getNode(1));
+        }
+        for (Edge edge : shacl.getEdges(TARGET_NODE)) {
+            target(map, edge.getNode(0)).getTargetNodeList().add(edge.getNode(1));
+        }
+        for (Edge edge : shacl.getEdges(TARGET_SUBJECTS_OF)) {
+            if (!edge.getNode(1).isBlank()) {
+                target(map, edge.getNode(0)).getTargetSubjectList().add(edge.getNode(1).getLabel());
+            } else {
+                return unsupported(TARGET_SUBJECTS_OF);
+            }
+        }
+        for (Edge edge : shacl.getEdges(TARGET_OBJECTS_OF)) {
+            if (!edge.getNode(1).isBlank()) {
+                target(map, edge.getNode(0)).getTargetObjectList().add(edge.getNode(1).getLabel());
+            } else {
+                return unsupported(TARGET_OBJECTS_OF);
+            }
+        }
+        // implicit class target: sh a sh:NodeShape, rdfs:Class
+        Node nodeShape = shacl.getNode(NODE_SHAPE);
+        if (nodeShape != null) {
+            for (Node node : subjects(RDF.TYPE, nodeShape)) {
+                if (hasValue(node, RDF.TYPE, RDFS.CLASS)) {
+                    target(map, node).getTargetClassList().add(node);
+                }
+            }
+        }
+        for (ShaclShape sh : map.values()) {
+            compile(sh);
+            if (!sh.isDeactivated()) {
+                targetList.add(sh);
+            }
+        }
+        return isSupported();
+    }
+
+    ShaclShape target(Map<Node, ShaclShape> map, Node node) {
+        return map.computeIfAbsent(node, n -> table.computeIfAbsent(n, ShaclShape::new));
+    }
+
+    /**
+     * Compiled shape of node, compile it if needed
+     */
+    ShaclShape shape(Node node) {
+        ShaclShape sh = table.computeIfAbsent(node, ShaclShape::new);
+        compile(sh);
+        return sh;
+    }
+
+    ShaclShape getShape(Node node) {
+        return table.get(node);
+    }
+
+    void compile(ShaclShape sh) {
+        Node node = sh.getNode();
+        // record before compiling sub shapes: shapes may be recursive
+        if (!done.add(node)) {
+            return;
+        }
+        for (Edge edge : shacl.getNodeEdges(node)) {
+            String name = edge.getEdgeLabel();
+            if (name.startsWith(SH) ? !CORE.contains(name) : name.startsWith(SH_EXT) || name.startsWith(SHEX)) {
+                unsupported(name);
+                return;
+            }
+        }
+        Node pathNode = value(node, PATH);
+        if (pathNode != null) {
+            sh.setPath(pathNode, path(pathNode));
+        }
+        sh.setDeactivated(isTrue(value(node, DEACTIVATED)));
+        sh.setSeverity(value(node, SEVERITY));
+        sh.setMessage(value(node, MESSAGE));
+
+        for (Node cst : values(node, PROPERTY)) {
+            ShaclShape prop = shape(cst);
+            if (prop.hasPath() && !prop.isDeactivated()) {
+                sh.getPropertyList().add(prop);
+            }
+        }
+        if (sh.hasPath()) {
+            constraint(sh, PATH_VALUE, sh.getValueList());
+            constraint(sh, PATH_LIST, sh.getValueListList());
+            qualified(sh);
+        } else {
+            constraint(sh, NODE_VALUE, sh.getNodeList());
+        }
+        constraint(sh, BOOLEAN, sh.getBooleanList());
+        closed(sh);
+    }
+
+    void constraint(ShaclShape sh, List<String> operList, List<Constraint> list) {
+        for (String oper : operList) {
+            for (Node val : values(sh.getNode(), oper)) {
+                if (oper.equals(UNIQUE_LANG) && !isTrue(val)) {
+                    continue;
+                }
+                list.add(constraint(sh, oper, val));
+            }
+        }
+    }
+
+    Constraint constraint(ShaclShape sh, String oper, Node val) {
+        Constraint cst = new Constraint(oper, val);
+        switch (oper) {
+            case NODE:
+            case PROPERTY:
+            case NOT:
+                cst.shape = shape(val);
+                break;
+            case AND:
+            case OR:
+            case XONE:
+                cst.shapeList = new ArrayList<>();
+                for (Node node : list(val)) {
+                    cst.shapeList.add(shape(node));
+                }
+                break;
+            case IN:
+            case LANGUAGE_IN:
+                cst.list = new ArrayList<>();
+                for (Node node : list(val)) {
+                    cst.list.add(node.getDatatypeValue());
+                }
+                break;
+            case PATTERN:
+                cst.patternList = new ArrayList<>();
+                Node flag = value(sh.getNode(), FLAGS);
+                cst.patternList.add(pattern(val.getLabel(), (flag == null) ? null : flag.getLabel()));
+                break;
+            case PATTERN_IN:
+                cst.patternList = new ArrayList<>();
+                for (Node node : list(val)) {
+                    cst.patternList.add(pattern(node.getLabel(), null));
+                }
+                break;
+            case EQUALS:
+            case DISJOINT:
+                cst.path = path(val);
+                break;
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUALS:
+                // predicate, not a path, cf lessThan in path.rq
+                cst.path = new ShaclPath(val.getLabel());
+                break;
+        }
+        return cst;
+    }
+
+    void qualified(ShaclShape sh) {
+        for (Node qsh : values(sh.getNode(), QUALIFIED_VALUE_SHAPE)) {
+            Qualified q = new Qualified();
+            q.shape = shape(qsh);
+            q.disjoint = isTrue(value(sh.getNode(), QUALIFIED_DISJOINT));
+            Node min = value(sh.getNode(), QUALIFIED_MIN_COUNT);
+            Node max = value(sh.getNode(), QUALIFIED_MAX_COUNT);
+            if (min != null) {
+                q.min = min.getDatatypeValue().intValue();
+            }
+            if (max != null) {
+                q.max = max.getDatatypeValue().intValue();
+            }
+            if (q.disjoint) {
+                sibling(q, qsh);
+            }
+            sh.getQualifiedList().add(q);
+        }
+    }
+
+    /**
+     * root sh:property [ sh:qualifiedValueShape qsh ], [ sh:qualifiedValueShape sibling ; sh:path path ]
+     */
+    void sibling(Qualified q, Node qsh) {
+        Set<String> done = new HashSet<>();
+        for (Node cst : subjects(QUALIFIED_VALUE_SHAPE, qsh)) {
+            for (Node root : subjects(PROPERTY, cst)) {
+                for (Node prop : values(root, PROPERTY)) {
+                    Node path = value(prop, PATH);
+                    if (path == null) {
+                        continue;
+                    }
+                    for (Node sib : values(prop, QUALIFIED_VALUE_SHAPE)) {
+                        if (sib != qsh && done.add(sib.getLabel() + " " + path.getLabel())) {
+                            Sibling s = new Sibling();
+                            s.shape = shape(sib);
+                            s.pathNode = path;
+                            s.path = path(path);
+                            q.siblingList.add(s);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    void closed(ShaclShape sh) {
+        if (!isTrue(value(sh.getNode(), CLOSED))) {
+            return;
+        }
+        sh.setClosed(true);
+        for (Node cst : values(sh.getNode(), PROPERTY)) {
+            Node path = value(cst, PATH);
+            if (path != null && path.getDatatypeValue().isURI()) {
+                sh.getClosedPredicateList().add(path.getLabel());
+            }
+        }
+        for (Node ignore : values(sh.getNode(), IGNORED_PROPERTIES)) {
+            for (Node node : list(ignore)) {
+                sh.getClosedPredicateList().add(node.getLabel());
+            }
+        }
+    }
+
+    /**
+     * Compile SHACL path, cf ppathparser.rq
+     */
+    ShaclPath path(Node node) {
+        if (!node.isBlank()) {
+            return new ShaclPath(node.getLabel());
+        }
+        if (value(node, RDF.FIRST) != null) {
+            return new ShaclPath(ShaclPath.SEQUENCE, pathList(list(node)));
+        }
+        Node arg;
+        if ((arg = value(node, INVERSE_PATH)) != null) {
+            return new ShaclPath(ShaclPath.INVERSE, pathList(Arrays.asList(arg)));
+        }
+        if ((arg = value(node, ALTERNATIVE_PATH)) != null) {
+            return new ShaclPath(ShaclPath.ALTERNATIVE, pathList(list(arg)));
+        }
+        if ((arg = value(node, ZERO_OR_MORE_PATH)) != null) {
+            return new ShaclPath(ShaclPath.ZERO_OR_MORE, pathList(Arrays.asList(arg)));
+        }
+        if ((arg = value(node, ONE_OR_MORE_PATH)) != null) {
+            return new ShaclPath(ShaclPath.ONE_OR_MORE, pathList(Arrays.asList(arg)));
+        }
+        if ((arg = value(node, ZERO_OR_ONE_PATH)) != null) {
+            return new ShaclPath(ShaclPath.ZERO_OR_ONE, pathList(Arrays.asList(arg)));
+        }
+        unsupported(PATH);
+        return new ShaclPath(ShaclPath.ALTERNATIVE, new ArrayList<>());
+    }
+
+    List<ShaclPath> pathList(List<Node> list) {
+        List<ShaclPath> res = new ArrayList<>();
+        for (Node node : list) {
+            res.add(path(node));
+        }
+        return res;
+    }
+
+    /**
+     * Pattern compiled as regex() does, cf Processor
+     */
+    static Pattern pattern(String exp, String sflag) {
+        int flag = 0;
+        if (sflag != null) {
+            if (sflag.contains("s")) {
+                flag |= Pattern.DOTALL;
+            }
+            if (sflag.contains("m")) {
+                flag |= Pattern.MULTILINE;
+            }
+            if (sflag.contains("i")) {
+                flag |= Pattern.CASE_INSENSITIVE;
+            }
+            if (sflag.contains("x")) {
+                flag |= Pattern.COMMENTS;
+            }
+        }
+        if (!exp.startsWith("^") && !exp.startsWith(".*")) {
+            exp = ".*" + exp;
+        }
+        if (!exp.endsWith("$") && !exp.endsWith(".*")) {
+            exp = exp + ".*";
+        }
+        return Pattern.compile(exp, flag);
+    }
+
+    // rdf list
+    List<Node> list(Node node) {
+        List<Node> list = new ArrayList<>();
+        while (node != null && !node.getLabel().equals(RDF.NIL)) {
+            Node first = value(node, RDF.FIRST);
+            if (first == null) {
+                break;
+            }
+            list.add(first);
+            node = value(node, RDF.REST);
+        }
+        return list;
+    }
+
+    Node value(Node node, String name) {
+        for (Edge edge : shacl.getEdges(name, node, 0)) {
+            return edge.getNode(1);
+        }
+        return null;
+    }
+
+    List<Node> values(Node node, String name) {
+        List<Node> list = new ArrayList<>();
+        for (Edge edge : shacl.getEdges(name, node, 0)) {
+            if (!list.contains(edge.getNode(1))) {
+                list.add(edge.getNode(1));
+            }
+        }
+        return list;
+    }
+
+    List<Node> subjects(String name, Node node) {
+        List<Node> list = new ArrayList<>();
+        for (Edge edge : shacl.getEdges(name, node, 1)) {
+            if (!list.contains(edge.getNode(0))) {
+                list.add(edge.getNode(0));
+            }
+        }
+        return list;
+    }
+
+    boolean hasValue(Node node, String name, String value) {
+        for (Node val : values(node, name)) {
+            if (val.getLabel().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isTrue(Node node) {
+        return node != null && node.getDatatypeValue().sameTerm(DatatypeMap.TRUE);
+    }
+
+    boolean unsupported(String name) {
+        if (unsupported == null) {
+            unsupported = name;
+        }
+        return false;
+    }
+
+    boolean isSupported() {
+        return unsupported == null;
+    }
+
+    /**
+     * First SHACL feature that is not supported
+     */
+    String getUnsupported() {
+        return unsupported;
+    }
+
+    List<ShaclShape> getTargetList() {
+        return targetList;
+    }
+
+}
@@ -0,0 +1,465 @@
+package fr.inria.corese.core.shacl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.elasticsearch.EdgeChangeListener;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.logic.RDF;
+import fr.inria.corese.core.logic.RDFS;
+import fr.inria.corese.core.shacl.ShaclShape.Constraint;
+import fr.inria.corese.core.shacl.ShaclShape.Qualified;
+import fr.inria.corese.core.shacl.ShaclShape.Sibling;
+import fr.inria.corese.core.shacl.ShaclValidator.Result;
+import fr.inria.corese.core.sparql.api.IDatatype;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+import fr.inria.corese.core.sparql.triple.parser.NSManager;
+
+/**
+ * Incremental SHACL Core validation
+ * validate() computes the validation report and listens to edge insert and
+ * delete of the data graph. update() validates again the focus nodes that
+ * may be affected by the edges inserted and deleted since last validation
+ * and patches the validation report: results of these focus nodes are
+ * deleted and computed again.
+ * Affected focus nodes are the nodes of changed edges and the nodes that
+ * reach them with the predicates of shape paths, in any direction, within
+ * the max path length of the shape (nested shapes included).
+ * Change of rdfs:subClassOf, or of shapes when shape graph is data graph,
+ * or more than CHANGE_MAX changed nodes, recompute the whole validation report.
+ * The report has one sh:ValidationReport node with sh:conforms true or false.
+ *
+ * ShaclIncremental shacl = new ShaclIncremental(g, shape);
+ * Graph report = shacl.validate();
+ * exec.query("insert data { ... }");
+ * report = shacl.update();
+ * shacl.close();
+ */
+public class ShaclIncremental extends EdgeChangeListener {
+
+    static final String SH = NSManager.SHACL;
+    static final int INFINITE = ShaclPath.INFINITE;
+    // max number of changed nodes recorded, beyond update() validates the whole graph
+    public static int CHANGE_MAX = 100_000;
+
+    private Graph graph;
+    private Graph shacl;
+    private ShaclValidator validator;
+    private Graph report;
+    private IDatatype reportNode;
+    private IDatatype conforms;
+    // shape -> focus node -> validation results
+    private Map<ShaclShape, Map<String, List<IDatatype>>> resultMap;
+    private int nbResult = 0;
+    // predicates of shape paths
+    private Set<String> predicateSet;
+    // shape -> max length of paths evaluated from focus node
+    private Map<ShaclShape, Integer> depthMap;
+    private int maxDepth = 0;
+    // nodes of edges inserted and deleted since last validation
+    private List<Node> changeList;
+    private boolean full = false;
+    private boolean listen = false;
+
+    public ShaclIncremental(Graph g) {
+        this(g, g);
+    }
+
+    public ShaclIncremental(Graph g, Graph shacl) {
+        graph = g;
+        this.shacl = shacl;
+        resultMap = new IdentityHashMap<>();
+        changeList = new ArrayList<>();
+    }
+
+    /**
+     * Compile shape graph, return false when shape graph is not SHACL Core
+     */
+    public boolean compile() {
+        if (validator == null) {
+            validator = new ShaclValidator(graph, shacl);
+            if (validator.compile()) {
+                analyse();
+            }
+        }
+        return validator.compile();
+    }
+
+    /**
+     * Validate the whole data graph and start listening to graph changes
+     */
+    public Graph validate() throws EngineException {
+        validator = null;
+        if (!compile()) {
+            throw new EngineException("SHACL native validator does not support: " + validator.getUnsupported());
+        }
+        if (!listen) {
+            graph.addEdgeChangeListener(this);
+            listen = true;
+        }
+        synchronized (this) {
+            changeList.clear();
+            full = false;
+        }
+        graph.init();
+        report = Graph.create();
+        reportNode = DatatypeMap.createBlank(report.newBlankID());
+        report.insert(reportNode, ShaclValidator.TYPE, ShaclValidator.VALIDATION_REPORT);
+        conforms = null;
+        resultMap.clear();
+        nbResult = 0;
+
+        ShaclValidator worker = new ShaclValidator(validator);
+        for (ShaclShape sh : validator.getCompiler().getTargetList()) {
+            for (Node node : worker.focus(sh)) {
+                eval(worker, sh, node);
+            }
+        }
+        conforms();
+        report.index();
+        return report;
+    }
+
+    /**
+     * Validate again focus nodes affected by graph changes since last
+     * validation and return patched validation report
+     */
+    public Graph update() throws EngineException {
+        if (report == null) {
+            return validate();
+        }
+        List<Node> list;
+        synchronized (this) {
+            if (full) {
+                return validate();
+            }
+            list = new ArrayList<>(changeList);
+            changeList.clear();
+        }
+        if (list.isEmpty()) {
+            return report;
+        }
+        graph.init();
+        Map<Node, Integer> distance = reach(list);
+        ShaclValidator worker = new ShaclValidator(validator);
+        for (ShaclShape sh : validator.getCompiler().getTargetList()) {
+            int depth = depth(sh);
+            for (Map.Entry<Node, Integer> entry : distance.entrySet()) {
+                if (entry.getValue() <= depth) {
+                    Node node = entry.getKey();
+                    remove(sh, node);
+                    if (worker.isFocus(sh, node)) {
+                        eval(worker, sh, node);
+                    }
+                }
+            }
+        }
+        conforms();
+        report.index();
+        return report;
+    }
+
+    /**
+     * Stop listening to graph changes
+     * Validation report remains available, next update() validates the whole
+     * graph and listens again.
+     */
+    public void close() {
+        if (listen) {
+            graph.removeEdgeChangeListener(this);
+            listen = false;
+        }
+        synchronized (this) {
+            changeList.clear();
+            full = true;
+        }
+    }
+
+    public Graph getReport() {
+        return report;
+    }
+
+    public boolean conform() {
+        return nbResult == 0;
+    }
+
+    public int nbResult() {
+        return nbResult;
+    }
+
+    // number of changed nodes recorded since last validation
+    synchronized int nbChange() {
+        return changeList.size();
+    }
+
+    /**
+     * Graph change notification: record nodes of changed edges
+     * Validation is not performed here because graph is being modified.
+     */
+    @Override
+    public synchronized void onBulkEdgeChange(List<Edge> delete, List<Edge> insert) {
+        record(delete);
+        record(insert);
+    }
+
+    void record(List<Edge> list) {
+        for (Edge edge : list) {
+            if (isFull(edge)) {
+                full = true;
+            }
+            if (!full) {
+                changeList.add(edge.getNode(0));
+                changeList.add(edge.getNode(1));
+                if (changeList.size() > CHANGE_MAX) {
+                    full = true;
+                }
+            }
+        }
+        if (full) {
+            changeList.clear();
+        }
+    }
+
+    /**
+     * Edge change that may modify target classes or shapes
+     */
+    boolean isFull(Edge edge) {
+        String name = edge.getEdgeLabel();
+        if (name.equals(RDFS.SUBCLASSOF)) {
+            return true;
+        }
+        if (graph == shacl) {
+            return name.startsWith(SH) || name.equals(RDF.FIRST) || name.equals(RDF.REST)
+                    || edge.getNode(1).getLabel().startsWith(SH);
+        }
+        return false;
+    }
+
+    /**
+     * Validate shape on focus node, record validation results in report
+     */
+    void eval(ShaclValidator worker, ShaclShape sh, Node node) {
+        worker.core(sh, Collections.singletonList(node), true, false);
+        List<Result> list = worker.getResultList();
+        if (!list.isEmpty()) {
+            List<IDatatype> resList = new ArrayList<>(list.size());
+            for (Result res : list) {
+                resList.add(worker.write(report, reportNode, res));
+            }
+            list.clear();
+            resultMap.computeIfAbsent(sh, k -> new HashMap<>()).put(key(node), resList);
+            nbResult += resList.size();
+        }
+    }
+
+    /**
+     * Delete validation results of shape on focus node from report
+     */
+    void remove(ShaclShape sh, Node node) {
+        Map<String, List<IDatatype>> map = resultMap.get(sh);
+        if (map == null) {
+            return;
+        }
+        List<IDatatype> list = map.remove(key(node));
+        if (list == null) {
+            return;
+        }
+        for (IDatatype res : list) {
+            Node resNode = report.getNode(res, false, false);
+            if (resNode != null) {
+                List<IDatatype[]> edgeList = new ArrayList<>();
+                for (Edge edge : report.getEdges(resNode, 0)) {
+                    edgeList.add(new IDatatype[]{edge.getEdgeNode().getDatatypeValue(),
+                        edge.getNode(1).getDatatypeValue()});
+                }
+                for (IDatatype[] edge : edgeList) {
+                    report.delete(res, edge[0], edge[1]);
+                }
+            }
+            report.delete(reportNode, ShaclValidator.RESULT, res);
+        }
+        nbResult -= list.size();
+    }
+
+    void conforms() {
+        IDatatype value = conform() ? DatatypeMap.TRUE : DatatypeMap.FALSE;
+        if (conforms != value) {
+            if (conforms != null) {
+                report.delete(reportNode, ShaclValidator.CONFORMS, conforms);
+            }
+            report.insert(reportNode, ShaclValidator.CONFORMS, value);
+            conforms = value;
+        }
+    }
+
+    String key(Node node) {
+        return node.getDatatypeValue().toSparql();
+    }
+
+    /**
+     * Nodes that reach changed nodes with path predicates, in any direction
+     * return node -> distance to a changed node
+     */
+    Map<Node, Integer> reach(List<Node> list) {
+        Map<Node, Integer> distance = new LinkedHashMap<>();
+        Set<Node> visited = ShaclPath.identitySet();
+        List<Node> current = new ArrayList<>();
+        for (Node node : list) {
+            Node gnode = graph.getNode(node);
+            Node n = (gnode == null) ? node : gnode;
+            if (visited.add(n)) {
+                current.add(n);
+                distance.put(n, 0);
+            }
+        }
+        List<Node> predicateList = new ArrayList<>();
+        for (String name : predicateSet) {
+            Node pred = graph.getPropertyNode(name);
+            if (pred != null) {
+                predicateList.add(pred);
+            }
+        }
+        for (int d = 1; d <= maxDepth && !current.isEmpty(); d++) {
+            List<Node> next = new ArrayList<>();
+            for (Node node : current) {
+                for (Node pred : predicateList) {
+                    for (int i = 0; i < 2; i++) {
+                        Iterable<Edge> it = graph.getEdges(pred, node, i);
+                        if (it != null) {
+                            for (Edge edge : it) {
+                                Node n = edge.getNode(1 - i);
+                                if (visited.add(n)) {
+                                    next.add(n);
+                                    distance.put(n, d);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            current = next;
+        }
+        return distance;
+    }
+
+    /**
+     * Compute path predicates and max path length of shapes
+     */
+    void analyse() {
+        predicateSet = new HashSet<>();
+        depthMap = new IdentityHashMap<>();
+        maxDepth = 0;
+        for (ShaclShape sh : validator.getCompiler().getTargetList()) {
+            predicates(sh, Collections.newSetFromMap(new IdentityHashMap<>()));
+            maxDepth = Math.max(maxDepth, depth(sh));
+        }
+    }
+
+    void predicates(ShaclShape sh, Set<ShaclShape> done) {
+        if (!done.add(sh)) {
+            return;
+        }
+        if (sh.hasPath()) {
+            sh.getPath().predicates(predicateSet);
+        }
+        for (ShaclShape cst : sh.getPropertyList()) {
+            predicates(cst, done);
+        }
+        for (List<Constraint> list : constraintList(sh)) {
+            for (Constraint cst : list) {
+                if (cst.path != null) {
+                    cst.path.predicates(predicateSet);
+                }
+                for (ShaclShape shape : shapes(cst)) {
+                    predicates(shape, done);
+                }
+            }
+        }
+        for (Qualified q : sh.getQualifiedList()) {
+            predicates(q.shape, done);
+            for (Sibling sib : q.siblingList) {
+                sib.path.predicates(predicateSet);
+                predicates(sib.shape, done);
+            }
+        }
+    }
+
+    /**
+     * Max length of paths evaluated by shape from focus node
+     * Recursive shape has INFINITE depth
+     */
+    int depth(ShaclShape sh) {
+        Integer value = depthMap.get(sh);
+        if (value != null) {
+            return value;
+        }
+        depthMap.put(sh, INFINITE);
+        int depth = 0;
+        for (ShaclShape cst : sh.getPropertyList()) {
+            depth = Math.max(depth, depth(cst));
+        }
+        for (Constraint cst : sh.getNodeList()) {
+            depth = Math.max(depth, depth(cst));
+        }
+        for (Constraint cst : sh.getBooleanList()) {
+            depth = Math.max(depth, depth(cst));
+        }
+        if (sh.hasPath()) {
+            int length = sh.getPath().length();
+            for (Constraint cst : sh.getValueList()) {
+                depth = Math.max(depth, ShaclPath.add(length, depth(cst)));
+            }
+            for (Constraint cst : sh.getValueListList()) {
+                // path of sh:equals sh:disjoint sh:lessThan start at focus node
+                depth = Math.max(depth, (cst.path == null) ? ShaclPath.add(length, depth(cst)) : cst.path.length());
+            }
+            for (Qualified q : sh.getQualifiedList()) {
+                depth = Math.max(depth, ShaclPath.add(length, depth(q.shape)));
+                for (Sibling sib : q.siblingList) {
+                    depth = Math.max(depth, ShaclPath.add(sib.path.length(), depth(sib.shape)));
+                }
+            }
+        }
+        depthMap.put(sh, depth);
+        return depth;
+    }
+
+    int depth(Constraint cst) {
+        int depth = (cst.path == null) ? 0 : cst.path.length();
+        for (ShaclShape sh : shapes(cst)) {
+            depth = Math.max(depth, depth(sh));
+        }
+        return depth;
+    }
+
+    List<ShaclShape> shapes(Constraint cst) {
+        List<ShaclShape> list = new ArrayList<>();
+        if (cst.shape != null) {
+            list.add(cst.shape);
+        }
+        if (cst.shapeList != null) {
+            list.addAll(cst.shapeList);
+        }
+        return list;
+    }
+
+    List<List<Constraint>> constraintList(ShaclShape sh) {
+        List<List<Constraint>> list = new ArrayList<>();
+        list.add(sh.getValueList());
+        list.add(sh.getValueListList());
+        list.add(sh.getNodeList());
+        list.add(sh.getBooleanList());
+        return list;
+    }
+
+}
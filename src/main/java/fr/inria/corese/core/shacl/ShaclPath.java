@@ -0,0 +1,231 @@
+package fr.inria.corese.core.shacl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+
+/**
+ * SHACL property path compiled by ShaclCompiler
+ * Evaluated on Graph edge index, same semantics as datashape/ppath.rq
+ * Return distinct target nodes.
+ */
+class ShaclPath {
+
+    static final int PREDICATE = 0;
+    static final int INVERSE = 1;
+    static final int SEQUENCE = 2;
+    static final int ALTERNATIVE = 3;
+    static final int ZERO_OR_MORE = 4;
+    static final int ONE_OR_MORE = 5;
+    static final int ZERO_OR_ONE = 6;
+
+    static final int INFINITE = Integer.MAX_VALUE;
+
+    private int type;
+    // predicate URI
+    private String label;
+    private List<ShaclPath> args;
+
+    ShaclPath(String label) {
+        this.type = PREDICATE;
+        this.label = label;
+    }
+
+    ShaclPath(int type, List<ShaclPath> args) {
+        this.type = type;
+        this.args = args;
+    }
+
+    boolean isPredicate() {
+        return type == PREDICATE;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * Max number of edges of path, INFINITE for path* path+
+     */
+    int length() {
+        switch (type) {
+            case PREDICATE:
+                return 1;
+            case INVERSE:
+            case ZERO_OR_ONE:
+                return args.get(0).length();
+            case ZERO_OR_MORE:
+            case ONE_OR_MORE:
+                return INFINITE;
+            case SEQUENCE: {
+                int length = 0;
+                for (ShaclPath path : args) {
+                    length = add(length, path.length());
+                }
+                return length;
+            }
+            default: {
+                int length = 0;
+                for (ShaclPath path : args) {
+                    length = Math.max(length, path.length());
+                }
+                return length;
+            }
+        }
+    }
+
+    static int add(int l1, int l2) {
+        return (l1 == INFINITE || l2 == INFINITE) ? INFINITE : l1 + l2;
+    }
+
+    /**
+     * Record predicates of path
+     */
+    void predicates(Set<String> set) {
+        if (type == PREDICATE) {
+            set.add(label);
+        } else {
+            for (ShaclPath path : args) {
+                path.predicates(set);
+            }
+        }
+    }
+
+    List<Node> eval(Graph g, Node node) {
+        return eval(g, node, false);
+    }
+
+    /**
+     * inv = true: within inverse path
+     */
+    List<Node> eval(Graph g, Node node, boolean inv) {
+        switch (type) {
+            case PREDICATE:
+                return step(g, node, inv);
+            case INVERSE:
+                return args.get(0).eval(g, node, !inv);
+            case SEQUENCE:
+                return sequence(g, node, inv);
+            case ALTERNATIVE:
+                return alternative(g, node, inv);
+            case ZERO_OR_MORE:
+                return closure(g, node, inv, true);
+            case ONE_OR_MORE:
+                return closure(g, node, inv, false);
+            case ZERO_OR_ONE:
+                return option(g, node, inv);
+        }
+        return Collections.emptyList();
+    }
+
+    List<Node> step(Graph g, Node node, boolean inv) {
+        Node pred = g.getPropertyNode(label);
+        if (pred == null) {
+            return Collections.emptyList();
+        }
+        Iterable<Edge> it = g.getEdges(pred, node, inv ? 1 : 0);
+        if (it == null) {
+            return Collections.emptyList();
+        }
+        List<Node> list = new ArrayList<>();
+        Set<Node> set = identitySet();
+        for (Edge edge : it) {
+            // edge may be a buffer reused by the iterator: read node now
+            Node n = edge.getNode(inv ? 0 : 1);
+            if (set.add(n)) {
+                list.add(n);
+            }
+        }
+        return list;
+    }
+
+    List<Node> sequence(Graph g, Node node, boolean inv) {
+        List<ShaclPath> list = args;
+        if (inv) {
+            list = new ArrayList<>(args);
+            Collections.reverse(list);
+        }
+        List<Node> current = Collections.singletonList(node);
+        for (ShaclPath path : list) {
+            List<Node> next = new ArrayList<>();
+            Set<Node> set = identitySet();
+            for (Node n : current) {
+                for (Node m : path.eval(g, n, inv)) {
+                    if (set.add(m)) {
+                        next.add(m);
+                    }
+                }
+            }
+            if (next.isEmpty()) {
+                return next;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    List<Node> alternative(Graph g, Node node, boolean inv) {
+        List<Node> list = new ArrayList<>();
+        Set<Node> set = identitySet();
+        for (ShaclPath path : args) {
+            for (Node n : path.eval(g, node, inv)) {
+                if (set.add(n)) {
+                    list.add(n);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * path* or path+
+     * breadth first traversal, set of visited nodes prevents loops
+     */
+    List<Node> closure(Graph g, Node node, boolean inv, boolean zero) {
+        List<Node> list = new ArrayList<>();
+        Set<Node> set = identitySet();
+        if (zero) {
+            list.add(node);
+            set.add(node);
+        }
+        ShaclPath path = args.get(0);
+        List<Node> current = Collections.singletonList(node);
+        while (!current.isEmpty()) {
+            List<Node> next = new ArrayList<>();
+            for (Node n : current) {
+                for (Node m : path.eval(g, n, inv)) {
+                    if (set.add(m)) {
+                        list.add(m);
+                        next.add(m);
+                    }
+                }
+            }
+            current = next;
+        }
+        return list;
+    }
+
+    List<Node> option(Graph g, Node node, boolean inv) {
+        List<Node> list = args.get(0).eval(g, node, inv);
+        for (Node n : list) {
+            if (n == node) {
+                return list;
+            }
+        }
+        List<Node> res = new ArrayList<>(list.size() + 1);
+        res.add(node);
+        res.addAll(list);
+        return res;
+    }
+
+    static Set<Node> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+}
@@ -0,0 +1,208 @@
+package fr.inria.corese.core.shacl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.sparql.api.IDatatype;
+
+/**
+ * Shape compiled by ShaclCompiler
+ * Constraints are grouped as in the LDScript interpreter:
+ * node constraints (shape without path), path constraints evaluated on each
+ * value node, path constraints evaluated on the value node list, boolean
+ * constraints evaluated on the focus node and qualified value shapes.
+ */
+class ShaclShape {
+
+    /**
+     * constraint: oper = constraint name, ex sh:datatype
+     */
+    static class Constraint {
+
+        String oper;
+        // constraint value, ex xsd:string
+        Node node;
+        IDatatype value;
+        // sh:in sh:languageIn
+        List<IDatatype> list;
+        // sh:node sh:property sh:not
+        ShaclShape shape;
+        // sh:and sh:or sh:xone
+        List<ShaclShape> shapeList;
+        // sh:equals sh:disjoint
+        ShaclPath path;
+        // sh:pattern sh:patternIn
+        List<Pattern> patternList;
+
+        Constraint(String oper, Node node) {
+            this.oper = oper;
+            this.node = node;
+            this.value = node.getDatatypeValue();
+        }
+    }
+
+    /**
+     * sh:qualifiedValueShape
+     */
+    static class Qualified {
+
+        ShaclShape shape;
+        boolean disjoint = false;
+        int min = 0;
+        int max = -1;
+        // sibling qualified value shapes of sh:qualifiedValueShapesDisjoint
+        List<Sibling> siblingList = new ArrayList<>();
+    }
+
+    static class Sibling {
+
+        ShaclShape shape;
+        Node pathNode;
+        ShaclPath path;
+    }
+
+    private Node node;
+    // sh:path as declared in shape graph and compiled
+    private Node pathNode;
+    private ShaclPath path;
+    private boolean deactivated = false;
+    private boolean closed = false;
+    private List<String> closedPredicateList = new ArrayList<>();
+    // shape sh:property cst: cst with path
+    private List<ShaclShape> propertyList = new ArrayList<>();
+    // sh:minLength sh:datatype ... sh:node sh:class sh:property
+    private List<Constraint> valueList = new ArrayList<>();
+    // sh:minCount sh:equals sh:and ...
+    private List<Constraint> valueListList = new ArrayList<>();
+    private List<Qualified> qualifiedList = new ArrayList<>();
+    // sh:and sh:or sh:xone sh:not on focus node
+    private List<Constraint> booleanList = new ArrayList<>();
+    // node constraints of shape without path
+    private List<Constraint> nodeList = new ArrayList<>();
+    private Node severity;
+    private Node message;
+    // sh:targetClass sh:targetNode, class of implicit class target
+    private List<Node> targetClassList = new ArrayList<>();
+    private List<Node> targetNodeList = new ArrayList<>();
+    // sh:targetSubjectsOf sh:targetObjectsOf
+    private List<String> targetSubjectList = new ArrayList<>();
+    private List<String> targetObjectList = new ArrayList<>();
+
+    ShaclShape(Node node) {
+        this.node = node;
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    Node getPathNode() {
+        return pathNode;
+    }
+
+    ShaclPath getPath() {
+        return path;
+    }
+
+    void setPath(Node pathNode, ShaclPath path) {
+        this.pathNode = pathNode;
+        this.path = path;
+    }
+
+    boolean hasPath() {
+        return path != null;
+    }
+
+    boolean isDeactivated() {
+        return deactivated;
+    }
+
+    void setDeactivated(boolean deactivated) {
+        this.deactivated = deactivated;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void setClosed(boolean closed) {
+        this.closed = closed;
+    }
+
+    List<String> getClosedPredicateList() {
+        return closedPredicateList;
+    }
+
+    List<ShaclShape> getPropertyList() {
+        return propertyList;
+    }
+
+    List<Constraint> getValueList() {
+        return valueList;
+    }
+
+    List<Constraint> getValueListList() {
+        return valueListList;
+    }
+
+    List<Qualified> getQualifiedList() {
+        return qualifiedList;
+    }
+
+    List<Constraint> getBooleanList() {
+        return booleanList;
+    }
+
+    List<Constraint> getNodeList() {
+        return nodeList;
+    }
+
+    boolean hasPathConstraint() {
+        return !valueList.isEmpty() || !valueListList.isEmpty() || !qualifiedList.isEmpty();
+    }
+
+    Node getSeverity() {
+        return severity;
+    }
+
+    void setSeverity(Node severity) {
+        this.severity = severity;
+    }
+
+    Node getMessage() {
+        return message;
+    }
+
+    void setMessage(Node message) {
+        this.message = message;
+    }
+
+    List<Node> getTargetClassList() {
+        return targetClassList;
+    }
+
+    List<Node> getTargetNodeList() {
+        return targetNodeList;
+    }
+
+    List<String> getTargetSubjectList() {
+        return targetSubjectList;
+    }
+
+    List<String> getTargetObjectList() {
+        return targetObjectList;
+    }
+
+    boolean hasTarget() {
+        return !targetClassList.isEmpty() || !targetNodeList.isEmpty()
+                || !targetSubjectList.isEmpty() || !targetObjectList.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+
+}
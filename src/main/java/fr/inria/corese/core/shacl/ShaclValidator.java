@@ -0,0 +1,1102 @@
+package fr.inria.corese.core.shacl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.logic.RDF;
+import fr.inria.corese.core.logic.RDFS;
+import fr.inria.corese.core.shacl.ShaclShape.Constraint;
+import fr.inria.corese.core.shacl.ShaclShape.Qualified;
+import fr.inria.corese.core.shacl.ShaclShape.Sibling;
+import fr.inria.corese.core.sparql.api.IDatatype;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+import fr.inria.corese.core.sparql.triple.parser.NSManager;
+import fr.inria.corese.core.transform.Transformer;
+
+/**
+ * Native SHACL Core validator
+ * Shape graph is compiled by ShaclCompiler into shapes with compiled paths and
+ * constraints that are evaluated on the edge index of the data graph.
+ * Semantics and validation report are those of the LDScript interpreter
+ * (resources/function/datashape): the report contains the same validation
+ * results (uuid of results and blank node of report apart).
+ * When the shape graph uses features out of SHACL Core, compile() returns
+ * false and the interpreter must be used.
+ * Parallel mode: focus nodes of a shape are partitioned in consecutive
+ * sublists evaluated by worker validators on the read locked graph, with their
+ * own recursion stack, caches and results. Results of workers are appended in
+ * focus node order, hence the report is the same as the sequential report.
+ *
+ * ShaclValidator v = new ShaclValidator(g, shacl);
+ * if (v.compile()) { Graph report = v.validate(); }
+ */
+public class ShaclValidator {
+
+    private static Logger logger = LoggerFactory.getLogger(ShaclValidator.class);
+
+    static final String SH = NSManager.SHACL;
+    static final String XT_GRAPH = NSManager.EXT + "graph";
+    static final String UUID_PREFIX = "urn:uuid:";
+    // min number of focus nodes per worker
+    static final int PARTITION_MIN = 16;
+
+    // number of threads in parallel mode
+    // Property SHACL_PARALLEL_THREAD
+    public static int PARALLEL_THREAD = Runtime.getRuntime().availableProcessors();
+
+    static final IDatatype TYPE = DatatypeMap.newResource(RDF.TYPE);
+    static final IDatatype VALIDATION_REPORT = DatatypeMap.newResource(SH + "ValidationReport");
+    static final IDatatype VALIDATION_RESULT = DatatypeMap.newResource(SH + "ValidationResult");
+    static final IDatatype CONFORMS = DatatypeMap.newResource(SH + "conforms");
+    static final IDatatype RESULT = DatatypeMap.newResource(SH + "result");
+    static final IDatatype RESULT_SEVERITY = DatatypeMap.newResource(SH + "resultSeverity");
+    static final IDatatype FOCUS_NODE = DatatypeMap.newResource(SH + "focusNode");
+    static final IDatatype RESULT_MESSAGE = DatatypeMap.newResource(SH + "resultMessage");
+    static final IDatatype SOURCE_CONSTRAINT_COMPONENT = DatatypeMap.newResource(SH + "sourceConstraintComponent");
+    static final IDatatype SOURCE_SHAPE = DatatypeMap.newResource(SH + "sourceShape");
+    static final IDatatype RESULT_PATH = DatatypeMap.newResource(SH + "resultPath");
+    static final IDatatype VALUE = DatatypeMap.newResource(SH + "value");
+    static final IDatatype VALUE_DETAIL = DatatypeMap.newResource(SH + "valueDetail");
+    static final IDatatype FOCUS_NODE_DETAIL = DatatypeMap.newResource(SH + "focusNodeDetail");
+    static final IDatatype VIOLATION = DatatypeMap.newResource(SH + "Violation");
+
+    // constraint name -> constraint component, cf main.rq sh:def()
+    static final Map<String, IDatatype> component = new HashMap<>();
+
+    static {
+        String[] list = {
+            "class", "datatype", "nodeKind", "minCount", "maxCount", "minExclusive", "minInclusive",
+            "maxExclusive", "maxInclusive", "minLength", "maxLength", "pattern", "languageIn",
+            "uniqueLang", "equals", "disjoint", "lessThan", "lessThanOrEquals", "not", "and", "or",
+            "xone", "node", "qualifiedValueShape", "qualifiedMinCount", "qualifiedMaxCount",
+            "closed", "hasValue", "in"
+        };
+        for (String name : list) {
+            component.put(SH + name, DatatypeMap.newResource(SH + Character.toUpperCase(name.charAt(0))
+                    + name.substring(1) + "ConstraintComponent"));
+        }
+    }
+
+    private Graph graph;
+    private Graph shacl;
+    private ShaclCompiler compiler;
+    private boolean compiled = false;
+    private boolean supported = false;
+    private boolean parallel = false;
+    private ExecutorService executor;
+    private Graph report;
+    private Transformer transformer;
+    private Map<String, String> turtle;
+    // shacl node -> data graph node
+    private Map<Node, Node> dataNode;
+    // class -> super classes
+    private Map<Node, Set<Node>> superClass;
+    // shape node stack prevents loops with recursive shapes
+    private List<ShaclShape> stackShape;
+    private List<Node> stackNode;
+    // validation results, written in report graph by finish()
+    private List<Result> resultList;
+    // success of worker
+    private boolean success = true;
+
+    public ShaclValidator(Graph g, Graph shacl) {
+        this.graph = g;
+        this.shacl = shacl;
+        compiler = new ShaclCompiler(shacl);
+        turtle = new HashMap<>();
+        dataNode = new HashMap<>();
+        superClass = new IdentityHashMap<>();
+        stackShape = new ArrayList<>();
+        stackNode = new ArrayList<>();
+        resultList = new ArrayList<>();
+    }
+
+    /**
+     * Worker of parallel validation share compiled shapes of validator
+     */
+    ShaclValidator(ShaclValidator val) {
+        this(val.graph, val.shacl);
+        compiler = val.compiler;
+        compiled = true;
+        supported = true;
+    }
+
+    /**
+     * Compile shape graph
+     * return false when shape graph uses features out of SHACL Core
+     */
+    public boolean compile() {
+        if (!compiled) {
+            compiled = true;
+            // index shape graph before reading it
+            shacl.init();
+            supported = compiler.compile();
+            if (!supported) {
+                logger.info("SHACL native validator does not support: " + getUnsupported());
+            }
+        }
+        return supported;
+    }
+
+    public String getUnsupported() {
+        return compiler.getUnsupported();
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public ShaclValidator setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Evaluate all shapes with target
+     */
+    public Graph validate() throws EngineException {
+        check();
+        start();
+        try {
+            boolean suc = true;
+            for (ShaclShape sh : compiler.getTargetList()) {
+                List<Node> list = focus(sh);
+                if (!list.isEmpty()) {
+                    suc = eval(sh, list) && suc;
+                }
+            }
+            return finish(suc);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Evaluate shape on its target nodes
+     */
+    public Graph validate(IDatatype shape) throws EngineException {
+        check();
+        start();
+        try {
+            boolean suc = true;
+            Node node = shacl.getNode(shape, false, false);
+            if (node != null) {
+                ShaclShape sh = compiler.shape(node);
+                List<Node> list = sh.isDeactivated() ? Collections.emptyList() : focus(sh);
+                if (!list.isEmpty()) {
+                    suc = eval(sh, list);
+                }
+            }
+            return finish(suc);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Evaluate shape on node even if node is not target of shape
+     */
+    public Graph validate(IDatatype shape, IDatatype dt) throws EngineException {
+        check();
+        start();
+        boolean suc = true;
+        Node node = shacl.getNode(shape, false, false);
+        if (node != null) {
+            suc = core(compiler.shape(node), Collections.singletonList(focusNode(dt)), true, false);
+        }
+        return finish(suc);
+    }
+
+    /**
+     * Evaluate shapes whose target contain node
+     */
+    public Graph validateNode(IDatatype dt) throws EngineException {
+        check();
+        start();
+        boolean suc = true;
+        Node node = focusNode(dt);
+        for (ShaclShape sh : compiler.getTargetList()) {
+            if (isFocus(sh, node)) {
+                suc = core(sh, Collections.singletonList(node), true, false) && suc;
+            }
+        }
+        return finish(suc);
+    }
+
+    void check() throws EngineException {
+        if (!compile()) {
+            throw new EngineException("SHACL native validator does not support: " + getUnsupported());
+        }
+    }
+
+    void start() {
+        report = Graph.create();
+        resultList.clear();
+        // index graph before read access, concurrent read in parallel mode
+        graph.init();
+    }
+
+    void end() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    Graph finish(boolean suc) {
+        if (!resultList.isEmpty()) {
+            IDatatype reportNode = blank(report);
+            report.insert(reportNode, TYPE, VALIDATION_REPORT);
+            report.insert(reportNode, CONFORMS, DatatypeMap.FALSE);
+            for (Result res : resultList) {
+                write(report, reportNode, res);
+            }
+            resultList.clear();
+        }
+        if (suc) {
+            IDatatype node = blank(report);
+            report.insert(node, TYPE, VALIDATION_REPORT);
+            report.insert(node, CONFORMS, DatatypeMap.TRUE);
+        }
+        report.index();
+        return report;
+    }
+
+    /**
+     * Target nodes of shape
+     */
+    List<Node> focus(ShaclShape sh) {
+        NodeList list = new NodeList();
+        for (Node cls : sh.getTargetClassList()) {
+            Node type = graph.getPropertyNode(RDF.TYPE);
+            Node node = getDataNode(cls);
+            if (type != null && node != null) {
+                for (Node sub : subClass(node)) {
+                    for (Edge edge : edges(type, sub, null, 1)) {
+                        list.add(edge.getNode(0));
+                    }
+                }
+            }
+        }
+        for (Node node : sh.getTargetNodeList()) {
+            Node dn = getDataNode(node);
+            list.add(dn == null ? node : dn);
+        }
+        for (String name : sh.getTargetSubjectList()) {
+            for (Edge edge : graph.getEdges(name)) {
+                list.add(edge.getNode(0));
+            }
+        }
+        for (String name : sh.getTargetObjectList()) {
+            for (Edge edge : graph.getEdges(name)) {
+                list.add(edge.getNode(1));
+            }
+        }
+        return list.getList();
+    }
+
+    boolean isFocus(ShaclShape sh, Node node) {
+        for (Node cls : sh.getTargetClassList()) {
+            Node dn = getDataNode(cls);
+            if (dn != null && isClass(node, dn)) {
+                return true;
+            }
+        }
+        for (Node target : sh.getTargetNodeList()) {
+            if (target.getDatatypeValue().sameTerm(node.getDatatypeValue())) {
+                return true;
+            }
+        }
+        for (String name : sh.getTargetSubjectList()) {
+            if (graph.getEdges(name, node, 0).iterator().hasNext()) {
+                return true;
+            }
+        }
+        for (String name : sh.getTargetObjectList()) {
+            if (graph.getEdges(name, node, 1).iterator().hasNext()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Node focusNode(IDatatype dt) {
+        Node node = graph.getNode(dt, false, false);
+        if (node == null) {
+            node = shacl.getNode(dt, false, false);
+        }
+        if (node == null) {
+            node = graph.createNode(dt);
+        }
+        return node;
+    }
+
+    /**
+     * Evaluate shape on focus node list, in parallel when there are enough
+     * focus nodes
+     */
+    boolean eval(ShaclShape sh, List<Node> list) throws EngineException {
+        int nb = Math.min(PARALLEL_THREAD, list.size() / PARTITION_MIN);
+        if (!isParallel() || nb <= 1) {
+            return core(sh, list, true, false);
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(PARALLEL_THREAD);
+        }
+        List<Future<ShaclValidator>> futureList = new ArrayList<>();
+        Lock lock = graph.readLock();
+        lock.lock();
+        try {
+            for (int i = 0; i < nb; i++) {
+                List<Node> sublist = list.subList(i * list.size() / nb, (i + 1) * list.size() / nb);
+                ShaclValidator worker = new ShaclValidator(this);
+                futureList.add(executor.submit(() -> worker.process(sh, sublist)));
+            }
+            boolean suc = true;
+            for (Future<ShaclValidator> future : futureList) {
+                ShaclValidator worker = get(future);
+                suc = worker.isSuccess() && suc;
+                resultList.addAll(worker.resultList);
+            }
+            return suc;
+        } finally {
+            for (Future<ShaclValidator> future : futureList) {
+                future.cancel(true);
+            }
+            lock.unlock();
+        }
+    }
+
+    ShaclValidator process(ShaclShape sh, List<Node> list) {
+        success = core(sh, list, true, false);
+        return this;
+    }
+
+    boolean isSuccess() {
+        return success;
+    }
+
+    List<Result> getResultList() {
+        return resultList;
+    }
+
+    ShaclCompiler getCompiler() {
+        return compiler;
+    }
+
+    ShaclValidator get(Future<ShaclValidator> future) throws EngineException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EngineException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw new EngineException((Error) cause);
+            }
+            throw new EngineException((Exception) cause);
+        }
+    }
+
+    // ____________________________________________________________________
+    //
+    // Evaluation, cf core.rq path.rq constraint.rq
+
+    /**
+     * vis: true if report is needed
+     * present: fail if path is empty, use case: qualified value shape
+     */
+    boolean core(ShaclShape sh, List<Node> nodeList, boolean vis, boolean present) {
+        boolean res = true;
+        for (Node node : nodeList) {
+            if (contains(sh, node)) {
+                continue;
+            }
+            push(sh, node);
+            try {
+                boolean suc = pathcore(sh, node, vis, present);
+                if (suc || vis) {
+                    suc = booleancore(sh, node, vis, present) && suc;
+                }
+                if (suc || vis) {
+                    suc = constraintcore(sh, node, vis, present) && suc;
+                }
+                if (suc || vis) {
+                    suc = closedcore(sh, node, vis) && suc;
+                }
+                res = res && suc;
+            } finally {
+                pop();
+            }
+        }
+        return res;
+    }
+
+    boolean pathcore(ShaclShape sh, Node node, boolean vis, boolean present) {
+        boolean res = true;
+        if (sh.hasPath() && !sh.isDeactivated()) {
+            res = path(sh, node, vis, present);
+        }
+        for (ShaclShape cst : sh.getPropertyList()) {
+            if (!path(cst, node, vis, present)) {
+                res = false;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Evaluate constraints of property shape sh on value nodes of path of s
+     */
+    boolean path(ShaclShape sh, Node s, boolean vis, boolean present) {
+        if (!sh.hasPathConstraint()) {
+            return true;
+        }
+        boolean res = true;
+        List<Node> targetList = sh.getPath().eval(graph, s);
+        IDatatype p = sh.getPathNode().getDatatypeValue();
+
+        if (!sh.getValueList().isEmpty()) {
+            if (present && targetList.isEmpty()) {
+                return false;
+            }
+            for (Node o : targetList) {
+                for (Constraint cst : sh.getValueList()) {
+                    boolean suc;
+                    switch (cst.oper) {
+                        case ShaclCompiler.NODE:
+                            suc = core(cst.shape, Collections.singletonList(o), false, present);
+                            report(cst.oper, sh, cst.shape, s, p, o.getDatatypeValue(), suc, vis);
+                            break;
+                        case ShaclCompiler.PROPERTY:
+                            // report is done by property shape
+                            suc = core(cst.shape, Collections.singletonList(o), true, present);
+                            break;
+                        default:
+                            suc = value(cst, o);
+                            report(cst.oper, sh, null, s, p, o.getDatatypeValue(), suc, vis);
+                    }
+                    if (!suc) {
+                        res = false;
+                    }
+                }
+            }
+        }
+
+        for (Constraint cst : sh.getValueListList()) {
+            if (!list(sh, cst, s, p, targetList, vis, present)) {
+                res = false;
+            }
+        }
+
+        for (Qualified q : sh.getQualifiedList()) {
+            if (!qualified(sh, q, s, p, targetList, vis)) {
+                res = false;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Constraint on value node list of path p of s
+     */
+    boolean list(ShaclShape sh, Constraint cst, Node s, IDatatype p, List<Node> nodeList, boolean vis, boolean present) {
+        boolean res = true;
+        switch (cst.oper) {
+            case ShaclCompiler.NOT:
+                for (Node o : nodeList) {
+                    boolean suc = !core(cst.shape, Collections.singletonList(o), false, present);
+                    report(cst.oper, sh, null, s, p, o.getDatatypeValue(), suc, vis);
+                    res = res && suc;
+                }
+                return res;
+
+            case ShaclCompiler.AND:
+            case ShaclCompiler.OR:
+            case ShaclCompiler.XONE:
+                for (Node o : nodeList) {
+                    boolean suc = bool(cst, o, present);
+                    report(cst.oper, sh, null, s, p, o.getDatatypeValue(), suc, vis);
+                    res = res && suc;
+                }
+                return res;
+
+            case ShaclCompiler.MIN_COUNT: {
+                boolean suc = nodeList.size() >= cst.value.intValue();
+                report(cst.oper, sh, null, s, p, DatatypeMap.newInstance(nodeList.size()), suc, vis);
+                return suc;
+            }
+
+            case ShaclCompiler.MAX_COUNT: {
+                boolean suc = nodeList.size() <= cst.value.intValue();
+                report(cst.oper, sh, null, s, p, DatatypeMap.newInstance(nodeList.size()), suc, vis);
+                return suc;
+            }
+
+            case ShaclCompiler.HAS_VALUE: {
+                boolean suc = false;
+                for (Node o : nodeList) {
+                    if (isTrue(cst.value.eq(o.getDatatypeValue()))) {
+                        suc = true;
+                        break;
+                    }
+                }
+                report(cst.oper, sh, null, s, p, cst.value, suc, vis);
+                return suc;
+            }
+
+            case ShaclCompiler.UNIQUE_LANG: {
+                Map<String, Integer> map = new LinkedHashMap<>();
+                for (Node o : nodeList) {
+                    String lang = o.getDatatypeValue().getLang();
+                    if (lang != null && !lang.isEmpty()) {
+                        map.merge(lang, 1, Integer::sum);
+                    }
+                }
+                for (Map.Entry<String, Integer> entry : map.entrySet()) {
+                    boolean suc = entry.getValue() == 1;
+                    report(cst.oper, sh, null, s, p, DatatypeMap.newInstance(entry.getKey()), suc, vis);
+                    res = res && suc;
+                }
+                return res;
+            }
+
+            case ShaclCompiler.EQUALS: {
+                List<Node> list = cst.path.eval(graph, s);
+                res = equals(sh, cst, s, p, nodeList, list, vis);
+                return equals(sh, cst, s, p, list, nodeList, vis) && res;
+            }
+
+            case ShaclCompiler.DISJOINT: {
+                List<Node> list = cst.path.eval(graph, s);
+                for (Node o : nodeList) {
+                    boolean suc = !member(o, list);
+                    report(cst.oper, sh, null, s, p, o.getDatatypeValue(), suc, vis);
+                    res = res && suc;
+                }
+                return res;
+            }
+
+            case ShaclCompiler.LESS_THAN:
+            case ShaclCompiler.LESS_THAN_OR_EQUALS: {
+                boolean leq = cst.oper.equals(ShaclCompiler.LESS_THAN_OR_EQUALS);
+                List<Node> list = cst.path.eval(graph, s);
+                for (Node o : nodeList) {
+                    for (Node v : list) {
+                        IDatatype dt = o.getDatatypeValue();
+                        boolean suc = isTrue(leq ? dt.le(v.getDatatypeValue()) : dt.lt(v.getDatatypeValue()));
+                        report(cst.oper, sh, null, s, p, dt, suc, vis);
+                        res = res && suc;
+                    }
+                }
+                return res;
+            }
+        }
+        return true;
+    }
+
+    boolean equals(ShaclShape sh, Constraint cst, Node s, IDatatype p, List<Node> l1, List<Node> l2, boolean vis) {
+        boolean res = true;
+        for (Node o : l1) {
+            boolean suc = member(o, l2);
+            report(cst.oper, sh, null, s, p, o.getDatatypeValue(), suc, vis);
+            res = res && suc;
+        }
+        return res;
+    }
+
+    /**
+     * sh:and sh:or sh:xone: count shapes of the list that node conforms to
+     */
+    boolean bool(Constraint cst, Node node, boolean present) {
+        int count = 0;
+        for (ShaclShape sh : cst.shapeList) {
+            if (core(sh, Collections.singletonList(node), false, present)) {
+                count++;
+            }
+        }
+        switch (cst.oper) {
+            case ShaclCompiler.AND:
+                return count == cst.shapeList.size();
+            case ShaclCompiler.OR:
+                return count > 0;
+            default:
+                return count == 1;
+        }
+    }
+
+    /**
+     * sh:qualifiedValueShape, cf qualified.rq
+     */
+    boolean qualified(ShaclShape sh, Qualified q, Node s, IDatatype p, List<Node> nodeList, boolean vis) {
+        List<Node> list = new ArrayList<>();
+        for (Node o : nodeList) {
+            if (core(q.shape, Collections.singletonList(o), false, true)) {
+                list.add(o);
+            }
+        }
+        if (q.disjoint && !list.isEmpty()) {
+            List<Node> sibling = new ArrayList<>();
+            for (Sibling sib : q.siblingList) {
+                for (Node o : sib.path.eval(graph, s)) {
+                    if (core(sib.shape, Collections.singletonList(o), false, true)) {
+                        sibling.add(o);
+                    }
+                }
+            }
+            List<Node> disjoint = new ArrayList<>();
+            for (Node o : list) {
+                if (!member(o, sibling)) {
+                    disjoint.add(o);
+                }
+            }
+            list = disjoint;
+        }
+        boolean suc1 = list.size() >= q.min;
+        boolean suc2 = q.max == -1 || list.size() <= q.max;
+        report(ShaclCompiler.QUALIFIED_MIN_COUNT, sh, null, s, p, s.getDatatypeValue(), suc1, vis);
+        report(ShaclCompiler.QUALIFIED_MAX_COUNT, sh, null, s, p, s.getDatatypeValue(), suc2, vis);
+        return suc1 && suc2;
+    }
+
+    /**
+     * sh:and sh:or sh:xone sh:not on focus node
+     */
+    boolean booleancore(ShaclShape sh, Node node, boolean vis, boolean present) {
+        boolean res = true;
+        for (Constraint cst : sh.getBooleanList()) {
+            boolean suc;
+            if (cst.oper.equals(ShaclCompiler.NOT)) {
+                suc = !core(cst.shape, Collections.singletonList(node), false, present);
+            } else {
+                suc = bool(cst, node, present);
+            }
+            report(cst.oper, sh, null, node, null, node.getDatatypeValue(), suc, vis);
+            res = res && suc;
+        }
+        return res;
+    }
+
+    /**
+     * Node constraints of shape without path
+     */
+    boolean constraintcore(ShaclShape sh, Node node, boolean vis, boolean present) {
+        boolean res = true;
+        IDatatype dt = node.getDatatypeValue();
+        for (Constraint cst : sh.getNodeList()) {
+            switch (cst.oper) {
+                case ShaclCompiler.NODE: {
+                    boolean suc = core(cst.shape, Collections.singletonList(node), false, present);
+                    report(cst.oper, sh, cst.shape, node, null, dt, suc, vis);
+                    res = res && suc;
+                    break;
+                }
+
+                case ShaclCompiler.CLASS:
+                case ShaclCompiler.TYPE: {
+                    boolean suc = value(cst, node);
+                    report(cst.oper, sh, null, node, TYPE, dt, suc, vis);
+                    res = res && suc;
+                    break;
+                }
+
+                case ShaclCompiler.EQUALS: {
+                    List<Node> list = cst.path.eval(graph, node);
+                    boolean suc = member(node, list);
+                    report(cst.oper, sh, null, node, cst.value, dt, suc, vis);
+                    res = res && suc;
+                    for (Node m : list) {
+                        suc = isTrue(dt.eq(m.getDatatypeValue()));
+                        report(cst.oper, sh, null, node, cst.value, m.getDatatypeValue(), suc, vis);
+                        res = res && suc;
+                    }
+                    break;
+                }
+
+                case ShaclCompiler.DISJOINT: {
+                    boolean suc = !member(node, cst.path.eval(graph, node));
+                    report(cst.oper, sh, null, node, cst.value, dt, suc, vis);
+                    res = res && suc;
+                    break;
+                }
+
+                default: {
+                    boolean suc = value(cst, node);
+                    report(cst.oper, sh, null, node, null, dt, suc, vis);
+                    res = res && suc;
+                }
+            }
+        }
+        return res;
+    }
+
+    boolean closedcore(ShaclShape sh, Node node, boolean vis) {
+        if (!sh.isClosed()) {
+            return true;
+        }
+        boolean res = true;
+        for (Edge edge : graph.getNodeEdges(node)) {
+            String name = edge.getEdgeLabel();
+            boolean suc = sh.getClosedPredicateList().contains(name);
+            if (!suc) {
+                res = false;
+                report(ShaclCompiler.CLOSED, sh, null, node, edge.getEdgeNode().getDatatypeValue(),
+                        edge.getNode(1).getDatatypeValue(), suc, vis);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Constraint on one value node, cf operator.rq
+     */
+    boolean value(Constraint cst, Node node) {
+        IDatatype dt = node.getDatatypeValue();
+        switch (cst.oper) {
+            case ShaclCompiler.SH + "minLength":
+                return !dt.isBlank() && dt.getLabel().length() >= cst.value.intValue();
+            case ShaclCompiler.SH + "maxLength":
+                return !dt.isBlank() && dt.getLabel().length() <= cst.value.intValue();
+            case ShaclCompiler.SH + "datatype":
+                return dt.isLiteral() && dt.getDatatypeURI().equals(cst.value.getLabel())
+                        && dt.isWellFormed().booleanValue();
+            case ShaclCompiler.SH + "minInclusive":
+                return isTrue(dt.ge(cst.value));
+            case ShaclCompiler.SH + "minExclusive":
+                return isTrue(dt.gt(cst.value));
+            case ShaclCompiler.SH + "maxInclusive":
+                return isTrue(dt.le(cst.value));
+            case ShaclCompiler.SH + "maxExclusive":
+                return isTrue(dt.lt(cst.value));
+            case ShaclCompiler.SH + "nodeKind":
+                return nodeKind(dt, cst.value.getLabel());
+            case ShaclCompiler.IN:
+                for (IDatatype val : cst.list) {
+                    if (isTrue(dt.eq(val))
+                            && (!dt.isLiteral() || dt.getDatatypeURI().equals(val.getDatatypeURI()))) {
+                        return true;
+                    }
+                }
+                return false;
+            case ShaclCompiler.LANGUAGE_IN:
+                if (dt.isLiteral()) {
+                    String lang = (dt.getLang() == null) ? "" : dt.getLang();
+                    for (IDatatype val : cst.list) {
+                        if (langMatches(lang, val.getLabel())) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            case ShaclCompiler.HAS_VALUE:
+                return isTrue(dt.eq(cst.value));
+            case ShaclCompiler.PATTERN:
+            case ShaclCompiler.PATTERN_IN:
+                if (!dt.isBlank()) {
+                    for (Pattern pattern : cst.patternList) {
+                        if (pattern.matcher(dt.stringValue()).matches()) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            case ShaclCompiler.CLASS: {
+                Node cls = getDataNode(cst.node);
+                return cls != null && isClass(node, cls);
+            }
+            case ShaclCompiler.TYPE: {
+                Node cls = getDataNode(cst.node);
+                Node type = graph.getPropertyNode(RDF.TYPE);
+                return cls != null && type != null && edges(type, node, cls, 0).iterator().hasNext();
+            }
+        }
+        return true;
+    }
+
+    boolean nodeKind(IDatatype dt, String kind) {
+        if (dt.isURI()) {
+            return kind.equals(SH + "IRI") || kind.equals(SH + "BlankNodeOrIRI") || kind.equals(SH + "IRIOrLiteral");
+        } else if (dt.isLiteral()) {
+            return kind.equals(SH + "Literal") || kind.equals(SH + "BlankNodeOrLiteral") || kind.equals(SH + "IRIOrLiteral");
+        } else if (dt.isBlank()) {
+            return kind.equals(SH + "BlankNode") || kind.equals(SH + "BlankNodeOrIRI") || kind.equals(SH + "BlankNodeOrLiteral");
+        }
+        return false;
+    }
+
+    // cf langMatches in BinaryFunction
+    boolean langMatches(String l1, String l2) {
+        if (l2.equals("*")) {
+            return l1.length() > 0;
+        }
+        if (l2.contains("-")) {
+            return l1.equalsIgnoreCase(l2);
+        }
+        return l1.regionMatches(true, 0, l2, 0, 2);
+    }
+
+    /**
+     * node rdf:type/rdfs:subClassOf* cls
+     */
+    boolean isClass(Node node, Node cls) {
+        Node type = graph.getPropertyNode(RDF.TYPE);
+        if (type == null) {
+            return false;
+        }
+        for (Edge edge : edges(type, node, null, 0)) {
+            if (superClass(edge.getNode(1)).contains(cls)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * cls rdfs:subClassOf* ?sup
+     */
+    Set<Node> superClass(Node cls) {
+        Set<Node> set = superClass.get(cls);
+        if (set == null) {
+            set = closure(cls, 0);
+            superClass.put(cls, set);
+        }
+        return set;
+    }
+
+    /**
+     * ?sub rdfs:subClassOf* cls
+     */
+    List<Node> subClass(Node cls) {
+        return new ArrayList<>(closure(cls, 1));
+    }
+
+    Set<Node> closure(Node cls, int index) {
+        Set<Node> set = ShaclPath.identitySet();
+        set.add(cls);
+        Node pred = graph.getPropertyNode(RDFS.SUBCLASSOF);
+        if (pred == null) {
+            return set;
+        }
+        List<Node> current = Collections.singletonList(cls);
+        while (!current.isEmpty()) {
+            List<Node> next = new ArrayList<>();
+            for (Node node : current) {
+                for (Edge edge : edges(pred, node, null, index)) {
+                    Node n = edge.getNode(1 - index);
+                    if (set.add(n)) {
+                        next.add(n);
+                    }
+                }
+            }
+            current = next;
+        }
+        return set;
+    }
+
+    Iterable<Edge> edges(Node pred, Node node, Node node2, int index) {
+        Iterable<Edge> it = graph.getEdges(pred, node, node2, index);
+        return (it == null) ? Collections.emptyList() : it;
+    }
+
+    boolean member(Node node, List<Node> list) {
+        IDatatype dt = node.getDatatypeValue();
+        for (Node n : list) {
+            if (dt.equals(n.getDatatypeValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isTrue(IDatatype dt) {
+        return dt != null && dt.booleanValue();
+    }
+
+    /**
+     * Node of data graph with same value as shacl graph node
+     */
+    Node getDataNode(Node node) {
+        if (graph == shacl) {
+            return node;
+        }
+        return dataNode.computeIfAbsent(node, n -> graph.getNode(n));
+    }
+
+    boolean contains(ShaclShape sh, Node node) {
+        for (int i = 0; i < stackShape.size(); i++) {
+            if (stackShape.get(i) == sh && stackNode.get(i).getDatatypeValue().sameTerm(node.getDatatypeValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void push(ShaclShape sh, Node node) {
+        stackShape.add(sh);
+        stackNode.add(node);
+    }
+
+    void pop() {
+        stackShape.remove(stackShape.size() - 1);
+        stackNode.remove(stackNode.size() - 1);
+    }
+
+    // ____________________________________________________________________
+    //
+    // Validation report, cf report.rq
+
+    /**
+     * suc: success of the constraint
+     * vis: true means generate a validation result
+     * cst: shape of sh:node
+     */
+    void report(String oper, ShaclShape sh, ShaclShape cst, Node focus, IDatatype path, IDatatype value,
+            boolean suc, boolean vis) {
+        if (vis && !suc) {
+            result(oper, sh, cst, focus.getDatatypeValue(), path, value);
+        }
+    }
+
+    void result(String oper, ShaclShape sh, ShaclShape cst, IDatatype focus, IDatatype path, IDatatype value) {
+        resultList.add(new Result(oper, sh, cst, focus, path, value));
+    }
+
+    /**
+     * Write validation result in report graph
+     * return URI of validation result
+     */
+    IDatatype write(Graph report, IDatatype reportNode, Result r) {
+        String oper = r.oper;
+        ShaclShape sh = r.shape;
+        ShaclShape cst = r.cst;
+        IDatatype focus = r.focus;
+        IDatatype path = r.path;
+        IDatatype value = r.value;
+        IDatatype res = DatatypeMap.newResource(UUID_PREFIX + UUID.randomUUID());
+        report.insert(reportNode, RESULT, res);
+        report.insert(res, TYPE, VALIDATION_RESULT);
+        report.insert(res, RESULT_SEVERITY,
+                (sh.getSeverity() == null) ? VIOLATION : sh.getSeverity().getDatatypeValue());
+        report.insert(res, FOCUS_NODE, focus);
+        report.insert(res, RESULT_MESSAGE, message(sh, cst));
+        report.insert(res, SOURCE_CONSTRAINT_COMPONENT,
+                component.getOrDefault(oper, DatatypeMap.newResource(oper)));
+        report.insert(res, SOURCE_SHAPE, sh.getNode().getDatatypeValue());
+        if (path != null) {
+            report.insert(res, RESULT_PATH, path.isBlank() ? graphdt(path) : path);
+        }
+        if (value != null) {
+            report.insert(res, VALUE, value);
+            if (value.isBlank()) {
+                report.insert(res, VALUE_DETAIL, graphdt(value));
+            }
+        }
+        if (focus.isBlank()) {
+            report.insert(res, FOCUS_NODE_DETAIL, graphdt(focus));
+        }
+        return res;
+    }
+
+    IDatatype message(ShaclShape sh, ShaclShape cst) {
+        if (cst != null && cst.getMessage() != null) {
+            return cst.getMessage().getDatatypeValue();
+        }
+        if (sh.getMessage() != null) {
+            return sh.getMessage().getDatatypeValue();
+        }
+        IDatatype dt = (cst == null) ? sh.getNode().getDatatypeValue() : cst.getNode().getDatatypeValue();
+        return DatatypeMap.newInstance("Fail at: " + turtle(dt));
+    }
+
+    /**
+     * Turtle pretty print of blank node in shape graph
+     */
+    IDatatype graphdt(IDatatype dt) {
+        return DatatypeMap.newInstance(turtle(dt), XT_GRAPH);
+    }
+
+    String turtle(IDatatype dt) {
+        String str = turtle.get(dt.getLabel());
+        if (str == null) {
+            try {
+                if (transformer == null) {
+                    transformer = Transformer.create(shacl, Transformer.TURTLE);
+                }
+                IDatatype res = transformer.process(dt);
+                str = (res == null) ? dt.toString() : res.getLabel();
+            } catch (EngineException ex) {
+                logger.error(ex.getMessage());
+                str = dt.toString();
+            }
+            turtle.put(dt.getLabel(), str);
+        }
+        return str;
+    }
+
+    IDatatype blank(Graph report) {
+        return DatatypeMap.createBlank(report.newBlankID());
+    }
+
+    /**
+     * Validation result recorded during evaluation
+     */
+    static class Result {
+
+        String oper;
+        ShaclShape shape;
+        ShaclShape cst;
+        IDatatype focus;
+        IDatatype path;
+        IDatatype value;
+
+        Result(String oper, ShaclShape shape, ShaclShape cst, IDatatype focus, IDatatype path, IDatatype value) {
+            this.oper = oper;
+            this.shape = shape;
+            this.cst = cst;
+            this.focus = focus;
+            this.path = path;
+            this.value = value;
+        }
+    }
+
+    /**
+     * List of distinct nodes
+     */
+    static class NodeList {
+
+        private List<Node> list = new ArrayList<>();
+        private Set<Node> set = ShaclPath.identitySet();
+
+        void add(Node node) {
+            if (set.add(node)) {
+                list.add(node);
+            }
+        }
+
+        List<Node> getList() {
+            return list;
+        }
+    }
+
+}
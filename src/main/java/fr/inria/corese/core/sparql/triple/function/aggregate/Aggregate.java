@@ -113,6 +113,7 @@ public class Aggregate extends LDScript {
                 List<Node> nodes = env.getQuery().selectNodesFromPattern();
                 group = Group.create(nodes);
                 group.setDistinct(true);
+                group.setHash(Group.HASH);
             }
             else {
                 tree = Distinct.create();
@@ -4,8 +4,10 @@
  */
 package fr.inria.corese.core.sparql.triple.function.aggregate;
 
+import fr.inria.corese.core.kgram.core.Group;
 import fr.inria.corese.core.sparql.api.IDatatype;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.TreeMap;
 
 /**
@@ -26,12 +28,20 @@ public class Distinct {
         return new TreeData(); 
     }
 
+    /**
+     * count(distinct ?x)
+     * values are recorded in a hash set when Group.HASH
+     */
     class TreeData extends TreeMap<IDatatype, IDatatype> {
 
         boolean hasNull = false;
+        HashSet<Key> hashTable;
 
         TreeData() {
             super(new Compare());
+            if (Group.HASH && !compareIndex) {
+                hashTable = new HashSet<>();
+            }
         }
 
         boolean add(IDatatype dt) {
@@ -45,6 +55,10 @@ public class Distinct {
                 }
             }
 
+            if (hashTable != null) {
+                return hashTable.add(new Key(dt));
+            }
+
             if (containsKey(dt)) {
                 return false;
             }
@@ -53,6 +67,29 @@ public class Distinct {
         }
     }
 
+    class Key {
+
+        IDatatype dt;
+        int hash;
+
+        Key(IDatatype dt) {
+            this.dt = dt;
+            hash = Group.hashCode(dt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key
+                    && hash == ((Key) obj).hash
+                    && dt.compareTo(((Key) obj).dt) == 0;
+        }
+    }
+
     class Compare implements Comparator<IDatatype> {
 
         @Override
@@ -95,11 +95,22 @@ public class LoadTurtle {
             ast.setRenameBlankNode(c.isRenameBlankNode());
             parser.setASTQuery(ast);
             parser.set(c);
+            setCreator(c);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Parse another input with same parser, creator and base
+     */
+    public LoadTurtle reset(Reader r) {
+        parser.ReInit(r);
+        parser.setHandler(new ParserHandler());
+        parser.set(create);
+        return this;
+    }
+
     public void load() throws QueryLexicalException, QuerySyntaxException {
         try {
             //logger.info("start parser");
@@ -96,6 +96,7 @@ public class Metadata extends ASTObject
     public static final int PATH_TYPE = 73;
     public static final int SLICE = 74;
     public static final int FOCUS = 75;
+    public static final int CACHE = 76;
 
     static final String PREF = NSManager.KGRAM;
     public static final String DISPLAY_RDF_XML = PREF + "rdfxml";
@@ -239,6 +240,8 @@ public class Metadata extends ASTObject
         define("@browse", BROWSE);
         define("@merge", MERGE_SERVICE);
         define("@focus", FOCUS);
+        // @cache [false | ttl]: cache service results
+        define("@cache", CACHE);
         define("@format", FORMAT);
         // update query evaluated as select query
         define("@select", SELECT);
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -155,6 +156,8 @@ public class NSManager extends ASTObject {
     static final HashMap<String, Boolean> number;
 
     static HashMap<String, String> def; // system namespace with prefered prefix
+    // incremented when system namespaces change
+    private static final AtomicLong version = new AtomicLong();
     HashMap<String, Integer> index; // namespace -> number
     HashMap<String, String> tns; // namespace -> prefix
     HashMap<String, String> tprefix; // prefix -> namespace
@@ -1031,6 +1034,14 @@ public class NSManager extends ASTObject {
 
     public static void defineDefaultPrefix(String p, String ns) {
         def.put(ns, p);
+        version.incrementAndGet();
+    }
+
+    /**
+     * use case: compiled queries depend on system namespaces
+     */
+    public static long getVersion() {
+        return version.get();
     }
 
     public HashMap<String, String> getRecordedPrefix() {
@@ -4,6 +4,7 @@ import fr.inria.corese.core.sparql.api.IDatatype;
 import fr.inria.corese.core.kgram.core.Query;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Set;
 
 /**
  * Keep track of nodes already printed to prevent loop Variant: check the pair
@@ -85,6 +86,52 @@ public static int count = 0;
     
     
      /**
+     * Check whether one of the frames (focus node, template) is in the stack
+     */
+    boolean contains(Set<Frame> frames) {
+        if (frames.isEmpty()) {
+            return false;
+        }
+        // map keeps focus nodes with empty template list after pop
+        for (IDatatype dt : list) {
+            for (Query q : map.get(dt)) {
+                if (frames.contains(new Frame(dt, q))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Template q tried on focus node dt
+     */
+    static class Frame {
+
+        private final IDatatype dt;
+        private final Query q;
+
+        Frame(IDatatype dt, Query q) {
+            this.dt = dt;
+            this.q = q;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * dt.hashCode() + System.identityHashCode(q);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Frame)) {
+                return false;
+            }
+            Frame f = (Frame) obj;
+            return q == f.q && dt.equals(f.dt);
+        }
+    }
+
+    /**
      * Check whether template q already applied on dt focus and possibly args
      */
     boolean contains(IDatatype dt, IDatatype[] args, Query q) {
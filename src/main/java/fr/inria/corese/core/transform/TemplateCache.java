@@ -0,0 +1,214 @@
+package fr.inria.corese.core.transform;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import fr.inria.corese.core.sparql.api.IDatatype;
+
+/**
+ * Cache of template results of a Transformer
+ * key = template name (null for st:apply-templates) + all templates +
+ * separator + focus node + arguments, RDF terms are compared with sameTerm
+ * value = result + frames (focus node, template) tried and focus nodes visited
+ * to compute the result
+ * A result is reused only when none of its frames is in the template stack:
+ * otherwise the loop check of the stack may give another result. Results
+ * with more than FRAME_MAX frames are not cached.
+ * Cache is cleared when the graph version changes (edge insert, delete).
+ * Least recently used entries are evicted when there are more than SIZE_MAX
+ * entries.
+ */
+public class TemplateCache {
+
+    // max number of cached results (property TRANSFORMER_TEMPLATE_CACHE_SIZE)
+    public static int SIZE_MAX = 10000;
+    // max number of frames of a cached result
+    public static int FRAME_MAX = 100;
+
+    private final LinkedHashMap<Key, Entry> cache;
+    private long version;
+    private long hit = 0;
+    private long miss = 0;
+
+    TemplateCache(long version) {
+        // access order for LRU eviction
+        cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SIZE_MAX;
+            }
+        };
+        this.version = version;
+    }
+
+    /**
+     * Return cached entry or null, clear cache if graph version changed
+     */
+    synchronized Entry get(long version, Key key) {
+        check(version);
+        return cache.get(key);
+    }
+
+    synchronized void put(long version, Key key, Entry entry) {
+        if (version == this.version) {
+            cache.put(key, entry);
+        }
+    }
+
+    void check(long version) {
+        if (version != this.version) {
+            cache.clear();
+            this.version = version;
+        }
+    }
+
+    synchronized void hit() {
+        hit++;
+    }
+
+    synchronized void miss() {
+        miss++;
+    }
+
+    public synchronized long getHit() {
+        return hit;
+    }
+
+    public synchronized long getMiss() {
+        return miss;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        hit = 0;
+        miss = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("template cache: size %s hit %s miss %s", cache.size(), hit, miss);
+    }
+
+    static class Key {
+
+        private final String name;
+        private final boolean all;
+        private final String sep;
+        private final IDatatype[] term;
+        private final int hash;
+
+        Key(String name, boolean all, String sep, IDatatype dt, IDatatype[] args) {
+            this.name = name;
+            this.all = all;
+            this.sep = sep;
+            if (args == null) {
+                term = new IDatatype[]{dt};
+            } else {
+                term = Arrays.copyOf(args, args.length + 1);
+                term[args.length] = dt;
+            }
+            int h = Objects.hash(name, all, sep);
+            for (IDatatype t : term) {
+                h = 31 * h + (t == null ? 0 : t.getLabel().hashCode());
+            }
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) obj;
+            if (all != k.all || !Objects.equals(name, k.name) || !Objects.equals(sep, k.sep)
+                    || term.length != k.term.length) {
+                return false;
+            }
+            for (int i = 0; i < term.length; i++) {
+                if (term[i] == null || k.term[i] == null) {
+                    if (term[i] != k.term[i]) {
+                        return false;
+                    }
+                } else if (!term[i].sameTerm(k.term[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static class Entry {
+
+        private final IDatatype result;
+        private final Trace trace;
+
+        Entry(IDatatype result, Trace trace) {
+            this.result = result;
+            this.trace = trace;
+        }
+
+        IDatatype getResult() {
+            return result;
+        }
+
+        Trace getTrace() {
+            return trace;
+        }
+    }
+
+    /**
+     * Frames (focus node, template) tried and focus nodes visited by a
+     * template call, visited nodes are visited again when the result is reused
+     */
+    static class Trace {
+
+        private final Set<Stack.Frame> frames = new HashSet<>();
+        private final Set<IDatatype> visited = new HashSet<>();
+
+        Set<Stack.Frame> getFrames() {
+            return frames;
+        }
+
+        Set<IDatatype> getVisited() {
+            return visited;
+        }
+
+        /**
+         * Return false when there are more than FRAME_MAX frames
+         */
+        boolean add(Trace t) {
+            if (frames.size() + t.getFrames().size() > FRAME_MAX) {
+                return false;
+            }
+            frames.addAll(t.getFrames());
+            visited.addAll(t.getVisited());
+            return true;
+        }
+
+        boolean add(Stack.Frame f) {
+            if (frames.size() >= FRAME_MAX) {
+                return false;
+            }
+            frames.add(f);
+            return true;
+        }
+
+        void visit(IDatatype dt) {
+            visited.add(dt);
+        }
+    }
+
+}
@@ -128,6 +128,8 @@ public class Transformer implements TransformProcessor {
     private static boolean isOptimizeDefault = false;
     private static boolean isExplainDefault = false;
     public static boolean DEFAULT_DEBUG = false;
+    // cache template results (property TRANSFORMER_TEMPLATE_CACHE)
+    public static boolean TEMPLATE_CACHE = false;
     public static int count = 0;
     static HashMap<String, Boolean> dmap;
     // private TemplateVisitor visitor;
@@ -193,6 +195,10 @@ public class Transformer implements TransformProcessor {
     private boolean starting = true;
     private Level AccessLevel = Level.USER_DEFAULT;
     private boolean event = true;
+    // template results keyed by template, focus node and arguments
+    private TemplateCache templateCache;
+    // frames tried and nodes visited by template calls being cached
+    private ArrayList<TemplateCache.Trace> traceList;
 
     Transformer() {
     }
@@ -215,6 +221,7 @@ public class Transformer implements TransformProcessor {
         loaded = new HashMap<>();
         imported = new HashMap<>();
         tmap = new TransformerMapping(qp.getGraph());
+        setTemplateCache(TEMPLATE_CACHE);
         setDebug(p);
         try {
             setEventVisitor(QuerySolverVisitorTransformer.create(this, qp.getCreateEval()));
@@ -441,6 +448,10 @@ public class Transformer implements TransformProcessor {
         graph = qp.getGraph();
         exec = qp;
         tune(exec);
+        if (templateCache != null) {
+            // results of another graph
+            templateCache.clear();
+        }
     }
 
     public QueryProcess getQueryProcess() {
@@ -596,6 +607,36 @@ public class Transformer implements TransformProcessor {
         levelMax = n;
     }
 
+    /**
+     * Cache results of st:apply-templates and st:call-template by template,
+     * focus node and arguments. Templates are assumed to have no side effect
+     * and not to depend on st:set/st:get context.
+     */
+    public void setTemplateCache(boolean b) {
+        if (b) {
+            if (templateCache == null) {
+                templateCache = new TemplateCache((graph == null) ? 0 : graph.getVersion());
+                traceList = new ArrayList<>();
+            }
+        } else {
+            templateCache = null;
+            traceList = null;
+        }
+    }
+
+    /**
+     * Template cache with hit and miss statistics, null if cache is not
+     * active
+     */
+    public TemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    boolean isTemplateCache() {
+        return templateCache != null && levelMax == Integer.MAX_VALUE
+                && graph != null && !exec.hasDataManager();
+    }
+
     public void setProcess(int type) {
         process = type;
     }
@@ -900,6 +941,91 @@ public class Transformer implements TransformProcessor {
     public IDatatype process(String temp, boolean allTemplates, String sep,
             Expr exp, Environment env, IDatatype dt, IDatatype[] args)
             throws EngineException {
+        if (dt != null && stack.size() > 0 && isTemplateCache()) {
+            return cacheProcess(temp, allTemplates, sep, exp, env, dt, args);
+        }
+        return basicProcess(temp, allTemplates, sep, exp, env, dt, args);
+    }
+
+    /**
+     * Template call in a template: reuse cached result if none of the frames
+     * (focus node, template) tried to compute it is in the stack, and visit
+     * again the focus nodes visited to compute it. Otherwise compute result
+     * and cache it if none of the tried frames is in the stack.
+     * A call that tries more than TemplateCache.FRAME_MAX frames is not cached,
+     * nor are the calls that contain it.
+     */
+    IDatatype cacheProcess(String temp, boolean allTemplates, String sep,
+            Expr exp, Environment env, IDatatype dt, IDatatype[] args)
+            throws EngineException {
+        long version = graph.getVersion();
+        TemplateCache.Key key = new TemplateCache.Key(temp, allTemplates, sep, dt, args);
+        TemplateCache.Entry entry = templateCache.get(version, key);
+        if (entry != null && !stack.contains(entry.getTrace().getFrames())) {
+            count++;
+            templateCache.hit();
+            for (IDatatype node : entry.getTrace().getVisited()) {
+                stack.visit(node);
+            }
+            addTrace(entry.getTrace());
+            return entry.getResult();
+        }
+        templateCache.miss();
+        traceList.add(new TemplateCache.Trace());
+        IDatatype res;
+        TemplateCache.Trace trace;
+        try {
+            res = basicProcess(temp, allTemplates, sep, exp, env, dt, args);
+        } finally {
+            trace = traceList.remove(traceList.size() - 1);
+        }
+        addTrace(trace);
+        if (res != null && trace != null && !stack.contains(trace.getFrames())) {
+            templateCache.put(version, key, new TemplateCache.Entry(res, trace));
+        }
+        return res;
+    }
+
+    /**
+     * Current trace of template call being cached, null if none or if it has
+     * too many frames
+     */
+    TemplateCache.Trace getTrace() {
+        if (traceList == null || traceList.isEmpty()) {
+            return null;
+        }
+        return traceList.get(traceList.size() - 1);
+    }
+
+    /**
+     * Record trace of nested template call in current trace
+     * trace = null: too many frames, template call is not cached
+     */
+    void addTrace(TemplateCache.Trace trace) {
+        TemplateCache.Trace current = getTrace();
+        if (current != null && (trace == null || !current.add(trace))) {
+            traceList.set(traceList.size() - 1, null);
+        }
+    }
+
+    void addFrame(IDatatype dt, Query q) {
+        TemplateCache.Trace current = getTrace();
+        if (current != null && !current.add(new Stack.Frame(dt, q))) {
+            traceList.set(traceList.size() - 1, null);
+        }
+    }
+
+    void visit(IDatatype dt) {
+        stack.visit(dt);
+        TemplateCache.Trace current = getTrace();
+        if (current != null) {
+            current.visit(dt);
+        }
+    }
+
+    IDatatype basicProcess(String temp, boolean allTemplates, String sep,
+            Expr exp, Environment env, IDatatype dt, IDatatype[] args)
+            throws EngineException {
         count++;
         if (dt == null) {
             return EMPTY;
@@ -972,6 +1098,7 @@ public class Transformer implements TransformProcessor {
                     }
                 }
 
+                addFrame(dt, qq);
                 if (!qq.isFail() && !stack.contains(dt, args, qq)) {
 
                     nbt++;
@@ -1001,7 +1128,7 @@ public class Transformer implements TransformProcessor {
 
                     Mappings map = exec.query(qq, bm);
                     save(map);
-                    stack.visit(dt);
+                    visit(dt);
                     stack.pop();
                     IDatatype res = getResult(map);
 
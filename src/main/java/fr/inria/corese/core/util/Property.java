@@ -27,25 +27,37 @@ import fr.inria.corese.core.compiler.federate.FederateVisitor;
 import fr.inria.corese.core.compiler.federate.RewriteBGPList;
 import fr.inria.corese.core.compiler.federate.SelectorFilter;
 import fr.inria.corese.core.compiler.federate.SelectorIndex;
+import fr.inria.corese.core.compiler.federate.SourceIndex;
 import fr.inria.corese.core.EdgeFactory;
 import fr.inria.corese.core.Graph;
 import fr.inria.corese.core.NodeImpl;
+import fr.inria.corese.core.index.EdgeManager;
 import fr.inria.corese.core.index.EdgeManagerIndexer;
 import fr.inria.corese.core.load.Load;
 import fr.inria.corese.core.load.LoadException;
 import fr.inria.corese.core.load.QueryLoad;
 import fr.inria.corese.core.load.Service;
 import fr.inria.corese.core.load.ServiceParser;
+import fr.inria.corese.core.logic.Closure;
 import fr.inria.corese.core.producer.DataFilter;
 import fr.inria.corese.core.query.CompileService;
 import fr.inria.corese.core.query.MatcherImpl;
 import fr.inria.corese.core.query.ProviderService;
+import fr.inria.corese.core.query.ProducerImpl;
+import fr.inria.corese.core.query.QueryPlanCache;
 import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.query.ServiceCache;
+import fr.inria.corese.core.query.ServiceScheduler;
 import fr.inria.corese.core.rule.RuleEngine;
+import fr.inria.corese.core.shacl.Shacl;
+import fr.inria.corese.core.shacl.ShaclValidator;
+import fr.inria.corese.core.transform.TemplateCache;
 import fr.inria.corese.core.transform.Transformer;
 import fr.inria.corese.core.visitor.solver.QuerySolverVisitorRule;
 import fr.inria.corese.core.visitor.solver.QuerySolverVisitorTransformer;
 import fr.inria.corese.core.kgram.core.Eval;
+import fr.inria.corese.core.kgram.core.EvalJoin;
+import fr.inria.corese.core.kgram.core.Group;
 import fr.inria.corese.core.kgram.core.Mappings;
 import fr.inria.corese.core.kgram.core.Query;
 import fr.inria.corese.core.sparql.api.IDatatype;
@@ -102,6 +114,7 @@ public class Property {
     static final String SEP = ";";
     static final String EQ = "=";
     private static final String STD = "std";
+    private static final String STATS = "stats";
 
     private Map<Value, Boolean> booleanProperty;
     private Map<Value, String> stringProperty;
@@ -152,6 +165,14 @@ public class Property {
         FEDERATE_INDEX_PATTERN,
         FEDERATE_INDEX_SUCCESS,
         FEDERATE_INDEX_LENGTH,
+        // file path of local source selection index
+        FEDERATE_SOURCE_INDEX,
+        // integer value: time to live in seconds of source index entry
+        FEDERATE_SOURCE_INDEX_TTL,
+        // integer value: period in seconds of background refresh of expired source index entries
+        FEDERATE_SOURCE_INDEX_REFRESH,
+        // integer value: period in seconds of background save of source index
+        FEDERATE_SOURCE_INDEX_SAVE,
 
         FEDERATE_BLACKLIST,
         FEDERATE_BLACKLIST_EXCEPT,
@@ -176,6 +197,12 @@ public class Property {
         GRAPH_INDEX_END,
         GRAPH_INDEX_TRANSITIVE,
         GRAPH_INDEX_LOAD_SKIP,
+        // edge index store edges as packed int columns
+        GRAPH_INDEX_PACKED,
+        // insert edge of sorted edge index in sorted delta merged on read
+        GRAPH_INDEX_DELTA,
+        // delta size that trigger merge
+        GRAPH_INDEX_DELTA_SIZE,
         // rdf* draft
         RDF_STAR,
         // enforce compliance: no literal as subject
@@ -206,7 +233,7 @@ public class Property {
         LOG_RULE_CLEAN,
 
         SOLVER_SORT_CARDINALITY,
-        SOLVER_QUERY_PLAN, // STD | ADVANCED
+        SOLVER_QUERY_PLAN, // STD | ADVANCED | STATS
         // string value
         SOLVER_VISITOR,
         SOLVER_OVERLOAD,
@@ -222,6 +249,36 @@ public class Property {
         DATATYPE_ENTAILMENT,
         SPARQL_COMPLIANT,
         SPARQL_ORDER_UNBOUND_FIRST,
+        // join Mappings with hash table (default true)
+        SPARQL_HASH_JOIN,
+        // distinct and group by (with order by) with hash table (default true)
+        SPARQL_HASH_GROUP,
+        // order by limit keep best results only during query processing (default true)
+        SPARQL_TOP_K,
+        // integer value: max limit + offset for SPARQL_TOP_K
+        SPARQL_TOP_K_MAX,
+        // s p+ o and s p* o with bound s and o answered by reachability index (default false)
+        SPARQL_PATH_REACHABILITY,
+        // s p ?o with filter contains, strstarts, regex, langMatches on ?o
+        // answered by text index of p (default false)
+        SPARQL_TEXT_INDEX,
+        // relax query: approximate search on s p ?o pruned to candidates of
+        // text index of p, may lose solutions (default false)
+        SPARQL_APPROXIMATE_INDEX,
+        // cache compiled queries of QueryProcess query(String)
+        QUERY_PLAN_CACHE,
+        // integer value: max number of cached query text per graph
+        QUERY_PLAN_CACHE_SIZE,
+        // cache results of st:apply-templates and st:call-template (default false)
+        TRANSFORMER_TEMPLATE_CACHE,
+        // integer value: max number of cached template results
+        TRANSFORMER_TEMPLATE_CACHE_SIZE,
+        // SHACL Core shape graph evaluated by native validator (default false)
+        SHACL_NATIVE,
+        // native SHACL validator evaluates focus nodes in parallel (default false)
+        SHACL_PARALLEL,
+        // integer value: number of threads of SHACL_PARALLEL
+        SHACL_PARALLEL_THREAD,
 
         OWL_AUTO_IMPORT,
         OWL_CLEAN,
@@ -230,6 +287,8 @@ public class Property {
 
         RULE_TRANSITIVE_FUNCTION,
         RULE_TRANSITIVE_OPTIMIZE,
+        // transitive closure of rule engine computed with reachability index (default false)
+        RULE_TRANSITIVE_REACHABILITY,
         // rule engine use edge index with data manager
         RULE_DATAMANAGER_OPTIMIZE,
         // replace kg:rule_i by kg:rule
@@ -237,6 +296,8 @@ public class Property {
         // for testing edge iterator filter edge index
         RULE_DATAMANAGER_FILTER_INDEX,
         RULE_TRACE,
+        // rule engine evaluate independent rules in parallel
+        RULE_PARALLEL,
 
         FUNCTION_PARAMETER_MAX,
 
@@ -260,6 +321,11 @@ public class Property {
         // integer value
         // max number of triples for each rdf file load
         LOAD_LIMIT,
+        // N-Triples and N-Quads parsed without SPARQL parser (default true)
+        LOAD_NTRIPLES_PARSER,
+        // integer value
+        // number of threads for large local N-Triples and N-Quads files
+        LOAD_PARALLEL,
         LOAD_WITH_PARAMETER,
         LOAD_DATASET,
         LOAD_QUERY,
@@ -284,6 +350,21 @@ public class Property {
         SERVICE_DISPLAY_RESULT,
         SERVICE_DISPLAY_MESSAGE,
         SERVICE_HEADER,
+        // SPARQL XML/JSON service result parsed from response stream (default true)
+        SERVICE_RESULT_STREAM,
+        // cache remote service results (see also @cache metadata)
+        SERVICE_CACHE,
+        // integer values
+        // max number of threads for parallel service evaluation
+        SERVICE_THREAD_MAX,
+        // max number of concurrent HTTP requests to same endpoint
+        SERVICE_ENDPOINT_MAX,
+        // max number of slices of bindings sent ahead of time to same endpoint
+        SERVICE_SLICE_MAX,
+        // service cache: max number of results, max size of results, time to live in seconds
+        SERVICE_CACHE_SIZE,
+        SERVICE_CACHE_BYTE,
+        SERVICE_CACHE_TTL,
 
         // service result may be RDF graph (e.g. when format=turtle)
         // apply service query on the graph
@@ -547,6 +628,10 @@ public class Property {
                 Service.LOAD_WITH_PARAMETER = b;
                 break;
 
+            case LOAD_NTRIPLES_PARSER:
+                Load.NTRIPLES_PARSER = b;
+                break;
+
             case DISPLAY_URI_AS_PREFIX:
                 Constant.DISPLAY_AS_PREFIX = b;
                 CoreseDatatype.DISPLAY_AS_PREFIX = b;
@@ -584,6 +669,14 @@ public class Property {
                 EdgeManagerIndexer.RECORD_END = b;
                 break;
 
+            case GRAPH_INDEX_PACKED:
+                Graph.PACKED_EDGE_DEFAULT = b;
+                break;
+
+            case GRAPH_INDEX_DELTA:
+                EdgeManager.DELTA = b;
+                break;
+
             case RDF_STAR_TRIPLE:
                 EdgeFactory.EDGE_TRIPLE_NODE = b;
                 EdgeFactory.OPTIMIZE_EDGE = !b;
@@ -622,6 +715,46 @@ public class Property {
                 Mappings.setOrderUnboundFirst(b);
                 break;
 
+            case SPARQL_HASH_JOIN:
+                EvalJoin.HASH_JOIN = b;
+                break;
+
+            case SPARQL_HASH_GROUP:
+                Group.HASH = b;
+                break;
+
+            case SPARQL_TOP_K:
+                Mappings.TOP_K = b;
+                break;
+
+            case SPARQL_PATH_REACHABILITY:
+                ProducerImpl.PATH_REACHABILITY = b;
+                break;
+
+            case SPARQL_TEXT_INDEX:
+                ProducerImpl.TEXT_INDEX = b;
+                break;
+
+            case SPARQL_APPROXIMATE_INDEX:
+                ProducerImpl.APPROXIMATE_INDEX = b;
+                break;
+
+            case RULE_TRANSITIVE_REACHABILITY:
+                Closure.REACHABILITY = b;
+                break;
+
+            case QUERY_PLAN_CACHE:
+                QueryPlanCache.CACHE = b;
+                break;
+
+            case SHACL_NATIVE:
+                Shacl.NATIVE = b;
+                break;
+
+            case SHACL_PARALLEL:
+                Shacl.PARALLEL = b;
+                break;
+
             case REENTRANT_QUERY:
                 QueryProcess.setOverwrite(b);
                 break;
@@ -651,6 +784,10 @@ public class Property {
                 Transformer.setDefaultDebug(b);
                 break;
 
+            case TRANSFORMER_TEMPLATE_CACHE:
+                Transformer.TEMPLATE_CACHE = b;
+                break;
+
             case SOLVER_DEBUG:
                 Exp.DEBUG_DEFAULT = b;
                 break;
@@ -734,6 +871,14 @@ public class Property {
                 ServiceParser.DISPLAY_MESSAGE = b;
                 break;
 
+            case SERVICE_RESULT_STREAM:
+                Service.RESULT_STREAM = b;
+                break;
+
+            case SERVICE_CACHE:
+                ServiceCache.CACHE = b;
+                break;
+
             case STRICT_MODE:
                 ASTQuery.STRICT_MODE = b;
                 break;
@@ -785,6 +930,10 @@ public class Property {
                 getSingleton().setIndexSkip(str);
                 break;
 
+            case FEDERATE_SOURCE_INDEX:
+                SourceIndex.define(str);
+                break;
+
             case FEDERATE_BLACKLIST:
                 getSingleton().blacklist(str);
                 break;
@@ -952,6 +1101,54 @@ public class Property {
                 Load.setLimitDefault(n);
                 break;
 
+            case LOAD_PARALLEL:
+                Load.setParallelDefault(n);
+                break;
+
+            case GRAPH_INDEX_DELTA_SIZE:
+                EdgeManager.DELTA_MAX = n;
+                break;
+
+            case SPARQL_TOP_K_MAX:
+                Mappings.TOP_K_MAX = n;
+                break;
+
+            case QUERY_PLAN_CACHE_SIZE:
+                QueryPlanCache.SIZE_MAX = n;
+                break;
+
+            case TRANSFORMER_TEMPLATE_CACHE_SIZE:
+                TemplateCache.SIZE_MAX = n;
+                break;
+
+            case SHACL_PARALLEL_THREAD:
+                ShaclValidator.PARALLEL_THREAD = Math.max(1, n);
+                break;
+
+            case SERVICE_THREAD_MAX:
+                ServiceScheduler.THREAD_MAX = n;
+                break;
+
+            case SERVICE_ENDPOINT_MAX:
+                ServiceScheduler.ENDPOINT_MAX = n;
+                break;
+
+            case SERVICE_SLICE_MAX:
+                ServiceScheduler.SLICE_MAX = n;
+                break;
+
+            case SERVICE_CACHE_SIZE:
+                ServiceCache.SIZE_MAX = n;
+                break;
+
+            case SERVICE_CACHE_BYTE:
+                ServiceCache.BYTE_MAX = n;
+                break;
+
+            case SERVICE_CACHE_TTL:
+                ServiceCache.TTL_DEFAULT = n;
+                break;
+
             case FUNCTION_PARAMETER_MAX:
                 ASTExtension.FUNCTION_PARAMETER_MAX = n;
                 break;
@@ -959,6 +1156,21 @@ public class Property {
             case FEDERATE_INDEX_LENGTH:
                 FederateVisitor.NB_ENDPOINT = n;
                 break;
+
+            case FEDERATE_SOURCE_INDEX_TTL:
+                SourceIndex.TTL = n;
+                if (SourceIndex.getSingleton() != null) {
+                    SourceIndex.getSingleton().setTimeToLive(n);
+                }
+                break;
+
+            case FEDERATE_SOURCE_INDEX_REFRESH:
+                SourceIndex.defineRefresh(QueryProcess.create(), n);
+                break;
+
+            case FEDERATE_SOURCE_INDEX_SAVE:
+                SourceIndex.SAVE = n;
+                break;
         }
     }
 
@@ -1003,6 +1215,9 @@ public class Property {
             case STD:
                 QuerySolver.QUERY_PLAN = Query.QP_DEFAULT;
                 break;
+            case STATS:
+                QuerySolver.QUERY_PLAN = Query.QP_STATS_BASED;
+                break;
             default:
                 QuerySolver.QUERY_PLAN = Query.QP_HEURISTICS_BASED;
                 break;
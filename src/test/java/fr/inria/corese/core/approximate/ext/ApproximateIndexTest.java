@@ -0,0 +1,72 @@
+package fr.inria.corese.core.approximate.ext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.ProducerImpl;
+import fr.inria.corese.core.query.QueryProcess;
+
+/**
+ * Approximate search of relax query pruned by graph text index
+ */
+public class ApproximateIndexTest {
+
+    static final String PREFIX = "prefix us: <http://example.org/> ";
+    static final String QUERY = PREFIX + "@relax select * (xt:sim() as ?s) where { ?x rdfs:label '%s' } %s";
+
+    Graph init() throws Exception {
+        Graph g = Graph.create();
+        QueryProcess.create(g).query(PREFIX + "insert data { "
+                + "us:a rdfs:label 'John' . us:b rdfs:label 'Johnny' . us:c rdfs:label 'Jon Snow' . "
+                + "us:d rdfs:label 'Jim' . us:e rdfs:label 'Jan' . us:f rdfs:label 'Mary' . "
+                + "us:g rdfs:label 'Johannes'@de }");
+        return g;
+    }
+
+    Set<String> select(QueryProcess exec, String term, String pragma) throws Exception {
+        Mappings map = exec.query(String.format(QUERY, term, pragma));
+        Set<String> set = new HashSet<>();
+        for (Mapping m : map) {
+            set.add(m.getValue("?x").getLabel());
+        }
+        return set;
+    }
+
+    @Test
+    public void testCandidate() throws Exception {
+        QueryProcess exec = QueryProcess.create(init());
+        Set<String> std = select(exec, "Johnn", "");
+        Set<String> shortStd = select(exec, "Jo", "");
+        try {
+            ProducerImpl.APPROXIMATE_INDEX = true;
+            Set<String> res = select(exec, "Johnn", "");
+            assertTrue(std.containsAll(res));
+            assertTrue(res.contains("http://example.org/a"));
+            assertTrue(res.contains("http://example.org/b"));
+            // no trigram in common
+            assertTrue(std.contains("http://example.org/d"));
+            assertFalse(res.contains("http://example.org/d"));
+            // term shorter than trigram: no pruning
+            assertEquals(shortStd, select(exec, "Jo", ""));
+
+            res = select(exec, "Johnn", "pragma { kg:approximate kg:candidate_max 1 }");
+            assertEquals(Set.of("http://example.org/b"), res);
+            res = select(exec, "Johnny", "pragma { kg:approximate kg:candidate_max 0 ; kg:candidate_recall 0.5 }");
+            assertEquals(Set.of("http://example.org/a", "http://example.org/b"), res);
+            // pragma of previous query does not apply
+            assertTrue(select(exec, "Johnn", "").size() > 1);
+        } finally {
+            ProducerImpl.APPROXIMATE_INDEX = false;
+        }
+    }
+
+}
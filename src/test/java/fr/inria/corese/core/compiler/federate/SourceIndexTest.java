@@ -0,0 +1,126 @@
+package fr.inria.corese.core.compiler.federate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.kgram.core.Query;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+import fr.inria.corese.core.sparql.triple.parser.ASTQuery;
+
+/**
+ * Source selection found in source index does not probe endpoints
+ */
+public class SourceIndexTest {
+
+    static final String E1 = "http://example.org/e1";
+    static final String E2 = "http://example.org/e2";
+    static final String P = "?v0 <http://example.org/p> ?v1 .";
+    static final String Q = "?v0 <http://example.org/q> ?v1 .";
+    static final String PQ = "?v0 <http://example.org/p> ?v1 . ?v1 <http://example.org/q> ?v2 .";
+
+    @Test
+    public void testSelection() throws EngineException {
+        SourceIndex index = new SourceIndex();
+        index.put(E1, P, true);
+        index.put(E2, P, false);
+        index.put(E1, Q, false);
+        index.put(E2, Q, true);
+        index.put(E1, PQ, false);
+        index.put(E2, PQ, false);
+        int size = index.size();
+        SourceIndex save = SourceIndex.getSingleton();
+        SourceIndex.setSingleton(index);
+        try {
+            QueryProcess exec = QueryProcess.create(Graph.create());
+            Query q = exec.compile(String.format("prefix us: <http://example.org/> @federate <%s> <%s> "
+                    + "select * where { ?x us:p ?y . ?y us:q ?z }", E1, E2));
+            ASTQuery ast = q.getAST();
+            String str = ast.toString();
+            assertTrue(str, str.contains("service <" + E1 + ">"));
+            assertTrue(str, str.contains("service <" + E2 + ">"));
+            assertEquals(2, ast.getServiceList().size());
+            // no probe recorded
+            assertEquals(size, index.size());
+            // selection binds ?serv and index values of p, q and join: it can be reused
+            Mappings map = ast.getLog().getSelectMap();
+            assertEquals(2, map.size());
+            for (Mapping m : map) {
+                assertEquals(4, m.getVariableNames().size());
+            }
+        } finally {
+            SourceIndex.setSingleton(save);
+        }
+    }
+
+    /**
+     * @count selection binds number of results: source index is not used
+     */
+    @Test
+    public void testCount() throws EngineException {
+        SourceIndex index = new SourceIndex();
+        index.put(E1, P, true);
+        index.put(E2, P, false);
+        SourceIndex save = SourceIndex.getSingleton();
+        SourceIndex.setSingleton(index);
+        try {
+            QueryProcess exec = QueryProcess.create(Graph.create());
+            Query q = exec.compile(String.format("prefix us: <http://example.org/> @count @federate <%s> <%s> "
+                    + "select * where { ?x us:p ?y }", E1, E2));
+            Mappings map = q.getAST().getLog().getSelectMap();
+            for (Mapping m : map) {
+                // endpoints are not reachable: no value from source index
+                assertNull(m.getValue("?v_0"));
+                assertNull(m.getValue("?b0"));
+            }
+        } finally {
+            SourceIndex.setSingleton(save);
+        }
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        File file = File.createTempFile("source", ".idx");
+        SourceIndex save = SourceIndex.getSingleton();
+        try {
+            SourceIndex index = new SourceIndex(file.getPath());
+            index.put(E1, P, true);
+            index.put(E2, "?v0 <http://example.org/p> \"a\tb\\nc\" .", false);
+            index.saveModified();
+
+            SourceIndex index2 = SourceIndex.define(file.getPath());
+            assertEquals(2, index2.size());
+            assertEquals(true, index2.get(E1, P));
+            assertEquals(false, index2.get(E2, "?v0 <http://example.org/p> \"a\tb\\nc\" ."));
+            index2.setTimeToLive(-1);
+            assertNull(index2.get(E1, P));
+            assertEquals(2, index2.expired().size());
+
+            // modified index is saved when it is stopped
+            index2.put(E2, Q, true);
+            SourceIndex.shutdown();
+            // line with incorrect time is skipped
+            Files.writeString(file.toPath(), String.format("%s\tnow\t1\t%s%n", E1, Q), StandardOpenOption.APPEND);
+            SourceIndex index3 = SourceIndex.define(file.getPath());
+            assertEquals(3, index3.size());
+            assertEquals(true, index3.get(E2, Q));
+            assertNull(index3.get(E1, Q));
+        } finally {
+            SourceIndex.define(null);
+            SourceIndex.setSingleton(save);
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Group;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Distinct and group by with hash table must return same results as with TreeMap
+ */
+public class HashGroupTest {
+
+    static final String init = "insert data {"
+            + "us:a us:p 1, 01, 1.0, '1', '1'@en, 'a', 'a'@en, 'a'@fr, us:b, _:b1 ."
+            + "us:b us:p 1, '1', 2, 02, 'a'@en ."
+            + "us:c us:p 1, 1e0, true, '1'^^xsd:boolean, '2020-01-01'^^xsd:date ."
+            + "graph us:g { us:a us:p 1, 2, 'a' . us:c us:q 3 }"
+            + "}";
+
+    static final String[] queries = {
+        "select distinct ?o where { ?s us:p ?o }",
+        "select distinct ?s ?o where { graph ?g { ?s ?p ?o } }",
+        "select ?o (count(*) as ?c) where { ?s us:p ?o } group by ?o order by ?c",
+        "select ?s ?o (count(*) as ?c) where { ?s us:p ?o } group by ?s ?o order by ?s ?c",
+        "select ?s (count(distinct ?o) as ?c) (count(distinct *) as ?d) where { ?s ?p ?o } group by ?s order by ?s",
+        "select distinct (str(?o) as ?l) where { ?s us:p ?o } order by ?l",
+        "select ?o (group_concat(?s) as ?c) where { ?s us:p ?o } group by ?o order by desc(?c) ?o"
+    };
+
+    List<String> list(Mappings map) {
+        List<String> list = new ArrayList<>();
+        for (Mapping m : map) {
+            list.add(m.toString());
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    @Test
+    public void testHash() throws EngineException {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query(init);
+        boolean b = Group.HASH;
+        try {
+            for (String q : queries) {
+                Group.HASH = false;
+                Mappings m1 = exec.query(q);
+                Group.HASH = true;
+                Mappings m2 = exec.query(q);
+                // order of groups with same order by key may differ
+                assertEquals(q, list(m1), list(m2));
+            }
+        } finally {
+            Group.HASH = b;
+        }
+    }
+
+}
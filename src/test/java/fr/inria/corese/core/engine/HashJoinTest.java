@@ -0,0 +1,142 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.api.Loader;
+import fr.inria.corese.core.kgram.core.Eval;
+import fr.inria.corese.core.kgram.core.EvalJoin;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.load.Load;
+import fr.inria.corese.core.load.LoadException;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Hash join must return same results as sort based join
+ * testLargeJoin compare both join on large Mappings
+ * testBenchmark time both join on large Mappings (ignored by default)
+ */
+public class HashJoinTest {
+
+    private static Logger logger = LoggerFactory.getLogger(HashJoinTest.class);
+
+    static final int SIZE = 50000;
+
+    static final String LARGE_QUERY = "prefix us: <http://www.inria.fr/test/> "
+            + "select * where {{?s us:p ?o} {?o us:q ?v}}";
+
+    static final String init = "insert data {"
+            + "us:John foaf:knows us:Jim, us:James ; foaf:age 20 ."
+            + "us:Jim foaf:knows us:Jack ; foaf:age 30 ."
+            + "us:Jack foaf:age 20 ."
+            + "}";
+
+    static final String[] queries = {
+        "select * where {{?s foaf:knows ?o} {?o foaf:age ?a}}",
+        "select * where {{?s foaf:knows ?o} {?s foaf:knows ?o}}",
+        "select * where {{?s foaf:age ?a} {?x foaf:age ?a}}",
+        "select * where {{?s foaf:knows ?o} {?o foaf:age ?a optional {?o foaf:knows ?x}}}",
+        "select * where {{?s foaf:knows ?o} {values ?o {us:Jim us:Jack}}}",
+        "select * where {{?s foaf:knows ?o} {?s ?p ?x}} limit 2"
+    };
+
+    @Test
+    public void testJoin() throws EngineException {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query(init);
+
+        for (String q : queries) {
+            Mappings m1 = query(exec, q, true);
+            Mappings m2 = query(exec, q, false);
+            assertEquals(q, m2.size(), m1.size());
+        }
+    }
+
+    @Test
+    public void testLargeJoin() throws EngineException, LoadException {
+        QueryProcess exec = QueryProcess.create(large(SIZE));
+        // evaluate both sides of join independently
+        boolean join = Eval.JOIN_MAPPINGS;
+        Eval.JOIN_MAPPINGS = false;
+        Mappings m1, m2;
+        try {
+            m1 = query(exec, LARGE_QUERY, true);
+            m2 = query(exec, LARGE_QUERY, false);
+        } finally {
+            Eval.JOIN_MAPPINGS = join;
+        }
+        assertEquals(SIZE, m1.size());
+        assertEquals(solutions(m2), solutions(m1));
+    }
+
+    /**
+     * Hash join vs sort based join on 50k x 50k Mappings
+     * timings are reported by the logger
+     */
+    @Ignore("benchmark")
+    @Test
+    public void testBenchmark() throws EngineException, LoadException {
+        QueryProcess exec = QueryProcess.create(large(SIZE));
+        boolean join = Eval.JOIN_MAPPINGS;
+        Eval.JOIN_MAPPINGS = false;
+        long t1, t2, t3;
+        Mappings m1, m2;
+        try {
+            // warm up
+            query(exec, LARGE_QUERY, true);
+            query(exec, LARGE_QUERY, false);
+
+            t1 = System.currentTimeMillis();
+            m1 = query(exec, LARGE_QUERY, true);
+            t2 = System.currentTimeMillis();
+            m2 = query(exec, LARGE_QUERY, false);
+            t3 = System.currentTimeMillis();
+        } finally {
+            Eval.JOIN_MAPPINGS = join;
+        }
+        logger.info("join {} x {}: hash join {} ms ; sort join {} ms", SIZE, SIZE, t2 - t1, t3 - t2);
+        assertEquals(m2.size(), m1.size());
+    }
+
+    Graph large(int size) throws LoadException {
+        StringBuilder sb = new StringBuilder("@prefix us: <http://www.inria.fr/test/> .\n");
+        for (int i = 0; i < size; i++) {
+            sb.append(String.format("us:s%s us:p us:o%s .\n", i, i % (size / 2)));
+            sb.append(String.format("us:o%s us:q %s .\n", i, i));
+        }
+        Graph g = Graph.create();
+        Load.create(g).loadString(sb.toString(), Loader.format.TURTLE_FORMAT);
+        return g;
+    }
+
+    Set<String> solutions(Mappings map) {
+        Set<String> set = new HashSet<>();
+        for (Mapping m : map) {
+            set.add(m.getValue("?s").getLabel() + " " + m.getValue("?o").getLabel()
+                    + " " + m.getValue("?v").getLabel());
+        }
+        return set;
+    }
+
+    Mappings query(QueryProcess exec, String q, boolean hash) throws EngineException {
+        boolean b = EvalJoin.HASH_JOIN;
+        EvalJoin.HASH_JOIN = hash;
+        try {
+            return exec.query(q);
+        } finally {
+            EvalJoin.HASH_JOIN = b;
+        }
+    }
+
+}
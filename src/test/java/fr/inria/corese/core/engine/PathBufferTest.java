@@ -0,0 +1,98 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.kgram.path.Buffer;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Property path enumerated in a thread with a buffer (kg:list false)
+ * must return same results as path enumerated inline as a list
+ */
+public class PathBufferTest {
+
+    static final String thread = " pragma {kg:path kg:list false}";
+
+    static final String[] queries = {
+        "select * where {?x rdfs:subClassOf* ?y}",
+        "select * where {?x rdfs:subClassOf+ ?y}",
+        "select * where {us:c0 rdfs:subClassOf+ ?y}",
+        "select * where {?x rdfs:subClassOf+ us:c0}",
+        "select * where {?x rdfs:subClassOf+ ?y . ?y rdfs:subClassOf+ ?z}",
+        "select * where {?x rdfs:subClassOf+ ?y} limit 1",
+        "select * where {?x rdfs:subClassOf+ ?y . ?y rdfs:subClassOf+ ?z} limit 10",
+        "select * where {?x rdfs:subClassOf+ ?y filter exists {?y rdfs:subClassOf* ?z}}"
+    };
+
+    Graph init() throws EngineException {
+        StringBuilder sb = new StringBuilder("insert data {");
+        for (int i = 1; i < 300; i++) {
+            sb.append(String.format("us:c%s rdfs:subClassOf us:c%s .", i, (i - 1) / 3));
+        }
+        sb.append("}");
+        Graph g = Graph.create();
+        QueryProcess.create(g).query(sb.toString());
+        return g;
+    }
+
+    @Test
+    public void testPath() throws EngineException {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+
+        for (String q : queries) {
+            Mappings m1 = exec.query(q);
+            Mappings m2 = exec.query(q + thread);
+            assertEquals(q, m1.size(), m2.size());
+        }
+    }
+
+    @Test
+    public void testLimit() throws EngineException {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        String q = "select * where {?x rdfs:subClassOf+ ?y} limit 1" + thread;
+        // stopped path enumerations must not block their thread
+        for (int i = 0; i < 100; i++) {
+            Mappings map = exec.query(q);
+            assertEquals(1, map.size());
+        }
+    }
+
+    /**
+     * Consumer interrupted while waiting: enumeration is not reported
+     * as complete
+     */
+    @Test(timeout = 10000)
+    public void testInterrupt() throws InterruptedException {
+        Buffer buf = new Buffer();
+        AtomicBoolean next = new AtomicBoolean(true);
+        AtomicBoolean flag = new AtomicBoolean(false);
+        Thread consumer = new Thread(() -> {
+            next.set(buf.hasNext());
+            flag.set(Thread.currentThread().isInterrupted());
+        });
+        consumer.start();
+        consumer.interrupt();
+        consumer.join();
+        assertFalse(next.get());
+        assertTrue(flag.get());
+        assertTrue(buf.isInterrupted());
+        assertTrue(buf.isClosed());
+
+        Buffer end = new Buffer();
+        end.put(null, false);
+        assertFalse(end.hasNext());
+        assertFalse(end.isInterrupted());
+    }
+
+}
@@ -0,0 +1,148 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryPlanCache;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.triple.parser.NSManager;
+
+/**
+ * Cached compiled query must return same results as compiled query
+ */
+public class QueryPlanCacheTest {
+
+    static final String query = "select ?x (count(?y) as ?c) where { ?x us:p ?y filter (?y > 2) } group by ?x order by ?x";
+
+    Graph init() throws Exception {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        StringBuilder sb = new StringBuilder("insert data {");
+        for (int i = 0; i < 100; i++) {
+            sb.append(String.format("us:s%s us:p %s . ", i % 10, i));
+        }
+        sb.append("}");
+        exec.query(sb.toString());
+        return g;
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        Mappings m1 = exec.query(query);
+        boolean b = QueryPlanCache.CACHE;
+        QueryPlanCache.CACHE = true;
+        QueryPlanCache cache = g.getQueryPlanCache();
+        try {
+            cache.clear();
+            for (int i = 0; i < 5; i++) {
+                Mappings m2 = exec.query(query);
+                assertEquals(m1.size(), m2.size());
+                for (int j = 0; j < m1.size(); j++) {
+                    assertEquals(m1.get(j).getValue("?c"), m2.get(j).getValue("?c"));
+                }
+            }
+            assertEquals(1, cache.getMiss());
+            assertEquals(4, cache.getHit());
+            // update is not cached
+            exec.query("insert data { us:s0 us:p 1000 }");
+            assertEquals(1, cache.size());
+            // namespace change clear the cache
+            // redefine existing system prefix: namespaces are unchanged
+            // for other tests
+            NSManager.defineDefaultPrefix("us", NSManager.USER);
+            long miss = cache.getMiss();
+            exec.query(query);
+            assertEquals(miss + 1, cache.getMiss());
+            assertEquals(4, cache.getHit());
+        } finally {
+            QueryPlanCache.CACHE = b;
+            cache.clear();
+        }
+    }
+
+    /**
+     * Each graph has its own cache
+     */
+    @Test
+    public void testGraph() throws Exception {
+        Graph g1 = init();
+        Graph g2 = Graph.create();
+        QueryProcess.create(g2).query("insert data { us:a us:p 10 }");
+        boolean b = QueryPlanCache.CACHE;
+        QueryPlanCache.CACHE = true;
+        try {
+            assertEquals(10, QueryProcess.create(g1).query(query).size());
+            assertEquals(1, QueryProcess.create(g2).query(query).size());
+            assertEquals(10, QueryProcess.create(g1).query(query).size());
+            assertEquals(1, g1.getQueryPlanCache().getMiss());
+            assertEquals(1, g1.getQueryPlanCache().getHit());
+            assertEquals(1, g2.getQueryPlanCache().getMiss());
+            assertEquals(0, g2.getQueryPlanCache().getHit());
+        } finally {
+            QueryPlanCache.CACHE = b;
+        }
+    }
+
+    /**
+     * Query flags set by one QueryProcess do not leak to another one
+     */
+    @Test
+    public void testFlags() throws Exception {
+        Graph g = init();
+        boolean b = QueryPlanCache.CACHE;
+        QueryPlanCache.CACHE = true;
+        try {
+            QueryProcess exec1 = QueryProcess.create(g);
+            exec1.setPathType(true);
+            Mappings m1 = exec1.query(query);
+            assertTrue(m1.getQuery().isPathType());
+            Mappings m2 = QueryProcess.create(g).query(query);
+            assertFalse(m2.getQuery().isPathType());
+            assertEquals(m1.size(), m2.size());
+            // same flags share the cached query
+            assertTrue(m2.getQuery() == QueryProcess.create(g).query(query).getQuery());
+        } finally {
+            QueryPlanCache.CACHE = b;
+            g.getQueryPlanCache().clear();
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        Graph g = init();
+        Mappings m1 = QueryProcess.create(g).query(query);
+        boolean b = QueryPlanCache.CACHE;
+        QueryPlanCache.CACHE = true;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Mappings>> list = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                list.add(executor.submit(() -> QueryProcess.create(g).query(query)));
+            }
+            for (Future<Mappings> f : list) {
+                Mappings m2 = f.get();
+                assertEquals(m1.size(), m2.size());
+                assertEquals(m1.get(0).getValue("?c"), m2.get(0).getValue("?c"));
+            }
+            assertTrue(g.getQueryPlanCache().getHit() > 0);
+        } finally {
+            executor.shutdown();
+            QueryPlanCache.CACHE = b;
+            g.getQueryPlanCache().clear();
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.rule.RuleEngine;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Parallel rule engine must return same graph with same number of loops
+ * as sequential rule engine
+ */
+public class RuleParallelTest {
+
+    static final String prefix = "prefix us: <http://www.inria.fr/test/> ";
+
+    static final String[] rules = {
+        "construct {?x us:q ?y} where {?x us:p ?y}",
+        "construct {?x us:s ?y} where {?x us:r ?y}",
+        "construct {?y us:t ?x} where {?x us:r ?y}",
+        "construct {?x us:q ?z} where {?x us:q ?y . ?y us:q ?z}",
+        "construct {?x us:s ?z} where {?x us:s ?y . ?y us:s ?z}",
+        "construct {?x us:u ?y} where {?x us:t ?y filter not exists {?x us:q ?y}}",
+        "construct {?x us:v ?y} where {?x ?p ?y filter (?p = us:u)}"
+    };
+
+    Graph init() throws EngineException {
+        StringBuilder sb = new StringBuilder(prefix + "insert data {");
+        for (int i = 0; i < 30; i++) {
+            sb.append(String.format("us:a%s us:p us:a%s ; us:r us:a%s .", i, i + 1, (i + 3) % 30));
+        }
+        sb.append("}");
+        Graph g = Graph.create();
+        QueryProcess.create(g).query(sb.toString());
+        return g;
+    }
+
+    RuleEngine process(Graph g, boolean parallel) throws EngineException {
+        RuleEngine re = RuleEngine.create(g);
+        for (String rule : rules) {
+            re.defRule(prefix + rule);
+        }
+        re.setParallel(parallel);
+        re.process();
+        return re;
+    }
+
+    @Test
+    public void testParallel() throws EngineException {
+        Graph g1 = init();
+        Graph g2 = init();
+        RuleEngine re1 = process(g1, false);
+        RuleEngine re2 = process(g2, true);
+
+        assertTrue(g1.size() > 100);
+        assertEquals(g1.size(), g2.size());
+        assertEquals(re1.getLoopNumber(), re2.getLoopNumber());
+    }
+
+    /**
+     * Optimized mode: records, timestamps and ResultWatcher of OWL RL
+     */
+    @Test
+    public void testOWLRL() throws EngineException {
+        Graph g1 = owl();
+        Graph g2 = owl();
+        RuleEngine re1 = owlrl(g1, false);
+        RuleEngine re2 = owlrl(g2, true);
+
+        assertTrue(g1.size() > 2 * owl().size());
+        assertEquals(g1.size(), g2.size());
+        assertEquals(re1.getLoopNumber(), re2.getLoopNumber());
+        for (Node pred : g1.getProperties()) {
+            assertEquals(pred.getLabel(), g1.size(pred), g2.size(g2.getPropertyNode(pred.getLabel())));
+        }
+    }
+
+    /**
+     * Rule engine called by a thread which holds the graph write lock
+     */
+    @Test(timeout = 60000)
+    public void testLock() throws EngineException {
+        Graph g1 = init();
+        Graph g2 = init();
+        RuleEngine re1 = process(g1, false);
+        g2.writeLock().lock();
+        try {
+            process(g2, true);
+        } finally {
+            g2.writeLock().unlock();
+        }
+        assertEquals(g1.size(), g2.size());
+        assertEquals(0, g2.getLock().getReadLockCount());
+        assertTrue(re1.getLoopNumber() > 1);
+    }
+
+    /**
+     * Class and property hierarchies, inverse, symmetric and transitive
+     * properties, domain and range
+     */
+    Graph owl() throws EngineException {
+        StringBuilder sb = new StringBuilder(prefix
+                + "prefix owl: <http://www.w3.org/2002/07/owl#> insert data {"
+                + "us:parent owl:inverseOf us:child ; rdfs:domain us:Person ; rdfs:range us:Person ."
+                + "us:ancestor a owl:TransitiveProperty . us:parent rdfs:subPropertyOf us:ancestor ."
+                + "us:sibling a owl:SymmetricProperty ; rdfs:domain us:Person ."
+                + "us:Person owl:equivalentClass us:Human ."
+                + "us:Man rdfs:subClassOf us:Person . us:Woman rdfs:subClassOf us:Person .");
+        for (int i = 0; i < 20; i++) {
+            sb.append(String.format("us:C%s rdfs:subClassOf us:C%s . ", i + 1, i));
+            sb.append(String.format("us:p%s us:parent us:p%s ; a us:C%s, us:%s . ",
+                    i, i + 1, (i * 7) % 20, (i % 2 == 0) ? "Man" : "Woman"));
+            sb.append(String.format("us:p%s us:sibling us:q%s . ", i, i));
+        }
+        sb.append("}");
+        Graph g = Graph.create();
+        QueryProcess.create(g).query(sb.toString());
+        return g;
+    }
+
+    RuleEngine owlrl(Graph g, boolean parallel) throws EngineException {
+        RuleEngine re = RuleEngine.create(g);
+        re.setProfile(RuleEngine.OWL_RL);
+        re.setParallel(parallel);
+        re.process();
+        return re;
+    }
+
+}
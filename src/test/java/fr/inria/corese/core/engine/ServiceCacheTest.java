@@ -0,0 +1,86 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.compiler.parser.NodeImpl;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.query.ServiceCache;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Service result cache: copy of results, LRU eviction, time to live
+ */
+public class ServiceCacheTest {
+
+    Mappings result() throws EngineException {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query("insert data { us:a us:p 1, 2, 3 }");
+        return exec.query("select * where { ?x us:p ?v }");
+    }
+
+    @Before
+    public void init() {
+        ServiceCache.getSingleton().clear();
+    }
+
+    @Test
+    public void testCopy() throws EngineException {
+        ServiceCache cache = ServiceCache.getSingleton();
+        Mappings map = result();
+        cache.put("a", map);
+        Mappings m1 = cache.get("a");
+        assertEquals(3, m1.size());
+        // join with service URI does not modify cached result
+        Node serv = m1.get(0).getNode("?x");
+        m1.join(NodeImpl.createVariable("?serv"), serv);
+        Mappings m2 = cache.get("a");
+        assertEquals(m1.getSelect().size() - 1, m2.getSelect().size());
+        assertNull(m2.get(0).getNodeValue("?serv"));
+        assertEquals(m1.get(0).getValue("?v"), m2.get(0).getValue("?v"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.getHit());
+        assertEquals(1, cache.getMiss());
+    }
+
+    @Test
+    public void testEviction() throws EngineException {
+        int max = ServiceCache.SIZE_MAX;
+        ServiceCache.SIZE_MAX = 2;
+        try {
+            ServiceCache cache = ServiceCache.getSingleton();
+            Mappings map = result();
+            cache.put("a", map);
+            cache.put("b", map);
+            cache.get("a");
+            cache.put("c", map);
+            // b is least recently used
+            assertEquals(2, cache.size());
+            assertTrue(cache.containsKey("a"));
+            assertFalse(cache.containsKey("b"));
+            assertTrue(cache.containsKey("c"));
+        } finally {
+            ServiceCache.SIZE_MAX = max;
+        }
+    }
+
+    @Test
+    public void testTimeToLive() throws EngineException {
+        ServiceCache cache = ServiceCache.getSingleton();
+        cache.put("a", result(), -1);
+        assertFalse(cache.containsKey("a"));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getByteSize());
+    }
+
+}
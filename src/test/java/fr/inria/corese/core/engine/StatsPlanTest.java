@@ -0,0 +1,123 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.index.GraphStatistics;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.kgram.core.Query;
+import fr.inria.corese.core.query.QueryProcess;
+
+/**
+ * Statistics based query plan starts with the most selective triple pattern
+ * Graph statistics are updated on insert and delete
+ */
+public class StatsPlanTest {
+
+    static final String PREFIX = "prefix us: <http://example.org/> ";
+    static final String query = PREFIX + "select * where { ?x a us:C . ?x us:p ?y . ?x us:q ?z }";
+
+    Graph init() throws Exception {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        StringBuilder sb = new StringBuilder(PREFIX + "insert data {");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(String.format("us:s%s us:p us:o%s . us:s%s a us:C . ", i, i % 10, i));
+        }
+        sb.append("us:s7 us:q us:b }");
+        exec.query(sb.toString());
+        return g;
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        Mappings std = exec.query(query);
+
+        exec.setPlanProfile(Query.QP_STATS_BASED);
+        Query q = exec.compile(query);
+        Mappings map = exec.query(q);
+        assertEquals(std.size(), map.size());
+        assertEquals(1, map.size());
+        assertEquals("http://example.org/q", q.getBody().get(0).getEdge().getEdgeNode().getLabel());
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        exec.setPlanProfile(Query.QP_STATS_BASED);
+        exec.query(query);
+        GraphStatistics stat = g.getStatistics();
+        assertEquals(2001, stat.size());
+        assertEquals(10, stat.objectCount("http://example.org/p"));
+        // {a, p} and {a, p, q}
+        assertEquals(2, stat.characteristicSetNumber());
+        assertEquals(1000, stat.subjectNumber());
+        Node s7 = g.getResource("http://example.org/s7");
+        assertEquals(3, stat.subjectCount(s7, null));
+        assertEquals(1, stat.subjectCount(s7, "http://example.org/q"));
+        assertEquals(100, stat.objectCount(g.getResource("http://example.org/o7"), "http://example.org/p"));
+        assertEquals(1, stat.subjectJoin("http://example.org/p", "http://example.org/q"), 0);
+
+        exec.query(PREFIX + "insert data { us:s9 us:q us:d } ; delete data { us:s1 us:p us:o1 }");
+        assertTrue(stat.isValid());
+        assertEquals(2, stat.count("http://example.org/q"));
+        assertEquals(999, stat.count("http://example.org/p"));
+        assertEquals(999, stat.subjectCount("http://example.org/p"));
+        assertEquals(3, stat.characteristicSetNumber());
+        assertEquals(99, stat.objectCount(g.getResource("http://example.org/o1"), "http://example.org/p"));
+
+        GraphStatistics fresh = new GraphStatistics(g).check();
+        assertEquals(fresh.toString(), stat.toString());
+        assertEquals(fresh.subjectJoin("http://example.org/p", "http://example.org/q"),
+                stat.subjectJoin("http://example.org/p", "http://example.org/q"), 0);
+    }
+
+    /**
+     * Characteristic sets updated by insert and delete must be the same as
+     * characteristic sets computed from the graph
+     */
+    @Test
+    public void testCharacteristicSet() throws Exception {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        GraphStatistics stat = g.setStatistics();
+        assertEquals(2, stat.characteristicSetNumber());
+        String[] updates = {
+            // new predicate, new subject, new object
+            "insert data { us:s1 us:r us:s2 . us:t us:r us:s1 }",
+            // same characteristic set, one more triple
+            "insert data { us:s7 us:q us:c }",
+            "delete data { us:s7 us:q us:b }",
+            // subject leaves its characteristic set
+            "delete data { us:s7 us:q us:c }",
+            // subject with no more triple
+            "delete data { us:t us:r us:s1 }",
+            "delete where { us:s3 ?p ?o }",
+            "insert data { us:s3 us:q us:b ; us:r us:b }"
+        };
+        for (String update : updates) {
+            exec.query(PREFIX + update);
+            assertTrue(stat.isValid());
+            GraphStatistics fresh = new GraphStatistics(g).check();
+            assertEquals(update, fresh.toString(), stat.toString());
+            assertEquals(update, fresh.characteristicSetNumber(), stat.characteristicSetNumber());
+            for (String p1 : new String[]{"p", "q", "r"}) {
+                for (String p2 : new String[]{"p", "q", "r"}) {
+                    assertEquals(update, fresh.subjectJoin("http://example.org/" + p1, "http://example.org/" + p2),
+                            stat.subjectJoin("http://example.org/" + p1, "http://example.org/" + p2), 0);
+                }
+            }
+        }
+        // {a, p}, {a, p, r}, {q, r}
+        assertEquals(3, stat.characteristicSetNumber());
+        assertEquals(1000, stat.subjectNumber());
+    }
+
+}
@@ -0,0 +1,56 @@
+package fr.inria.corese.core.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * order by limit with top k must return same results as sort of all results
+ */
+public class TopKTest {
+
+    static final String[] queries = {
+        "select * where { ?s us:p ?v } order by desc(?v) limit 10",
+        "select * where { ?s us:p ?v } order by ?v limit 7 offset 5",
+        // ties on ?k keep same order
+        "select * where { ?s us:p ?v bind (?v / 10 as ?k) } order by ?k limit 25",
+        "select * where { ?s us:p ?v optional { ?s us:q ?w } } order by ?w desc(?v) limit 15",
+        "select distinct ?k where { ?s us:p ?v bind (floor(?v / 10) as ?k) } order by desc(?k) limit 4",
+        "select * where { ?s us:p ?v } order by ?v limit 0"
+    };
+
+    @Test
+    public void testTopK() throws EngineException {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        StringBuilder sb = new StringBuilder("insert data {");
+        for (int i = 0; i < 300; i++) {
+            sb.append(String.format("us:s%s us:p %s . ", i, (i * 37) % 101));
+            if (i % 3 == 0) {
+                sb.append(String.format("us:s%s us:q %s . ", i, i % 7));
+            }
+        }
+        exec.query(sb.append("}").toString());
+        boolean b = Mappings.TOP_K;
+        try {
+            for (String q : queries) {
+                Mappings.TOP_K = false;
+                Mappings m1 = exec.query(q);
+                Mappings.TOP_K = true;
+                Mappings m2 = exec.query(q);
+                assertEquals(q, m1.size(), m2.size());
+                for (int i = 0; i < m1.size(); i++) {
+                    assertEquals(q, m1.get(i).toString(), m2.get(i).toString());
+                }
+            }
+        } finally {
+            Mappings.TOP_K = b;
+        }
+    }
+
+}
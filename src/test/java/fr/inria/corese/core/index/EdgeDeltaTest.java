@@ -0,0 +1,135 @@
+package fr.inria.corese.core.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.api.Loader;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.load.Load;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Insert in edge delta must return same results as insert in place
+ */
+public class EdgeDeltaTest {
+
+    static final String[] queries = {
+        "select * where {?s us:p ?o}",
+        "select * where {us:s3 us:p ?o}",
+        "select * where {?s us:p 5}",
+        "select * where {?s us:p ?o . ?s us:q ?x . ?x us:p ?y}",
+        "select * where {graph ?g {?s ?p ?o}}",
+        "select ?s (count(*) as ?c) where {?s ?p ?o} group by ?s"
+    };
+
+    List<String> run(Graph g) throws EngineException {
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query("insert data {us:s1 us:p 1, 2 . us:s9 us:p 9}");
+        // index graph before update
+        exec.query("select * where {?s ?p ?o}");
+        for (int i = 0; i < 20; i++) {
+            exec.query(String.format(
+                    "insert data {us:s%s us:p %s . us:s%s us:q us:s%s graph us:g%s {us:s%s us:p %s}}",
+                    i % 7, i, i % 5, i % 7, i % 3, i % 5, i));
+        }
+        // duplicate
+        exec.query("insert data {us:s1 us:p 1 . us:s3 us:p 10}");
+        exec.query("delete data {us:s1 us:p 2 . us:s3 us:p 3}");
+        List<String> res = new ArrayList<>();
+        res.add(Integer.toString(g.size()));
+        for (String q : queries) {
+            Mappings map = exec.query(q);
+            List<String> list = new ArrayList<>();
+            for (Mapping m : map) {
+                list.add(m.toString());
+            }
+            Collections.sort(list);
+            res.add(q + list);
+        }
+        return res;
+    }
+
+    @Test
+    public void testDelta() throws EngineException {
+        boolean b = EdgeManager.DELTA;
+        int max = EdgeManager.DELTA_MAX;
+        try {
+            EdgeManager.DELTA = false;
+            List<String> std = run(Graph.create());
+            List<String> packed = run(Graph.createPacked());
+            EdgeManager.DELTA = true;
+            // merge by threshold and by read
+            EdgeManager.DELTA_MAX = 3;
+            assertEquals(std, run(Graph.create()));
+            assertEquals(packed, run(Graph.createPacked()));
+            EdgeManager.DELTA_MAX = 10_000;
+            assertEquals(std, run(Graph.create()));
+            assertEquals(packed, run(Graph.createPacked()));
+        } finally {
+            EdgeManager.DELTA = b;
+            EdgeManager.DELTA_MAX = max;
+        }
+    }
+
+    /**
+     * Delta is merged when query starts: readers do not merge edge lists
+     */
+    @Test
+    public void testMergeOnInit() throws Exception {
+        boolean b = EdgeManager.DELTA;
+        try {
+            EdgeManager.DELTA = true;
+            Graph g = Graph.create();
+            QueryProcess exec = QueryProcess.create(g);
+            exec.query("insert data {us:s1 us:p 1, 2}");
+            exec.query("select * where {?s ?p ?o}");
+            // load does not index the graph: edges stay in delta
+            Load.create(g).loadString("prefix us: <http://ns.inria.fr/sparql-extension/user/> "
+                    + "us:s0 us:p 0 . us:s2 us:p 3 .", Loader.format.TURTLE_FORMAT);
+            assertTrue(hasDelta(g));
+            List<Thread> list = new ArrayList<>();
+            List<Integer> res = Collections.synchronizedList(new ArrayList<>());
+            for (int i = 0; i < 4; i++) {
+                Thread t = new Thread(() -> {
+                    try {
+                        res.add(exec.query("select * where {?s us:p ?o}").size());
+                    } catch (EngineException ex) {
+                        res.add(-1);
+                    }
+                });
+                list.add(t);
+                t.start();
+            }
+            for (Thread t : list) {
+                t.join();
+            }
+            assertFalse(hasDelta(g));
+            assertEquals(List.of(4, 4, 4, 4), res);
+        } finally {
+            EdgeManager.DELTA = b;
+        }
+    }
+
+    boolean hasDelta(Graph g) {
+        for (EdgeManagerIndexer ei : g.getIndexList()) {
+            for (Node p : ei.getProperties()) {
+                if (ei.get(p).hasDelta()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,97 @@
+package fr.inria.corese.core.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Graph reloaded from snapshot must return same results as saved graph
+ */
+public class GraphSnapshotTest {
+
+    static final String init = "insert data {"
+            + "us:a us:p 1, 01, 1.0, '1', '1'@en, 'a', 'é\\n', us:b, _:b1 ; a us:C ."
+            + "us:b us:p 2, '2020-01-01'^^xsd:date, 'x'^^us:dt ; us:q us:a ."
+            + "_:b1 us:p us:a ."
+            + "graph us:g1 { us:a us:p 1, 2 . us:c us:q _:b1 }"
+            + "graph us:g2 { us:b us:q us:a . us:p a rdf:Property }"
+            + "}";
+
+    static final String[] queries = {
+        "select * where { ?s ?p ?o }",
+        "select * where { ?s us:p 1 }",
+        "select * where { ?s us:q us:a }",
+        "select * where { graph ?g { ?s ?p ?o } }",
+        "select * where { graph us:g1 { ?s ?p ?o } }",
+        "select * where { ?s us:p ?o . ?o us:q ?x }",
+        "select * where { ?s us:p+ ?o }",
+        "select ?o (count(*) as ?c) where { ?s ?p ?o } group by ?o"
+    };
+
+    List<String> run(Graph g) throws EngineException {
+        QueryProcess exec = QueryProcess.create(g);
+        List<String> res = new ArrayList<>();
+        res.add(Integer.toString(g.size()));
+        for (String q : queries) {
+            Mappings map = exec.query(q);
+            List<String> list = new ArrayList<>();
+            for (Mapping m : map) {
+                list.add(m.toString());
+            }
+            Collections.sort(list);
+            res.add(q + list);
+        }
+        return res;
+    }
+
+    void test(Graph g) throws EngineException, IOException {
+        QueryProcess.create(g).query(init);
+        // build object and graph index
+        List<String> res = run(g);
+        File file = File.createTempFile("graph", ".snapshot");
+        try {
+            g.save(file.getPath());
+            Graph g2 = Graph.open(file.getPath());
+            assertEquals(g.isPackedEdge(), g2.isPackedEdge());
+            // edge lists are not sorted again
+            assertTrue(g2.isIndexed());
+            assertEquals(res, run(g2));
+
+            // reloaded graph can be updated
+            QueryProcess exec = QueryProcess.create(g2);
+            exec.query("insert data { us:a us:p 3 . [] us:p 4 . [] us:p 5 }");
+            exec.query("delete data { us:a us:p 2 }");
+            assertEquals(g.size() + 2, g2.size());
+            assertEquals(1, exec.query("select * where { us:a us:p 3 }").size());
+            assertEquals(0, exec.query("select * where { us:a us:p 2 }").size());
+            // new blank nodes are not blank node of snapshot
+            assertEquals(3, exec.query("select distinct ?s where { ?s us:p ?o filter isBlank(?s) }").size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws EngineException, IOException {
+        test(Graph.create());
+    }
+
+    @Test
+    public void testPackedSnapshot() throws EngineException, IOException {
+        test(Graph.createPacked());
+    }
+
+}
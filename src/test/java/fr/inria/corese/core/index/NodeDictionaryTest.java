@@ -0,0 +1,169 @@
+package fr.inria.corese.core.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.NodeImpl;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+
+/**
+ * Node dictionary: kinds of node, literals, concurrent access
+ */
+public class NodeDictionaryTest {
+
+    static final String NS = "http://example.org/";
+
+    NodeDictionary create() {
+        return new Graph().getNodeDictionary();
+    }
+
+    Node node(String label) {
+        return NodeImpl.create(DatatypeMap.newResource(label));
+    }
+
+    @Test
+    public void testKey() {
+        NodeDictionary dict = create();
+        Node a = node(NS + "a"), b = node(NS + "b"), e = node(NS + "été中");
+        dict.put(NodeDictionary.URI, a.getLabel(), a);
+        dict.put(NodeDictionary.URI, b.getLabel(), b);
+        dict.put(NodeDictionary.PROPERTY, e.getLabel(), e);
+        assertSame(a, dict.get(NodeDictionary.URI, NS + "a"));
+        assertSame(e, dict.get(NodeDictionary.PROPERTY, NS + "été中"));
+        assertNull(dict.get(NodeDictionary.URI, NS + "été中"));
+        assertNull(dict.get(NodeDictionary.URI, "http://other.org/a"));
+        assertTrue(dict.contains(NodeDictionary.URI, NS + "b"));
+        assertSame(b, dict.remove(NodeDictionary.URI, NS + "b"));
+        assertFalse(dict.contains(NodeDictionary.URI, NS + "b"));
+        assertEquals(1, dict.size(NodeDictionary.URI));
+    }
+
+    @Test
+    public void testGraph() throws Exception {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query("prefix us: <http://example.org/> insert data { "
+                + "us:a us:p _:b . _:b us:q 1, 01, 'été', 'été'@fr . graph us:g { us:a us:p us:été } }");
+        assertEquals(2, g.nbIndividuals());
+        assertEquals(1, g.nbBlanks());
+        assertEquals(4, g.nbLiterals());
+        // kg:default and us:g
+        assertEquals(2, g.nbGraphNodes());
+        assertTrue(g.getResource(NS + "été") != null);
+        assertTrue(g.getPropertyNode(NS + "q") != null);
+        Node n1 = g.getLiteralNode(DatatypeMap.newInstance(1));
+        Node n2 = g.getLiteralNode(DatatypeMap.newInstance("01", "http://www.w3.org/2001/XMLSchema#integer"));
+        assertTrue(n1 != n2);
+        assertEquals(n1.getIndex(), n2.getIndex());
+        Node s1 = g.getLiteralNode(DatatypeMap.newInstance("été"));
+        Node s2 = g.getLiteralNode(DatatypeMap.createLiteral("été", null, "fr"));
+        assertTrue(s1 != null && s2 != null && s1 != s2);
+        assertEquals(6, exec.query("select * where { ?x ?p ?y }").size());
+        assertEquals(1, exec.query("select * where { ?x ?p 'été'@fr }").size());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        NodeDictionary dict = create();
+        int n = 4, size = 10000;
+        ExecutorService exec = Executors.newFixedThreadPool(n);
+        List<Future<List<Node>>> list = new ArrayList<>();
+        try {
+            for (int t = 0; t < n; t++) {
+                list.add(exec.submit(() -> {
+                    List<Node> res = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        String label = NS + (i % 100) + "/" + i;
+                        res.add(dict.putIfAbsent(NodeDictionary.URI, label, node(label)));
+                    }
+                    return res;
+                }));
+            }
+            List<Node> first = list.get(0).get();
+            for (Future<List<Node>> f : list) {
+                List<Node> res = f.get();
+                for (int i = 0; i < size; i++) {
+                    assertSame(first.get(i), res.get(i));
+                }
+            }
+        } finally {
+            exec.shutdown();
+        }
+        assertEquals(size, dict.size(NodeDictionary.URI));
+    }
+
+    /**
+     * Threads that add the same resource, property, blank and literal get the
+     * same node, with one index
+     */
+    @Test
+    public void testGraphConcurrent() throws Exception {
+        Graph g = Graph.create();
+        int n = 4, size = 2000;
+        ExecutorService exec = Executors.newFixedThreadPool(n);
+        List<Future<List<Node>>> list = new ArrayList<>();
+        try {
+            for (int t = 0; t < n; t++) {
+                list.add(exec.submit(() -> {
+                    List<Node> res = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        res.add(g.addResource(NS + i));
+                        res.add(g.addProperty(NS + "p" + i));
+                        res.add(g.addBlank("_:b" + i));
+                        res.add(g.addNode(DatatypeMap.newInstance(i)));
+                        res.add(g.addNode(DatatypeMap.newInstance(Integer.toString(i), "http://www.w3.org/2001/XMLSchema#long")));
+                    }
+                    return res;
+                }));
+            }
+            List<Node> first = list.get(0).get();
+            for (Future<List<Node>> f : list) {
+                List<Node> res = f.get();
+                for (int i = 0; i < res.size(); i++) {
+                    assertSame(first.get(i), res.get(i));
+                }
+            }
+        } finally {
+            exec.shutdown();
+        }
+        assertEquals(size, g.nbIndividuals());
+        assertEquals(size, g.nbBlanks());
+        assertEquals(2 * size, g.nbLiterals());
+        // resource, property, blank and integer have their own index,
+        // integer and long with same value share index
+        List<Node> first = list.get(0).get();
+        HashSet<Integer> index = new HashSet<>();
+        for (int i = 0; i < first.size(); i += 5) {
+            for (int j = 0; j < 4; j++) {
+                index.add(first.get(i + j).getIndex());
+            }
+            assertEquals(first.get(i + 3).getIndex(), first.get(i + 4).getIndex());
+        }
+        assertEquals(4 * size, index.size());
+    }
+
+    @Test
+    public void testTripleNodeMap() {
+        Graph g = Graph.create();
+        Node t = g.addTripleReference();
+        assertSame(t, g.getTripleNodeMap().get(t.getLabel()));
+        g.getTripleNodeMap().remove(t.getLabel());
+        assertNull(g.getTripleNode(t.getLabel()));
+    }
+
+}
@@ -0,0 +1,148 @@
+package fr.inria.corese.core.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.edge.EdgeImpl;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Mapping;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Packed edge index must return same results as standard edge index
+ */
+public class PackedEdgeTest {
+
+    static final String init = "insert data {"
+            + "us:John foaf:knows us:Jim, us:James, us:Jack ;"
+            + "foaf:age 20, 020 ."
+            + "us:Jim foaf:knows us:Jack, us:John ;"
+            + "foaf:age 30 ."
+            + "graph us:g1 { us:Jim foaf:knows us:Jack . us:Jack foaf:age 20 }"
+            + "}";
+
+    static final String[] queries = {
+        "select * where {?s foaf:knows ?o}",
+        "select * where {?s foaf:knows ?o . ?o foaf:knows ?s}",
+        "select * where {us:Jim foaf:knows ?o}",
+        "select * where {?s foaf:knows us:Jack}",
+        "select * where {?s ?p ?o}",
+        "select * where {us:John ?p ?o}",
+        "select * where {graph ?g {?s foaf:knows ?o}}",
+        "select * where {?s foaf:age 20}",
+        "select * where {?s foaf:knows+ ?o}"
+    };
+
+    @Test
+    public void testQuery() throws EngineException {
+        Graph g1 = Graph.create();
+        Graph g2 = Graph.createPacked();
+        QueryProcess.create(g1).query(init);
+        QueryProcess.create(g2).query(init);
+        assertEquals(g1.size(), g2.size());
+
+        check(g1, g2);
+    }
+
+    @Test
+    public void testUpdate() throws EngineException {
+        Graph g1 = Graph.create();
+        Graph g2 = Graph.createPacked();
+
+        for (Graph g : new Graph[]{g1, g2}) {
+            QueryProcess exec = QueryProcess.create(g);
+            exec.query(init);
+            // index graph before update
+            exec.query("select * where {?s ?p ?o}");
+            exec.query("insert data {us:Jack foaf:knows us:Jim, us:John}");
+            exec.query("delete data {us:John foaf:knows us:James}");
+        }
+        assertEquals(g1.size(), g2.size());
+        check(g1, g2);
+        Mappings map = QueryProcess.create(g2).query("select * where {us:Jack foaf:knows ?o}");
+        assertEquals(2, map.size());
+    }
+
+    /**
+     * Edge with provenance is not packed: provenance is kept
+     */
+    @Test
+    public void testProvenance() throws EngineException {
+        Graph g = Graph.createPacked();
+        QueryProcess.create(g).query(init);
+        Node s = g.addResource("http://ns.inria.fr/sparql-extension/user/Jack");
+        Node p = g.addProperty("http://xmlns.com/foaf/0.1/knows");
+        Node o = g.addResource("http://ns.inria.fr/sparql-extension/user/John");
+        Edge edge = EdgeImpl.create(g.addDefaultGraphNode(), s, p, o);
+        edge.setProvenance("rule");
+        g.addEdge(edge);
+        g.init();
+        assertFalse(g.getSubjectIndex().get(p).isPacked());
+        assertTrue(g.getSubjectIndex().get(g.getPropertyNode("http://xmlns.com/foaf/0.1/age")).isPacked());
+
+        int n = 0;
+        for (Edge e : g.getEdges(p)) {
+            if (e.getNode(0) == s && e.getNode(1) == o) {
+                assertEquals("rule", e.getProvenance());
+                n++;
+            } else {
+                assertNull(e.getProvenance());
+            }
+        }
+        assertEquals(1, n);
+        Mappings map = QueryProcess.create(g).query("select * where {us:Jack foaf:knows ?o}");
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Same edges and same query results
+     */
+    void check(Graph g1, Graph g2) throws EngineException {
+        assertEquals(edges(g1), edges(g2));
+        for (String q : queries) {
+            Mappings m1 = QueryProcess.create(g1).query(q);
+            Mappings m2 = QueryProcess.create(g2).query(q);
+            assertEquals(q, m1.size(), m2.size());
+            assertEquals(q, content(m1), content(m2));
+        }
+    }
+
+    List<String> edges(Graph g) {
+        List<String> list = new ArrayList<>();
+        for (Edge edge : g.getEdges()) {
+            list.add(String.format("%s %s %s %s %s", edge.getGraph().getDatatypeValue(),
+                    edge.getNode(0).getDatatypeValue(), edge.getEdgeNode().getDatatypeValue(),
+                    edge.getNode(1).getDatatypeValue(), edge.getLevel()));
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    List<String> content(Mappings map) {
+        List<String> list = new ArrayList<>();
+        for (Mapping m : map) {
+            StringBuilder sb = new StringBuilder();
+            for (Node var : map.getSelect()) {
+                Node node = m.getNode(var.getLabel());
+                sb.append(var.getLabel()).append("=")
+                        .append((node == null) ? null : node.getDatatypeValue()).append(" ");
+            }
+            list.add(sb.toString());
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+}
@@ -0,0 +1,166 @@
+package fr.inria.corese.core.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.logic.Closure;
+import fr.inria.corese.core.query.ProducerImpl;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.rule.RuleEngine;
+
+/**
+ * Reachability index of transitive predicate: incremental insert, property
+ * path and rule engine transitive closure
+ */
+public class ReachabilityIndexTest {
+
+    static final String PREFIX = "prefix us: <http://example.org/> ";
+    static final String P = "http://example.org/p";
+
+    Graph init(int n) throws Exception {
+        Graph g = Graph.create();
+        StringBuilder sb = new StringBuilder(PREFIX + "insert data {");
+        for (int i = 0; i < n; i++) {
+            sb.append(String.format("us:n%s us:p us:n%s . ", i, i + 1));
+        }
+        sb.append("us:n8 us:p us:n4 . us:a us:p us:a . us:b us:p us:n2 }");
+        QueryProcess.create(g).query(sb.toString());
+        return g;
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        Graph g = init(20);
+        ReachabilityIndex index = g.setReachabilityIndex(g.getPropertyNode(P));
+        List<Node> list = new ArrayList<>();
+        g.getNodes().forEach(list::add);
+        Node n0 = g.getResource("http://example.org/n0");
+        Node n4 = g.getResource("http://example.org/n4");
+        Node n6 = g.getResource("http://example.org/n6");
+        Node a = g.getResource("http://example.org/a");
+        assertTrue(index.reach(n0, n6, false));
+        assertFalse(index.reach(n6, n0, false));
+        assertTrue(index.reach(n4, n4, false));
+        assertTrue(index.reach(a, a, false));
+        assertFalse(index.reach(n0, n0, false));
+        assertTrue(index.reach(n0, n0, true));
+
+        QueryProcess exec = QueryProcess.create(g);
+        // redundant edge
+        int version = index.getVersion();
+        exec.query(PREFIX + "insert data { us:n0 us:p us:n10 }");
+        assertTrue(index.isValid());
+        assertEquals(version, index.getVersion());
+        // new edges that do not create cycle
+        exec.query(PREFIX + "insert data { us:n30 us:p us:a . us:n20 us:p us:n31 . us:n30 us:p us:b }");
+        assertTrue(index.isValid());
+        assertTrue(index.getVersion() > version);
+        g.getNodes().forEach(n -> {
+            if (!list.contains(n)) {
+                list.add(n);
+            }
+        });
+
+        ReachabilityIndex fresh = new ReachabilityIndex(g, g.getPropertyNode(P)).check();
+        for (Node n1 : list) {
+            for (Node n2 : list) {
+                assertEquals(fresh.reach(n1, n2, false), index.reach(n1, n2, false));
+            }
+        }
+        assertEquals(fresh.reachable(n0).size(), index.reachable(n0).size());
+
+        // new cycle and delete invalidate index
+        exec.query(PREFIX + "insert data { us:n31 us:p us:n12 }");
+        assertFalse(index.isValid());
+        assertFalse(index.check().reach(n6, n0, false));
+        exec.query(PREFIX + "delete data { us:n5 us:p us:n6 }");
+        assertFalse(index.isValid());
+        assertFalse(index.check().reach(n0, n6, false));
+    }
+
+    @Test
+    public void testPath() throws Exception {
+        Graph g = init(20);
+        QueryProcess exec = QueryProcess.create(g);
+        String[] queries = {
+            "ask { us:n0 us:p+ us:n15 }",
+            "ask { us:n15 us:p+ us:n0 }",
+            "ask { us:n6 us:p+ us:n6 }",
+            "ask { us:n0 us:p+ us:n0 }",
+            "ask { us:zz us:p* us:zz }",
+            "select * where { values ?x { us:n0 us:n10 us:b us:a } ?x us:p* ?x }",
+            "select * where { values (?x ?y) { (us:b us:n9) (us:n9 us:b) (us:a us:a) } ?x us:p+ ?y }"
+        };
+        try {
+            for (String q : queries) {
+                ProducerImpl.PATH_REACHABILITY = false;
+                Mappings std = exec.query(PREFIX + q);
+                ProducerImpl.PATH_REACHABILITY = true;
+                Mappings map = exec.query(PREFIX + q);
+                assertEquals(q, std.size(), map.size());
+            }
+        } finally {
+            ProducerImpl.PATH_REACHABILITY = false;
+        }
+        assertTrue(g.getReachabilityIndex(P) != null);
+    }
+
+    /**
+     * Answer of the producer is used when the path variable is not used:
+     * a producer that answers true for any pair is trusted, unless the path
+     * variable is named and then the path is enumerated
+     */
+    @Test
+    public void testProducer() throws Exception {
+        Graph g = init(20);
+        int[] count = new int[1];
+        ProducerImpl p = new ProducerImpl(g) {
+            @Override
+            public Boolean reach(Node pred, Node n1, Node n2, boolean zero) {
+                count[0]++;
+                return true;
+            }
+        };
+        QueryProcess exec = QueryProcess.create(p);
+        assertTrue(exec.query(PREFIX + "ask { us:n15 us:p+ us:n0 }").size() > 0);
+        assertEquals(1, count[0]);
+        assertEquals(1, exec.query(PREFIX + "select * where { us:n15 us:p+ us:n0 }").size());
+        assertEquals(2, count[0]);
+        assertEquals(0, exec.query(PREFIX + "select * where { us:n15 us:p+ :: $path us:n0 }").size());
+        assertEquals(3, count[0]);
+    }
+
+    @Test
+    public void testClosure() throws Exception {
+        String rule = PREFIX + "construct { ?x us:p ?z } where { ?x us:p ?y . ?y us:p ?z }";
+        Graph g1 = init(30);
+        RuleEngine re = RuleEngine.create(g1);
+        re.setSpeedUp(true);
+        re.addRule(rule);
+        re.process();
+
+        Graph g2 = init(30);
+        try {
+            Closure.REACHABILITY = true;
+            re = RuleEngine.create(g2);
+            re.setSpeedUp(true);
+            re.addRule(rule);
+            re.process();
+        } finally {
+            Closure.REACHABILITY = false;
+        }
+        assertEquals(g1.size(), g2.size());
+        String q = PREFIX + "select * where { ?x us:p ?y }";
+        assertEquals(QueryProcess.create(g1).query(q).size(), QueryProcess.create(g2).query(q).size());
+    }
+
+}
@@ -0,0 +1,148 @@
+package fr.inria.corese.core.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.ProducerImpl;
+import fr.inria.corese.core.query.QueryProcess;
+
+/**
+ * Text index of predicate objects: regex analysis, incremental update and
+ * SPARQL filter evaluated with the index
+ */
+public class TextIndexTest {
+
+    static final String PREFIX = "prefix us: <http://example.org/> ";
+    static final String P = "http://example.org/name";
+
+    Graph init() throws Exception {
+        Graph g = Graph.create();
+        QueryProcess.create(g).query(PREFIX + "insert data { "
+                + "us:a us:name 'Foobar', 'foo'@en, 'Barfoo bar'@en-US . "
+                + "us:b us:name 'barrel'@fr, 'foobar', 1234, 01234 . "
+                + "us:c us:name us:foobaz, 'été'@fr, 'Bar'@EN . "
+                + "graph us:g { us:d us:name 'Foobar', 'xfoobar' } "
+                + "us:e us:other 'foobar' }");
+        return g;
+    }
+
+    @Test
+    public void testLiterals() {
+        assertEquals(List.of("abc", "de"), TextIndex.literals("^abc.de$"));
+        assertEquals(List.of("ab", "de"), TextIndex.literals("abc?de"));
+        assertEquals(List.of("abc", "e"), TextIndex.literals("abc+d*e"));
+        assertEquals(List.of("a", "b.c"), TextIndex.literals("a[b-z]+b\\.c"));
+        assertEquals(List.of("ab", "yz"), TextIndex.literals("ab(cd|ef)?yz"));
+        assertEquals(List.of("x"), TextIndex.literals("x[]a]y{2,3}"));
+        assertNull(TextIndex.literals("abc|def"));
+        assertNull(TextIndex.literals("abc\\d+"));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        Graph g = init();
+        TextIndex index = g.setTextIndex(g.getPropertyNode(P));
+        // us:foobaz is a URI
+        assertEquals(6, index.contains("FOO").size());
+        assertEquals(3, index.contains("obar").size());
+        assertEquals(2, index.contains("123").size());
+        assertNull(index.contains("fo"));
+        assertEquals(0, index.contains("zzz").size());
+        assertEquals(4, index.regex("^foo.*bar", "i").size());
+        assertNull(index.regex("^foo", "x"));
+        assertEquals(3, index.langMatches("en").size());
+        assertEquals(1, index.langMatches("en-us").size());
+        assertNull(index.langMatches("*"));
+
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query(PREFIX + "insert data { us:f us:name 'Unfooled', 'é'@fr }");
+        assertTrue(index.isValid());
+        assertEquals(7, index.contains("foo").size());
+        assertEquals(3, index.langMatches("fr").size());
+        // same literal in two named graphs
+        exec.query(PREFIX + "delete data { us:d us:name 'Foobar' }");
+        assertEquals(7, index.contains("foo").size());
+        exec.query(PREFIX + "delete data { us:a us:name 'Foobar' . us:f us:name 'é'@fr }");
+        assertEquals(6, index.contains("foo").size());
+        assertEquals(2, index.langMatches("fr").size());
+        exec.query(PREFIX + "clear all");
+        assertFalse(index.isValid());
+    }
+
+    @Test
+    public void testSimilar() throws Exception {
+        Graph g = init();
+        TextIndex index = g.setTextIndex(g.getPropertyNode(P));
+        // Foobar foobar xfoobar share 4 trigrams: keep first ones in node order
+        Set<Node> set = index.similar("foobar", 2, 0.5);
+        assertEquals(2, set.size());
+        for (Node node : set) {
+            assertTrue(node.getLabel(), node.getLabel().equalsIgnoreCase("foobar"));
+        }
+        assertNull(index.similar("fo", 0, 0.5));
+
+        double f = TextIndex.FREQUENT_GRAM;
+        int min = TextIndex.FREQUENT_GRAM_MIN;
+        try {
+            TextIndex.FREQUENT_GRAM = 0.5;
+            TextIndex.FREQUENT_GRAM_MIN = 0;
+            // foo is frequent: no candidate selection
+            assertNull(index.similar("foo", 0, 0.5));
+            // foo is counted for candidates selected by oob oba baz
+            set = index.similar("foobaz", 0, 1);
+            assertEquals(1, set.size());
+            assertEquals("http://example.org/foobaz", set.iterator().next().getLabel());
+        } finally {
+            TextIndex.FREQUENT_GRAM = f;
+            TextIndex.FREQUENT_GRAM_MIN = min;
+        }
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        String[] queries = {
+            "select * where { ?x us:name ?n filter contains(?n, 'foo') }",
+            "select * where { ?x us:name ?n filter strstarts(?n, 'Foo') }",
+            "select * where { ?x us:name ?n filter contains(?n, 'example') }",
+            "select * where { ?x us:name ?n filter regex(?n, '^bar', 'i') }",
+            "select * where { ?x us:name ?n filter regex(?n, 'o+bar$') }",
+            "select * where { ?x us:name ?n filter regex(?n, 'fo|ba') }",
+            "select * where { ?x us:name ?n filter langMatches(lang(?n), 'en') }",
+            "select * where { ?x us:name ?n filter langMatches(lang(?n), 'EN-us') }",
+            "select * where { ?x us:name ?n filter contains(?n, '123') }",
+            "select * where { ?x us:name ?n filter (contains(?n, 'foo') && langMatches(lang(?n), 'en')) }",
+            "select * where { ?x us:name ?n filter (contains(?n, 'foo') || contains(?n, 'bar')) }",
+            "select * where { ?x us:name ?n filter (!contains(?n, 'foo')) }",
+            "select * where { graph ?g { ?x us:name ?n filter contains(?n, 'oba') } }",
+            "select * from us:g where { ?x us:name ?n filter contains(?n, 'oba') }",
+            "select * where { ?x us:name ?n optional { ?y us:name ?m filter contains(?m, 'rre') } }",
+            "select * where { ?x us:name ?n filter contains(?n, 'foo') filter contains(?n, 'bar') }"
+        };
+        try {
+            for (String q : queries) {
+                ProducerImpl.TEXT_INDEX = false;
+                Mappings std = exec.query(PREFIX + q);
+                ProducerImpl.TEXT_INDEX = true;
+                Mappings map = exec.query(PREFIX + q);
+                assertEquals(q, std.size(), map.size());
+            }
+        } finally {
+            ProducerImpl.TEXT_INDEX = false;
+        }
+        assertTrue(g.getTextIndex(P) != null);
+        assertNull(g.getTextIndex("http://example.org/other"));
+    }
+
+}
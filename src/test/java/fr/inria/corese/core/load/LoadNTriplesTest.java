@@ -0,0 +1,196 @@
+package fr.inria.corese.core.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.api.Loader;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * N-Triples and N-Quads parser must return same graph as SPARQL parser
+ * testLarge compare both parsers on large N-Triples document
+ * testBenchmark time both parsers (ignored by default)
+ */
+public class LoadNTriplesTest {
+
+    private static Logger logger = LoggerFactory.getLogger(LoadNTriplesTest.class);
+
+    static final String nt = "# comment\n"
+            + "<http://ex.org/a> <http://ex.org/p> <http://ex.org/b> .\n"
+            + "<http://ex.org/a> <http://ex.org/p> \"text\" .\n"
+            + "\n"
+            + "<http://ex.org/a> <http://ex.org/p> \"texte\"@fr .\n"
+            + "<http://ex.org/a> <http://ex.org/q> \"10\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n"
+            + "<http://ex.org/a> <http://ex.org/q> \"tab\\t \\\"quote\\\" \\u00E9\" . # comment\n"
+            + "_:b1 <http://ex.org/p> _:b2 .\r\n"
+            + "_:b2 <http://ex.org/p> <http://ex.org/\\u00E9> .\n"
+            + "<http://ex.org/c><http://ex.org/p>_:b1.\n";
+
+    // RDF-star triple term is parsed by SPARQL parser
+    static final String star = nt
+            + "<<<http://ex.org/a> <http://ex.org/p> <http://ex.org/b>>> <http://ex.org/r> _:b1 .\n"
+            + "<<<http://ex.org/c> <http://ex.org/p> _:b2>> <http://ex.org/r> _:b1 .\n";
+
+    static final String nq = nt
+            + "<http://ex.org/a> <http://ex.org/p> <http://ex.org/b> <http://ex.org/g1> .\n"
+            + "<http://ex.org/a> <http://ex.org/p> \"text\"@en <http://ex.org/g1> .\n"
+            + "_:b1 <http://ex.org/p> <http://ex.org/b> _:g2 .\n";
+
+    Graph load(String str, Loader.format format, boolean parser) throws LoadException {
+        boolean b = Load.NTRIPLES_PARSER;
+        Load.NTRIPLES_PARSER = parser;
+        try {
+            Graph g = Graph.create();
+            Load.create(g).loadString(str, format);
+            return g;
+        } finally {
+            Load.NTRIPLES_PARSER = b;
+        }
+    }
+
+    @Test
+    public void testNTriples() throws LoadException, EngineException {
+        Graph g1 = load(nt, Loader.format.NT_FORMAT, true);
+        Graph g2 = load(nt, Loader.format.NT_FORMAT, false);
+        assertEquals(g2.size(), g1.size());
+        assertTrue(g1.compare(g2));
+
+        QueryProcess exec = QueryProcess.create(g1);
+        Mappings map = exec.query("select * where {?s ?p ?o filter (lang(?o) = 'fr')}");
+        assertEquals(1, map.size());
+        map = exec.query("select * where {?s ?p ?o filter (?o = 'tab\\t \"quote\" é')}");
+        assertEquals(1, map.size());
+        map = exec.query("select * where {?x <http://ex.org/p> ?y . ?y <http://ex.org/p> <http://ex.org/é>}");
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testStar() throws LoadException, EngineException {
+        Graph g1 = load(star, Loader.format.NT_FORMAT, true);
+        Graph g2 = load(star, Loader.format.NT_FORMAT, false);
+        assertEquals(g2.size(), g1.size());
+
+        QueryProcess exec = QueryProcess.create(g1);
+        Mappings map = exec.query("select * where {"
+                + "<< <http://ex.org/a> <http://ex.org/p> <http://ex.org/b> >> <http://ex.org/r> ?x . ?x <http://ex.org/p> ?y}");
+        assertEquals(1, map.size());
+        // second line parsed by the same SPARQL parser
+        map = exec.query("select * where {"
+                + "<< <http://ex.org/c> <http://ex.org/p> ?b >> <http://ex.org/r> ?x . ?x <http://ex.org/p> ?b}");
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testNQuads() throws LoadException, EngineException {
+        Graph g1 = load(nq, Loader.format.NQUADS_FORMAT, true);
+        Graph g2 = load(nq, Loader.format.NQUADS_FORMAT, false);
+        assertEquals(g2.size(), g1.size());
+        assertTrue(g1.compare(g2));
+
+        QueryProcess exec = QueryProcess.create(g1);
+        Mappings map = exec.query("select * where {graph <http://ex.org/g1> {?s ?p ?o}}");
+        assertEquals(2, map.size());
+        map = exec.query("select * where {graph ?g {?s ?p ?o} filter isBlank(?g)}");
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Excluded predicate: no property node is created
+     */
+    @Test
+    public void testExclude() throws LoadException {
+        boolean b = Load.NTRIPLES_PARSER;
+        Load.NTRIPLES_PARSER = true;
+        try {
+            Graph g = Graph.create();
+            Load ld = Load.create(g);
+            ld.exclude("http://ex.org/q");
+            ld.loadString(nt, Loader.format.NT_FORMAT);
+            assertEquals(6, g.size());
+            assertNotNull(g.getPropertyNode("http://ex.org/p"));
+            assertNull(g.getPropertyNode("http://ex.org/q"));
+        } finally {
+            Load.NTRIPLES_PARSER = b;
+        }
+    }
+
+    String large(int size) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sb.append(String.format("<http://ex.org/s%s> <http://ex.org/p%s> <http://ex.org/o%s> .\n", i / 10, i % 20, i));
+            sb.append(String.format("<http://ex.org/s%s> <http://ex.org/name> \"name %s\"@en .\n", i / 10, i));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testLarge() throws LoadException, EngineException {
+        int size = 100000;
+        String str = large(size);
+        Graph g1 = load(str, Loader.format.NT_FORMAT, true);
+        Graph g2 = load(str, Loader.format.NT_FORMAT, false);
+        assertEquals(2 * size, g1.size());
+        assertEquals(g2.size(), g1.size());
+        String q = "select * where {<http://ex.org/s42> ?p ?o}";
+        assertEquals(20, QueryProcess.create(g1).query(q).size());
+        assertEquals(20, QueryProcess.create(g2).query(q).size());
+    }
+
+    /**
+     * N-Triples parser vs SPARQL parser (LoadTurtle) in triples/s
+     * timings are reported by the logger
+     */
+    @Ignore("benchmark")
+    @Test
+    public void testBenchmark() throws LoadException {
+        int size = 500000;
+        String str = large(size);
+        // warm up
+        load(str, Loader.format.NT_FORMAT, true);
+        load(str, Loader.format.NT_FORMAT, false);
+
+        long t1 = System.currentTimeMillis();
+        Graph g1 = load(str, Loader.format.NT_FORMAT, true);
+        long t2 = System.currentTimeMillis();
+        Graph g2 = load(str, Loader.format.NT_FORMAT, false);
+        long t3 = System.currentTimeMillis();
+
+        logger.info("load {} triples: N-Triples parser {} triples/s ; SPARQL parser {} triples/s",
+                g1.size(), rate(g1.size(), t2 - t1), rate(g2.size(), t3 - t2));
+        assertEquals(g2.size(), g1.size());
+    }
+
+    long rate(int size, long time) {
+        return 1000L * size / Math.max(1, time);
+    }
+
+    @Test
+    public void testEscapeError() {
+        String[] lines = {
+            "<http://ex.org/a> <http://ex.org/p> \"\\u00G9\" .\n",
+            "<http://ex.org/a> <http://ex.org/p> \"\\u00E\" .\n",
+            "<http://ex.org/\\U0000+0E9> <http://ex.org/p> \"e\" .\n",
+            "<http://ex.org/a> <http://ex.org/p> \"\\UFFFFFFFF\" .\n"
+        };
+        for (String line : lines) {
+            try {
+                load("<http://ex.org/a> <http://ex.org/p> \"\\u00E9\" .\n" + line, Loader.format.NT_FORMAT, true);
+                fail(line);
+            } catch (LoadException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("line 2:"));
+            }
+        }
+    }
+
+}
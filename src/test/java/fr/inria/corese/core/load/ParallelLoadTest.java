@@ -0,0 +1,114 @@
+package fr.inria.corese.core.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Parallel load of large N-Triples and N-Quads files must return same graph
+ * as sequential load
+ */
+public class ParallelLoadTest {
+
+    File create(int size, boolean nquad, boolean blank) throws IOException {
+        File file = File.createTempFile("corese", nquad ? ".nq" : ".nt");
+        file.deleteOnExit();
+        try (Writer w = new FileWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                String g = nquad ? String.format(" <http://ex.org/g%s>", i % 3) : "";
+                w.write(String.format("<http://ex.org/s%s> <http://ex.org/p%s> <http://ex.org/o%s>%s .\n", i / 10, i % 20, i, g));
+                w.write(String.format("<http://ex.org/s%s> <http://ex.org/name> \"name %s\"@en%s .\n", i / 10, i % 1000, g));
+                if (blank) {
+                    w.write(String.format("_:b%s <http://ex.org/value> \"%s\"^^<http://www.w3.org/2001/XMLSchema#integer>%s .\n", i / 5, i % 100, g));
+                    w.write(String.format("<http://ex.org/s%s> <http://ex.org/link> _:b%s%s .\n", i / 10, i / 5, g));
+                }
+            }
+        }
+        return file;
+    }
+
+    Graph load(File file, int thread) throws LoadException {
+        Graph g = Graph.create();
+        Load ld = Load.create(g);
+        ld.setParallel(thread);
+        ld.parse(file.getAbsolutePath());
+        return g;
+    }
+
+    @Test
+    public void testNTriples() throws IOException, LoadException {
+        File file = create(20000, false, false);
+        Graph g1 = load(file, 1);
+        Graph g2 = load(file, 4);
+
+        // sort and reduce edge lists
+        g1.init();
+        g2.init();
+        assertEquals(g1.size(), g2.size());
+        assertTrue(g1.compare(g2));
+        // nodes created by several threads are shared
+        assertEquals(g1.nbResources(), g2.nbResources());
+        assertEquals(g1.nbLiterals(), g2.nbLiterals());
+        assertEquals(g1.nbNodes(), g2.nbNodes());
+    }
+
+    /**
+     * Parallel load in a graph that already has edges
+     */
+    @Test
+    public void testMerge() throws IOException, LoadException, EngineException {
+        File file = create(20000, false, true);
+        Graph g1 = Graph.create();
+        Graph g2 = Graph.create();
+        for (Graph g : new Graph[]{g1, g2}) {
+            QueryProcess.create(g).query(
+                    "insert data { <http://ex.org/s0> <http://ex.org/name> 'name 0'@en, 'other' }");
+            Load ld = Load.create(g);
+            ld.setParallel((g == g1) ? 1 : 4);
+            ld.parse(file.getAbsolutePath());
+            g.init();
+        }
+        // blank node labels differ: compare sizes and query results
+        assertEquals(g1.size(), g2.size());
+        assertEquals(g1.nbBlanks(), g2.nbBlanks());
+
+        String q = "select * where { <http://ex.org/s0> <http://ex.org/name> ?o }";
+        // name 0 .. name 9 and other
+        assertEquals(11, QueryProcess.create(g2).query(q).size());
+        q = "select (count(*) as ?c) where { ?s <http://ex.org/link> ?b . ?b <http://ex.org/value> ?v }";
+        assertEquals(QueryProcess.create(g1).query(q).getValue("?c").intValue(),
+                QueryProcess.create(g2).query(q).getValue("?c").intValue());
+    }
+
+    @Test
+    public void testNQuads() throws IOException, LoadException, EngineException {
+        File file = create(20000, true, true);
+        Graph g1 = load(file, 1);
+        Graph g2 = load(file, 4);
+        g1.init();
+        g2.init();
+        assertEquals(g1.size(), g2.size());
+
+        String q = "select * where {graph <http://ex.org/g1> {?s ?p ?o}}";
+        Mappings m1 = QueryProcess.create(g1).query(q);
+        Mappings m2 = QueryProcess.create(g2).query(q);
+        assertTrue(m1.size() > 0);
+        assertEquals(m1.size(), m2.size());
+
+        // blank nodes are shared by threads
+        q = "select distinct ?b where {?s <http://ex.org/link> ?b . ?b <http://ex.org/value> ?v}";
+        assertEquals(4000, QueryProcess.create(g2).query(q).size());
+    }
+
+}
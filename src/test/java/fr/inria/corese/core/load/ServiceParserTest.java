@@ -0,0 +1,56 @@
+package fr.inria.corese.core.load;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.kgram.core.Query;
+import fr.inria.corese.core.print.ResultFormat;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * SPARQL XML result parsed from a stream must return same Mappings
+ * as result parsed from a String
+ */
+public class ServiceParserTest {
+
+    @Test
+    public void testStream() throws EngineException, LoadException {
+        StringBuilder sb = new StringBuilder("insert data {");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(String.format("us:s%s us:p us:o%s ; us:q %s, 'text %s'@en .", i, i % 10, i, i));
+        }
+        sb.append("}");
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        exec.query(sb.toString());
+
+        String q = "select * where {?s us:p ?o ; us:q ?v}";
+        Query query = exec.compile(q);
+        Mappings map = exec.query(q);
+        String str = ResultFormat.create(map, ResultFormat.SPARQL_RESULTS_XML).toString();
+
+        ServiceParser parser = new ServiceParser("http://example.org/sparql");
+        ServiceReport report = new ServiceReport();
+        report.setURL(parser.getURL());
+        parser.setReport(report);
+        parser.setFormat(ResultFormat.SPARQL_RESULTS_XML);
+        Mappings m1 = parser.parseMapping(query, q, str, ServiceParser.ENCODING);
+        Mappings m2 = parser.parseMapping(query, q,
+                new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8)), ServiceParser.ENCODING);
+
+        assertEquals(2000, m1.size());
+        assertEquals(m1.size(), m2.size());
+        assertEquals(m1.getSelect().size(), m2.getSelect().size());
+        for (int i = 0; i < m1.size(); i++) {
+            assertEquals(m1.get(i).getValue("?v"), m2.get(i).getValue("?v"));
+        }
+    }
+
+}
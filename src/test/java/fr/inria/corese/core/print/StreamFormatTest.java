@@ -0,0 +1,83 @@
+package fr.inria.corese.core.print;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.core.Mappings;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.api.ResultFormatDef;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Formats written into a Writer must be the same as their toString()
+ */
+public class StreamFormatTest {
+
+    static final String LONG = "a long literal value to fill the buffer of the writer more than once";
+
+    Graph init() throws EngineException {
+        Graph g = Graph.create();
+        QueryProcess exec = QueryProcess.create(g);
+        StringBuilder sb = new StringBuilder("insert data {");
+        for (int i = 0; i < 2000; i++) {
+            // namespace without prefix: printer define one in the header
+            sb.append(String.format("<http://example.org/ns/s%s> us:p %s, '%s %s'@en ; a us:C%s . ",
+                    i, i, LONG, i, i % 5));
+            if (i % 10 == 0) {
+                sb.append(String.format("graph us:g%s { us:s%s us:q _:b%s . _:b%s us:r '\"%s\"' } ",
+                        i % 3, i, i, i, i));
+            }
+        }
+        exec.query(sb.append("}").toString());
+        return g;
+    }
+
+    String write(RDFFormat ft) throws IOException {
+        StringWriter sw = new StringWriter();
+        ft.write(sw);
+        return sw.toString();
+    }
+
+    @Test
+    public void testGraph() throws EngineException, IOException {
+        Graph g = init();
+        // write first: header must not depend on a previous toString()
+        assertEquals(RDFFormat.create(g).toString(), write(RDFFormat.create(g)));
+        String str = write(TripleFormat.create(g));
+        assertEquals(TripleFormat.create(g).toString(), str);
+        assertEquals(write(TripleFormat.create(g, true)), TripleFormat.create(g, true).toString());
+        assertEquals(write(TripleFormat.create(g).setNbTriple(100)), TripleFormat.create(g).setNbTriple(100).toString());
+        assertEquals(write(NTriplesFormat.create(g)), NTriplesFormat.create(g).toString());
+        assertEquals(write(NQuadsFormat.create(g)), NQuadsFormat.create(g).toString());
+    }
+
+    @Test
+    public void testResult() throws EngineException, IOException {
+        Graph g = init();
+        QueryProcess exec = QueryProcess.create(g);
+        for (String q : new String[] {
+            "select * where { ?s us:p ?v optional { ?s us:q ?b } } order by ?v",
+            "ask { ?s us:q ?b }",
+            "construct where { ?s us:q ?b . ?b ?p ?o }" }) {
+            Mappings map = exec.query(q);
+            for (ResultFormatDef.format ft : new ResultFormatDef.format[] {
+                ResultFormatDef.format.XML_FORMAT, ResultFormatDef.format.JSON_FORMAT,
+                ResultFormatDef.format.CSV_FORMAT, ResultFormatDef.format.TSV_FORMAT,
+                ResultFormatDef.format.TURTLE_FORMAT, ResultFormatDef.format.NTRIPLES_FORMAT }) {
+                if (map.getQuery().isConstruct() != (ft == ResultFormatDef.format.TURTLE_FORMAT
+                        || ft == ResultFormatDef.format.NTRIPLES_FORMAT)) {
+                    continue;
+                }
+                StringWriter sw = new StringWriter();
+                ResultFormat.create(map, ft).write(sw);
+                assertEquals(q + " " + ft, ResultFormat.create(map, ft).toString(), sw.toString());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package fr.inria.corese.core.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Service scheduler: interrupted request, pool size change
+ */
+public class ServiceSchedulerTest {
+
+    static final String SERVER = "http://example.org/sparql";
+
+    @Test
+    public void testInterrupt() throws Exception {
+        ServiceScheduler scheduler = new ServiceScheduler(2, 1);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch end = new CountDownLatch(1);
+        // hold the only permit of the endpoint
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() ->
+                scheduler.request(SERVER, () -> {
+                    start.countDown();
+                    try {
+                        end.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "done";
+                }));
+        try {
+            start.await();
+            AtomicBoolean run = new AtomicBoolean(false);
+            Thread.currentThread().interrupt();
+            String res = scheduler.request(SERVER, () -> {
+                run.set(true);
+                return "skip";
+            });
+            // clear interrupt flag
+            assertTrue(Thread.interrupted());
+            assertNull(res);
+            assertFalse(run.get());
+        } finally {
+            end.countDown();
+        }
+        assertEquals("done", holder.get());
+        assertEquals("ok", scheduler.request(SERVER, () -> "ok"));
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testThreadMax() {
+        int max = ServiceScheduler.THREAD_MAX;
+        try {
+            ServiceScheduler s1 = ServiceScheduler.getSingleton();
+            assertSame(s1, ServiceScheduler.getSingleton());
+            ServiceScheduler.THREAD_MAX = max + 1;
+            ServiceScheduler s2 = ServiceScheduler.getSingleton();
+            assertNotSame(s1, s2);
+            assertEquals(max + 1, s2.getThreadMax());
+            assertSame(s2, ServiceScheduler.getSingleton());
+        } finally {
+            ServiceScheduler.THREAD_MAX = max;
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+package fr.inria.corese.core.shacl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.api.Loader;
+import fr.inria.corese.core.kgram.api.core.Edge;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.load.Load;
+import fr.inria.corese.core.load.LoadException;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.api.IDatatype;
+import fr.inria.corese.core.sparql.datatype.DatatypeMap;
+import fr.inria.corese.core.sparql.exceptions.EngineException;
+
+/**
+ * Native SHACL Core validator must return same validation results as the
+ * interpreter
+ */
+public class ShaclNativeTest {
+
+    static final String PREFIX = "@prefix sh: <http://www.w3.org/ns/shacl#> ."
+            + "@prefix us: <http://example.org/> ."
+            + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> ."
+            + "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .";
+
+    static final String DATA = "us:a a us:Person ; us:name 'Al', 'Bob' ; us:age 200 ; us:knows us:b, [ us:name 'x' ] ;"
+            + "  us:label 'a'@en, 'b'@en, 'c'@fr ; us:start 10 ; us:end 5 ; us:code 'AB-12' ."
+            + "us:b a us:Student ; us:name 12 ; us:knows us:c ; us:age 20 ; us:code 'zz' ; us:start 1 ; us:end 3 ."
+            + "us:c us:name 'C' ; us:knows us:a ; us:same us:c ; us:label 'hi'@en-US ."
+            + "us:Student rdfs:subClassOf us:Person .";
+
+    static final String[] shapes = {
+        "us:PersonShape a sh:NodeShape ; sh:targetClass us:Person ;"
+        + "  sh:property [ sh:path us:name ; sh:minCount 1 ; sh:maxCount 1 ; sh:datatype xsd:string ] ;"
+        + "  sh:property [ sh:path us:age ; sh:maxInclusive 150 ; sh:minExclusive 18 ; sh:message 'bad age' ] ;"
+        + "  sh:property [ sh:path (us:knows us:name) ; sh:minLength 2 ; sh:maxLength 2 ] ;"
+        + "  sh:property [ sh:path [sh:inversePath us:knows] ; sh:class us:Person ; sh:severity sh:Warning ] ;"
+        + "  sh:property [ sh:path us:label ; sh:uniqueLang true ; sh:languageIn ('en') ] ;"
+        + "  sh:property [ sh:path us:code ; sh:pattern '^[A-Z]+-' ; sh:in ('AB-12' 'CD') ] ;"
+        + "  sh:property [ sh:path us:start ; sh:lessThan us:end ] ;"
+        + "  sh:property [ sh:path us:knows ; sh:nodeKind sh:IRI ; sh:node us:NameShape ; sh:disjoint us:same ] .",
+
+        "us:NameShape sh:property [ sh:path us:name ; sh:datatype xsd:string ] ."
+        + "us:S a sh:NodeShape ; sh:targetSubjectsOf us:knows ;"
+        + "  sh:or ( [ sh:class us:Student ] [ sh:property [ sh:path us:age ; sh:minCount 1 ] ] ) ;"
+        + "  sh:not [ sh:property [ sh:path us:same ; sh:minCount 1 ] ] ;"
+        + "  sh:closed true ; sh:ignoredProperties ( us:knows us:name ) ;"
+        + "  sh:property [ sh:path us:knows ; sh:qualifiedValueShape [ sh:class us:Person ] ; sh:qualifiedMinCount 2 ] ;"
+        + "  sh:property [ sh:path [ sh:zeroOrMorePath us:knows ] ; sh:hasValue us:c ; sh:xone ( [ sh:nodeKind sh:IRI ] [ sh:class us:Person ] ) ] .",
+
+        "us:T a sh:NodeShape ; sh:targetNode us:a, us:c, us:z ; sh:nodeKind sh:BlankNode ;"
+        + "  sh:equals us:same ; sh:property us:P ."
+        + "us:P sh:path [ sh:alternativePath ( us:knows [ sh:oneOrMorePath us:same ] ) ] ;"
+        + "  sh:property [ sh:path us:name ; sh:minCount 1 ] ; sh:and ( [ sh:nodeKind sh:IRI ] [ sh:hasValue us:c ] ) ."
+    };
+
+    @Test
+    public void testNative() throws EngineException, LoadException {
+        boolean b = Shacl.NATIVE;
+        try {
+            for (String shape : shapes) {
+                Graph g = Graph.create();
+                Load ld = Load.create(g);
+                ld.loadString(PREFIX + DATA + shape, Loader.format.TURTLE_FORMAT);
+
+                Shacl.NATIVE = false;
+                Shacl shacl = new Shacl(g);
+                Graph r1 = shacl.eval();
+                Shacl.NATIVE = true;
+                Graph r2 = shacl.eval();
+
+                assertTrue(shape, shacl.nbResult(r1) > 0);
+                assertEquals(shape, shacl.conform(r1), shacl.conform(r2));
+                assertEquals(shape, shacl.nbResult(r1), shacl.nbResult(r2));
+                assertEquals(shape, describe(r1), describe(r2));
+
+                IDatatype node = DatatypeMap.newResource("http://example.org/a");
+                Shacl.NATIVE = false;
+                r1 = shacl.node(node);
+                Shacl.NATIVE = true;
+                r2 = shacl.node(node);
+                assertEquals(shape, describe(r1), describe(r2));
+            }
+        } finally {
+            Shacl.NATIVE = b;
+        }
+    }
+
+    /**
+     * Parallel validation must return same validation results as sequential
+     * validation
+     */
+    @Test
+    public void testParallel() throws EngineException, LoadException {
+        StringBuilder sb = new StringBuilder(PREFIX);
+        for (int i = 0; i < 500; i++) {
+            sb.append(String.format("us:p%s a us:Person ; us:name 'n%s' ; us:age %s ; us:knows us:p%s . ",
+                    i, i % 3 == 0 ? "" : i, i % 200, (i * 7) % 500));
+        }
+        Graph g = Graph.create();
+        Load.create(g).loadString(sb.toString() + shapes[0], Loader.format.TURTLE_FORMAT);
+        boolean b = Shacl.NATIVE;
+        boolean p = Shacl.PARALLEL;
+        int n = ShaclValidator.PARALLEL_THREAD;
+        try {
+            Shacl shacl = new Shacl(g);
+            Shacl.NATIVE = true;
+            Graph r1 = shacl.eval();
+            Shacl.PARALLEL = true;
+            ShaclValidator.PARALLEL_THREAD = 4;
+            Graph r2 = shacl.eval();
+            assertTrue(shacl.nbResult(r1) > 0);
+            assertEquals(shacl.nbResult(r1), shacl.nbResult(r2));
+            assertEquals(describe(r1), describe(r2));
+        } finally {
+            Shacl.NATIVE = b;
+            Shacl.PARALLEL = p;
+            ShaclValidator.PARALLEL_THREAD = n;
+        }
+    }
+
+    static final String[] updates = {
+        "insert data { us:c a us:Person ; us:age 300 }",
+        "delete data { us:a us:name 'Bob' }",
+        // value node at path length 2
+        "insert data { us:b us:name 'B' }",
+        "delete data { us:b us:name 'B' ; us:name 12 }",
+        "delete where { us:a us:knows ?x }",
+        "insert data { us:d a us:Student ; us:knows us:c ; us:label 'x'@de }",
+        "delete data { us:c a us:Person }",
+        "insert data { us:Employee rdfs:subClassOf us:Person . us:e a us:Employee }"
+    };
+
+    /**
+     * Incremental validation after update must return same results as
+     * validation of updated graph
+     */
+    @Test
+    public void testIncremental() throws EngineException, LoadException {
+        Graph g = Graph.create();
+        Load.create(g).loadString(PREFIX + DATA, Loader.format.TURTLE_FORMAT);
+        Graph shape = Graph.create();
+        Load.create(shape).loadString(PREFIX + shapes[0], Loader.format.TURTLE_FORMAT);
+        ShaclIncremental shacl = new ShaclIncremental(g, shape);
+        Graph report = shacl.validate();
+        assertEquals(describe(new ShaclValidator(g, shape).validate()), describe(report));
+        QueryProcess exec = QueryProcess.create(g);
+        for (String update : updates) {
+            exec.query(PREFIX.replace("@prefix", "prefix").replace(" .", " ") + update);
+            report = shacl.update();
+            Graph res = new ShaclValidator(g, shape).validate();
+            assertEquals(update, describe(res), describe(report));
+            assertEquals(update, new Shacl(g).nbResult(res), shacl.nbResult());
+        }
+    }
+
+    /**
+     * More than CHANGE_MAX changed nodes: update() validates the whole graph
+     */
+    @Test
+    public void testIncrementalMax() throws EngineException, LoadException {
+        int max = ShaclIncremental.CHANGE_MAX;
+        try {
+            ShaclIncremental.CHANGE_MAX = 2;
+            Graph g = Graph.create();
+            Load.create(g).loadString(PREFIX + DATA, Loader.format.TURTLE_FORMAT);
+            Graph shape = Graph.create();
+            Load.create(shape).loadString(PREFIX + shapes[0], Loader.format.TURTLE_FORMAT);
+            ShaclIncremental shacl = new ShaclIncremental(g, shape);
+            shacl.validate();
+            QueryProcess exec = QueryProcess.create(g);
+            exec.query(PREFIX.replace("@prefix", "prefix").replace(" .", " ") + updates[0] + ";" + updates[1]);
+            // changed nodes are not recorded
+            assertEquals(0, shacl.nbChange());
+            Graph report = shacl.update();
+            Graph res = new ShaclValidator(g, shape).validate();
+            assertEquals(describe(res), describe(report));
+        } finally {
+            ShaclIncremental.CHANGE_MAX = max;
+        }
+    }
+
+    /**
+     * close() stops listening to graph changes, update() listens again
+     */
+    @Test
+    public void testIncrementalClose() throws EngineException, LoadException {
+        Graph g = Graph.create();
+        Load.create(g).loadString(PREFIX + DATA, Loader.format.TURTLE_FORMAT);
+        Graph shape = Graph.create();
+        Load.create(shape).loadString(PREFIX + shapes[0], Loader.format.TURTLE_FORMAT);
+        int[] count = new int[1];
+        ShaclIncremental shacl = new ShaclIncremental(g, shape) {
+            @Override
+            public synchronized void onBulkEdgeChange(List<Edge> delete, List<Edge> insert) {
+                count[0]++;
+                super.onBulkEdgeChange(delete, insert);
+            }
+        };
+        shacl.validate();
+        QueryProcess exec = QueryProcess.create(g);
+        String prefix = PREFIX.replace("@prefix", "prefix").replace(" .", " ");
+        exec.query(prefix + updates[0]);
+        assertTrue(count[0] > 0);
+        shacl.update();
+        shacl.close();
+        count[0] = 0;
+        exec.query(prefix + updates[1]);
+        assertEquals(0, count[0]);
+        // whole graph is validated again
+        Graph report = shacl.update();
+        assertEquals(describe(new ShaclValidator(g, shape).validate()), describe(report));
+        exec.query(prefix + updates[2]);
+        assertTrue(count[0] > 0);
+        shacl.close();
+    }
+
+    /**
+     * Sorted description of validation results, result URI apart
+     */
+    List<String> describe(Graph g) {
+        List<String> list = new ArrayList<>();
+        for (Edge res : g.getEdges("http://www.w3.org/ns/shacl#result")) {
+            Node node = res.getNode(1);
+            List<String> desc = new ArrayList<>();
+            for (Edge edge : g.getEdges(node, 0)) {
+                desc.add(edge.getEdgeLabel() + " " + edge.getNode(1).getDatatypeValue().toSparql());
+            }
+            Collections.sort(desc);
+            list.add(desc.toString());
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+}
@@ -0,0 +1,139 @@
+package fr.inria.corese.core.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import fr.inria.corese.core.Graph;
+import fr.inria.corese.core.kgram.api.core.Node;
+import fr.inria.corese.core.query.QueryProcess;
+import fr.inria.corese.core.sparql.api.IDatatype;
+
+/**
+ * Template cache: same result with and without cache, loop check of the
+ * template stack, visited nodes, invalidation when the graph is updated
+ */
+public class TemplateCacheTest {
+
+    static final String PREFIX = "prefix us: <http://example.org/> ";
+
+    /**
+     * Chain of diamonds: n0 -> l0, r0 -> n1 -> l1, r1 -> n2 ...
+     * us:node is called twice on each ni
+     */
+    Graph init(int n) throws Exception {
+        Graph g = Graph.create();
+        StringBuilder sb = new StringBuilder(PREFIX + "insert data {");
+        for (int i = 0; i < n; i++) {
+            sb.append(String.format(" us:n%d us:p us:l%d, us:r%d . us:l%d us:p us:n%d . us:r%d us:p us:n%d .",
+                    i, i, i, i, i + 1, i, i + 1));
+        }
+        QueryProcess.create(g).query(sb.append(" }").toString());
+        return g;
+    }
+
+    String templates() throws Exception {
+        File dir = Files.createTempDirectory("template").toFile();
+        dir.deleteOnExit();
+        write(new File(dir, "start.rq"), PREFIX
+                + "template st:start { st:call-template(us:node, us:n0) } where {}");
+        write(new File(dir, "node.rq"), PREFIX
+                + "template us:node(?x) { ?x '(' group { st:call-template(us:node, ?y) } ')' } "
+                + "where { optional { ?x us:p ?y } }");
+        return dir.getAbsolutePath() + "/";
+    }
+
+    void write(File file, String str) throws Exception {
+        Files.writeString(file.toPath(), str);
+        file.deleteOnExit();
+    }
+
+    String transform(Graph g, String path, boolean cache) throws Exception {
+        boolean b = Transformer.TEMPLATE_CACHE;
+        try {
+            Transformer.TEMPLATE_CACHE = cache;
+            return Transformer.createWE(g, path).transform();
+        } finally {
+            Transformer.TEMPLATE_CACHE = b;
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Graph g = init(6);
+        String path = templates();
+        String std = transform(g, path, false);
+        assertEquals(std, transform(g, path, true));
+
+        boolean b = Transformer.TEMPLATE_CACHE;
+        try {
+            Transformer.TEMPLATE_CACHE = true;
+            Transformer t = Transformer.createWE(g, path);
+            assertEquals(std, t.transform());
+            TemplateCache cache = t.getTemplateCache();
+            // second call of us:node on n1 .. n6
+            assertEquals(6, cache.getHit());
+            assertTrue(cache.size() > 0);
+
+            // loop n6 -> n3: results computed with n3 in the stack are not
+            // reused outside
+            QueryProcess.create(g).query(PREFIX + "insert data { us:n6 us:p us:n3 }");
+            String res = t.transform();
+            assertTrue(!res.equals(std));
+            assertEquals(transform(g, path, false), res);
+        } finally {
+            Transformer.TEMPLATE_CACHE = b;
+        }
+    }
+
+    /**
+     * Nodes visited while a cached result was computed are visited again
+     * when it is reused
+     */
+    @Test
+    public void testVisit() throws Exception {
+        Graph g = init(4);
+        String path = templates();
+        boolean b = Transformer.TEMPLATE_CACHE;
+        try {
+            Transformer.TEMPLATE_CACHE = false;
+            Transformer t1 = Transformer.createWE(g, path);
+            String std = t1.transform();
+            Transformer.TEMPLATE_CACHE = true;
+            Transformer t2 = Transformer.createWE(g, path);
+            assertEquals(std, t2.transform());
+            assertEquals(4, t2.getTemplateCache().getHit());
+            int n = 0;
+            for (Node node : g.getNodes()) {
+                IDatatype dt = node.getDatatypeValue();
+                assertEquals(dt.getLabel(), t1.isVisited(dt), t2.isVisited(dt));
+                if (t2.isVisited(dt)) {
+                    n++;
+                }
+            }
+            assertTrue(n > 0);
+        } finally {
+            Transformer.TEMPLATE_CACHE = b;
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        Graph g = init(2);
+        boolean b = Transformer.TEMPLATE_CACHE;
+        try {
+            Transformer.TEMPLATE_CACHE = false;
+            Transformer t = Transformer.createWE(g, templates());
+            t.transform();
+            assertNull(t.getTemplateCache());
+        } finally {
+            Transformer.TEMPLATE_CACHE = b;
+        }
+    }
+
+}